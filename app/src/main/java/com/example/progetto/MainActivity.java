@@ -6,16 +6,27 @@ import android.annotation.SuppressLint;
 import android.app.ActivityManager;
 import android.content.Context;
 import android.content.pm.ConfigurationInfo;
+import android.graphics.Color;
+import android.graphics.Typeface;
 import android.opengl.GLSurfaceView;
 import android.os.Bundle;
 import android.util.Log;
+import android.view.Gravity;
+import android.view.ViewGroup;
 import android.view.Window;
 import android.view.WindowManager;
+import android.widget.FrameLayout;
+import android.widget.TextView;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Objects;
 
 import com.example.progetto.game.GameRenderer;
 import com.example.progetto.game.LabyrinthGame;
+import com.example.progetto.game.StatsOverlay;
+import com.example.progetto.ogles.utils.AndroidPlatform;
+import com.example.progetto.ogles.utils.Tracer;
 
 /**
  * Classe della Main Activity.
@@ -29,6 +40,13 @@ public class MainActivity extends AppCompatActivity{
 
     private LabyrinthGame game;
 
+    private static final boolean SHOW_RENDER_STATS = false;   // overlay con le statistiche di rendering
+    private StatsOverlay statsOverlay;                        // null se disattivato
+
+    // tracing dall'avvio alla prima pausa, salvato in <external files>/trace.json
+    // (adb pull, poi aperto in ui.perfetto.dev)
+    private static final boolean TRACE = false;
+
     /**
      * CREAZIONE activity.
      *
@@ -44,6 +62,9 @@ public class MainActivity extends AppCompatActivity{
 
         Log.d("TAG", "onCreate");
 
+        AndroidPlatform.install();          // log e span del modulo core
+        if (TRACE) Tracer.start();
+
         // Full screen. Forzo lo screen orientation nel manifest
         requestWindowFeature(Window.FEATURE_NO_TITLE);
         getWindow().setFlags(WindowManager.LayoutParams.FLAG_FULLSCREEN,
@@ -78,29 +99,79 @@ public class MainActivity extends AppCompatActivity{
 
         // Creazione renderer
         GameRenderer renderer = new GameRenderer(game);
-        setContentView(surface);
+        if (SHOW_RENDER_STATS){
+            setContentView(createStatsLayout(renderer));
+        }else{
+            setContentView(surface);
+        }
         renderer.setContextAndSurface(this, surface);
         surface.setRenderer(renderer);   // crea thread
+        surface.setRenderMode(GLSurfaceView.RENDERMODE_WHEN_DIRTY);   // frame solo su richiesta
+                                                                     // (vedi RenderScheduler)
 
 
         isSurfaceCreated = true;
 
     }
 
+    /**
+     * Layout con la surface e, sopra, il testo dell'overlay delle statistiche di rendering.
+     *
+     * @param renderer Renderer di cui mostrare le statistiche
+     * @return Layout da usare come content view
+     */
+    private FrameLayout createStatsLayout(GameRenderer renderer){
+
+        FrameLayout layout = new FrameLayout(this);
+        layout.addView(surface);
+
+        TextView text = new TextView(this);
+        text.setTextColor(Color.WHITE);
+        text.setTextSize(11);
+        text.setTypeface(Typeface.MONOSPACE);
+        text.setBackgroundColor(Color.argb(128, 0, 0, 0));
+        text.setPadding(8, 8, 8, 8);
+        layout.addView(text, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT, Gravity.TOP | Gravity.START));
+
+        statsOverlay = new StatsOverlay(text, renderer.getRenderStats());
+
+        return layout;
+
+    }
+
+    /**
+     * Ferma il tracing e scrive il file JSON in un thread in background.
+     */
+    private void writeTrace(){
+
+        Tracer.stop();
+        final File file = new File(getExternalFilesDir(null), "trace.json");
+
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    int events = Tracer.writeJson(file);
+                    Log.d("TAG", "Trace: " + events + " eventi in " + file.getAbsolutePath());
+                } catch (IOException e) {
+                    Log.e("TAG", "Trace non salvato: " + e.getMessage());
+                }
+            }
+        }, "TraceWriter").start();
+
+    }
+
     /**
      * Chiamata dopo la onCreate().
      *
      * L'activity diventa VISIBILE all'utente (non ancora interattiva).
      *
-     * Faccio ripartire il TransitionTimerTask: il thread eseguirà tutti i task in coda.
-     *
      */
     @Override
     protected void onStart(){
         super.onStart();
         Log.d("TAG", "onStart");
-
-        game.getTransitionTimerTask().wakeup();
     }
 
     /**
@@ -118,6 +189,10 @@ public class MainActivity extends AppCompatActivity{
 
         if(isSurfaceCreated)
             surface.onResume();
+
+        game.onResume();        // thread della simulazione
+
+        if (statsOverlay != null) statsOverlay.start();
     }
 
     /**
@@ -128,17 +203,21 @@ public class MainActivity extends AppCompatActivity{
      * Se riapro l'app (dalle recenti o dall'icona):        onStart() --> onResume()
      *
      * Se premo HOME o OVERVIEW o BACK e rientro, l'applicazione mantiene il suo stato.
-     * Metto in sleep il TransitionTimerTask: il timer comunque continua a mettere in coda i task.
+     * Il thread della simulazione è fermato insieme alla surface.
      */
     @Override
     protected void onPause(){
         super.onPause();
         Log.d("TAG", "onPause");
 
+        game.onPause();
+
+        if (statsOverlay != null) statsOverlay.stop();
+
+        if (TRACE && Tracer.isEnabled()) writeTrace();
+
         if(isSurfaceCreated)
             surface.onPause();
-
-        game.getTransitionTimerTask().sleep();
     }
 
     /**
@@ -161,11 +240,7 @@ public class MainActivity extends AppCompatActivity{
     @Override
     protected void onDestroy(){
         Log.d("TAG", "onDestroy");
-        game.getTransitionTimerTask().cancel();  // terminazione thread del timer task
-        game.getTimer().cancel();                // termina il task cancellando i task schedulati
-        game.getTimer().purge();                 // rimuove tutti i task dalla sua coda
-        game.setTimer(null);
-        game.setTransitionTimerTask(null);
+        game.getLevelPipeline().shutdown();       // annulla la preparazione del livello in corso
         super.onDestroy();
     }
 
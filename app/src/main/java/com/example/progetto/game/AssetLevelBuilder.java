@@ -0,0 +1,155 @@
+package com.example.progetto.game;
+
+import android.content.Context;
+
+import com.example.progetto.R;
+import com.example.progetto.game.objects.Labyrinth3D;
+import com.example.progetto.game.objects.Map2D;
+import com.example.progetto.ogles.Geometry3D;
+import com.example.progetto.ogles.Texture;
+import com.example.progetto.ogles.shader.MaterialBasic;
+import com.example.progetto.ogles.shader.ShaderProgram;
+import com.example.progetto.ogles.utils.Tracer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Costruzione dei livelli a partire dagli asset dell'app (drawable e shader).
+ *
+ * Geometrie, texture e shader program (comune e istanziato) sono creati una sola volta (al primo
+ * livello) senza chiamate GL e poi condivisi da tutti i livelli; ogni livello ha invece i propri
+ * materiali, dato che Labyrinth3D e Map2D ne modificano lo scaling delle uv in funzione della
+ * dimensione.
+ *
+ * Usata solo dal worker thread del LevelPipeline.
+ */
+class AssetLevelBuilder implements LevelPipeline.LevelBuilder {
+
+    private final Context context;
+
+    // risorse condivise tra i livelli (create al primo build)
+    private Map<String, Geometry3D> geometries;
+    private Map<String, Texture> textures;
+    private ShaderProgram commonShaderProgram;
+    private ShaderProgram instancedShaderProgram;
+    private ShaderProgram mazeShaderProgram;
+
+    /**
+     * Costruttore della classe.
+     *
+     * @param context Activity context
+     */
+    AssetLevelBuilder(Context context){
+
+        this.context = context;
+
+        geometries = null;
+        textures = null;
+        commonShaderProgram = null;
+        instancedShaderProgram = null;
+        mazeShaderProgram = null;
+
+    }
+
+    @Override
+    public Level build(LabyrinthGenerator labGenerator, AtomicBoolean cancelled){
+
+        Tracer.begin("AssetLevelBuilder.build");
+        try {
+
+            // Generazione procedurale labirinto
+            labGenerator.generate();
+            LevelPipeline.checkCancelled(cancelled);
+
+            if (geometries == null){
+                loadSharedResources();
+                LevelPipeline.checkCancelled(cancelled);
+            }
+
+            // Materiali del livello (program e texture condivisi)
+            Map<String, MaterialBasic> materials = new HashMap<>();
+            materials.put("wall", new MaterialBasic(commonShaderProgram, textures.get("wall")));
+            materials.put("mazeWall", new MaterialBasic(mazeShaderProgram, textures.get("wall")));
+            materials.put("roof", new MaterialBasic(commonShaderProgram, textures.get("roof")));
+            materials.put("floor", new MaterialBasic(commonShaderProgram, textures.get("floor")));
+            materials.put("mapWall", new MaterialBasic(instancedShaderProgram, textures.get("mapWall")));
+            materials.put("mapFloor", new MaterialBasic(commonShaderProgram, textures.get("mapFloor")));
+            materials.put("start", new MaterialBasic(commonShaderProgram, new float[]{1f, 0f, 0f} ));
+            materials.put("end", new MaterialBasic(commonShaderProgram, new float[]{0f, 0f, 1f} ));
+
+            // Creazione nell'ambiente 3D (con mappa) del labirinto generato
+            Tracer.begin("Labyrinth3D");
+            Labyrinth3D labyrinth3D;
+            try {
+                labyrinth3D = new Labyrinth3D(labGenerator, geometries, materials);
+            } finally {
+                Tracer.end();
+            }
+            LevelPipeline.checkCancelled(cancelled);
+
+            Tracer.begin("Map2D");
+            Map2D map2D;
+            try {
+                map2D = new Map2D(labGenerator, geometries, materials);
+            } finally {
+                Tracer.end();
+            }
+
+            return new Level(labGenerator, labyrinth3D, map2D, geometries, materials);
+
+        } finally {
+            Tracer.end();
+        }
+
+    }
+
+    /**
+     * Funzione che carica geometrie (parsing del PLY), bitmap delle texture e sorgenti dello
+     * shader program, senza trasferirli sul device.
+     */
+    private void loadSharedResources(){
+
+        Tracer.begin("AssetLevelBuilder.loadSharedResources");
+        try {
+
+            // Geometrie
+            Map<String, Geometry3D> geom = new HashMap<>();
+            geom.put("plane", new Geometry3D(new float[] {
+                    -0.5f, 0.0f, 0.5f, 0.0f, 0.0f,    // basso SX
+                    0.5f, 0.0f, 0.5f, 1.0f, 0.0f,     // basso DX
+                    0.5f, 0.0f, -0.5f, 1.0f, 1.0f,    // alto DX
+                    -0.5f, 0.0f, -0.5f, 0.0f, 1.0f,   // alto SX
+            }, new int[] { 0, 1, 2,   0, 2, 3 }, false));
+            geom.put("triangle", new Geometry3D(new float[] {
+                    -0.45f, 0.0f, 0.45f, 0.0f, 0.0f,   // basso SX
+                    0.45f, 0.0f, 0.45f, 1.0f, 0.0f,    // basso DX
+                    0.0f, 0.0f, -0.5f, 1.0f, 1.0f,     // alto centrale
+            }, new int[] { 0, 1, 2 }, false));
+
+            // Texture (decodifica dei bitmap)
+            Map<String, Texture> tex = new HashMap<>();
+            tex.put("wall", new Texture(Texture.loadBitmap(context, R.drawable.wall), true, false));
+            tex.put("roof", new Texture(Texture.loadBitmap(context, R.drawable.roof), true, false));
+            tex.put("floor", new Texture(Texture.loadBitmap(context, R.drawable.floor), true, false));
+            tex.put("mapWall", new Texture(Texture.loadBitmap(context, R.drawable.mapwall), false, false));
+            tex.put("mapFloor", new Texture(Texture.loadBitmap(context, R.drawable.mapfloor), false, false));
+
+            commonShaderProgram = new ShaderProgram(MaterialBasic.VSHADER, MaterialBasic.FSHADER,
+                                                    MaterialBasic.UNIFORMS, false);
+            instancedShaderProgram = new ShaderProgram(MaterialBasic.VSHADER_INSTANCED,
+                                                       MaterialBasic.FSHADER,
+                                                       MaterialBasic.UNIFORMS_INSTANCED, false);
+            mazeShaderProgram = new ShaderProgram(MaterialBasic.VSHADER_MAZE, MaterialBasic.FSHADER,
+                                                  MaterialBasic.UNIFORMS_MAZE, false);
+            textures = tex;
+            geometries = geom;
+
+        } finally {
+            Tracer.end();
+        }
+
+    }
+
+}
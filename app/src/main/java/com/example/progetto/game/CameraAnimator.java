@@ -0,0 +1,306 @@
+package com.example.progetto.game;
+
+import com.example.progetto.ogles.camera.CameraPersp3D;
+
+/**
+ * Animazioni (rotazioni o traslazioni) della camera, eseguite dal thread della simulazione ad ogni
+ * tick (vedi Simulation).
+ *
+ * L'avanzamento dipende dal tempo trascorso (istante del tick) e non dal numero di tick: la
+ * durata di un movimento è la stessa qualunque sia la frequenza degli update() o il jitter dello
+ * scheduling. Il valore è interpolato con una curva di easing.
+ *
+ * start() registra solo la richiesta; partenza e arrivo sono calcolati al primo update(), quindi
+ * la camera è letta e scritta solo dal thread che chiama update(). Il tempo parte dal primo
+ * update() dopo la richiesta.
+ *
+ * update() non alloca e, senza animazioni in corso, non fa nulla: il thread della simulazione si
+ * ferma finché isAnimating() è false e non arriva nuovo input.
+ *
+ * Sequenze di comandi (vedi LabyrinthGame.updateAnimations()):
+ *      - start(type, startNs) fa partire un'animazione da un istante dato, es. dalla fine di
+ *        quella precedente (getLastEndNs()): nessuna pausa tra due comandi accodati;
+ *      - extend() allunga di una cella la traslazione in corso. La traslazione di N celle segue
+ *        la prima metà della curva di easing (accelerazione), prosegue a velocità costante (la
+ *        pendenza della curva a metà) e termina con la seconda metà (decelerazione): con N = 1
+ *        coincide con la curva, e allungarla prima della decelerazione non cambia il moto fino a
+ *        quel momento, quindi più traslazioni diventano un unico movimento continuo.
+ */
+public class CameraAnimator {
+
+    public static final int TRANSLATE_FW = 0;  // traslo avanti
+    public static final int TRANSLATE_BW = 1;  // traslo indietro
+    public static final int ROTATE_DX = 2;     // ruoto destra
+    public static final int ROTATE_SX = 3;     // ruoto sinistra
+
+    public static final long TRANSLATE_DURATION_NS = 500000000L;    // 1 cella
+    public static final long ROTATE_DURATION_NS = 600000000L;       // 90°
+
+    /**
+     * Curva di easing: da 't' in [0, 1] (tempo normalizzato) al progresso in [0, 1].
+     */
+    public interface Easing {
+
+        float apply(float t);
+
+    }
+
+    public static final Easing LINEAR = new Easing() {
+        @Override
+        public float apply(float t) { return t; }
+    };
+
+    // smoothstep: velocità nulla all'inizio e alla fine
+    public static final Easing EASE_IN_OUT = new Easing() {
+        @Override
+        public float apply(float t) { return t * t * (3f - 2f * t); }
+    };
+
+    public static final Easing EASE_OUT_CUBIC = new Easing() {
+        @Override
+        public float apply(float t) {
+            float u = 1f - t;
+            return 1f - u * u * u;
+        }
+    };
+
+    private final CameraPersp3D camera;
+    private Easing easing;
+
+    // richiesta (scritta da start(), letta da update())
+    private volatile boolean animating;
+    private int type;
+
+    // stato dell'animazione (thread di update())
+    private boolean started;
+    private long requestedStartNs;      // -1: dal primo update()
+    private long startNs;
+    private long durationNs;            // rotazione o una cella di traslazione
+    private final float[] from;
+    private final float[] to;
+    private final float[] direction;    // traslazione: una cella lungo la lookat
+    private int cells;
+    private long cruiseNs;              // tratto a velocità costante
+    private float halfProgress;         // easing(0.5)
+    private float cruiseSpeed;          // celle per ns nel tratto costante
+    private long lastEndNs;
+
+    /**
+     * Costruttore della classe.
+     *
+     * @param camera Camera 3D prospettica da animare
+     */
+    public CameraAnimator(CameraPersp3D camera){
+
+        this.camera = camera;
+        easing = EASE_IN_OUT;
+
+        animating = false;
+        type = -1;
+        started = false;
+        from = new float[3];
+        to = new float[3];
+        direction = new float[3];
+        lastEndNs = Long.MIN_VALUE;
+
+    }
+
+    /**
+     * Funzione che richiede un'animazione della camera. Ignorata se un'animazione è in corso.
+     *
+     * @param type Tipo di animazione (vedi costanti statiche della classe)
+     * @return True se l'animazione è stata avviata
+     */
+    public synchronized boolean start(int type){
+
+        return start(type, -1);
+
+    }
+
+    /**
+     * Come start(int) ma con l'istante di partenza.
+     *
+     * @param type Tipo di animazione (vedi costanti statiche della classe)
+     * @param startNs Istante di partenza (System.nanoTime()), -1 per il primo update()
+     * @return True se l'animazione è stata avviata
+     */
+    public synchronized boolean start(int type, long startNs){
+
+        if (animating) return false;
+
+        if ( (type != TRANSLATE_FW) && (type != TRANSLATE_BW) &&
+             (type != ROTATE_DX) && (type != ROTATE_SX) ){
+            throw new IllegalArgumentException("Animazione non valida");
+        }
+
+        this.type = type;
+        requestedStartNs = startNs;
+        started = false;
+        animating = true;
+
+        return true;
+
+    }
+
+    /**
+     * Funzione chiamata ad ogni tick: porta la camera al valore corrispondente al tempo 'nowNs'.
+     *
+     * @param nowNs Istante del tick (System.nanoTime())
+     * @return True se la camera è stata modificata
+     */
+    public synchronized boolean update(long nowNs){
+
+        if (!animating) return false;
+
+        if (!started){
+            begin( (requestedStartNs < 0) ? nowNs : requestedStartNs );
+        }
+
+        long elapsed = Math.max(nowNs - startNs, 0);
+        long totalNs = durationNs + cruiseNs;
+        boolean end = elapsed >= totalNs;
+
+        if (isTranslation(type)){
+
+            if (end){
+                camera.setPosition(to[0], to[1], to[2]);     // esatto (celle intere)
+            }else{
+                float s = translationProgress(elapsed);
+                camera.setPosition(from[0] + direction[0] * s,
+                                   from[1] + direction[1] * s,
+                                   from[2] + direction[2] * s);
+            }
+
+        }else{
+
+            float e = end ? 1f : easing.apply(elapsed / (float) durationNs);
+            camera.setRotationY(from[0] + (to[0] - from[0]) * e);
+
+        }
+
+        if (end){
+            lastEndNs = startNs + totalNs;
+            animating = false;
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Calcolo partenza e arrivo dalla camera corrente.
+     */
+    private void begin(long nowNs){
+
+        started = true;
+        startNs = nowNs;
+
+        if (isTranslation(type)){
+
+            float dir = (type == TRANSLATE_FW) ? 1f : -1f;
+            camera.getPosOnLookAtDirection(dir, to);
+            float[] p = camera.getPosition();
+            for (int i=0; i<3; i++){
+                from[i] = p[i];
+                direction[i] = to[i] - p[i];
+            }
+            durationNs = TRANSLATE_DURATION_NS;
+
+            // velocità nel tratto costante: pendenza della curva a metà
+            float h = 1e-3f;
+            halfProgress = easing.apply(0.5f);
+            cruiseSpeed = (easing.apply(0.5f + h) - easing.apply(0.5f - h)) / (2 * h) / durationNs;
+            cells = 1;
+            cruiseNs = 0;
+
+        }else{
+
+            from[0] = camera.getRotationY();
+            to[0] = from[0] + ( (type == ROTATE_SX) ? 90f : -90f );
+            durationNs = ROTATE_DURATION_NS;
+            cruiseNs = 0;
+
+        }
+
+    }
+
+    /**
+     * Celle percorse dopo 'elapsed' ns: accelerazione, tratto costante e decelerazione.
+     */
+    private float translationProgress(long elapsed){
+
+        long half = durationNs / 2;
+
+        if (elapsed < half){
+            return easing.apply(elapsed / (float) durationNs);
+        }
+        if (elapsed < half + cruiseNs){
+            return halfProgress + cruiseSpeed * (elapsed - half);
+        }
+
+        return (cells - 1) + easing.apply((elapsed - cruiseNs) / (float) durationNs);
+
+    }
+
+    /**
+     * Allunga di una cella la traslazione in corso, solo se è dello stesso tipo e non
+     * ha ancora iniziato a decelerare all'istante 'nowNs'.
+     *
+     * @param type Tipo di traslazione richiesta
+     * @param nowNs Istante del tick corrente
+     * @return True se la traslazione è stata allungata
+     */
+    public synchronized boolean extend(int type, long nowNs){
+
+        if ( !animating || !started || (type != this.type) || !isTranslation(type) ) return false;
+        if (cruiseSpeed <= 0) return false;      // easing senza tratto a velocità costante
+        if (nowNs - startNs >= durationNs / 2 + cruiseNs) return false;
+
+        cells++;
+        cruiseNs = (long) ((cells - 1) / cruiseSpeed);
+        for (int i=0; i<3; i++){
+            to[i] = from[i] + direction[i] * cells;
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Interrompe l'animazione in corso lasciando la camera dove si trova (es. cambio livello).
+     */
+    public synchronized void cancel(){
+
+        animating = false;
+
+    }
+
+    private static boolean isTranslation(int type){
+
+        return (type == TRANSLATE_FW) || (type == TRANSLATE_BW);
+
+    }
+
+    /**
+     * Funzione che mi dice se un'animazione è in atto (richiesta o in esecuzione).
+     *
+     * @return True se un'animazione deve ancora terminare
+     */
+    public boolean isAnimating() { return animating; }
+
+    /** Istante esatto di fine dell'ultima animazione conclusa. */
+    public synchronized long getLastEndNs() { return lastEndNs; }
+
+    /** Tipo dell'animazione in corso o dell'ultima eseguita. */
+    public synchronized int getType() { return type; }
+
+    /**
+     * @return Posizione finale della traslazione in corso (dopo il primo update())
+     */
+    public synchronized float[] getTarget() { return to; }
+
+    /******* SETTER *******/
+
+    public synchronized void setEasing(Easing easing) { this.easing = easing; }
+
+}
@@ -8,20 +8,10 @@ import static android.opengl.GLES20.GL_DEPTH_BUFFER_BIT;
 import static android.opengl.GLES20.GL_DEPTH_TEST;
 import static android.opengl.GLES20.GL_LEQUAL;
 import static android.opengl.GLES20.GL_SCISSOR_TEST;
-import static android.opengl.GLES20.glClear;
-import static android.opengl.GLES20.glClearColor;
-import static android.opengl.GLES20.glCullFace;
-import static android.opengl.GLES20.glDepthFunc;
-import static android.opengl.GLES20.glEnable;
-import static android.opengl.GLES20.glFrontFace;
-import static android.opengl.GLES20.glScissor;
-import static android.opengl.GLES20.glUseProgram;
-import static android.opengl.GLES20.glViewport;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
 import android.graphics.Point;
-import android.opengl.GLES30;
 import android.opengl.GLSurfaceView;
 import android.util.Log;
 import android.view.MotionEvent;
@@ -33,6 +23,11 @@ import javax.microedition.khronos.opengles.GL10;
 import com.example.progetto.game.objects.Labyrinth3D;
 import com.example.progetto.game.objects.Map2D;
 import com.example.progetto.ogles.camera.CameraPersp3D;
+import com.example.progetto.ogles.gl.GLApi;
+import com.example.progetto.ogles.gl.GLBridge;
+import com.example.progetto.ogles.gl.GLStateCache;
+import com.example.progetto.ogles.gl.RenderStats;
+import com.example.progetto.ogles.utils.Tracer;
 
 /**
  * Classe Renderer del LabyrinthGame.
@@ -47,9 +42,7 @@ public class GameRenderer implements GLSurfaceView.Renderer {
 
     private final LabyrinthGame game;
     private final CameraPersp3D camera;
-
-    private Labyrinth3D labyrinth3D;
-    private Map2D map2D;
+    private final RenderStats renderStats;
 
     /**
      * Costruttore della classe.
@@ -64,9 +57,7 @@ public class GameRenderer implements GLSurfaceView.Renderer {
 
         this.game = game;
         camera = this.game.getCamera();
-
-        labyrinth3D = null;    // generato nella onCreated()
-        map2D = null;          // generato nella onCreated()
+        renderStats = new RenderStats();
 
     }
 
@@ -87,6 +78,14 @@ public class GameRenderer implements GLSurfaceView.Renderer {
         this.context = context;
         this.surface = surface;
 
+        // rendering su richiesta: i frame sono richiesti tramite il RenderScheduler
+        game.getRenderScheduler().setRequester(new RenderScheduler.FrameRequester() {
+            @Override
+            public void requestRender() {
+                GameRenderer.this.surface.requestRender();
+            }
+        });
+
         // implementazione dell'interfaccia
         this.surface.setOnTouchListener(new View.OnTouchListener() {
             float previousX = 0;
@@ -105,15 +104,15 @@ public class GameRenderer implements GLSurfaceView.Renderer {
                             float newY = event.getY();
                             if (Math.abs(previousX - newX) > 50) {
                                 if (previousX < newX) {
-                                    game.rotate(TransitionTimerTask.ROTATE_SX);
+                                    game.onSwipe(CameraAnimator.ROTATE_SX);
                                 } else {
-                                    game.rotate(TransitionTimerTask.ROTATE_DX);
+                                    game.onSwipe(CameraAnimator.ROTATE_DX);
                                 }
                             } else if (Math.abs(previousY - newY) > 50) {
                                 if (previousY < newY) {
-                                    game.translate(TransitionTimerTask.TRANSLATE_FW);
+                                    game.onSwipe(CameraAnimator.TRANSLATE_FW);
                                 } else {
-                                    game.translate(TransitionTimerTask.TRANSLATE_BW);
+                                    game.onSwipe(CameraAnimator.TRANSLATE_BW);
                                 }
                             }
                             break;
@@ -129,8 +128,9 @@ public class GameRenderer implements GLSurfaceView.Renderer {
     /**
      * Chiamata quando la surface è creata o ricreata.
      * Una surface è ricreata nel momento in cui il suo contesto EGL è perso.
-     * In questa funzione sono implementate le operazioni costose (allocazioni memoria,
-     * trasferimenti, letture oggetti 3D/texture, compilazioni shader).
+     * Le operazioni costose lato CPU (generazione del labirinto, letture oggetti 3D/texture) sono
+     * eseguite in background dal LevelPipeline; qui sono solo ritrasferite sul device le risorse
+     * del livello corrente se il contesto è stato ricreato.
      *
      * Sono inoltre attivati i test necessari.
      *
@@ -143,31 +143,40 @@ public class GameRenderer implements GLSurfaceView.Renderer {
 
         Log.d(TAG, "onSurfaceCreated " + Thread.currentThread().getName());
 
-        game.generate();
-        labyrinth3D = game.getLabyrinth3D();
-        map2D = game.getMap2D();
+        Tracer.begin("onSurfaceCreated");
+
+        // contesto EGL nuovo: lo stato tracciato da GLStateCache non è più valido
+        GLStateCache stateCache = GLBridge.getStateCache();
+        if (stateCache != null){
+            stateCache.invalidate();
+            stateCache.setStats(renderStats);     // drawcall, triangoli, bind e upload per frame
+        }
+
+        game.onSurfaceCreated();
 
-        //Log.d(TAG, labyrinth3D.toString() + map2D.toString());
+        GLApi gl = GLBridge.get();
 
         // 2 modi per disegnare la mappa tramite SCISSOR:
         //   1) attivo e disattivo SCISSOR nel onDrawFrame quando serve
         //   2) tengo SCISSOR sempre attivo e ridimensiono la sua dimensione all'occorrenza
         // Ho scelto la 2) e quindi all'inizio definisco le dimensioni dello SCISSOR pari a quelle
         // dello schermo poi quando è ora di disegnare la mappa lo ridimensiono.
-        glEnable(GL_SCISSOR_TEST);   // Per-Sample operation
+        gl.glEnable(GL_SCISSOR_TEST);   // Per-Sample operation
+
+        gl.glEnable(GL_DEPTH_TEST);     // Per-Sample operation (dopo il fragment shader)
+        gl.glDepthFunc(GL_LEQUAL);      // se frag. passa il depth-test, deth scritto nel depth buffer.
+                                        // se frag. non passa depth-test, scarto fragment
+                                        // GL_LEQUAL: frag. in uscita dal frag. shader passa il test se
+                                        //            il suo depth value e <= di quello del depth buff
+                                        //            nella stessa posizione.
+                                        // Depth buffer serve quindi a salvarsi il valore di depth per
+                                        // capire se un fragment passa il depth-test oppure no
 
-        glEnable(GL_DEPTH_TEST);     // Per-Sample operation (dopo il fragment shader)
-        glDepthFunc(GL_LEQUAL);      // se frag. passa il depth-test, deth scritto nel depth buffer.
-                                     // se frag. non passa depth-test, scarto fragment
-                                     // GL_LEQUAL: frag. in uscita dal frag. shader passa il test se
-                                     //            il suo depth value e <= di quello del depth buff
-                                     //            nella stessa posizione.
-                                     // Depth buffer serve quindi a salvarsi il valore di depth per
-                                     // capire se un fragment passa il depth-test oppure no
+        gl.glEnable(GL_CULL_FACE);      // avviene nello stage primitive-assembly
+        gl.glCullFace(GL_BACK);
+        gl.glFrontFace(GL_CCW);         // antiorario
 
-        glEnable(GL_CULL_FACE);      // avviene nello stage primitive-assembly
-        glCullFace(GL_BACK);
-        glFrontFace(GL_CCW);         // antiorario
+        Tracer.end();
 
     }
 
@@ -187,7 +196,7 @@ public class GameRenderer implements GLSurfaceView.Renderer {
         float aspect = ((float) w) / ((float) (h == 0 ? 1 : h));
         game.onSurfaceChanged(aspect, w, h);
 
-        glViewport(0, 0, w, h);
+        GLBridge.get().glViewport(0, 0, w, h);
         currentScreen.x = w;
         currentScreen.y = h;
 
@@ -220,42 +229,105 @@ public class GameRenderer implements GLSurfaceView.Renderer {
      *                      primitiva (mantenendo solo la parte all'interno del viewport) e poi
      *                      ricostruita (in modo che ci siano solo triangoli)
      *
+     * Ad inizio frame LabyrinthGame.updateLevel() rende corrente l'eventuale livello pronto
+     * (cambio di riferimento + trasferimento sul device). Finchè il primo livello non è pronto è
+     * disegnato solo lo sfondo.
+     *
+     * Rendering su richiesta: all'inizio del frame il RenderScheduler accetta di nuovo richieste
+     * (quelle arrivate durante il frame ne chiedono un altro), alla fine richiede il successivo
+     * se la scena è ancora in movimento (LabyrinthGame.needsRedraw()).
+     *
+     * Tempi delle fasi e contatori del frame sono registrati nel RenderStats.
+     *
      * @param gl10 gl (usato per compatibilità)
      */
     @Override
     public void onDrawFrame(GL10 gl10) {
 
-        glScissor(0, 0, currentScreen.x, currentScreen.y);
-        glViewport(0, 0, currentScreen.x, currentScreen.y);
-        glClearColor(0, 0.45f, 0.9f, 1f);
-        glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+        game.getRenderScheduler().onFrameStarted();      // prima di leggere lo stato
+        Tracer.begin("frame");
+        renderStats.beginFrame(System.nanoTime());
+
+        drawFrame();
+
+        GLStateCache stateCache = GLBridge.getStateCache();
+        if (stateCache != null){
+            renderStats.set(RenderStats.COUNTER_GL_CALLS, stateCache.getIssued());
+            renderStats.set(RenderStats.COUNTER_GL_SKIPPED, stateCache.getSkipped());
+        }
+        renderStats.endFrame(System.nanoTime());
+        Tracer.end();
+
+        game.getRenderScheduler().onFrameRendered(game.needsRedraw());
+
+    }
+
+    /**
+     * Disegno del frame (vedi onDrawFrame()).
+     */
+    private void drawFrame() {
+
+        // contatori delle chiamate GL inoltrate/scartate per frame
+        GLStateCache stateCache = GLBridge.getStateCache();
+        if (stateCache != null) stateCache.beginFrame();
+
+        // contatori delle copie VP nel blocco Camera (saltate con la camera ferma)
+        camera.beginFrame();
+
+        // camera allo stato della simulazione, interpolato al tempo del frame
+        renderStats.beginPhase(RenderStats.PHASE_CAMERA);
+        game.updateRenderState(System.nanoTime());
+        renderStats.endPhase(RenderStats.PHASE_CAMERA);
+
+        Level level = game.updateLevel();
+
+        GLApi gl = GLBridge.get();
+
+        gl.glScissor(0, 0, currentScreen.x, currentScreen.y);
+        gl.glViewport(0, 0, currentScreen.x, currentScreen.y);
+        gl.glClearColor(0, 0.45f, 0.9f, 1f);
+        gl.glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+
+        if (level == null){ return; }   // primo livello in preparazione
+
+        Labyrinth3D labyrinth3D = level.getLabyrinth3D();
+        Map2D map2D = level.getMap2D();
+        map2D.getCamera().beginFrame();
 
         // Se necessario aggiorno la camera e poi la mappa 2D
+        renderStats.beginPhase(RenderStats.PHASE_CAMERA);
         if (camera.matrixNeedsUpdate()){
             camera.updateViewAndPvM();
             map2D.updateFromCamera(camera);
         }
+        renderStats.endPhase(RenderStats.PHASE_CAMERA);
 
-        // Program condiviso da tutti
-        glUseProgram(labyrinth3D.getCommonShaderProgram().getProgramId());
+        // Program condiviso da tutti (tranne i muri della mappa, istanziati)
+        gl.glUseProgram(labyrinth3D.getCommonShaderProgram().getProgramId());
 
             // LABIRINTO
 
+            renderStats.beginPhase(RenderStats.PHASE_WALLS);
             labyrinth3D.drawLabyrinthWalls(camera);
+            renderStats.endPhase(RenderStats.PHASE_WALLS);
 
             // VAO = commonPlaneGeometry --> usato per tetto e paviemnto labirinto + mappa
-            GLES30.glBindVertexArray(labyrinth3D.getCommonPlaneGeometry().getVao()[0]);
+            gl.glBindVertexArray(labyrinth3D.getCommonPlaneGeometry().getVao()[0]);
+                renderStats.beginPhase(RenderStats.PHASE_ROOF_FLOOR);
                 labyrinth3D.drawRoofAndFloor(camera);
+                renderStats.endPhase(RenderStats.PHASE_ROOF_FLOOR);
 
                 // MAPPA
 
+                renderStats.beginPhase(RenderStats.PHASE_MAP2D);
                 map2D.drawMap2D(currentScreen);
 
-            GLES30.glBindVertexArray(0);
+            gl.glBindVertexArray(0);
 
                 map2D.drawStartEndPointers();
+                renderStats.endPhase(RenderStats.PHASE_MAP2D);
 
-        glUseProgram(0);
+        gl.glUseProgram(0);
 
     }
 
@@ -264,4 +336,6 @@ public class GameRenderer implements GLSurfaceView.Renderer {
     public Context getContext() { return context; }
 
     public GLSurfaceView getSurface() { return surface; }
+
+    public RenderStats getRenderStats() { return renderStats; }
 }
@@ -0,0 +1,114 @@
+package com.example.progetto.game;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coda limitata e lock-free di comandi di input, da un solo produttore (UI thread, touch
+ * listener) ad un solo consumatore (thread della Simulation, ad ogni tick: vedi
+ * LabyrinthGame.updateAnimations()). peek(), poll() e clear() sono chiamate solo da lì.
+ *
+ * Buffer circolare di int (capacità potenza di 2) con due contatori: 'tail' scritto solo dal
+ * produttore, 'head' solo dal consumatore. Ogni lato legge il contatore dell'altro e pubblica il
+ * proprio con lazySet() (store ordinato): il comando scritto nello slot è visibile prima del nuovo
+ * tail. Nessun lock, nessuna allocazione dopo la costruzione.
+ *
+ * Se la coda è piena il comando è scartato (offer() ritorna false): con CAPACITY swipe già in
+ * attesa un ulteriore swipe non sarebbe comunque eseguito in tempi ragionevoli.
+ */
+public class InputQueue {
+
+    public static final int NONE = -1;
+    public static final int CAPACITY = 8;
+
+    private final int[] buffer;
+    private final int mask;
+    private final AtomicLong head;      // prossimo da leggere (consumatore)
+    private final AtomicLong tail;      // prossimo da scrivere (produttore)
+
+    /**
+     * Costruttore della classe con capacità CAPACITY.
+     */
+    public InputQueue(){
+
+        this(CAPACITY);
+
+    }
+
+    /**
+     * Costruttore della classe.
+     *
+     * @param capacity Numero massimo di comandi in attesa (potenza di 2)
+     */
+    public InputQueue(int capacity){
+
+        if ( (capacity <= 0) || ((capacity & (capacity - 1)) != 0) ){
+            throw new IllegalArgumentException("Capacità non potenza di 2");
+        }
+
+        buffer = new int[capacity];
+        mask = capacity - 1;
+        head = new AtomicLong(0);
+        tail = new AtomicLong(0);
+
+    }
+
+    /**
+     * Accoda un comando. Solo dal thread produttore.
+     *
+     * @param command Comando (>= 0)
+     * @return False se la coda è piena (comando scartato)
+     */
+    public boolean offer(int command){
+
+        long t = tail.get();
+        if (t - head.get() == buffer.length) return false;
+
+        buffer[(int) t & mask] = command;
+        tail.lazySet(t + 1);
+
+        return true;
+
+    }
+
+    /**
+     * Solo dal thread consumatore.
+     *
+     * @return Primo comando in coda senza rimuoverlo, NONE se la coda è vuota
+     */
+    public int peek(){
+
+        long h = head.get();
+        if (h == tail.get()) return NONE;
+
+        return buffer[(int) h & mask];
+
+    }
+
+    /**
+     * Rimuove il primo comando. Solo dal thread consumatore.
+     *
+     * @return Comando rimosso, NONE se la coda è vuota
+     */
+    public int poll(){
+
+        long h = head.get();
+        if (h == tail.get()) return NONE;
+
+        int command = buffer[(int) h & mask];
+        head.lazySet(h + 1);
+
+        return command;
+
+    }
+
+    /** Svuota la coda. Solo dal thread consumatore. */
+    public void clear(){
+
+        head.lazySet(tail.get());
+
+    }
+
+    /** Comandi in attesa (approssimato se letto mentre l'altro thread opera). */
+    public int size() { return (int) (tail.get() - head.get()); }
+
+}
@@ -1,48 +1,86 @@
 package com.example.progetto.game;
 
 import android.content.Context;
-import android.graphics.Point;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.widget.Toast;
 
-import com.example.progetto.R;
+import com.example.progetto.game.maze.AldousBroder;
+import com.example.progetto.game.maze.GridPoint;
+import com.example.progetto.game.maze.MazeCache;
 import com.example.progetto.game.objects.Labyrinth3D;
 import com.example.progetto.game.objects.Map2D;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Timer;
+import java.io.File;
+import java.util.SplittableRandom;
 
-import com.example.progetto.ogles.Geometry3D;
-import com.example.progetto.ogles.Texture;
 import com.example.progetto.ogles.camera.CameraPersp3D;
-import com.example.progetto.ogles.shader.MaterialBasic;
-import com.example.progetto.ogles.shader.ShaderProgram;
-import com.example.progetto.ogles.utils.PlyObject;
+import com.example.progetto.ogles.camera.CameraState;
 
 /**
  * Classe per la gestione del gioco del labirinto.
  * La dimensione del labirinto è impostata come costante statica.
+ *
+ * I livelli sono preparati in background dal LevelPipeline: mentre si gioca un livello è già
+ * in preparazione il successivo, che diventa quello corrente (nel GL thread, vedi updateLevel())
+ * quando è trovata l'uscita.
+ *
+ * Il rendering è su richiesta (RenderScheduler): l'input, il livello pronto e needsRedraw() alla
+ * fine di ogni frame decidono quando disegnare.
+ *
+ * La logica di gioco (comandi, movimento, collisioni con isWalkable(), uscita) gira nella
+ * Simulation a passo fisso, con una camera propria: ad ogni tick è pubblicato un RenderSnapshot
+ * in un TripleBuffer e il GL thread (updateRenderState()) porta la camera di rendering al valore
+ * interpolato tra gli ultimi due tick. Simulazione e rendering non si attendono mai.
+ *
+ * Gli swipe arrivano dal UI thread in una InputQueue e sono eseguiti dalla simulazione
+ * (updateAnimations()): un comando in attesa parte esattamente alla fine della transizione
+ * precedente e più traslazioni nella stessa direzione diventano un unico movimento continuo.
  */
 public class LabyrinthGame {
 
     private static String TAG;
     private final Context context;
 
-    private static final Point DIMENSION = new Point(15, 15);
-    private final LabyrinthGenerator labGenerator;
-
-    private final CameraPersp3D camera;
-    private Labyrinth3D labyrinth3D;
-    private Map2D map2D;
-
-    private Timer timer;
-    private TransitionTimerTask transitionTimerTask;
+    private static final GridPoint DIMENSION = new GridPoint(15, 15);
+    private static final long SEED_BASE = 0x4C414259L;   // seed dei livelli (vedi seedForLevel())
+    private final MazeCache mazeCache;
+    private int levelIndex;                     // livelli creati con newLabGenerator()
+    private final LevelPipeline levelPipeline;
+    private final RenderScheduler renderScheduler;
+
+    private final CameraPersp3D camera;         // rendering (GL thread)
+    private volatile Level currentLevel;         // scritto solo dal GL thread
+    private volatile boolean nextLevelRequested;
+
+    private int surfaceWidth;
+    private int surfaceHeight;
+
+    // simulazione (thread della Simulation)
+    private final Simulation simulation;
+    private final CameraPersp3D simCamera;
+    private final CameraAnimator cameraAnimator;
+    private final InputQueue inputQueue;
+    private final Handler mainHandler;          // Toast dal thread della simulazione
+    private final float[] targetPos;
+    private final float[] simPrevious;
+    private final float[] simCurrent;
+    private long simTick;
+    private int appliedReset;
+
+    // reset della camera della simulazione al cambio livello (dal GL thread)
+    private volatile int requestedReset;
+    private float resetX, resetZ, resetAngle;  // protetti dal lock dell'istanza
+
+    // snapshot dalla simulazione al renderer
+    private final TripleBuffer<RenderSnapshot> snapshots;
+    private boolean interpolating;              // GL thread
 
     /**
      * Costruttore della classe.
      *
-     * E' fatto partire il timer per la gestione delle animazioni.
+     * E' avviata in background la preparazione del primo livello.
      *
      * @param context Activity context
      */
@@ -51,15 +89,59 @@ public class LabyrinthGame {
         TAG = getClass().getSimpleName();
         this.context = context;
 
-        labGenerator = new LabyrinthGenerator(DIMENSION);
+        mazeCache = new MazeCache(new File(context.getCacheDir(), "mazes"));
+        levelIndex = 0;
 
         camera = new CameraPersp3D(0.0f, 0.0f, 3.0f, 0);
-        labyrinth3D = null;   // creato nella funzione "generate"
-        map2D = null;         // creato nella funzione "generate"
+        currentLevel = null;          // impostato nella funzione "updateLevel"
+        nextLevelRequested = false;
+
+        renderScheduler = new RenderScheduler();
+        levelPipeline = new LevelPipeline(context);
+        levelPipeline.setOnLevelReady(new Runnable() {
+            @Override
+            public void run() {
+                renderScheduler.requestFrame();
+            }
+        });
+        levelPipeline.prepare(newLabGenerator());
+
+        simCamera = new CameraPersp3D(0.0f, 0.0f, 3.0f, 0);
+        cameraAnimator = new CameraAnimator(simCamera);
+        inputQueue = new InputQueue();
+        mainHandler = new Handler(Looper.getMainLooper());
+        targetPos = new float[3];
+        simPrevious = new float[CameraState.SIZE];
+        simCurrent = new float[CameraState.SIZE];
+        simCamera.getState().read(simCurrent);
+        simTick = 0;
+        appliedReset = requestedReset = 0;
+
+        snapshots = new TripleBuffer<>(new RenderSnapshot(), new RenderSnapshot(), new RenderSnapshot());
+        interpolating = false;
+        simulation = new Simulation(new Simulation.Step() {
+            @Override
+            public boolean tick(long timeNs) {
+                return simulationTick(timeNs);
+            }
+        });
 
-        timer = new Timer();
-        transitionTimerTask = new TransitionTimerTask(camera);
-        timer.scheduleAtFixedRate(transitionTimerTask, 10, 5);
+    }
+
+    /**
+     * Funzione chiamata nel onSurfaceCreated() del renderer.
+     *
+     * Se la surface è ricreata perchè il contesto EGL è stato perso, le risorse del livello
+     * corrente sono trasferite di nuovo sul device.
+     */
+    public void onSurfaceCreated(){
+
+        camera.getUniforms().discard();       // ricreato alla prossima bind
+
+        Level level = currentLevel;
+        if (level != null){
+            level.uploadToGpu(true);
+        }
 
     }
 
@@ -72,151 +154,474 @@ public class LabyrinthGame {
      */
     public void onSurfaceChanged(float aspect, int w, int h){
 
+        surfaceWidth = w;
+        surfaceHeight = h;
+
         camera.setupProjection(aspect);
-        map2D.setupProjection(w, h);
+
+        Level level = currentLevel;
+        if (level != null){
+            level.getMap2D().setupProjection(w, h);
+            level.getLabyrinth3D().setupProjection(aspect);
+        }
+
+    }
+
+    /**
+     * Funzione chiamata in onResume() dell'activity: avvia il thread della simulazione.
+     */
+    public void onResume(){
+
+        simulation.start();
+
+    }
+
+    /**
+     * Funzione chiamata in onPause() dell'activity: ferma il thread della simulazione.
+     */
+    public void onPause(){
+
+        simulation.stop();
 
     }
 
     /**
-     * Funzione che genera un nuovo labirinto tramite un apposito algoritmo procedurale e poi crea
-     * il realtivo spazio 3D con la mappa 2D.
+     * Funzione chiamata dal UI thread per ogni swipe: il comando è accodato ed eseguito dalla
+     * simulazione. Se la coda è piena lo swipe è ignorato.
      *
-     * In questa funzione sono create le geometrie e i materiali che saranno poi usati per la
-     * creazione del labirinto e della mappa.
+     * @param command Tipo di transizione (vedi costanti statiche della classe CameraAnimator)
+     */
+    public void onSwipe(int command){
+
+        if (inputQueue.offer(command)){
+            simulation.wake();
+        }
+
+    }
+
+    /**
+     * Tick della simulazione: applica l'eventuale reset della camera, avanza animazioni e comandi
+     * e pubblica lo snapshot per il renderer. Non alloca.
      *
-     * Imposta inoltre la posizione iniziale della camera in funzione ai risultati dell'algoritmo
-     * di generazione del labirinto.
+     * @param timeNs Istante simulato del tick
+     * @return True se servono altri tick
      */
-    public void generate(){
+    private boolean simulationTick(long timeNs){
+
+        boolean reset = applyReset();
 
-        // Generazione procedurale labirinto
-        labGenerator.generate();
+        updateAnimations(timeNs);
 
-        // Creazione nell'ambiente 3D (con mappa) del labirinto generato
+        // stato al tick precedente (dopo un reset nessuna interpolazione: salto)
+        if (!reset) System.arraycopy(simCurrent, 0, simPrevious, 0, CameraState.SIZE);
+        simCamera.getState().read(simCurrent);
+        if (reset) System.arraycopy(simCurrent, 0, simPrevious, 0, CameraState.SIZE);
 
-        // Geometrie
-        Map<String, Geometry3D> geometries = new HashMap<>();
-        PlyObject po = Geometry3D.loadPlyObject(context, "cube.ply");
-        geometries.put("cube", new Geometry3D(po.getVertices(), po.getIndices()));
-        geometries.put("plane", new Geometry3D(new float[] {
-                -0.5f, 0.0f, 0.5f, 0.0f, 0.0f,    // basso SX
-                0.5f, 0.0f, 0.5f, 1.0f, 0.0f,     // basso DX
-                0.5f, 0.0f, -0.5f, 1.0f, 1.0f,    // alto DX
-                -0.5f, 0.0f, -0.5f, 0.0f, 1.0f,   // alto SX
-        }, new int[] { 0, 1, 2,   0, 2, 3 }));
-        geometries.put("triangle", new Geometry3D(new float[] {
-                -0.45f, 0.0f, 0.45f, 0.0f, 0.0f,   // basso SX
-                0.45f, 0.0f, 0.45f, 1.0f, 0.0f,    // basso DX
-                0.0f, 0.0f, -0.5f, 1.0f, 1.0f,     // alto centrale
-        }, new int[] { 0, 1, 2 }));
+        RenderSnapshot snapshot = snapshots.getBack();
+        snapshot.set(++simTick, timeNs, appliedReset, simPrevious, simCurrent);
+        snapshots.publish();
 
-        // Materiali
-        Map<String, MaterialBasic> materials = new HashMap<>();
-        MaterialBasic mat = new MaterialBasic(new Texture(Texture.loadBitmap(context,
-                                                           R.drawable.wall), true));
-        ShaderProgram commonShaderProgram = mat.getShaderProgram();
-        materials.put("wall", mat);
-        materials.put("roof", new MaterialBasic(commonShaderProgram,
-                                                   new Texture(Texture.loadBitmap(context,
-                                                           R.drawable.roof), true)));
-        materials.put("floor", new MaterialBasic(commonShaderProgram,
-                                                   new Texture(Texture.loadBitmap(context,
-                                                           R.drawable.floor), true)));
-        materials.put("mapWall", new MaterialBasic(commonShaderProgram,
-                                                   new Texture(Texture.loadBitmap(context,
-                                                           R.drawable.mapwall), false)));
-        materials.put("mapFloor", new MaterialBasic(commonShaderProgram,
-                                                   new Texture(Texture.loadBitmap(context,
-                                                           R.drawable.mapfloor), false)));
-        materials.put("start", new MaterialBasic(commonShaderProgram, new float[]{1f, 0f, 0f} ));
-        materials.put("end", new MaterialBasic(commonShaderProgram, new float[]{0f, 0f, 1f} ));
+        if (reset || snapshot.isMoving()){
+            renderScheduler.requestFrame();
+        }
+
+        return cameraAnimator.isAnimating() || (inputQueue.size() > 0) ||
+               (appliedReset != requestedReset);
 
-        labyrinth3D = new Labyrinth3D(labGenerator, geometries, materials);
-        map2D = new Map2D(labGenerator, geometries, materials);
+    }
 
-        setStartPosition();
+    /**
+     * Porta la camera della simulazione alla posizione iniziale richiesta con resetCamera().
+     *
+     * @return True se è stato applicato un reset
+     */
+    private boolean applyReset(){
+
+        if (appliedReset == requestedReset) return false;
+
+        synchronized (this){
+            cameraAnimator.cancel();
+            inputQueue.clear();
+            simCamera.setPosition(resetX, 0, resetZ);
+            simCamera.setRotationY(resetAngle);
+            appliedReset = requestedReset;
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Funzione chiamata dal GL thread: richiede alla simulazione di spostare la sua camera.
+     */
+    private void resetCamera(float x, float z, float angle){
+
+        synchronized (this){
+            resetX = x;
+            resetZ = z;
+            resetAngle = angle;
+            requestedReset++;
+        }
+        simulation.wake();
+
+    }
+
+    /**
+     * Funzione chiamata dal GL thread all'inizio di ogni frame: porta la camera di rendering allo
+     * stato della simulazione interpolato al tempo del frame (vedi RenderSnapshot.alpha()).
+     *
+     * Gli snapshot precedenti all'ultimo reset (cambio livello) sono ignorati: la camera di
+     * rendering è già stata spostata da setStartPosition().
+     *
+     * @param nowNs Tempo del frame (System.nanoTime())
+     */
+    public void updateRenderState(long nowNs){
+
+        boolean fresh = snapshots.update();
+        RenderSnapshot snapshot = snapshots.getFront();
+
+        if ( (snapshot.getTick() == 0) || (snapshot.getGeneration() != requestedReset) ){
+            interpolating = false;
+            return;
+        }
+
+        boolean moving = snapshot.isMoving();
+        if (!fresh && !(moving && interpolating)) return;      // camera già allo stato finale
+
+        float alpha = moving ? snapshot.alpha(nowNs) : 1f;
+        camera.setPosition(snapshot.lerp(CameraState.X, alpha),
+                           snapshot.lerp(CameraState.Y, alpha),
+                           snapshot.lerp(CameraState.Z, alpha));
+        camera.setRotationY(snapshot.lerp(CameraState.ROTATION_Y, alpha));
+
+        interpolating = moving && (alpha < 1f);
+
+    }
+
+    /**
+     * Funzione chiamata dalla simulazione ad ogni tick: avanza le animazioni della camera
+     * ed esegue i comandi in coda.
+     *
+     * Con un reset della camera in attesa (livello appena cambiato) nessun comando è eseguito: il
+     * livello corrente potrebbe già essere quello nuovo mentre la camera è ancora sul vecchio
+     * (il tick successivo applica il reset e svuota la coda).
+     *
+     * Durante una traslazione, i comandi nella stessa direzione la allungano (se la cella
+     * successiva è walkable e non è ancora iniziata la decelerazione); gli altri restano in coda.
+     * Finita un'animazione, il comando successivo parte dall'istante esatto di fine (anche se
+     * cade tra due frame), quindi la sequenza non ha pause.
+     *
+     * @param nowNs Istante del tick
+     */
+    private void updateAnimations(long nowNs){
+
+        boolean chained = cameraAnimator.update(nowNs);
+
+        if (nextLevelRequested){
+            inputQueue.clear();         // uscita trovata: i comandi rimasti sono del livello vecchio
+            return;
+        }
+        if (appliedReset != requestedReset){
+            return;                     // nuovo livello già pubblicato, camera spostata al prossimo tick
+        }
+
+        int command;
+        while ( (command = inputQueue.peek()) != InputQueue.NONE ){
+
+            if (cameraAnimator.isAnimating()){
+
+                if (!coalesce(command, nowNs)) break;
+
+            }else{
+
+                inputQueue.poll();
+                long startNs = chained ? cameraAnimator.getLastEndNs() : nowNs;
+                if (isTranslation(command)){
+                    translate(command, startNs);
+                }else{
+                    rotate(command, startNs);
+                }
+                // recupero il tempo già trascorso dalla partenza
+                chained = cameraAnimator.update(nowNs) || chained;
+
+                if (nextLevelRequested) break;
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Funzione che prova ad unire un comando alla traslazione in corso.
+     *
+     * @param command Comando in testa alla coda
+     * @param nowNs Istante del tick
+     * @return True se il comando è stato consumato (unito oppure scartato), false se deve
+     *         attendere la fine dell'animazione
+     */
+    private boolean coalesce(int command, long nowNs){
+
+        if ( !isTranslation(command) || (command != cameraAnimator.getType()) ) return false;
+
+        Level level = currentLevel;
+        if (level == null) return false;
+        LabyrinthGenerator labGenerator = level.getLabGenerator();
+
+        float alpha = (command == CameraAnimator.TRANSLATE_BW) ? -1 : 1;
+        float[] target = cameraAnimator.getTarget();
+        float[] dir = simCamera.getLookAtDirection();
+        targetPos[0] = target[0] + dir[0] * alpha;
+        targetPos[1] = target[1];
+        targetPos[2] = target[2] + dir[2] * alpha;
+
+        if (!labGenerator.isWalkable(targetPos[0], targetPos[2])){
+            inputQueue.poll();          // sarebbe comunque rifiutato: contro un muro
+            return true;
+        }
+
+        if (!cameraAnimator.extend(command, nowNs)) return false;
+
+        inputQueue.poll();
+        checkExit(labGenerator, targetPos);
+
+        return true;
+
+    }
+
+    private static boolean isTranslation(int command){
+
+        return (command == CameraAnimator.TRANSLATE_FW) || (command == CameraAnimator.TRANSLATE_BW);
+
+    }
+
+    /**
+     * Funzione chiamata dal GL thread all'inizio di ogni frame.
+     *
+     * Se non c'è ancora un livello, oppure è stato richiesto il livello successivo (e non ci
+     * sono transizioni in atto), preleva il livello preparato dal LevelPipeline: esegue solo il
+     * trasferimento sul device, lo rende corrente (rilasciando le risorse del precedente), aggiorna
+     * la camera e avvia la preparazione del livello dopo. Se il livello non è ancora pronto si continua a disegnare quello corrente.
+     *
+     * Se la preparazione è fallita l'errore è registrato nel log, si continua a disegnare il
+     * livello corrente (o solo lo sfondo) e la preparazione riparte con un nuovo generatore, al
+     * più LevelPipeline.MAX_RETRIES volte di seguito.
+     *
+     * @return Livello da disegnare, null se il primo livello non è ancora pronto
+     */
+    public Level updateLevel(){
+
+        Level level = currentLevel;
+
+        boolean wantsNext = nextLevelRequested && !cameraAnimator.isAnimating();
+        if ( (level == null) || wantsNext ){
+
+            Level next;
+            try {
+                next = levelPipeline.pollNextLevel();
+            } catch (IllegalStateException e) {
+                next = null;
+                retryLevel(e);
+            }
+
+            if (next != null){
+
+                next.uploadToGpu(false);
+                next.getMap2D().setupProjection(surfaceWidth, surfaceHeight);
+                next.getLabyrinth3D().setupProjection(
+                        surfaceWidth / (float) (surfaceHeight == 0 ? 1 : surfaceHeight));
+
+                if (level != null){
+                    level.releaseGpu();
+                }
+                // reset della camera richiesto prima di pubblicare il livello: la simulazione
+                // non esegue comandi sul nuovo labirinto dalla posizione del vecchio
+                setStartPosition(next);
+                currentLevel = level = next;
+                nextLevelRequested = false;
+
+                levelPipeline.prepare(newLabGenerator());   // pre-generazione del successivo
+
+            }
+
+        }
+
+        return level;
+
+    }
+
+    /**
+     * Avvia un nuovo tentativo di preparazione dopo un errore, se non sono esauriti.
+     *
+     * @param e Errore prelevato dal LevelPipeline
+     */
+    private void retryLevel(IllegalStateException e){
+
+        if (levelPipeline.canRetry()){
+            Log.e(TAG, "Livello non disponibile, nuovo tentativo (" +
+                       levelPipeline.getFailures() + "/" + LevelPipeline.MAX_RETRIES + ")", e);
+            levelPipeline.prepare(newLabGenerator());
+        }else{
+            Log.e(TAG, "Livello non disponibile dopo " + levelPipeline.getFailures() + " tentativi", e);
+        }
+
+    }
+
+    /**
+     * Funzione chiamata dal GL thread alla fine di ogni frame: dice se serve subito un altro frame.
+     *
+     * La scena cambia solo mentre la simulazione è attiva o la camera sta interpolando l'ultimo
+     * tick, quando le matrici della camera sono da aggiornare oppure quando c'è un livello pronto
+     * da rendere corrente; negli altri casi il frame successivo sarebbe identico.
+     *
+     * @return True se la scena è ancora in movimento
+     */
+    public boolean needsRedraw(){
+
+        if (interpolating || !simulation.isIdle()) return true;
+        if (camera.matrixNeedsUpdate()) return true;
+
+        // livello in preparazione: il frame è richiesto dal LevelPipeline quando è pronto
+        return levelPipeline.isNextLevelReady() && ( (currentLevel == null) || nextLevelRequested );
+
+    }
+
+    /**
+     * Funzione che richiede il passaggio al livello successivo: il cambio avviene nel GL thread
+     * appena il livello è pronto.
+     */
+    public void requestNextLevel(){
+
+        nextLevelRequested = true;
+
+    }
+
+    /**
+     * Funzione che crea il generatore per il prossimo livello.
+     *
+     * Il seed dipende solo dall'indice del livello: il livello N è sempre lo stesso labirinto,
+     * quindi dalla seconda partita labirinto e PVS sono letti dalla MazeCache invece di essere
+     * ricalcolati (con seed casuali ogni file in cache sarebbe usato una volta sola).
+     *
+     * @return Generatore del labirinto, non ancora generato
+     */
+    private LabyrinthGenerator newLabGenerator(){
+
+        int level = levelIndex++;
+        LabyrinthGenerator labGenerator = new LabyrinthGenerator(DIMENSION, new AldousBroder(),
+                                                                 seedForLevel(level));
+        labGenerator.setCache(mazeCache);
+        Log.d(TAG, "Nuovo livello " + level + " con seed " + labGenerator.getSeed());
+
+        return labGenerator;
+
+    }
+
+    /**
+     * @param level Indice del livello (da 0)
+     * @return Seed del labirinto del livello
+     */
+    private static long seedForLevel(int level){
+
+        return new SplittableRandom(SEED_BASE + level).nextLong();
 
     }
 
     /**
      * Funzione che aggiorna la posizione e rotazione iniziale della camera in funzione al risultato
      * dell'algoritmo di generazione del labirinto.
+     *
+     * @param level Livello da cui leggere la posizione iniziale
      */
-    public void setStartPosition(){
+    public void setStartPosition(Level level){
+
+        LabyrinthGenerator labGenerator = level.getLabGenerator();
 
         float[] startPos = labGenerator.getStartPoint();
         float startAngle = labGenerator.getStartAngle();
 
         camera.setPosition(startPos[0], 0, startPos[1]);
         camera.setRotationY(startAngle);
+        resetCamera(startPos[0], startPos[1], startAngle);
 
     }
 
     /**
-     * Funzione che fa ruotare la camera verso destra o sinistra con una transizione gestita
-     * dal TimerTask della classe.
-     *
-     * Nel caso in cui ci sia ancora una transizione in atto, la richiesta di rotazione
-     * viene ignorata.
+     * Funzione che fa ruotare la camera verso destra o sinistra con un'animazione gestita
+     * dal CameraAnimator della classe. Chiamata dalla simulazione (vedi updateAnimations()).
      *
      * @param transitionType tipo di transizione (vedi costanti statiche della classe
-     *                       TransitionTimerTask)
+     *                       CameraAnimator)
+     * @param startNs Istante di partenza dell'animazione
      */
-    public void rotate(int transitionType){
-
-        if (transitionTimerTask.isTransitioning()){ return; }
+    private void rotate(int transitionType, long startNs){
 
-        transitionTimerTask.startTransition(transitionType, 0.5f);
+        cameraAnimator.start(transitionType, startNs);
 
     }
 
     /**
-     * Funzione che fa traslare la camera in avanti oppure indietro con una transizione gestita
-     * dal TimerTask della classe.
+     * Funzione che fa traslare la camera in avanti oppure indietro con un'animazione gestita
+     * dal CameraAnimator della classe. Chiamata dalla simulazione (vedi updateAnimations()).
      *
      * In questo caso è necessario controllare che la posizione target da raggiungere sia
      * effettivamente una posizione "walkable" e che quindi non si trovi al di fuori del labirinto
      * oppure che non rappresenti la posizione un muro.
      *
-     * Se la posizione target corrisponde all'uscita del labirinto, allora mostro un Toast di avviso.
+     * Se la posizione target corrisponde all'uscita del labirinto, allora mostro un Toast di avviso
+     * e richiedo il passaggio al livello successivo.
      *
-     * Nel caso in cui ci sia ancora una transizione in atto, la richiesta di traslazione
-     * viene ignorata.
+     * Finchè il primo livello non è pronto la richiesta è ignorata.
      *
      * @param transitionType tipo di transizione (vedi costanti statiche della classe
-     *                       TransitionTimerTask)
+     *                       CameraAnimator)
+     * @param startNs Istante di partenza dell'animazione
      */
-    public void translate(int transitionType){
+    private void translate(int transitionType, long startNs){
 
-        if (transitionTimerTask.isTransitioning()){ return; }
+        Level level = currentLevel;
+        if (level == null){ return; }
+        LabyrinthGenerator labGenerator = level.getLabGenerator();
 
-        float[] targetPos = new float[3];
-        if (transitionType == TransitionTimerTask.TRANSLATE_FW) {
-            targetPos = camera.getPosOnLookAtDirection(1);
-        }else if (transitionType == TransitionTimerTask.TRANSLATE_BW) {
-            targetPos = camera.getPosOnLookAtDirection(-1);
-        }
+        float alpha = (transitionType == CameraAnimator.TRANSLATE_BW) ? -1 : 1;
+        simCamera.getPosOnLookAtDirection(alpha, targetPos);
 
         if (!labGenerator.isWalkable(targetPos[0], targetPos[2])){
             Log.d(TAG, "Non walkable!!");
             return;
         }
 
-        if (exitFound(targetPos)) {
-            Toast.makeText(context,"Complimenti, hai trovato l'uscita!",
-                                        Toast.LENGTH_LONG).show();
-        }
+        checkExit(labGenerator, targetPos);
+        cameraAnimator.start(transitionType, startNs);
+
+    }
 
-        transitionTimerTask.startTransition(transitionType, 0.01f);
+    /**
+     * Se 'position' è l'uscita mostro il Toast (nel UI thread) e richiedo il livello successivo.
+     */
+    private void checkExit(LabyrinthGenerator labGenerator, float[] position){
+
+        if (exitFound(labGenerator, position)) {
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    Toast.makeText(context,"Complimenti, hai trovato l'uscita!",
+                                                Toast.LENGTH_LONG).show();
+                }
+            });
+            requestNextLevel();
+        }
 
     }
 
     /**
      * Funzione che controlla se l'utente ha trovato l'uscita del labirinto.
      *
+     * @param labGenerator Generatore del labirinto del livello corrente
+     * @param position Posizione da controllare
      * @return True se 'position'='endPoint', ovvero l'uscita del labirinto
      */
-    public boolean exitFound(float[] position){
+    public boolean exitFound(LabyrinthGenerator labGenerator, float[] position){
 
         float[] endPos = labGenerator.getEndPoint();
 
@@ -230,18 +635,20 @@ public class LabyrinthGame {
 
     public CameraPersp3D getCamera() { return camera; }
 
-    public Labyrinth3D getLabyrinth3D() { return labyrinth3D; }
+    public Level getCurrentLevel() { return currentLevel; }
+
+    public Labyrinth3D getLabyrinth3D() { return (currentLevel == null) ? null : currentLevel.getLabyrinth3D(); }
 
-    public Map2D getMap2D() { return map2D; }
+    public Map2D getMap2D() { return (currentLevel == null) ? null : currentLevel.getMap2D(); }
 
-    public Timer getTimer() { return timer; }
+    public LevelPipeline getLevelPipeline() { return levelPipeline; }
 
-    public TransitionTimerTask getTransitionTimerTask() { return transitionTimerTask; }
+    public RenderScheduler getRenderScheduler() { return renderScheduler; }
 
-    /******* SETTER *******/
+    public CameraAnimator getCameraAnimator() { return cameraAnimator; }
 
-    public void setTimer(Timer timer) { this.timer = timer; }
+    public Simulation getSimulation() { return simulation; }
 
-    public void setTransitionTimerTask(TransitionTimerTask t) { transitionTimerTask = t; }
+    public InputQueue getInputQueue() { return inputQueue; }
 
 }
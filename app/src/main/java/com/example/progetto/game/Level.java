@@ -0,0 +1,171 @@
+package com.example.progetto.game;
+
+import com.example.progetto.game.objects.Labyrinth3D;
+import com.example.progetto.game.objects.Map2D;
+import com.example.progetto.ogles.Geometry3D;
+import com.example.progetto.ogles.Texture;
+import com.example.progetto.ogles.shader.MaterialBasic;
+import com.example.progetto.ogles.shader.ShaderProgram;
+import com.example.progetto.ogles.utils.Tracer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Classe che raccoglie tutto quello che serve per giocare un livello: il labirinto generato e la
+ * relativa scena (Labyrinth3D + Map2D) con geometrie e materiali.
+ *
+ * Un Level è costruito dal LevelPipeline fuori dal GL thread, con geometrie, texture e shader
+ * program non ancora trasferiti sul device: l'unica parte da eseguire nel GL thread è
+ * uploadToGpu(), chiamata subito prima di rendere il livello quello corrente.
+ *
+ * Geometrie, texture e program sono condivisi tra i livelli: sono trasferiti solo la prima volta.
+ * Le geometrie dei muri (mesh di Labyrinth3D e piani istanziati di Map2D), i blocchi uniform dei
+ * materiali e della camera della mappa sono invece propri del livello e vanno rilasciati con
+ * releaseGpu() quando il livello non è più usato.
+ */
+public class Level {
+
+    private final LabyrinthGenerator labGenerator;
+    private final Labyrinth3D labyrinth3D;
+    private final Map2D map2D;
+
+    private final Map<String, Geometry3D> geometries;
+    private final Map<String, MaterialBasic> materials;
+
+    /**
+     * Costruttore della classe.
+     *
+     * @param labGenerator Generatore con il labirinto già generato
+     * @param labyrinth3D Labirinto nello spazio 3D
+     * @param map2D Mappa 2D
+     * @param geometries HashMap di geometrie usate dalla scena
+     * @param materials HashMap di materiali usati dalla scena
+     */
+    public Level(LabyrinthGenerator labGenerator, Labyrinth3D labyrinth3D, Map2D map2D,
+                 Map<String, Geometry3D> geometries, Map<String, MaterialBasic> materials){
+
+        this.labGenerator = labGenerator;
+        this.labyrinth3D = labyrinth3D;
+        this.map2D = map2D;
+        this.geometries = geometries;
+        this.materials = materials;
+
+    }
+
+    /**
+     * Funzione che trasferisce sul device le risorse del livello non ancora trasferite.
+     * Da chiamare nel GL thread.
+     *
+     * @param force True per trasferire di nuovo tutte le risorse (es. dopo la perdita del contesto
+     *              EGL, quando tutti gli oggetti GL non sono più validi)
+     */
+    public void uploadToGpu(boolean force){
+
+        Tracer.begin("Level.uploadToGpu");
+        try {
+
+            // program e texture possono essere condivisi da più materiali: li trasferisco una volta
+            Set<Object> done = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+
+            // materiale dei muri nel vertex shader: solo se la modalità è attiva (vedi sotto)
+            MaterialBasic lazy = (labyrinth3D != null) ? labyrinth3D.getMazeWallMaterial() : null;
+
+            for (MaterialBasic mat : materials.values()){
+
+                if (mat == lazy) continue;
+
+                ShaderProgram program = mat.getShaderProgram();
+                if (done.add(program) && (force || !program.isUploaded())){
+                    program.upload();
+                    mat.setTextureSamplerUniform();
+                }
+
+                if (force || !mat.isUploaded()){
+                    mat.upload();
+                }
+
+                Texture texture = mat.getTexture();
+                if ( (texture != null) && done.add(texture) && (force || !texture.isUploaded()) ){
+                    texture.upload();
+                }
+
+            }
+
+            for (Geometry3D geometry : geometries.values()){
+                if (force || !geometry.isUploaded()){
+                    geometry.upload();
+                }
+            }
+
+            for (Geometry3D walls : levelGeometries()){
+                if (force || !walls.isUploaded()){
+                    walls.upload();
+                }
+            }
+
+            if (labyrinth3D != null){
+                labyrinth3D.uploadShaderWalls(force);
+            }
+
+            // blocco Camera della mappa: creato alla prima bind
+            if ( force && (map2D != null) ){
+                map2D.getCamera().getUniforms().discard();
+            }
+
+        } finally {
+            Tracer.end();
+        }
+
+    }
+
+    /**
+     * Funzione che elimina dal device le risorse proprie del livello (non quelle condivise).
+     * Da chiamare nel GL thread.
+     */
+    public void releaseGpu(){
+
+        for (MaterialBasic mat : materials.values()){
+            mat.release();
+        }
+
+        if (map2D != null){
+            map2D.getCamera().getUniforms().release();
+        }
+
+        for (Geometry3D walls : levelGeometries()){
+            walls.release();
+        }
+
+        if ( (labyrinth3D != null) && (labyrinth3D.getGpuWalls() != null) ){
+            labyrinth3D.getGpuWalls().release();
+        }
+
+    }
+
+    /**
+     * Geometrie proprie del livello (non condivise).
+     */
+    private List<Geometry3D> levelGeometries(){
+
+        List<Geometry3D> res = new ArrayList<>();
+        if (labyrinth3D != null) res.addAll(labyrinth3D.getWallsGeometries());
+        if (map2D != null) res.add(map2D.getWallsGeometry());
+
+        return res;
+
+    }
+
+    /****** GETTER *******/
+
+    public LabyrinthGenerator getLabGenerator() { return labGenerator; }
+
+    public Labyrinth3D getLabyrinth3D() { return labyrinth3D; }
+
+    public Map2D getMap2D() { return map2D; }
+
+}
@@ -0,0 +1,274 @@
+package com.example.progetto.game;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Classe che prepara i livelli in background.
+ *
+ * La generazione del labirinto, il parsing del PLY, la decodifica dei bitmap e la costruzione di
+ * Labyrinth3D / Map2D sono eseguiti su un worker thread dedicato (a bassa priorità). Il livello
+ * pronto è pubblicato in un AtomicReference: il GL thread lo preleva con pollNextLevel(), esegue
+ * solo il trasferimento sul device (Level.uploadToGpu()) e lo rende corrente con un semplice
+ * cambio di riferimento, quindi nessun frame è bloccato dalla preparazione.
+ *
+ * Si prepara un livello alla volta: una nuova prepare() annulla quella in corso (il cui risultato
+ * è scartato) e l'eventuale livello pronto ma non ancora prelevato.
+ *
+ * Se il LevelBuilder lancia un'eccezione, questa è registrata nel log e pubblicata al posto del
+ * livello: pollNextLevel() la rilancia nel thread che preleva il risultato, invece di lasciare il
+ * gioco in attesa di un livello che non arriverà mai. Gli errori consecutivi sono contati (il
+ * contatore si azzera quando un livello è pubblicato): canRetry() dice se chi preleva può avviare
+ * un nuovo tentativo, al più MAX_RETRIES di seguito.
+ */
+public class LevelPipeline {
+
+    private static String TAG;
+
+    public static final int MAX_RETRIES = 3;
+
+    /**
+     * Costruzione di un livello, eseguita sul worker thread.
+     */
+    public interface LevelBuilder {
+
+        /**
+         * Costruisce il livello (senza chiamate GL).
+         *
+         * Nei punti in cui è possibile interrompersi deve chiamare
+         * LevelPipeline.checkCancelled(cancelled).
+         *
+         * @param labGenerator Generatore del labirinto del livello (non ancora generato)
+         * @param cancelled Flag impostato quando la preparazione è annullata
+         * @return Livello costruito
+         */
+        Level build(LabyrinthGenerator labGenerator, AtomicBoolean cancelled);
+
+    }
+
+    private final LevelBuilder builder;
+    private final ExecutorService worker;
+    private final AtomicReference<Level> nextLevel;
+    private final AtomicReference<RuntimeException> failure;
+    private final AtomicInteger failures;       // errori consecutivi
+
+    // preparazione in corso (accesso sincronizzato su this)
+    private Future<?> inFlight;
+    private AtomicBoolean inFlightCancelled;
+
+    private volatile Runnable onLevelReady;
+
+    /**
+     * Costruttore della classe: i livelli sono costruiti a partire dagli asset dell'app.
+     *
+     * @param context Activity context
+     */
+    public LevelPipeline(Context context){
+
+        this(new AssetLevelBuilder(context));
+
+    }
+
+    /**
+     * Costruttore della classe.
+     *
+     * @param builder Costruttore dei livelli
+     */
+    public LevelPipeline(LevelBuilder builder){
+
+        TAG = getClass().getSimpleName();
+
+        this.builder = builder;
+        this.nextLevel = new AtomicReference<>(null);
+        this.failure = new AtomicReference<>(null);
+        this.failures = new AtomicInteger(0);
+
+        worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "LevelPipeline");
+                t.setDaemon(true);
+                t.setPriority(Thread.MIN_PRIORITY);   // non rubo tempo al GL thread
+                return t;
+            }
+        });
+
+        inFlight = null;
+        inFlightCancelled = null;
+        onLevelReady = null;
+
+    }
+
+    /**
+     * Imposta la callback eseguita (sul worker thread) quando un livello è pronto oppure la
+     * preparazione è fallita, es. per richiedere un frame con il rendering su richiesta.
+     *
+     * @param onLevelReady Callback (null per nessuna)
+     */
+    public void setOnLevelReady(Runnable onLevelReady){
+
+        this.onLevelReady = onLevelReady;
+
+    }
+
+    /**
+     * Avvia in background la preparazione di un livello.
+     * Annulla l'eventuale preparazione in corso e scarta il livello pronto non ancora prelevato.
+     *
+     * @param labGenerator Generatore del labirinto del nuovo livello
+     */
+    public synchronized void prepare(final LabyrinthGenerator labGenerator){
+
+        cancel();
+
+        final AtomicBoolean cancelled = new AtomicBoolean(false);
+        inFlightCancelled = cancelled;
+        inFlight = worker.submit(new Runnable() {
+            @Override
+            public void run() {
+
+                try {
+                    long start = System.nanoTime();
+                    Level level = builder.build(labGenerator, cancelled);
+                    checkCancelled(cancelled);
+                    publish(level, cancelled);
+                    notifyReady();
+                    Log.d(TAG, "Livello pronto in " + (System.nanoTime() - start) / 1000000 + " ms");
+                } catch (CancellationException e) {
+                    Log.d(TAG, "Preparazione livello annullata");
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Preparazione livello fallita", e);
+                    if (publishFailure(e, cancelled)) notifyReady();
+                }
+
+            }
+        });
+
+    }
+
+    /**
+     * Pubblica il livello solo se nel frattempo la preparazione non è stata annullata.
+     */
+    private synchronized void publish(Level level, AtomicBoolean cancelled){
+
+        if (cancelled.get()){
+            throw new CancellationException();
+        }
+
+        nextLevel.set(level);
+        failures.set(0);
+        inFlight = null;
+        inFlightCancelled = null;
+
+    }
+
+    /**
+     * Pubblica l'errore della preparazione, se nel frattempo non è stata annullata.
+     *
+     * @return True se l'errore è stato pubblicato
+     */
+    private synchronized boolean publishFailure(RuntimeException e, AtomicBoolean cancelled){
+
+        if (cancelled.get()) return false;
+
+        failure.set(e);
+        failures.incrementAndGet();
+        inFlight = null;
+        inFlightCancelled = null;
+
+        return true;
+
+    }
+
+    private void notifyReady(){
+
+        Runnable callback = onLevelReady;
+        if (callback != null) callback.run();
+
+    }
+
+    /**
+     * Annulla la preparazione in corso (il worker si interrompe al primo checkCancelled()) e
+     * scarta il livello pronto (o l'errore) non ancora prelevato.
+     */
+    public synchronized void cancel(){
+
+        if (inFlightCancelled != null){
+            inFlightCancelled.set(true);
+        }
+        if (inFlight != null){
+            inFlight.cancel(true);
+        }
+
+        inFlight = null;
+        inFlightCancelled = null;
+        nextLevel.set(null);
+        failure.set(null);
+
+    }
+
+    /**
+     * Preleva il livello pronto. Dopo la chiamata il livello non è più disponibile nella pipeline.
+     *
+     * @return Livello pronto, null se non c'è nessun livello pronto
+     * @throws IllegalStateException Se la preparazione è fallita (causa: l'eccezione del builder);
+     *                               l'errore è consumato, una nuova prepare() può riprovare
+     */
+    public Level pollNextLevel(){
+
+        RuntimeException e = failure.getAndSet(null);
+        if (e != null){
+            throw new IllegalStateException("Preparazione del livello fallita", e);
+        }
+
+        return nextLevel.getAndSet(null);
+
+    }
+
+    /**
+     * Annulla la preparazione in corso e termina il worker thread.
+     */
+    public void shutdown(){
+
+        cancel();
+        worker.shutdownNow();
+
+    }
+
+    /**
+     * Funzione chiamata dal LevelBuilder nei punti in cui può interrompersi.
+     *
+     * @param cancelled Flag di annullamento passato a build()
+     * @throws CancellationException Se la preparazione è stata annullata
+     */
+    public static void checkCancelled(AtomicBoolean cancelled){
+
+        if (cancelled.get() || Thread.currentThread().isInterrupted()){
+            throw new CancellationException();
+        }
+
+    }
+
+    /****** GETTER *******/
+
+    /** True se c'è un risultato da prelevare: livello pronto oppure errore (vedi pollNextLevel()). */
+    public boolean isNextLevelReady() { return (nextLevel.get() != null) || (failure.get() != null); }
+
+    public synchronized boolean isPreparing() { return (inFlight != null) && !inFlight.isDone(); }
+
+    /** Errori consecutivi della preparazione (0 dopo un livello pubblicato). */
+    public int getFailures() { return failures.get(); }
+
+    /** True se dopo l'ultimo errore si può ancora riprovare (al più MAX_RETRIES volte di seguito). */
+    public boolean canRetry() { return failures.get() <= MAX_RETRIES; }
+
+}
@@ -0,0 +1,160 @@
+package com.example.progetto.game;
+
+/**
+ * Rendering su richiesta (GLSurfaceView.RENDERMODE_WHEN_DIRTY): un frame è disegnato solo quando
+ * qualcosa è cambiato, invece che alla frequenza del display anche con il giocatore fermo.
+ *
+ * Chi cambia la scena chiama requestFrame() (da qualsiasi thread: UI per l'input, worker del
+ * LevelPipeline per il livello pronto, thread della Simulation per un nuovo snapshot). Il renderer
+ * chiama onFrameStarted() all'inizio di ogni frame, prima di leggere lo stato, e
+ * onFrameRendered() alla fine dicendo se la scena è ancora in movimento (transizione della
+ * camera, matrici da aggiornare, ...): in quel caso è richiesto subito il frame successivo,
+ * altrimenti il GL thread resta fermo fino alla prossima requestFrame().
+ *
+ * Le richieste arrivate mentre un frame è richiesto e non ancora iniziato sono accorpate (come fa
+ * GLSurfaceView.requestRender()) ma contate. Una richiesta arrivata durante il disegno chiede
+ * invece un altro frame: il frame in corso ha già letto lo stato e non la includerebbe.
+ *
+ * Metriche, sull'ultimo secondo concluso: frame richiesti (requestFrame() e continuazioni) e
+ * frame disegnati.
+ */
+public class RenderScheduler {
+
+    private static final long WINDOW_NS = 1000000000L;
+
+    /**
+     * Destinatario delle richieste di frame (GLSurfaceView.requestRender() sul dispositivo).
+     */
+    public interface FrameRequester {
+
+        void requestRender();
+
+    }
+
+    private FrameRequester requester;
+    private boolean pending;            // frame richiesto e non ancora iniziato
+
+    private long windowStart;
+    private int requested;
+    private int rendered;
+    private int requestedPerSecond;
+    private int renderedPerSecond;
+    private long totalRequested;
+    private long totalRendered;
+
+    /**
+     * Costruttore della classe. Senza FrameRequester le richieste sono solo contate (es. render
+     * mode continuo).
+     */
+    public RenderScheduler(){
+
+        requester = null;
+        pending = false;
+        windowStart = -1;
+
+    }
+
+    /**
+     * @param requester Destinatario delle richieste di frame (null per nessuno)
+     */
+    public synchronized void setRequester(FrameRequester requester){
+
+        this.requester = requester;
+
+    }
+
+    /**
+     * Richiede un nuovo frame. Thread-safe.
+     */
+    public void requestFrame(){
+
+        requestFrame(System.nanoTime());
+
+    }
+
+    synchronized void requestFrame(long nowNs){
+
+        roll(nowNs);
+        requested++;
+        totalRequested++;
+
+        if (pending) return;          // accorpata alla richiesta in attesa
+        pending = true;
+
+        if (requester != null){
+            requester.requestRender();
+        }
+
+    }
+
+    /**
+     * Chiamata dal GL thread all'inizio di ogni frame, prima di leggere lo stato della scena: le
+     * richieste successive chiedono un nuovo frame.
+     */
+    public synchronized void onFrameStarted(){
+
+        pending = false;
+
+    }
+
+    /**
+     * Chiamata dal GL thread alla fine di ogni frame.
+     *
+     * @param stillDirty True se la scena è ancora in movimento: è richiesto il frame successivo
+     */
+    public void onFrameRendered(boolean stillDirty){
+
+        onFrameRendered(stillDirty, System.nanoTime());
+
+    }
+
+    synchronized void onFrameRendered(boolean stillDirty, long nowNs){
+
+        roll(nowNs);
+        rendered++;
+        totalRendered++;
+
+        if (stillDirty){
+            requestFrame(nowNs);
+        }
+
+    }
+
+    /**
+     * Chiude la finestra di un secondo se è trascorsa (le finestre senza eventi valgono zero).
+     */
+    private void roll(long nowNs){
+
+        if (windowStart < 0){
+            windowStart = nowNs;
+            return;
+        }
+
+        long elapsed = nowNs - windowStart;
+        if (elapsed < WINDOW_NS) return;
+
+        boolean consecutive = elapsed < 2 * WINDOW_NS;
+        requestedPerSecond = consecutive ? requested : 0;
+        renderedPerSecond = consecutive ? rendered : 0;
+        requested = 0;
+        rendered = 0;
+        windowStart += (elapsed / WINDOW_NS) * WINDOW_NS;
+
+    }
+
+    /******* GETTER *******/
+
+    /** Frame richiesti nell'ultimo secondo concluso. */
+    public synchronized int getRequestedPerSecond() { return requestedPerSecond; }
+
+    /** Frame disegnati nell'ultimo secondo concluso. */
+    public synchronized int getRenderedPerSecond() { return renderedPerSecond; }
+
+    public synchronized long getTotalRequested() { return totalRequested; }
+
+    public synchronized long getTotalRendered() { return totalRendered; }
+
+    /** Frame richiesto e non ancora iniziato. */
+    public synchronized boolean isFramePending() { return pending; }
+
+}
@@ -0,0 +1,108 @@
+package com.example.progetto.game;
+
+import com.example.progetto.ogles.camera.CameraState;
+
+/**
+ * Stato della simulazione pubblicato per il renderer ad ogni tick (vedi Simulation e
+ * TripleBuffer): la camera al tick precedente e a quello corrente.
+ *
+ * Scritto solo dal thread della simulazione mentre è il back del TripleBuffer; una volta
+ * pubblicato il renderer lo legge senza modificarlo. Avere entrambi i tick nello stesso oggetto
+ * permette di interpolare anche se il renderer salta dei tick.
+ */
+public class RenderSnapshot {
+
+    private long tick;              // 0: mai pubblicato
+    private long timeNs;            // istante simulato del tick corrente
+    private int generation;         // reset della camera (cambio livello) applicati
+    private final float[] previous;
+    private final float[] current;
+
+    /**
+     * Costruttore della classe: snapshot vuoto (mai pubblicato).
+     */
+    public RenderSnapshot(){
+
+        tick = 0;
+        previous = new float[CameraState.SIZE];
+        current = new float[CameraState.SIZE];
+
+    }
+
+    /**
+     * Funzione chiamata dalla simulazione per riempire lo snapshot.
+     *
+     * @param tick Numero del tick (> 0)
+     * @param timeNs Istante simulato del tick
+     * @param generation Reset della camera applicati
+     * @param previous Stato della camera al tick precedente (indici di CameraState)
+     * @param current Stato della camera a questo tick (indici di CameraState)
+     */
+    void set(long tick, long timeNs, int generation, float[] previous, float[] current){
+
+        this.tick = tick;
+        this.timeNs = timeNs;
+        this.generation = generation;
+        System.arraycopy(previous, 0, this.previous, 0, CameraState.SIZE);
+        System.arraycopy(current, 0, this.current, 0, CameraState.SIZE);
+
+    }
+
+    /**
+     * Il renderer disegna un tick indietro: a 'nowNs' mostra lo stato che la simulazione aveva a
+     * nowNs - TICK_NS, compreso tra i due tick dello snapshot.
+     *
+     * @param nowNs Tempo del frame (System.nanoTime())
+     * @return Fattore di interpolazione in [0, 1] tra previous e current
+     */
+    public float alpha(long nowNs){
+
+        float a = (nowNs - timeNs) / (float) Simulation.TICK_NS;
+
+        return Math.min(Math.max(a, 0f), 1f);
+
+    }
+
+    /**
+     * @param index Indice di CameraState (X, Y, Z o ROTATION_Y)
+     * @param alpha Fattore di interpolazione (vedi alpha())
+     * @return Valore interpolato; la rotazione segue l'arco più breve (gli angoli sono modulo 360)
+     */
+    public float lerp(int index, float alpha){
+
+        float from = previous[index];
+        float delta = current[index] - from;
+
+        if (index == CameraState.ROTATION_Y){
+            if (delta > 180f) delta -= 360f;
+            else if (delta < -180f) delta += 360f;
+        }
+
+        return from + delta * alpha;
+
+    }
+
+    /**
+     * @return True se la camera si è mossa tra i due tick
+     */
+    public boolean isMoving(){
+
+        for (int i=0; i<CameraState.SIZE; i++){
+            if (previous[i] != current[i]) return true;
+        }
+
+        return false;
+
+    }
+
+    /******* GETTER *******/
+
+    public long getTick() { return tick; }
+
+    public long getTimeNs() { return timeNs; }
+
+    public int getGeneration() { return generation; }
+
+    public float getCurrent(int index) { return current[index]; }
+
+}
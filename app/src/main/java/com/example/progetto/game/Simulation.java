@@ -0,0 +1,208 @@
+package com.example.progetto.game;
+
+import com.example.progetto.ogles.utils.Tracer;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Loop della simulazione a passo fisso, su un thread dedicato.
+ *
+ * Ogni TICK_NS è chiamato Step.tick() con l'istante simulato del tick (multiplo esatto del
+ * passo dalla partenza), indipendente dal frame rate del renderer e dal jitter dello scheduling:
+ * se il thread è in ritardo esegue i tick mancanti (al massimo MAX_CATCH_UP per giro, oltre si
+ * salta avanti per non inseguire all'infinito).
+ *
+ * Quando Step.tick() dice che non c'è più niente da simulare il thread si ferma in park() finché
+ * wake() non segnala nuovo input: nessun tick a vuoto con il gioco fermo.
+ *
+ * Il costo dei tick (ultimo, medio, massimo) è misurato separatamente da quello dei frame.
+ */
+public class Simulation {
+
+    public static final int TICK_RATE = 60;                     // tick al secondo
+    public static final long TICK_NS = 1000000000L / TICK_RATE;
+    public static final int MAX_CATCH_UP = 5;
+
+    /**
+     * Passo della simulazione, chiamato dal thread della simulazione.
+     */
+    public interface Step {
+
+        /**
+         * @param timeNs Istante simulato del tick (scala di System.nanoTime())
+         * @return True se servono altri tick (qualcosa è ancora in movimento o in attesa)
+         */
+        boolean tick(long timeNs);
+
+    }
+
+    private final Step step;
+
+    private volatile Thread thread;
+    private volatile boolean running;
+    private volatile boolean idle;
+    private long nextTickNs;                // solo thread della simulazione
+
+    // statistiche (scritte solo dal thread della simulazione)
+    private volatile long ticks;
+    private volatile long skippedTicks;
+    private volatile long lastTickCostNs;
+    private volatile long maxTickCostNs;
+    private volatile long totalTickCostNs;
+
+    /**
+     * Costruttore della classe.
+     *
+     * @param step Passo della simulazione
+     */
+    public Simulation(Step step){
+
+        this.step = step;
+        running = false;
+        idle = true;
+
+    }
+
+    /**
+     * Avvia il thread della simulazione (es. in onResume()). Ignorata se già avviata.
+     */
+    public synchronized void start(){
+
+        if (running) return;
+
+        running = true;
+        idle = false;               // primo giro: eventuale input arrivato da fermo
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        }, "Simulation");
+        thread.start();
+
+    }
+
+    /**
+     * Ferma il thread della simulazione e ne attende la fine (es. in onPause()).
+     */
+    public synchronized void stop(){
+
+        if (!running) return;
+
+        running = false;
+        Thread t = thread;
+        LockSupport.unpark(t);
+
+        boolean interrupted = false;
+        while (t.isAlive()){
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+
+        thread = null;
+        idle = true;
+
+    }
+
+    /**
+     * Segnala nuovo input: se il thread è fermo riparte subito. Da qualunque thread.
+     */
+    public void wake(){
+
+        idle = false;
+        Thread t = thread;
+        if (t != null) LockSupport.unpark(t);
+
+    }
+
+    private void loop(){
+
+        nextTickNs = System.nanoTime();
+
+        while (running){
+
+            long now = System.nanoTime();
+            boolean active = advance(now);
+
+            if (active){
+                long wait = nextTickNs - System.nanoTime();
+                if (wait > 0) LockSupport.parkNanos(this, wait);
+            }else{
+                idle = true;
+                LockSupport.park(this);         // fino a wake() o stop()
+                idle = false;
+                nextTickNs = System.nanoTime(); // primo tick subito: nessuna latenza sull'input
+            }
+
+        }
+
+    }
+
+    /**
+     * Esegue i tick scaduti fino a 'nowNs'.
+     *
+     * @param nowNs Tempo attuale
+     * @return Risultato dell'ultimo Step.tick() eseguito (true se nessun tick era scaduto)
+     */
+    boolean advance(long nowNs){
+
+        boolean active = true;
+        int executed = 0;
+
+        while (nextTickNs <= nowNs){
+
+            if (executed == MAX_CATCH_UP){
+                skippedTicks += (nowNs - nextTickNs) / TICK_NS;
+                nextTickNs = nowNs;             // troppo indietro: salto avanti
+            }
+
+            Tracer.begin("tick");
+            long t0 = System.nanoTime();
+            active = step.tick(nextTickNs);
+            long cost = System.nanoTime() - t0;
+            Tracer.end();
+
+            lastTickCostNs = cost;
+            totalTickCostNs += cost;
+            if (cost > maxTickCostNs) maxTickCostNs = cost;
+            ticks++;
+
+            nextTickNs += TICK_NS;
+            executed++;
+
+        }
+
+        return active;
+
+    }
+
+    /**
+     * Imposta l'istante del prossimo tick (test, senza thread).
+     */
+    void setNextTickNs(long nextTickNs) { this.nextTickNs = nextTickNs; }
+
+    /******* GETTER *******/
+
+    public boolean isRunning() { return running; }
+
+    /** @return True se il thread è fermo in attesa di input */
+    public boolean isIdle() { return idle; }
+
+    public long getTicks() { return ticks; }
+
+    public long getSkippedTicks() { return skippedTicks; }
+
+    public long getLastTickCostNs() { return lastTickCostNs; }
+
+    public long getMaxTickCostNs() { return maxTickCostNs; }
+
+    public long getAverageTickCostNs() {
+        long n = ticks;
+        return (n == 0) ? 0 : totalTickCostNs / n;
+    }
+
+}
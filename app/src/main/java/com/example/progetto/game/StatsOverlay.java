@@ -0,0 +1,70 @@
+package com.example.progetto.game;
+
+import android.widget.TextView;
+
+import com.example.progetto.ogles.gl.RenderStats;
+
+/**
+ * Overlay di debug con il riepilogo del RenderStats, aggiornato nel UI thread ogni
+ * UPDATE_INTERVAL_MS (non ad ogni frame: il testo non deve costare quanto il frame).
+ *
+ * Il TextView è fornito dall'activity (sopra la GLSurfaceView); la lettura delle statistiche è
+ * sincronizzata con il GL thread da RenderStats.
+ */
+public class StatsOverlay {
+
+    public static final long UPDATE_INTERVAL_MS = 500;
+
+    private final TextView view;
+    private final RenderStats stats;
+    private final StringBuilder text;
+    private final Runnable update;
+    private boolean running;
+
+    /**
+     * Costruttore della classe.
+     *
+     * @param view TextView su cui scrivere il riepilogo
+     * @param stats Statistiche del renderer
+     */
+    public StatsOverlay(TextView view, RenderStats stats){
+
+        this.view = view;
+        this.stats = stats;
+        text = new StringBuilder(256);
+        running = false;
+
+        update = new Runnable() {
+            @Override
+            public void run() {
+                if (!running) return;
+                StatsOverlay.this.view.setText(StatsOverlay.this.stats.summary(text).toString());
+                StatsOverlay.this.view.postDelayed(this, UPDATE_INTERVAL_MS);
+            }
+        };
+
+    }
+
+    /**
+     * Avvia gli aggiornamenti (UI thread, es. in onResume()).
+     */
+    public void start(){
+
+        if (running) return;
+
+        running = true;
+        view.post(update);
+
+    }
+
+    /**
+     * Ferma gli aggiornamenti (UI thread, es. in onPause()).
+     */
+    public void stop(){
+
+        running = false;
+        view.removeCallbacks(update);
+
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.example.progetto.game;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Triple buffer lock-free tra un solo scrittore e un solo lettore.
+ *
+ * Tre oggetti preallocati: uno è dello scrittore (back), uno del lettore (front) e il terzo è
+ * l'ultimo pubblicato (middle). publish() scambia back e middle, update() scambia front e middle
+ * solo se il middle è stato pubblicato dopo l'ultima lettura. Lo scambio è un getAndSet() su un
+ * intero (indice + flag di novità): nessuno dei due thread attende l'altro e un oggetto non è mai
+ * in uso da entrambi, quindi il lettore vede sempre un oggetto completo che non cambia finché non
+ * chiama di nuovo update(). Se lo scrittore è più veloce gli oggetti intermedi sono saltati.
+ *
+ * Nessuna allocazione dopo la costruzione.
+ *
+ * @param <T> Tipo degli oggetti scambiati
+ */
+public class TripleBuffer<T> {
+
+    private static final int INDEX_MASK = 3;
+    private static final int FRESH = 4;             // middle non ancora letto
+
+    private final Object[] buffers;
+    private final AtomicInteger middle;
+    private int back;                               // solo scrittore
+    private int front;                              // solo lettore
+
+    /**
+     * Costruttore della classe.
+     *
+     * @param a Primo oggetto (inizialmente front)
+     * @param b Secondo oggetto (inizialmente middle)
+     * @param c Terzo oggetto (inizialmente back)
+     */
+    public TripleBuffer(T a, T b, T c){
+
+        if ( (a == null) || (b == null) || (c == null) || (a == b) || (b == c) || (a == c) ){
+            throw new IllegalArgumentException("Servono tre oggetti distinti");
+        }
+
+        buffers = new Object[] { a, b, c };
+        front = 0;
+        middle = new AtomicInteger(1);
+        back = 2;
+
+    }
+
+    /**
+     * Solo dallo scrittore.
+     *
+     * @return Oggetto da riempire prima di publish()
+     */
+    @SuppressWarnings("unchecked")
+    public T getBack() { return (T) buffers[back]; }
+
+    /**
+     * Pubblica l'oggetto riempito (getBack()) e prende in cambio quello da scrivere al prossimo
+     * giro. Solo dallo scrittore.
+     */
+    public void publish(){
+
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+
+    }
+
+    /**
+     * Rende front l'ultimo oggetto pubblicato, se ce n'è uno nuovo. Solo dal lettore.
+     *
+     * @return True se getFront() è cambiato
+     */
+    public boolean update(){
+
+        if ((middle.get() & FRESH) == 0) return false;
+
+        front = middle.getAndSet(front) & INDEX_MASK;
+
+        return true;
+
+    }
+
+    /**
+     * Solo dal lettore.
+     *
+     * @return Ultimo oggetto ottenuto con update(), da non modificare
+     */
+    @SuppressWarnings("unchecked")
+    public T getFront() { return (T) buffers[front]; }
+
+}
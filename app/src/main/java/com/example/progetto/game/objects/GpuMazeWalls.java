@@ -0,0 +1,246 @@
+package com.example.progetto.game.objects;
+
+import static android.opengl.GLES20.GL_CLAMP_TO_EDGE;
+import static android.opengl.GLES20.GL_NEAREST;
+import static android.opengl.GLES20.GL_TEXTURE0;
+import static android.opengl.GLES20.GL_TEXTURE_2D;
+import static android.opengl.GLES20.GL_TEXTURE_MAG_FILTER;
+import static android.opengl.GLES20.GL_TEXTURE_MIN_FILTER;
+import static android.opengl.GLES20.GL_TEXTURE_WRAP_S;
+import static android.opengl.GLES20.GL_TEXTURE_WRAP_T;
+import static android.opengl.GLES20.GL_TRIANGLES;
+import static android.opengl.GLES20.GL_UNPACK_ALIGNMENT;
+import static android.opengl.GLES20.GL_UNSIGNED_BYTE;
+import static android.opengl.GLES30.GL_R8;
+import static android.opengl.GLES30.GL_RED;
+
+import com.example.progetto.game.maze.MazeGrid;
+import com.example.progetto.ogles.camera.CameraBase;
+import com.example.progetto.ogles.gl.GLApi;
+import com.example.progetto.ogles.gl.GLBridge;
+import com.example.progetto.ogles.shader.MaterialBasic;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Muri del labirinto generati interamente nel vertex shader (MaterialBasic.VSHADER_MAZE).
+ *
+ * La griglia è trasferita una volta come texture R8 (un texel per cella, 255 = muro); il
+ * disegno è una sola glDrawArraysInstanced() senza vertex buffer con un'istanza per cella e
+ * VERTICES_PER_INSTANCE vertici per istanza (4 facce da 2 triangoli). Il vertex shader ricava
+ * cella, faccia e vertice da gl_InstanceID e gl_VertexID e scarta (triangoli degeneri) le facce
+ * che non esistono, con la stessa regola di WallMesher: solo tra un muro e una cella camminabile.
+ *
+ * Lato CPU non c'è nessun dato per muro (niente vertici, matrici o uniform): il costo del disegno
+ * è costante, indipendente dalla dimensione del labirinto. Il costo si sposta sulla GPU, che
+ * elabora rows * cols * 24 vertici per frame (anche quelli dei muri non visibili).
+ *
+ * expandVertex() è il riferimento Java dello shader (stesse tabelle e stessa aritmetica), usato
+ * nei test JVM.
+ *
+ * Le texture GLES 3.0 sono garantite fino a MAX_SIZE texel per lato: per labirinti più grandi
+ * questa modalità non è disponibile (vedi isSupported()).
+ */
+public class GpuMazeWalls {
+
+    public static final int VERTICES_PER_INSTANCE = 24;
+    public static final int MAX_SIZE = 2048;      // GL_MAX_TEXTURE_SIZE minimo di GLES 3.0
+
+    private static final byte WALL = (byte) 255;
+
+    // stesse tabelle di VSHADER_MAZE, per faccia (FACE_* di GridRaycaster: +z, -z, +x, -x)
+    private static final int[] NEIGHBOUR_COL = {0, 0, 1, -1};
+    private static final int[] NEIGHBOUR_ROW = {1, -1, 0, 0};
+    private static final float[][] SIDE = {{0, 1, 1, 1}, {1, 0, 0, 0}, {1, 1, 1, 0}, {0, 0, 0, 1}};
+    private static final float[] CORNER_U = {0, 1, 1, 0, 1, 0};
+    private static final float[] CORNER_Y = {0, 0, 1, 0, 1, 1};
+
+    private final int rows;
+    private final int cols;
+    private final byte[] texels;
+    private final ByteBuffer texelBuffer;
+    private final int[] textureId;
+    private volatile boolean uploaded;
+
+    /**
+     * Costruttore della classe: prepara i texel della griglia (nessuna chiamata GL).
+     *
+     * @param grid Griglia del labirinto (al massimo MAX_SIZE x MAX_SIZE)
+     */
+    public GpuMazeWalls(MazeGrid grid){
+
+        if (!isSupported(grid)){
+            throw new IllegalArgumentException("Labirinto troppo grande per la texture");
+        }
+
+        rows = grid.getRows();
+        cols = grid.getCols();
+        texels = buildTexels(grid);
+        texelBuffer = ByteBuffer.allocateDirect(texels.length);
+        texelBuffer.put(texels);
+        texelBuffer.position(0);
+        textureId = new int[1];
+        uploaded = false;
+
+    }
+
+    /**
+     * @param grid Griglia del labirinto
+     * @return True se la griglia può essere trasferita come texture
+     */
+    public static boolean isSupported(MazeGrid grid){
+
+        return (grid.getRows() <= MAX_SIZE) && (grid.getCols() <= MAX_SIZE);
+
+    }
+
+    /**
+     * Texel della griglia: riga per riga, un byte per cella (255 muro, 0 camminabile).
+     *
+     * @param grid Griglia del labirinto
+     * @return Nuovo vettore di rows * cols byte
+     */
+    public static byte[] buildTexels(MazeGrid grid){
+
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        byte[] res = new byte[rows * cols];
+
+        for (int r=0; r<rows; r++){
+            for (int c=0; c<cols; c++){
+                if (!grid.isWalkable(r, c)) res[r * cols + c] = WALL;
+            }
+        }
+
+        return res;
+
+    }
+
+    /**
+     * Riferimento Java di VSHADER_MAZE: posizione e uv di un vertice.
+     *
+     * @param texels Texel della griglia (buildTexels())
+     * @param rows Righe della griglia
+     * @param cols Colonne della griglia
+     * @param instanceId gl_InstanceID (cella riga * cols + colonna)
+     * @param vertexId gl_VertexID (0 .. VERTICES_PER_INSTANCE - 1)
+     * @param dst Destinazione [ 'x', 'y', 'z', 'u', 'v' ] (uv senza texScaling)
+     * @return False se il vertice appartiene ad una faccia scartata (dst non modificato)
+     */
+    public static boolean expandVertex(byte[] texels, int rows, int cols, int instanceId,
+                                       int vertexId, float[] dst){
+
+        int col = instanceId % cols;
+        int row = instanceId / cols;
+        int face = vertexId / 6;
+        int corner = vertexId % 6;
+
+        if ( !isWall(texels, rows, cols, row, col) ||
+             isWall(texels, rows, cols, row + NEIGHBOUR_ROW[face], col + NEIGHBOUR_COL[face]) ){
+            return false;
+        }
+
+        float[] side = SIDE[face];
+        float u = CORNER_U[corner];
+        dst[0] = col + side[0] + (side[2] - side[0]) * u - cols * 0.5f;
+        dst[1] = CORNER_Y[corner] - 0.5f;
+        dst[2] = row + side[1] + (side[3] - side[1]) * u - rows * 0.5f;
+        dst[3] = u;
+        dst[4] = CORNER_Y[corner];
+
+        return true;
+
+    }
+
+    /**
+     * Come isWall() dello shader: fuori dalla griglia conta come muro.
+     */
+    private static boolean isWall(byte[] texels, int rows, int cols, int row, int col){
+
+        if ( (row < 0) || (row >= rows) || (col < 0) || (col >= cols) ) return true;
+
+        return texels[row * cols + col] != 0;
+
+    }
+
+    /**
+     * Funzione che crea la texture R8 della griglia e trasferisce i texel. Da chiamare nel
+     * GL thread (anche dopo la perdita del contesto EGL).
+     */
+    public void upload(){
+
+        GLApi gl = GLBridge.get();
+
+        gl.glGenTextures(1, textureId, 0);
+        gl.glBindTexture(GL_TEXTURE_2D, textureId[0]);
+
+            // letta solo con texelFetch(): nessun filtro e nessuna mipmap
+            gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+            gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+            gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+            gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+
+            // righe di 'cols' byte: allineamento a 1 (il default è 4)
+            gl.glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
+            gl.glTexImage2D(GL_TEXTURE_2D, 0, GL_R8, cols, rows, 0, GL_RED, GL_UNSIGNED_BYTE, texelBuffer);
+            gl.glPixelStorei(GL_UNPACK_ALIGNMENT, 4);
+
+        gl.glBindTexture(GL_TEXTURE_2D, 0);
+
+        uploaded = true;
+
+    }
+
+    /**
+     * Funzione che elimina la texture dal device. Da chiamare nel GL thread.
+     */
+    public void release(){
+
+        if (!uploaded) return;
+
+        GLBridge.get().glDeleteTextures(1, textureId, 0);
+        uploaded = false;
+
+    }
+
+    /**
+     * Disegna tutti i muri con una drawcall.
+     *
+     * Il program di 'material' (VSHADER_MAZE) deve essere in uso; nessun VAO è necessario (non
+     * ci sono attributi), quindi è bindato il VAO di default.
+     *
+     * @param camera Camera (matrici già aggiornate)
+     * @param material Materiale dei muri con program VSHADER_MAZE
+     */
+    public void draw(CameraBase camera, MaterialBasic material){
+
+        GLApi gl = GLBridge.get();
+
+        camera.bindUniforms();
+        material.updateUniforms();
+        material.activateTexture();
+
+        gl.glActiveTexture(GL_TEXTURE0 + MaterialBasic.MAZE_TEXTURE_UNIT);
+        gl.glBindTexture(GL_TEXTURE_2D, textureId[0]);
+        gl.glActiveTexture(GL_TEXTURE0);
+
+        gl.glBindVertexArray(0);
+        gl.glDrawArraysInstanced(GL_TRIANGLES, 0, VERTICES_PER_INSTANCE, rows * cols);
+
+    }
+
+    /******* GETTER *******/
+
+    public int getRows() { return rows; }
+
+    public int getCols() { return cols; }
+
+    public int getNumInstances() { return rows * cols; }
+
+    public byte[] getTexels() { return texels; }
+
+    public int getTextureId() { return textureId[0]; }
+
+    public boolean isUploaded() { return uploaded; }
+
+}
@@ -0,0 +1,251 @@
+package com.example.progetto.game.objects;
+
+/**
+ * Frustum culling dei muri del labirinto usando la griglia come indice spaziale.
+ *
+ * La griglia è divisa in tile di tileSize x tileSize celle (vedi WallMesher): ogni tile è un box
+ * allineato agli assi (x, z dalle celle, y in [-0.5, 0.5]) testato contro i 6 piani del frustum
+ * estratti dalla matrice PV della camera. Il risultato è una lista di intervalli dell'index
+ * buffer dei muri (tile visibili consecutivi sono uniti nello stesso intervallo) da disegnare con
+ * una glDrawElements() ciascuno.
+ *
+ * Coerenza temporale: il set visibile è ricalcolato solo quando la camera cambia cella o
+ * rotazione (o dopo invalidate(), es. cambio di proiezione). Per restare corretto finchè la camera
+ * si muove dentro la stessa cella, ogni box è allargato di 1 cella su 'x' e 'z': il frustum da una
+ * posizione p+d è quello da p traslato di d, con |d| < 1 su entrambi gli assi.
+ *
+ * Solo Java (nessuna chiamata GL): testabile sulla JVM.
+ */
+public class GridFrustumCuller implements WallVisibility {
+
+    private static final float MARGIN = 1f;   // spostamento massimo dentro una cella
+
+    private final int rows;
+    private final int cols;
+    private final int tileSize;
+    private final int tilesX;
+    private final int tilesZ;
+    private final int[] tileFirstIndex;
+    private final int[] tileIndexCount;
+
+    private final float[] planes;      // 6 piani [a, b, c, d]: a*x + b*y + c*z + d >= 0 dentro
+    private final boolean[] visibleTiles;
+    private int numVisibleTiles;
+
+    private final IndexRanges ranges;
+
+    private boolean valid;
+    private int lastCellRow;
+    private int lastCellCol;
+    private float lastRotationY;
+    private int numRecomputes;
+
+    /**
+     * Costruttore della classe.
+     *
+     * @param mesher Mesh dei muri (fornisce dimensioni della griglia, tile e intervalli di indici)
+     */
+    public GridFrustumCuller(WallMesher mesher){
+
+        this(mesher.getRows(), mesher.getCols(), mesher.getTileSize(), mesher.getTileFirstIndex(),
+             mesher.getTileIndexCount());
+
+    }
+
+    /**
+     * Costruttore della classe.
+     *
+     * @param rows Righe della griglia
+     * @param cols Colonne della griglia
+     * @param tileSize Lato (in celle) dei tile
+     * @param tileFirstIndex Primo indice di ogni tile (tile ordinati per righe)
+     * @param tileIndexCount Numero di indici di ogni tile
+     */
+    public GridFrustumCuller(int rows, int cols, int tileSize,
+                             int[] tileFirstIndex, int[] tileIndexCount){
+
+        this.rows = rows;
+        this.cols = cols;
+        this.tileSize = tileSize;
+        tilesX = (cols + tileSize - 1) / tileSize;
+        tilesZ = (rows + tileSize - 1) / tileSize;
+
+        if ( (tileFirstIndex.length != tilesX * tilesZ) ||
+             (tileIndexCount.length != tilesX * tilesZ) ){
+            throw new IllegalArgumentException("Parametro non valido");
+        }
+
+        this.tileFirstIndex = tileFirstIndex;
+        this.tileIndexCount = tileIndexCount;
+
+        planes = new float[6 * 4];
+        visibleTiles = new boolean[tilesX * tilesZ];
+        ranges = new IndexRanges(tilesX * tilesZ);
+        numVisibleTiles = 0;
+
+        valid = false;
+        numRecomputes = 0;
+
+    }
+
+    /**
+     * Funzione chiamata ad ogni frame: ricalcola il set visibile solo se la camera ha cambiato
+     * cella o rotazione dall'ultimo calcolo.
+     *
+     * @param pvM Matrice projection * view della camera (column-major)
+     * @param camX Posizione 'x' della camera
+     * @param camZ Posizione 'z' della camera
+     * @param rotationY Rotazione della camera sull'asse 'y' (gradi)
+     * @return True se il set visibile è stato ricalcolato
+     */
+    @Override
+    public boolean update(float[] pvM, float camX, float camZ, float rotationY){
+
+        int cellCol = (int) Math.floor(camX + cols / 2f);
+        int cellRow = (int) Math.floor(camZ + rows / 2f);
+
+        if ( valid && (cellRow == lastCellRow) && (cellCol == lastCellCol) &&
+             (rotationY == lastRotationY) ){
+            return false;
+        }
+
+        lastCellRow = cellRow;
+        lastCellCol = cellCol;
+        lastRotationY = rotationY;
+        valid = true;
+
+        computeVisibleSet(pvM);
+        numRecomputes++;
+
+        return true;
+
+    }
+
+    /**
+     * Forza il ricalcolo al prossimo update() (es. dopo il cambio della matrice di proiezione).
+     */
+    public void invalidate(){
+
+        valid = false;
+
+    }
+
+    @Override
+    public void onProjectionChanged(float aspect){
+
+        invalidate();
+
+    }
+
+    /**
+     * Test di tutti i tile contro il frustum e costruzione degli intervalli di indici.
+     *
+     * @param pvM Matrice projection * view (column-major)
+     */
+    private void computeVisibleSet(float[] pvM){
+
+        extractPlanes(pvM);
+
+        numVisibleTiles = 0;
+        ranges.clear();
+
+        float offsetX = -cols / 2f;
+        float offsetZ = -rows / 2f;
+
+        for (int tz=0; tz<tilesZ; tz++){
+
+            float minZ = tz * tileSize + offsetZ - MARGIN;
+            float maxZ = Math.min(rows, (tz + 1) * tileSize) + offsetZ + MARGIN;
+
+            for (int tx=0; tx<tilesX; tx++){
+
+                int t = tz * tilesX + tx;
+
+                float minX = tx * tileSize + offsetX - MARGIN;
+                float maxX = Math.min(cols, (tx + 1) * tileSize) + offsetX + MARGIN;
+
+                boolean visible = intersects(minX, -0.5f, minZ, maxX, 0.5f, maxZ);
+                visibleTiles[t] = visible;
+                if (!visible) continue;
+
+                numVisibleTiles++;
+
+                // tile consecutivi nell'index buffer: allungano l'ultimo intervallo
+                ranges.add(tileFirstIndex[t], tileIndexCount[t]);
+
+            }
+        }
+
+    }
+
+    /**
+     * Estrazione dei piani del frustum dalla matrice PV (metodo di Gribb-Hartmann): con 'rowI' la
+     * riga i-esima della matrice, i piani sono row3 +- row0 (sinistra/destra), row3 +- row1
+     * (sotto/sopra) e row3 +- row2 (near/far).
+     *
+     * @param m Matrice column-major: elemento (riga i, colonna j) in m[j*4 + i]
+     */
+    private void extractPlanes(float[] m){
+
+        for (int i=0; i<3; i++){
+            for (int k=0; k<4; k++){
+                float row3 = m[k*4 + 3];
+                float rowI = m[k*4 + i];
+                planes[(2*i) * 4 + k] = row3 + rowI;
+                planes[(2*i + 1) * 4 + k] = row3 - rowI;
+            }
+        }
+
+    }
+
+    /**
+     * Test box-frustum: il box è fuori se, per almeno un piano, il suo vertice più avanti nella
+     * direzione della normale (p-vertex) è dietro il piano.
+     *
+     * @return False se il box è sicuramente fuori dal frustum
+     */
+    private boolean intersects(float minX, float minY, float minZ,
+                               float maxX, float maxY, float maxZ){
+
+        for (int p=0; p<6; p++){
+
+            int o = p * 4;
+            float a = planes[o], b = planes[o+1], c = planes[o+2], d = planes[o+3];
+
+            float x = (a >= 0) ? maxX : minX;
+            float y = (b >= 0) ? maxY : minY;
+            float z = (c >= 0) ? maxZ : minZ;
+
+            if (a*x + b*y + c*z + d < 0){
+                return false;
+            }
+
+        }
+
+        return true;
+
+    }
+
+    /******* GETTER *******/
+
+    @Override
+    public int getNumRanges() { return ranges.size(); }
+
+    @Override
+    public int[] getRangeFirst() { return ranges.getFirst(); }
+
+    @Override
+    public int[] getRangeCount() { return ranges.getCount(); }
+
+    @Override
+    public int getNumVisibleIndices() { return ranges.numIndices(); }
+
+    public boolean isTileVisible(int tileRow, int tileCol) { return visibleTiles[tileRow * tilesX + tileCol]; }
+
+    public int getNumVisibleTiles() { return numVisibleTiles; }
+
+    public int getNumTiles() { return tilesX * tilesZ; }
+
+    public int getNumRecomputes() { return numRecomputes; }
+
+}
@@ -0,0 +1,106 @@
+package com.example.progetto.game.objects;
+
+import java.util.Arrays;
+
+/**
+ * Lista di intervalli dell'index buffer dei muri da disegnare (una glDrawElements() per
+ * intervallo). Intervalli aggiunti consecutivamente e adiacenti sono uniti.
+ *
+ * I vettori crescono solo se necessario e sono riusati tra un calcolo e l'altro: a regime
+ * l'aggiunta non alloca.
+ */
+class IndexRanges {
+
+    private static final int INDICES_PER_QUAD = 6;
+
+    private int[] first;
+    private int[] count;
+    private int size;
+
+    /**
+     * Costruttore della classe.
+     *
+     * @param capacity Numero iniziale di intervalli
+     */
+    IndexRanges(int capacity){
+
+        first = new int[Math.max(1, capacity)];
+        count = new int[Math.max(1, capacity)];
+        size = 0;
+
+    }
+
+    void clear(){
+
+        size = 0;
+
+    }
+
+    /**
+     * Aggiunge un intervallo [firstIndex, firstIndex + numIndices): se prosegue l'ultimo
+     * intervallo lo allunga.
+     */
+    void add(int firstIndex, int numIndices){
+
+        if (numIndices == 0) return;
+
+        if ( (size > 0) && (first[size-1] + count[size-1] == firstIndex) ){
+            count[size-1] += numIndices;
+            return;
+        }
+
+        if (size == first.length){
+            first = Arrays.copyOf(first, size * 2);
+            count = Arrays.copyOf(count, size * 2);
+        }
+        first[size] = firstIndex;
+        count[size] = numIndices;
+        size++;
+
+    }
+
+    /**
+     * Aggiunge i quad a 1 di una bitset (in ordine crescente) e azzera la bitset.
+     *
+     * @param quads Bitset sugli indici dei quad
+     */
+    void addQuadsAndClear(long[] quads){
+
+        addQuadsAndClear(quads, 0, quads.length);
+
+    }
+
+    /**
+     * Come addQuadsAndClear(long[]) ma limitata alle word [fromWord, toWord): le altre devono
+     * essere già a 0.
+     */
+    void addQuadsAndClear(long[] quads, int fromWord, int toWord){
+
+        for (int w=fromWord; w<toWord; w++){
+            long word = quads[w];
+            while (word != 0){
+                int q = (w << 6) + Long.numberOfTrailingZeros(word);
+                add(q * INDICES_PER_QUAD, INDICES_PER_QUAD);
+                word &= word - 1;
+            }
+            quads[w] = 0L;
+        }
+
+    }
+
+    /** Somma degli indici di tutti gli intervalli. */
+    int numIndices(){
+
+        int res = 0;
+        for (int i=0; i<size; i++) res += count[i];
+        return res;
+
+    }
+
+    int[] getFirst() { return first; }
+
+    int[] getCount() { return count; }
+
+    int size() { return size; }
+
+}
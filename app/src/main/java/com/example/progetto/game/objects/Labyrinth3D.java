@@ -1,17 +1,26 @@
 package com.example.progetto.game.objects;
 
-import android.graphics.Point;
-import android.opengl.GLES30;
+import android.util.Log;
 
 import androidx.annotation.NonNull;
 
 import com.example.progetto.game.LabyrinthGenerator;
+import com.example.progetto.game.maze.GridPoint;
+import com.example.progetto.game.maze.MazeCache;
+import com.example.progetto.game.maze.MazeGrid;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 import com.example.progetto.ogles.Geometry3D;
 import com.example.progetto.ogles.Object3D;
+import com.example.progetto.ogles.Texture;
 import com.example.progetto.ogles.camera.CameraBase;
+import com.example.progetto.ogles.camera.CameraPersp3D;
+import com.example.progetto.ogles.gl.GLApi;
+import com.example.progetto.ogles.gl.GLBridge;
 import com.example.progetto.ogles.shader.MaterialBasic;
 import com.example.progetto.ogles.shader.ShaderProgram;
 
@@ -20,7 +29,19 @@ import com.example.progetto.ogles.shader.ShaderProgram;
  */
 public class Labyrinth3D {
 
-    private final Object3D[] objLabyrinthWalls;
+    private static String TAG;
+
+    private final StaticBatch wallsBatch;
+    private final MaterialBasic wallMaterial;
+    private final MazeGrid grid;
+    private final WallMesher mesher;
+    private final VisibleWalls visibleWalls;
+    private RaycastVisibility raycastVisibility;
+    private WallVisibility wallVisibility;
+    private float aspect;
+    private GpuMazeWalls gpuWalls;
+    private final MaterialBasic mazeWallMaterial;
+    private boolean shaderWalls;
     private final Object3D objRoof;
     private final Object3D objFloor;
 
@@ -30,8 +51,13 @@ public class Labyrinth3D {
      * Genera il labirinto nello spazio 3D.
      *
      * Il centro del labirinto coincide con il centro dello spazio 3D.
-     * I muri del labirinto sono rappresentati da cubi unitari (1x1x1), mentre il tetto e il
-     * pavimento sono definiti da piani di grandezza pari alla grandezza del labirinto.
+     * I muri del labirinto sono rappresentati da un'unica mesh (vedi WallMesher) con solo le facce
+     * visibili di muri unitari (1x1x1), divisa in chunk statici di 32x32 celle (vedi
+     * StaticBatchBuilder), mentre il tetto e il pavimento sono definiti da piani di grandezza pari
+     * alla grandezza del labirinto.
+     *
+     * Le geometrie dei chunk sono create senza trasferirle sul device: vanno trasferite con
+     * upload() nel GL thread prima di disegnare (vedi getWallsGeometries() e Level.uploadToGpu()).
      *
      * @param labGenerator LabGenerator
      * @param geometries HashMap di geometrie
@@ -41,21 +67,33 @@ public class Labyrinth3D {
                        Map<String, Geometry3D> geometries,
                        Map<String, MaterialBasic> materials){
 
-        Point dim = labGenerator.getDimension();
-
-        // creazione cubi del labirinto
-        float[][] labWalls = labGenerator.getWallsCoord();
-        objLabyrinthWalls = new Object3D[labWalls.length];
-        MaterialBasic wallMat = materials.get("wall");
-        assert wallMat != null;
-        wallMat.setTextureScaling(1, -1);  // flip immagine
-        for (int i=0 ; i<labWalls.length ; i++){
-            Object3D obj = new Object3D(geometries.get("cube"), materials.get("wall")); // stessa geometry e material per tutti
-            obj.setPosition(labWalls[i][0], 0, labWalls[i][1]);
-            obj.setScale(0.5f, 0.5f, 0.5f); // cubi diventano di grandezza 1
-            obj.updateModelM();
-            objLabyrinthWalls[i] = obj;
-        }
+        TAG = getClass().getSimpleName();
+
+        GridPoint dim = labGenerator.getDimension();
+
+        // creazione mesh dei muri del labirinto (già in coordinate mondo), un chunk per tile
+        grid = labGenerator.getGrid();
+        mesher = new WallMesher(grid, StaticBatchBuilder.DEFAULT_CHUNK_SIZE);
+        wallsBatch = new StaticBatchBuilder(mesher).build();
+        wallMaterial = materials.get("wall");
+        assert wallMaterial != null;
+        wallMaterial.setTextureScaling(1, -1);  // flip immagine
+        visibleWalls = new VisibleWalls(mesher, loadOrBuildPvs(labGenerator, mesher));
+        raycastVisibility = null;
+        wallVisibility = visibleWalls;
+        aspect = 1f;
+
+        // muri generati nel vertex shader dalla texture della griglia: texture e program sono
+        // creati solo se la modalità viene attivata (vedi setShaderWalls())
+        gpuWalls = null;
+        mazeWallMaterial = materials.get("mazeWall");
+        if (mazeWallMaterial != null) mazeWallMaterial.setTextureScaling(1, -1);
+        shaderWalls = false;
+
+        Log.d(TAG, "Muri: " + mesher.getNumTriangles() + " triangoli (" +
+                mesher.getNumQuads() + " quad) invece di " +
+                WallMesher.perCubeTriangles(labGenerator.getNumWall()) +
+                " con un cubo per muro, " + wallsBatch.getNumChunks() + " chunk");
 
         // creazione floor
         MaterialBasic floorMat = materials.get("floor");
@@ -79,22 +117,80 @@ public class Labyrinth3D {
     }
 
     /**
-     * Drawcalls per disegnare le pareti del labirnito.
+     * Funzione che legge il PVS dei muri dalla cache del labirinto oppure, se assente, lo calcola
+     * (in parallelo, vedi PvsBuilder) e lo salva accanto al labirinto.
      *
-     * @param camera Camera prospettica
+     * @param labGenerator LabGenerator (griglia, seed e cache)
+     * @param mesher Mesh dei muri
+     * @return PVS dei muri
      */
-    public void drawLabyrinthWalls(CameraBase camera){
+    private PotentiallyVisibleSet loadOrBuildPvs(LabyrinthGenerator labGenerator, WallMesher mesher){
+
+        MazeGrid grid = labGenerator.getGrid();
+        MazeCache cache = labGenerator.getCache();
+        File file = null;
+
+        if (cache != null){
+            file = cache.fileFor(labGenerator.getAlgorithm().getName(), grid.getRows(),
+                                 grid.getCols(), labGenerator.getSeed(), ".pvs");
+            try {
+                PotentiallyVisibleSet pvs = PotentiallyVisibleSet.readFrom(file, grid.getRows(),
+                        grid.getCols(), mesher.getNumQuads(), mesher.getTileSize());
+                if (pvs != null) return pvs;
+            } catch (IOException e) {
+                Log.e(TAG, "Lettura del PVS fallita", e);
+            }
+        }
 
-        // bindo il VAO del primo elemento in quanto tutti condividono la stessa Geometry3D
-        GLES30.glBindVertexArray(objLabyrinthWalls[0].getGeometry().getVao()[0]);
+        long start = System.nanoTime();
+        PotentiallyVisibleSet pvs = new PvsBuilder(grid, mesher).build();
+        Log.d(TAG, "PVS calcolato in " + (System.nanoTime() - start) / 1000000 + " ms (" +
+                pvs.getCompressedBytes() + " byte)");
 
-            objLabyrinthWalls[0].getMaterial().updateUniforms();   // aggiorno la uniform solo 1 volta per tutti
-            objLabyrinthWalls[0].getMaterial().activateTexture();  // attivo solo la texture del primo (tutte uguali)
-            for ( Object3D obj : objLabyrinthWalls ){
-                obj.draw(camera);
+        if (file != null){
+            try {
+                pvs.writeTo(file);
+            } catch (IOException e) {
+                Log.e(TAG, "Scrittura del PVS fallita", e);
             }
+        }
+
+        return pvs;
+
+    }
+
+    /**
+     * Drawcalls per disegnare le pareti del labirnito.
+     *
+     * Sono disegnati solo i muri selezionati dal WallVisibility corrente: di default il PVS della
+     * cella della camera intersecato con i tile del frustum (VisibleWalls), oppure i muri colpiti
+     * dai raggi lanciati a runtime (RaycastVisibility, vedi setRuntimeOcclusion()).
+     *
+     * Con setShaderWalls(true) i muri sono invece tutti generati nel vertex shader con una sola
+     * drawcall (GpuMazeWalls), senza selezione dei visibili.
+     *
+     * @param camera Camera prospettica (matrici già aggiornate)
+     */
+    public void drawLabyrinthWalls(CameraPersp3D camera){
+
+        if (shaderWalls){
+            GLApi gl = GLBridge.get();
+            gl.glUseProgram(mazeWallMaterial.getProgramId());
+                gpuWalls.draw(camera, mazeWallMaterial);
+            // ripristino program comune (atteso dal renderer)
+            gl.glUseProgram(wallMaterial.getProgramId());
+            return;
+        }
+
+        float[] pos = camera.getPosition();
+        wallVisibility.update(camera.getPvM(), pos[0], pos[2], camera.getRotationY());
 
-        GLES30.glBindVertexArray(0);
+        // muri in coordinate mondo: uniform e matrice PV una volta, poi 1 drawcall per intervallo
+        // di quad visibili nel chunk che lo contiene (StaticBatch binda i VAO dei chunk)
+        wallMaterial.updateUniforms();
+        wallMaterial.activateTexture();
+        wallsBatch.draw(camera, wallMaterial, wallVisibility.getRangeFirst(),
+                        wallVisibility.getRangeCount(), wallVisibility.getNumRanges());
 
     }
 
@@ -123,13 +219,9 @@ public class Labyrinth3D {
     @Override
     public String toString(){
 
-        StringBuilder res = new StringBuilder("Debug \nLabyrinth: \nobjLabyrinthWalls:\n");
-
-        for (int i=0; i<objLabyrinthWalls.length; i++){
+        StringBuilder res = new StringBuilder("Debug \nLabyrinth: \n");
 
-            res.append("\tobj").append(i).append(": VAO=").append(objLabyrinthWalls[i].getGeometry().getVao()[0]).append("; ShaderProgID: ").append(objLabyrinthWalls[i].getMaterial().getProgramId()).append("; TextureObjectID: ").append(objLabyrinthWalls[i].getMaterial().getTextureID()).append("\n");
-
-        }
+        res.append("walls: Chunks=").append(wallsBatch.getNumChunks()).append("; ShaderProgID: ").append(wallMaterial.getProgramId()).append("; TextureObjectID: ").append(wallMaterial.getTextureID()).append("; Triangles: ").append(wallsBatch.getNumIndices() / 3).append("; Visible indices: ").append(wallVisibility.getNumVisibleIndices()).append("/").append(wallsBatch.getNumIndices()).append("; Drawcalls: ").append(wallsBatch.getDrawCalls()).append("\n");
 
         res.append("objRoof: VAO=").append(objRoof.getGeometry().getVao()[0]).append("; ShaderProgID: ").append(objRoof.getMaterial().getProgramId()).append("; TextureObjectID: ").append(objRoof.getMaterial().getTextureID()).append("\n");
 
@@ -139,12 +231,110 @@ public class Labyrinth3D {
         return res.toString();
     }
 
+    /**
+     * Funzione da chiamare quando cambia la matrice di proiezione della camera: i muri visibili
+     * sono ricalcolati al prossimo frame.
+     *
+     * @param aspect Aspect ratio della surface
+     */
+    public void setupProjection(float aspect){
+
+        this.aspect = aspect;
+        visibleWalls.onProjectionChanged(aspect);
+        if (raycastVisibility != null){
+            raycastVisibility.onProjectionChanged(aspect);
+        }
+
+    }
+
+    /**
+     * Funzione che sceglie come selezionare i muri da disegnare: raggi lanciati a runtime
+     * (RaycastVisibility, creato alla prima richiesta) oppure PVS precalcolato + frustum.
+     *
+     * Da chiamare nel GL thread.
+     *
+     * @param enabled True per il raycasting a runtime
+     */
+    public void setRuntimeOcclusion(boolean enabled){
+
+        if (enabled && (raycastVisibility == null)){
+            raycastVisibility = new RaycastVisibility(grid, mesher);
+            raycastVisibility.onProjectionChanged(aspect);
+        }
+
+        wallVisibility = enabled ? raycastVisibility : visibleWalls;
+        wallVisibility.onProjectionChanged(aspect);
+
+    }
+
+    /**
+     * Funzione che sceglie se generare i muri nel vertex shader dalla texture della griglia
+     * (GpuMazeWalls) invece di disegnare i chunk visibili. Ignorata se il labirinto è troppo
+     * grande per la texture o manca il materiale "mazeWall".
+     *
+     * Alla prima attivazione crea la texture della griglia e trasferisce texture e program
+     * "mazeWall" (finchè la modalità non è usata il livello non li crea).
+     *
+     * Da chiamare nel GL thread.
+     *
+     * @param enabled True per i muri generati nel vertex shader
+     * @return True se la modalità è attiva
+     */
+    public boolean setShaderWalls(boolean enabled){
+
+        if ( !enabled || (mazeWallMaterial == null) || !GpuMazeWalls.isSupported(grid) ){
+            shaderWalls = false;
+            return false;
+        }
+
+        if (gpuWalls == null){
+            gpuWalls = new GpuMazeWalls(grid);
+        }
+        shaderWalls = true;
+        uploadShaderWalls(false);
+
+        return true;
+
+    }
+
+    /**
+     * Funzione che trasferisce sul device le risorse dei muri generati nel vertex shader (program
+     * e blocco del materiale "mazeWall", texture della griglia), solo se la modalità è stata
+     * attivata. Da chiamare nel GL thread (vedi Level.uploadToGpu()).
+     *
+     * @param force True per trasferire di nuovo tutto (es. dopo la perdita del contesto EGL)
+     */
+    public void uploadShaderWalls(boolean force){
+
+        if (gpuWalls == null) return;
+
+        ShaderProgram program = mazeWallMaterial.getShaderProgram();
+        if (force || !program.isUploaded()){
+            program.upload();
+            mazeWallMaterial.setTextureSamplerUniform();
+        }
+        if (force || !mazeWallMaterial.isUploaded()){
+            mazeWallMaterial.upload();
+        }
+
+        // texture dei muri condivisa con il materiale "wall": trasferita con quella
+        Texture texture = mazeWallMaterial.getTexture();
+        if ( (texture != null) && !texture.isUploaded() ){
+            texture.upload();
+        }
+
+        if (force || !gpuWalls.isUploaded()){
+            gpuWalls.upload();
+        }
+
+    }
+
     /**
      * Ritorna shaderProgram di un qualsiasi oggetto (tutti condividono lo stesso shaderProgram).
      *
      * @return shaderProgram condiviso da tutti
      */
-    public ShaderProgram getCommonShaderProgram() { return objLabyrinthWalls[0].getMaterial().getShaderProgram(); }
+    public ShaderProgram getCommonShaderProgram() { return wallMaterial.getShaderProgram(); }
 
     /**
      * Ritorna la Geometry3D del piano condiviso nella scena.
@@ -153,4 +343,41 @@ public class Labyrinth3D {
      */
     public Geometry3D getCommonPlaneGeometry() { return objFloor.getGeometry(); }
 
+    /**
+     * Ritorna le Geometry3D dei chunk dei muri (proprie di questo labirinto).
+     *
+     * @return Geometry3D dei chunk
+     */
+    public List<Geometry3D> getWallsGeometries() { return wallsBatch.getGeometries(); }
+
+    /**
+     * Ritorna i muri generati nel vertex shader, null se la modalità non è mai stata attivata
+     * (vedi setShaderWalls()).
+     *
+     * @return GpuMazeWalls del labirinto
+     */
+    public GpuMazeWalls getGpuWalls() { return gpuWalls; }
+
+    /**
+     * Ritorna il materiale dei muri generati nel vertex shader, trasferito solo con
+     * uploadShaderWalls().
+     *
+     * @return Materiale "mazeWall", null se assente
+     */
+    public MaterialBasic getMazeWallMaterial() { return mazeWallMaterial; }
+
+    /**
+     * Ritorna il batch statico dei muri.
+     *
+     * @return StaticBatch dei muri
+     */
+    public StaticBatch getWallsBatch() { return wallsBatch; }
+
+    /**
+     * Ritorna la selezione dei muri visibili in uso (set dell'ultimo frame).
+     *
+     * @return WallVisibility dei muri
+     */
+    public WallVisibility getWallVisibility() { return wallVisibility; }
+
 }
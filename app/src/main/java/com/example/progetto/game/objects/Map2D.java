@@ -2,24 +2,22 @@ package com.example.progetto.game.objects;
 
 import static android.opengl.GLES20.GL_COLOR_BUFFER_BIT;
 import static android.opengl.GLES20.GL_DEPTH_BUFFER_BIT;
-import static android.opengl.GLES20.glClear;
-import static android.opengl.GLES20.glClearColor;
-import static android.opengl.GLES20.glScissor;
-import static android.opengl.GLES20.glViewport;
 
 import android.graphics.Point;
-import android.opengl.GLES30;
 
 import androidx.annotation.NonNull;
 
 import java.util.Map;
 
 import com.example.progetto.game.LabyrinthGenerator;
+import com.example.progetto.game.maze.GridPoint;
 
 import com.example.progetto.ogles.Geometry3D;
 import com.example.progetto.ogles.Object3D;
 import com.example.progetto.ogles.camera.CameraOrtho2D;
 import com.example.progetto.ogles.camera.CameraPersp3D;
+import com.example.progetto.ogles.gl.GLApi;
+import com.example.progetto.ogles.gl.GLBridge;
 import com.example.progetto.ogles.shader.MaterialBasic;
 
 /**
@@ -35,7 +33,8 @@ public class Map2D {
     private final CameraOrtho2D cameraOrtho;
     private final Point dimension;  // dimensione dello SCISSOR in pixel
 
-    private final Object3D[] objLabyrinthWalls;
+    private final Geometry3D wallsGeometry;     // piano istanziato, un'istanza per muro
+    private final MaterialBasic wallsMaterial;
     private final Object3D objFloor;
     private final Object3D objStart;
     private final Object3D objEnd;
@@ -47,7 +46,11 @@ public class Map2D {
      *
      * Nella mappa ho un piano che rappresenta il pavimento (della stessa dimensione del pavimento
      * nel 3D), i muri del labirinto sono rappresentati da piani (di dimensione 1x1 e posizionati
-     * nello stesso punto dei cubi nel 3D), infine le frecce sono rappresentate da triangoli.
+     * nello stesso punto dei muri nel 3D), infine le frecce sono rappresentate da triangoli.
+     *
+     * I piani dei muri sono le istanze di un'unica geometria istanziata (una sola drawcall): il
+     * materiale "mapWall" deve usare un program creato da MaterialBasic.VSHADER_INSTANCED.
+     * La geometria è creata senza trasferirla sul device (vedi Level.uploadToGpu()).
      *
      * La mappa è visualizzata mediante camera ortogonale la cui dimensione (che sarà impostata
      * nella funzione 'setupProjection') è tale da inquadrare il labirinto più un bordo.
@@ -64,17 +67,20 @@ public class Map2D {
         dimension = new Point();                   // dimensione SCISSOR in pixel
 
         this.labGenerator = labGenerator;
-        Point dim = labGenerator.getDimension();   // dimensioni labirinto nello spazio
+        GridPoint dim = labGenerator.getDimension();   // dimensioni labirinto nello spazio
 
-        // creazione piani che definiscono cubi labirinto
+        // creazione piani che definiscono i muri labirinto: un'istanza (x, y, z, scala) per muro
         float[][] labWalls = labGenerator.getWallsCoord();
-        objLabyrinthWalls = new Object3D[labWalls.length];
+        float[] instances = new float[labWalls.length * Geometry3D.FLOATS_PER_INSTANCE];
         for (int i=0 ; i<labWalls.length ; i++){
-            Object3D obj = new Object3D(geometries.get("plane"), materials.get("mapWall"));
-            obj.setPosition(labWalls[i][0], -0.5f, labWalls[i][1]);
-            obj.updateModelM();
-            objLabyrinthWalls[i] = obj;
+            int k = i * Geometry3D.FLOATS_PER_INSTANCE;
+            instances[k] = labWalls[i][0];
+            instances[k+1] = -0.5f;
+            instances[k+2] = labWalls[i][1];
+            instances[k+3] = 1f;
         }
+        wallsGeometry = new Geometry3D(geometries.get("plane"), instances, false);
+        wallsMaterial = materials.get("mapWall");
 
         // Pavimento
         MaterialBasic floorMat = materials.get("mapFloor");
@@ -147,25 +153,34 @@ public class Map2D {
      */
     public void drawMap2D(Point currentScreen){
 
+        GLApi gl = GLBridge.get();
+
         // (point_basso_sx, point_alto_dx)
-        glScissor(currentScreen.x - dimension.x, 0, dimension.x, dimension.y);
-        glViewport(currentScreen.x - dimension.x, 0, dimension.x, dimension.y);
-        glClearColor(0, 0.45f, 0.9f, 1f);
-        glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+        gl.glScissor(currentScreen.x - dimension.x, 0, dimension.x, dimension.y);
+        gl.glViewport(currentScreen.x - dimension.x, 0, dimension.x, dimension.y);
+        gl.glClearColor(0, 0.45f, 0.9f, 1f);
+        gl.glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
 
         // il VAO bindato è del plane geometry (usato per floor e roof nel 3D) e usato anche
-        // per disegnare gli oggetti della mappa
-
-        objLabyrinthWalls[0].getMaterial().updateUniforms();      // aggiorno le uniform del primo e vanno bene per tutti i piani
-        objLabyrinthWalls[0].getMaterial().activateTexture();  // tutti gli objLabyrinthWalls hanno la stessa texture quindi basta attivare quella del primo
-        for ( Object3D obj : objLabyrinthWalls ){
-            obj.draw(cameraOrtho);
-        }
+        // per disegnare il pavimento della mappa
 
         objFloor.getMaterial().updateUniforms();
         objFloor.getMaterial().activateTexture();
         objFloor.draw(cameraOrtho);
 
+        // muri: tutte le istanze con 1 sola drawcall (VP nel blocco Camera della camera ortho)
+        gl.glUseProgram(wallsMaterial.getProgramId());
+        gl.glBindVertexArray(wallsGeometry.getVao()[0]);
+
+            cameraOrtho.bindUniforms();
+            wallsMaterial.updateUniforms();
+            wallsMaterial.activateTexture();
+            wallsGeometry.drawInstanced();
+
+        // ripristino VAO del plane e program comune (attesi dal renderer)
+        gl.glBindVertexArray(objFloor.getGeometry().getVao()[0]);
+        gl.glUseProgram(objFloor.getMaterial().getProgramId());
+
     }
 
     /**
@@ -174,7 +189,8 @@ public class Map2D {
     public void drawStartEndPointers(){
 
         // basta bindare il VAO del objStart in quanto è uguale a quello di objEnd
-        GLES30.glBindVertexArray(objStart.getGeometry().getVao()[0]);
+        GLApi gl = GLBridge.get();
+        gl.glBindVertexArray(objStart.getGeometry().getVao()[0]);
 
             objStart.getMaterial().updateUniforms();
             objStart.draw(cameraOrtho);
@@ -182,7 +198,7 @@ public class Map2D {
             objEnd.getMaterial().updateUniforms();
             objEnd.draw(cameraOrtho);
 
-        GLES30.glBindVertexArray(0);
+        gl.glBindVertexArray(0);
 
     }
 
@@ -199,17 +215,22 @@ public class Map2D {
 
     }
 
+    /**
+     * Ritorna la Geometry3D istanziata dei muri (propria di questa mappa).
+     *
+     * @return Geometry3D dei muri
+     */
+    public Geometry3D getWallsGeometry() { return wallsGeometry; }
+
+    public CameraOrtho2D getCamera() { return cameraOrtho; }
+
     @NonNull
     @Override
     public String toString(){
 
-        StringBuilder res = new StringBuilder("Debug: \nMap:\nobjLabyrinthWalls:\n");
+        StringBuilder res = new StringBuilder("Debug: \nMap:\n");
 
-        for (int i=0; i<objLabyrinthWalls.length; i++){
-
-            res.append("\tobj").append(i).append(": VAO=").append(objLabyrinthWalls[i].getGeometry().getVao()[0]).append("; ShaderProgID: ").append(objLabyrinthWalls[i].getMaterial().getProgramId()).append("; TextureObjectID: ").append(objLabyrinthWalls[i].getMaterial().getTextureID()).append("\n");
-
-        }
+        res.append("walls: VAO=").append(wallsGeometry.getVao()[0]).append("; Instances: ").append(wallsGeometry.getNumInstances()).append("; ShaderProgID: ").append(wallsMaterial.getProgramId()).append("; TextureObjectID: ").append(wallsMaterial.getTextureID()).append("\n");
 
         res.append("objFloor: VAO=").append(objFloor.getGeometry().getVao()[0]).append("; ShaderProgID: ").append(objFloor.getMaterial().getProgramId()).append("; TextureObjectID: ").append(objFloor.getMaterial().getTextureID()).append("\n");
 
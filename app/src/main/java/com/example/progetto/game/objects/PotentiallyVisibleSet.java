@@ -0,0 +1,256 @@
+package com.example.progetto.game.objects;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Potentially Visible Set dei muri: per ogni cella della griglia e per ognuna delle 4 direzioni
+ * in cui può guardare la camera, l'insieme dei quad di WallMesher visibili da quella cella
+ * (vedi PvsBuilder).
+ *
+ * Direzioni (come CameraPersp3D.getRotationY()):
+ *      0: rotazione 0°   (guarda verso -z)
+ *      1: rotazione 90°  (guarda verso -x)
+ *      2: rotazione 180° (guarda verso +z)
+ *      3: rotazione 270° (guarda verso +x)
+ *
+ * Compressione: ogni insieme è una bitset molto sparsa sugli indici dei quad, salvata come
+ * sequenza crescente di indici codificati a delta (differenza dal precedente - 1) in varint
+ * (7 bit per byte, bit alto = continua). Tutti gli insiemi sono concatenati in un unico byte[]
+ * con un vettore di offset (rows * cols * 4 + 1 elementi).
+ *
+ * Formato binario (little endian), salvato accanto al labirinto (vedi MazeCache.fileFor()):
+ *
+ *      offset  tipo     campo
+ *      0       int      MAGIC ('PVS1')
+ *      4       int      VERSION
+ *      8       int      righe
+ *      12      int      colonne
+ *      16      int      numero di quad della mesh
+ *      20      int      lato dei tile della mesh
+ *      24      int      lunghezza dei dati compressi
+ *      28      int      padding
+ *      32      int[]    offset (righe * colonne * 4 + 1)
+ *      ...     byte[]   dati compressi
+ */
+public class PotentiallyVisibleSet {
+
+    public static final int NUM_DIRECTIONS = 4;
+
+    private static final int MAGIC = 0x50565331;     // 'PVS1'
+    private static final int VERSION = 2;     // 2: PVS esatto (la 1 era campionata)
+    private static final int HEADER_SIZE = 32;
+
+    private final int rows;
+    private final int cols;
+    private final int numQuads;
+    private final int tileSize;
+    private final int[] offsets;
+    private final byte[] data;
+
+    /**
+     * Costruttore della classe (vedi PvsBuilder oppure readFrom()).
+     *
+     * @param rows Righe della griglia
+     * @param cols Colonne della griglia
+     * @param numQuads Numero di quad della mesh dei muri
+     * @param tileSize Lato dei tile della mesh dei muri
+     * @param offsets Inizio di ogni insieme in 'data' (rows * cols * 4 + 1 elementi)
+     * @param data Insiemi compressi
+     */
+    public PotentiallyVisibleSet(int rows, int cols, int numQuads, int tileSize,
+                                 int[] offsets, byte[] data){
+
+        if (offsets.length != rows * cols * NUM_DIRECTIONS + 1){
+            throw new IllegalArgumentException("Parametro non valido");
+        }
+
+        this.rows = rows;
+        this.cols = cols;
+        this.numQuads = numQuads;
+        this.tileSize = tileSize;
+        this.offsets = offsets;
+        this.data = data;
+
+    }
+
+    /**
+     * Direzioni che coprono una certa rotazione della camera: una sola se la camera è allineata
+     * agli assi, le due adiacenti durante una rotazione.
+     *
+     * @param rotationY Rotazione in gradi (CameraPersp3D.getRotationY())
+     * @return Maschera di bit delle direzioni (bit 'd' per la direzione 'd')
+     */
+    public static int directionMask(float rotationY){
+
+        float r = ((rotationY % 360f) + 360f) % 360f;
+        int lower = (int) (r / 90f) % NUM_DIRECTIONS;
+        float frac = r / 90f - (int) (r / 90f);
+
+        int mask = 1 << lower;
+        if (frac > 1e-3f){
+            mask |= 1 << ((lower + 1) % NUM_DIRECTIONS);
+        }
+
+        return mask;
+
+    }
+
+    /**
+     * Decomprime l'insieme di una cella e direzione.
+     *
+     * @param row Riga della cella
+     * @param col Colonna della cella
+     * @param direction Direzione (0..3)
+     * @param dst Destinazione degli indici dei quad (almeno count(row, col, direction) elementi)
+     * @return Numero di quad scritti in 'dst', in ordine crescente
+     */
+    public int decode(int row, int col, int direction, int[] dst){
+
+        int entry = (row * cols + col) * NUM_DIRECTIONS + direction;
+        int end = offsets[entry + 1];
+
+        int n = 0;
+        int quad = -1;
+        for (int i = offsets[entry]; i < end; ){
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do{
+                b = data[i++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            }while (b < 0);
+            quad += delta + 1;
+            dst[n++] = quad;
+        }
+
+        return n;
+
+    }
+
+    /**
+     * Numero di quad visibili da una cella in una direzione.
+     */
+    public int count(int row, int col, int direction){
+
+        int entry = (row * cols + col) * NUM_DIRECTIONS + direction;
+        int n = 0;
+        for (int i = offsets[entry]; i < offsets[entry + 1]; i++){
+            if (data[i] >= 0) n++;   // ultimo byte di ogni varint
+        }
+
+        return n;
+
+    }
+
+    /**
+     * Salva il PVS su file (prima in un file temporaneo, poi rinominato).
+     *
+     * @param file File di destinazione
+     * @throws IOException In caso di errore di scrittura
+     */
+    public void writeTo(File file) throws IOException {
+
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()){
+            throw new IOException("Impossibile creare la cartella " + directory);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + offsets.length * 4 + data.length)
+                                      .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION)
+              .putInt(rows).putInt(cols)
+              .putInt(numQuads).putInt(tileSize)
+              .putInt(data.length).putInt(0);
+        buffer.asIntBuffer().put(offsets);
+        buffer.position(HEADER_SIZE + offsets.length * 4);
+        buffer.put(data);
+        buffer.position(0);
+
+        File tmp = new File(directory, file.getName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()){
+                channel.write(buffer);
+            }
+        }
+
+        if (!tmp.renameTo(file)){
+            tmp.delete();
+            throw new IOException("Impossibile salvare " + file);
+        }
+
+    }
+
+    /**
+     * Legge un PVS da file.
+     *
+     * @param file File da leggere
+     * @param rows Righe attese
+     * @param cols Colonne attese
+     * @param numQuads Numero di quad atteso (mesh dei muri)
+     * @param tileSize Lato dei tile atteso (mesh dei muri)
+     * @return PVS letto, null se il file non esiste o è di una mesh diversa
+     * @throws IOException In caso di errore di lettura o file non valido
+     */
+    public static PotentiallyVisibleSet readFrom(File file, int rows, int cols, int numQuads,
+                                                 int tileSize) throws IOException {
+
+        if (!file.isFile()) return null;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (mapped.getInt() != MAGIC){
+                throw new IOException("File PVS non valido: " + file);
+            }
+            if (mapped.getInt() != VERSION){
+                return null;   // calcolato da una versione precedente di PvsBuilder
+            }
+
+            if ( (mapped.getInt() != rows) || (mapped.getInt() != cols) ||
+                 (mapped.getInt() != numQuads) || (mapped.getInt() != tileSize) ){
+                return null;   // mesh diversa (es. cambio di WallMesher): va ricalcolato
+            }
+
+            int dataLength = mapped.getInt();
+            int[] offsets = new int[rows * cols * NUM_DIRECTIONS + 1];
+            byte[] data = new byte[dataLength];
+
+            mapped.position(HEADER_SIZE);
+            if (mapped.remaining() < offsets.length * 4L + dataLength){
+                throw new IOException("File PVS troncato: " + file);
+            }
+            mapped.asIntBuffer().get(offsets);
+            mapped.position(HEADER_SIZE + offsets.length * 4);
+            mapped.get(data);
+
+            return new PotentiallyVisibleSet(rows, cols, numQuads, tileSize, offsets, data);
+
+        }
+
+    }
+
+    /******* GETTER *******/
+
+    public int getRows() { return rows; }
+
+    public int getCols() { return cols; }
+
+    public int getNumQuads() { return numQuads; }
+
+    public int getTileSize() { return tileSize; }
+
+    /** Dimensione (in byte) degli insiemi compressi. */
+    public int getCompressedBytes() { return data.length; }
+
+}
@@ -0,0 +1,452 @@
+package com.example.progetto.game.objects;
+
+import com.example.progetto.game.maze.GridRaycaster;
+import com.example.progetto.game.maze.MazeGrid;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Calcolo del PotentiallyVisibleSet dei muri sulla griglia.
+ *
+ * Dato che i muri hanno tutti la stessa altezza e la camera è sempre a metà altezza, la
+ * visibilità è un problema 2D sulla griglia: una faccia è visibile da una cella camminabile se
+ * esiste un segmento da un punto qualsiasi della cella a un punto della faccia che attraversa
+ * solo celle camminabili. Il risultato vale quindi per qualsiasi posizione della camera nella
+ * cella (anche durante le transizioni).
+ *
+ * Il calcolo è esatto (conservativo), non campionato: le rette sono divise in 4 famiglie in base
+ * alla direzione prevalente (asse U, vedi AXIS_*) e una retta di una famiglia è y = a x + b
+ * nelle coordinate (U, V) locali alla cella sorgente, con a in [-1, 1]. Passare per un lato
+ * (portale) tra due celle sono 2 vincoli lineari su (a, b), quindi l'insieme delle rette che
+ * attraversano una sequenza di portali è un poligono convesso: la visita in profondità dalla
+ * cella sorgente taglia il poligono ad ogni portale, prosegue nelle celle camminabili e si ferma
+ * sui muri, la cui faccia è visibile se il poligono non è vuoto. I vincoli sono allargati di EPS,
+ * così le rette che sfiorano uno spigolo contano come visibili da entrambi i lati.
+ *
+ * Ogni faccia è ricondotta al quad della mesh che la contiene e aggiunta alle direzioni il cui
+ * semipiano frontale contiene almeno una delle rette che la raggiungono (gli estremi di a del
+ * poligono). Il semipiano (180°) copre il FOV orizzontale della camera con qualsiasi aspect
+ * ratio; durante una rotazione si usa l'unione delle due direzioni adiacenti (vedi
+ * PotentiallyVisibleSet.directionMask()).
+ *
+ * La distanza massima è misurata lungo l'asse U della famiglia, che non supera la distanza
+ * euclidea: il limite tiene quindi anche qualche faccia più lontana, mai meno.
+ *
+ * Il calcolo è diviso per righe della griglia su un ForkJoinPool: ogni task ha i propri buffer e
+ * le proprie bitset, e scrive solo gli insiemi delle proprie celle.
+ *
+ * NB: il numero di sequenze di portali cresce con l'area aperta visibile; nei labirinti (corridoi
+ * larghi una cella) resta piccolo.
+ */
+public class PvsBuilder {
+
+    public static final float DEFAULT_MAX_DISTANCE = 100f;   // far plane di CameraPersp3D
+
+    private static final int ROWS_PER_TASK = 4;
+    private static final double EPS = 1e-7;
+
+    // direzione di vista (colonna, riga) per ogni direzione del PVS
+    private static final float[] FORWARD_COL = {0, -1, 0, 1};
+    private static final float[] FORWARD_ROW = {-1, 0, 1, 0};
+
+    // assi (colonna, riga) delle 4 famiglie di rette: direzione = U + a V
+    private static final int[] AXIS_U_COL = {1, -1, 0, 0};
+    private static final int[] AXIS_U_ROW = {0, 0, 1, -1};
+    private static final int[] AXIS_V_COL = {0, 0, 1, 1};
+    private static final int[] AXIS_V_ROW = {1, 1, 0, 0};
+
+    // uscite da una cella nella famiglia: +U, +V, -V
+    private static final int EXIT_U = 0;
+    private static final int EXIT_V_POS = 1;
+    private static final int EXIT_V_NEG = 2;
+
+    private final MazeGrid grid;
+    private final WallMesher mesher;
+    private final float maxDistance;
+    private final ForkJoinPool pool;
+
+    private final int rows;
+    private final int cols;
+    private int[] faceToQuad;
+
+    /**
+     * Costruttore della classe con parametri di default e pool comune.
+     *
+     * @param grid Griglia del labirinto
+     * @param mesher Mesh dei muri generata dalla stessa griglia
+     */
+    public PvsBuilder(MazeGrid grid, WallMesher mesher){
+
+        this(grid, mesher, DEFAULT_MAX_DISTANCE, ForkJoinPool.commonPool());
+
+    }
+
+    /**
+     * Costruttore della classe.
+     *
+     * @param grid Griglia del labirinto
+     * @param mesher Mesh dei muri generata dalla stessa griglia
+     * @param maxDistance Distanza massima di visibilità
+     * @param pool Pool su cui eseguire il calcolo
+     */
+    public PvsBuilder(MazeGrid grid, WallMesher mesher, float maxDistance, ForkJoinPool pool){
+
+        if ( (maxDistance <= 0) ||
+             (mesher.getRows() != grid.getRows()) || (mesher.getCols() != grid.getCols()) ){
+            throw new IllegalArgumentException("Parametro non valido");
+        }
+
+        this.grid = grid;
+        this.mesher = mesher;
+        this.maxDistance = maxDistance;
+        this.pool = pool;
+
+        rows = grid.getRows();
+        cols = grid.getCols();
+
+    }
+
+    /**
+     * Calcola il PVS.
+     *
+     * @return PVS di tutte le celle camminabili (insiemi vuoti per i muri)
+     */
+    public PotentiallyVisibleSet build(){
+
+        faceToQuad = mesher.buildFaceToQuad();
+
+        final byte[][] entries = new byte[rows * cols * PotentiallyVisibleSet.NUM_DIRECTIONS][];
+        pool.invoke(new RowsAction(0, rows, entries));
+
+        int[] offsets = new int[entries.length + 1];
+        int size = 0;
+        for (int e=0; e<entries.length; e++){
+            offsets[e] = size;
+            if (entries[e] != null) size += entries[e].length;
+        }
+        offsets[entries.length] = size;
+
+        byte[] data = new byte[size];
+        for (int e=0; e<entries.length; e++){
+            if (entries[e] != null){
+                System.arraycopy(entries[e], 0, data, offsets[e], entries[e].length);
+            }
+        }
+
+        faceToQuad = null;
+
+        return new PotentiallyVisibleSet(rows, cols, mesher.getNumQuads(), mesher.getTileSize(),
+                                         offsets, data);
+
+    }
+
+    /**
+     * Calcola gli insiemi di tutte le celle delle righe [fromRow, toRow).
+     */
+    private void computeRows(int fromRow, int toRow, byte[][] entries){
+
+        PortalWalk walk = new PortalWalk((mesher.getNumQuads() + 63) >>> 6);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        for (int row=fromRow; row<toRow; row++){
+            for (int col=0; col<cols; col++){
+
+                if (!grid.isWalkable(row, col)) continue;
+
+                for (int family=0; family<AXIS_U_COL.length; family++){
+                    walk.run(row, col, family);
+                }
+
+                for (int d=0; d<PotentiallyVisibleSet.NUM_DIRECTIONS; d++){
+                    entries[(row * cols + col) * PotentiallyVisibleSet.NUM_DIRECTIONS + d] =
+                            encode(walk.visible[d], out);
+                    Arrays.fill(walk.visible[d], 0L);
+                }
+
+            }
+        }
+
+    }
+
+    /**
+     * Faccia (vedi GridRaycaster.FACE_*) con la normale data.
+     */
+    private static int faceFacing(int normalCol, int normalRow){
+
+        if (normalRow > 0) return GridRaycaster.FACE_POS_Z;
+        if (normalRow < 0) return GridRaycaster.FACE_NEG_Z;
+        return (normalCol > 0) ? GridRaycaster.FACE_POS_X : GridRaycaster.FACE_NEG_X;
+
+    }
+
+    /**
+     * Visita in profondità delle sequenze di portali da una cella sorgente, per una famiglia di
+     * rette alla volta. Ogni task ha la propria istanza (bitset e buffer dei poligoni).
+     *
+     * I poligoni sono vertici (a, b) consecutivi in un double[]: polygons[depth] contiene le rette
+     * che arrivano nella cella visitata alla profondità 'depth'.
+     */
+    private final class PortalWalk {
+
+        private final long[][] visible;
+        private final int maxSteps;
+        private final int[] exitFace = new int[3];
+        private double[][] polygons = new double[32][];
+        private double[] scratch = new double[16];
+
+        private int row0;
+        private int col0;
+        private int family;
+
+        PortalWalk(int words){
+
+            visible = new long[PotentiallyVisibleSet.NUM_DIRECTIONS][words];
+            maxSteps = (int) Math.ceil(maxDistance);
+
+        }
+
+        /**
+         * Aggiunge a 'visible' i quad visibili dalla cella (row, col) con le rette della famiglia.
+         */
+        void run(int row, int col, int family){
+
+            row0 = row;
+            col0 = col;
+            this.family = family;
+
+            exitFace[EXIT_U] = faceFacing(-AXIS_U_COL[family], -AXIS_U_ROW[family]);
+            exitFace[EXIT_V_POS] = faceFacing(-AXIS_V_COL[family], -AXIS_V_ROW[family]);
+            exitFace[EXIT_V_NEG] = faceFacing(AXIS_V_COL[family], AXIS_V_ROW[family]);
+
+            // rette con pendenza in [-1, 1] che escono dalla cella [0, 1] x [0, 1]
+            double[] box = polygon(0, 4);
+            box[0] = -1; box[1] = -2;
+            box[2] = 1;  box[3] = -2;
+            box[4] = 1;  box[5] = 3;
+            box[6] = -1; box[7] = 3;
+
+            visit(0, 0, 0, 4, 0);
+
+        }
+
+        /**
+         * Visita la cella (u, v) raggiunta dalle 'n' rette di polygons[depth]; 'vSign' è il verso
+         * lungo V già preso (0 se nessuno): una retta è monotona, non torna indietro.
+         */
+        private void visit(int u, int v, int depth, int n, int vSign){
+
+            double[] src = polygons[depth];
+
+            for (int exit=0; exit<3; exit++){
+
+                if ( ((exit == EXIT_V_POS) && (vSign < 0)) || ((exit == EXIT_V_NEG) && (vSign > 0)) ){
+                    continue;
+                }
+
+                int nu = u, nv = v;
+                double[] tmp = scratch(n + 1);
+                double[] dst = polygon(depth + 1, n + 2);
+                int m;
+
+                switch (exit){
+                    case EXIT_U:        // lato x = u + 1, y in [v, v + 1]
+                        nu++;
+                        m = clip(src, n, u + 1, v + 1, 1, tmp);
+                        m = clip(tmp, m, u + 1, v, -1, dst);
+                        break;
+                    case EXIT_V_POS:    // lato y = v + 1, x in [u, u + 1], verso +V
+                        nv++;
+                        m = clip(src, n, u, v + 1, 1, tmp);
+                        m = clip(tmp, m, u + 1, v + 1, -1, dst);
+                        break;
+                    default:            // lato y = v, x in [u, u + 1], verso -V
+                        nv--;
+                        m = clip(src, n, u, v, -1, tmp);
+                        m = clip(tmp, m, u + 1, v, 1, dst);
+                        break;
+                }
+
+                if ( (m == 0) || (nu > maxSteps) ) continue;
+
+                int col = col0 + AXIS_U_COL[family] * nu + AXIS_V_COL[family] * nv;
+                int row = row0 + AXIS_U_ROW[family] * nu + AXIS_V_ROW[family] * nv;
+                if ( (row < 0) || (row >= rows) || (col < 0) || (col >= cols) ) continue;
+
+                if (grid.isWalkable(row, col)){
+                    visit(nu, nv, depth + 1, m, (exit == EXIT_U) ? vSign : nv - v);
+                }else{
+                    mark(row, col, exitFace[exit], dst, m);
+                }
+
+            }
+
+        }
+
+        /**
+         * Aggiunge il quad della faccia alle direzioni che vedono almeno una delle rette.
+         */
+        private void mark(int row, int col, int face, double[] polygon, int n){
+
+            int quad = faceToQuad[(row * cols + col) * 4 + face];
+            if (quad < 0) return;
+
+            double minA = polygon[0], maxA = polygon[0];
+            for (int i=1; i<n; i++){
+                minA = Math.min(minA, polygon[2 * i]);
+                maxA = Math.max(maxA, polygon[2 * i]);
+            }
+
+            for (int d=0; d<PotentiallyVisibleSet.NUM_DIRECTIONS; d++){
+
+                // prodotto scalare tra la vista e la direzione U + a V, lineare in a
+                float k0 = FORWARD_COL[d] * AXIS_U_COL[family] + FORWARD_ROW[d] * AXIS_U_ROW[family];
+                float k1 = FORWARD_COL[d] * AXIS_V_COL[family] + FORWARD_ROW[d] * AXIS_V_ROW[family];
+
+                if (Math.max(k0 + k1 * minA, k0 + k1 * maxA) >= -1e-6){
+                    visible[d][quad >>> 6] |= 1L << quad;
+                }
+
+            }
+
+        }
+
+        /**
+         * Taglia il poligono con il semipiano sign * (x a + b - c) <= EPS.
+         *
+         * @return Numero di vertici del risultato in 'dst' (0 se vuoto)
+         */
+        private int clip(double[] src, int n, double x, double c, double sign, double[] dst){
+
+            int m = 0;
+
+            for (int i=0; i<n; i++){
+
+                int j = (i + 1 == n) ? 0 : i + 1;
+                double ai = src[2 * i], bi = src[2 * i + 1];
+                double aj = src[2 * j], bj = src[2 * j + 1];
+                double di = sign * (x * ai + bi - c) - EPS;
+                double dj = sign * (x * aj + bj - c) - EPS;
+
+                if (di <= 0) m = add(dst, m, ai, bi);
+                if ( ((di < 0) && (dj > 0)) || ((di > 0) && (dj < 0)) ){
+                    double t = di / (di - dj);
+                    m = add(dst, m, ai + (aj - ai) * t, bi + (bj - bi) * t);
+                }
+
+            }
+
+            if ( (m > 1) && (dst[0] == dst[2 * m - 2]) && (dst[1] == dst[2 * m - 1]) ) m--;
+
+            return m;
+
+        }
+
+        private int add(double[] dst, int m, double a, double b){
+
+            if ( (m > 0) && (dst[2 * m - 2] == a) && (dst[2 * m - 1] == b) ) return m;
+
+            dst[2 * m] = a;
+            dst[2 * m + 1] = b;
+
+            return m + 1;
+
+        }
+
+        /**
+         * Buffer della profondità 'depth' con posto per almeno 'vertices' vertici.
+         */
+        private double[] polygon(int depth, int vertices){
+
+            if (depth >= polygons.length){
+                polygons = Arrays.copyOf(polygons, polygons.length * 2);
+            }
+            if ( (polygons[depth] == null) || (polygons[depth].length < 2 * vertices) ){
+                polygons[depth] = new double[Math.max(16, 4 * vertices)];
+            }
+
+            return polygons[depth];
+
+        }
+
+        private double[] scratch(int vertices){
+
+            if (scratch.length < 2 * vertices){
+                scratch = new double[4 * vertices];
+            }
+
+            return scratch;
+
+        }
+
+    }
+
+    /**
+     * Codifica delta + varint degli indici a 1 della bitset.
+     */
+    private static byte[] encode(long[] bits, ByteArrayOutputStream out){
+
+        out.reset();
+        int prev = -1;
+
+        for (int w=0; w<bits.length; w++){
+            long word = bits[w];
+            while (word != 0){
+                int quad = (w << 6) + Long.numberOfTrailingZeros(word);
+                int delta = quad - prev - 1;
+                while (delta >= 0x80){
+                    out.write((delta & 0x7F) | 0x80);
+                    delta >>>= 7;
+                }
+                out.write(delta);
+                prev = quad;
+                word &= word - 1;
+            }
+        }
+
+        return out.toByteArray();
+
+    }
+
+    /**
+     * Task fork/join su un intervallo di righe: divide a metà finché restano al massimo
+     * ROWS_PER_TASK righe.
+     */
+    private class RowsAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int fromRow;
+        private final int toRow;
+        private final byte[][] entries;
+
+        RowsAction(int fromRow, int toRow, byte[][] entries){
+
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.entries = entries;
+
+        }
+
+        @Override
+        protected void compute(){
+
+            if (toRow - fromRow <= ROWS_PER_TASK){
+                computeRows(fromRow, toRow, entries);
+                return;
+            }
+
+            int mid = (fromRow + toRow) >>> 1;
+            invokeAll(new RowsAction(fromRow, mid, entries), new RowsAction(mid, toRow, entries));
+
+        }
+
+    }
+
+    /******* GETTER *******/
+
+    public float getMaxDistance() { return maxDistance; }
+
+}
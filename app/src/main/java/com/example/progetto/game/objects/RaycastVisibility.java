@@ -0,0 +1,232 @@
+package com.example.progetto.game.objects;
+
+import com.example.progetto.game.maze.GridRaycaster;
+import com.example.progetto.game.maze.MazeGrid;
+
+/**
+ * Occlusion culling a runtime dei muri tramite raycasting sulla griglia (nessun precalcolo).
+ *
+ * Ad ogni cambio di posizione/rotazione della camera è lanciato un ventaglio di 'numRays' raggi
+ * (GridRaycaster) dalla posizione della camera lungo il FOV orizzontale. Per ogni raggio il primo
+ * muro colpito e i muri adiacenti (4-vicini) sono marcati visibili: tutte le loro facce esposte
+ * sono ricondotte ai quad della mesh (WallMesher.buildFaceToQuad()). I vicini coprono gli spigoli
+ * e le facce viste di taglio che cadono tra due raggi consecutivi.
+ *
+ * Dopo la costruzione update() non alloca: le direzioni dei raggi, la bitset dei quad visibili e
+ * gli intervalli da disegnare sono riusati. La bitset è scandita solo tra la prima e l'ultima
+ * word marcata (i quad sono ordinati per tile, quindi i muri vicini alla camera sono vicini anche
+ * nella bitset).
+ *
+ * FOV: quello orizzontale di CameraPersp3D (45° verticali) per l'aspect ratio corrente, più
+ * FOV_MARGIN gradi per lato.
+ */
+public class RaycastVisibility implements WallVisibility {
+
+    public static final int DEFAULT_RAYS = 256;
+    public static final float DEFAULT_MAX_DISTANCE = 100f;   // far plane di CameraPersp3D
+
+    private static final float VERTICAL_FOV = 45f;
+    private static final float FOV_MARGIN = 5f;
+
+    private static final int[] NEIGHBOUR_ROW = {0, -1, 1, 0, 0};
+    private static final int[] NEIGHBOUR_COL = {0, 0, 0, -1, 1};
+
+    private final MazeGrid grid;
+    private final GridRaycaster raycaster;
+    private final int[] faceToQuad;
+    private final int rows;
+    private final int cols;
+    private final float maxDistance;
+
+    private final int numRays;
+    private final float[] rayAngle;     // offset di ogni raggio rispetto alla direzione di vista
+    private float horizontalFov;
+
+    private final long[] quads;
+    private int minWord;                // intervallo di word della bitset con quad marcati
+    private int maxWord;
+    private final IndexRanges ranges;
+
+    private boolean valid;
+    private float lastX;
+    private float lastZ;
+    private float lastRotationY;
+    private long raysCast;
+    private long cellsVisited;
+
+    /**
+     * Costruttore della classe con parametri di default.
+     *
+     * @param grid Griglia del labirinto
+     * @param mesher Mesh dei muri generata dalla stessa griglia
+     */
+    public RaycastVisibility(MazeGrid grid, WallMesher mesher){
+
+        this(grid, mesher, DEFAULT_RAYS, DEFAULT_MAX_DISTANCE);
+
+    }
+
+    /**
+     * Costruttore della classe.
+     *
+     * @param grid Griglia del labirinto
+     * @param mesher Mesh dei muri generata dalla stessa griglia
+     * @param numRays Numero di raggi del ventaglio
+     * @param maxDistance Distanza massima dei raggi
+     */
+    public RaycastVisibility(MazeGrid grid, WallMesher mesher, int numRays, float maxDistance){
+
+        if ( (numRays < 2) || (maxDistance <= 0) ||
+             (mesher.getRows() != grid.getRows()) || (mesher.getCols() != grid.getCols()) ){
+            throw new IllegalArgumentException("Parametro non valido");
+        }
+
+        this.grid = grid;
+        raycaster = new GridRaycaster(grid);
+        faceToQuad = mesher.buildFaceToQuad();
+        rows = grid.getRows();
+        cols = grid.getCols();
+        this.maxDistance = maxDistance;
+
+        this.numRays = numRays;
+        rayAngle = new float[numRays];
+
+        quads = new long[(mesher.getNumQuads() + 63) >>> 6];
+        minWord = quads.length;
+        maxWord = -1;
+        ranges = new IndexRanges(64);
+
+        valid = false;
+        raysCast = 0;
+        cellsVisited = 0;
+
+        onProjectionChanged(1f);
+
+    }
+
+    @Override
+    public void onProjectionChanged(float aspect){
+
+        double halfVertical = Math.toRadians(VERTICAL_FOV / 2);
+        horizontalFov = (float) (2 * Math.atan(Math.tan(halfVertical) * aspect)) +
+                        (float) Math.toRadians(2 * FOV_MARGIN);
+
+        for (int i=0; i<numRays; i++){
+            rayAngle[i] = horizontalFov * ( (float) i / (numRays - 1) - 0.5f );
+        }
+
+        valid = false;
+
+    }
+
+    /**
+     * Ricalcola i muri visibili se la camera si è mossa o ha ruotato dall'ultimo calcolo.
+     * La matrice PV non è usata: la direzione di vista si ricava dalla rotazione.
+     */
+    @Override
+    public boolean update(float[] pvM, float camX, float camZ, float rotationY){
+
+        if ( valid && (camX == lastX) && (camZ == lastZ) && (rotationY == lastRotationY) ){
+            return false;
+        }
+
+        lastX = camX;
+        lastZ = camZ;
+        lastRotationY = rotationY;
+        valid = true;
+
+        castRays(camX + cols / 2f, camZ + rows / 2f, rotationY);
+
+        return true;
+
+    }
+
+    /**
+     * Lancia il ventaglio di raggi e ricostruisce gli intervalli da disegnare.
+     *
+     * @param originCol Colonna della camera (coordinata continua di griglia)
+     * @param originRow Riga della camera (coordinata continua di griglia)
+     * @param rotationY Rotazione della camera (gradi, come CameraPersp3D.getRotationY())
+     */
+    private void castRays(float originCol, float originRow, float rotationY){
+
+        // stessa direzione di vista di CameraPersp3D.setRotationY()
+        double yaw = Math.toRadians(-(rotationY + 90));
+
+        for (int i=0; i<numRays; i++){
+
+            double angle = yaw + rayAngle[i];
+            float dirCol = (float) Math.cos(angle);
+            float dirRow = (float) Math.sin(angle);
+
+            raysCast++;
+            boolean hit = raycaster.cast(originCol, originRow, dirCol, dirRow, maxDistance);
+            cellsVisited += raycaster.getSteps();
+            if (!hit) continue;
+
+            int hitRow = raycaster.getHitRow();
+            int hitCol = raycaster.getHitCol();
+
+            for (int n=0; n<NEIGHBOUR_ROW.length; n++){
+                int r = hitRow + NEIGHBOUR_ROW[n];
+                int c = hitCol + NEIGHBOUR_COL[n];
+                if ( (r < 0) || (r >= rows) || (c < 0) || (c >= cols) || grid.isWalkable(r, c) ){
+                    continue;
+                }
+                markWall(r, c);
+            }
+
+        }
+
+        // i quad sono ordinati per tile: i muri vicini alla camera occupano poche word
+        ranges.clear();
+        ranges.addQuadsAndClear(quads, minWord, maxWord + 1);
+        minWord = quads.length;
+        maxWord = -1;
+
+    }
+
+    /**
+     * Marca visibili i quad di tutte le facce esposte di un muro.
+     */
+    private void markWall(int row, int col){
+
+        int base = (row * cols + col) * 4;
+        for (int face=0; face<4; face++){
+            int q = faceToQuad[base + face];
+            if (q >= 0){
+                int w = q >>> 6;
+                quads[w] |= 1L << q;
+                if (w < minWord) minWord = w;
+                if (w > maxWord) maxWord = w;
+            }
+        }
+
+    }
+
+    /******* GETTER *******/
+
+    @Override
+    public int getNumRanges() { return ranges.size(); }
+
+    @Override
+    public int[] getRangeFirst() { return ranges.getFirst(); }
+
+    @Override
+    public int[] getRangeCount() { return ranges.getCount(); }
+
+    @Override
+    public int getNumVisibleIndices() { return ranges.numIndices(); }
+
+    public int getNumRays() { return numRays; }
+
+    /** FOV orizzontale coperto dai raggi (radianti). */
+    public float getHorizontalFov() { return horizontalFov; }
+
+    /** Raggi lanciati dalla creazione. */
+    public long getRaysCast() { return raysCast; }
+
+    /** Celle attraversate da tutti i raggi dalla creazione. */
+    public long getCellsVisited() { return cellsVisited; }
+
+}
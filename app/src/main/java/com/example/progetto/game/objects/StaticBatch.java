@@ -0,0 +1,224 @@
+package com.example.progetto.game.objects;
+
+import static android.opengl.GLES20.GL_TRIANGLES;
+
+import com.example.progetto.ogles.Geometry3D;
+import com.example.progetto.ogles.camera.CameraBase;
+import com.example.progetto.ogles.gl.GLApi;
+import com.example.progetto.ogles.gl.GLBridge;
+import com.example.progetto.ogles.shader.MaterialBasic;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Muri del labirinto divisi in chunk statici in coordinate mondo (vedi StaticBatchBuilder).
+ *
+ * Ogni chunk ha il proprio VAO/VBO/IBO (una Geometry3D) e il bounding box dei suoi vertici. Dato
+ * che i vertici sono già in coordinate mondo non c'è una matrice model: per tutti i chunk la
+ * uniform 'MVP' è la matrice PV della camera, caricata una volta per frame.
+ *
+ * Il disegno riceve gli intervalli dell'index buffer globale di WallMesher (quelli di un
+ * WallVisibility): ogni intervallo è ricondotto al chunk che lo contiene (spezzato se ne
+ * attraversa più di uno) e disegnato con gli indici locali del chunk.
+ */
+public class StaticBatch {
+
+    /**
+     * Chunk del batch: buffer host-side, geometria e bounding box.
+     */
+    public static class Chunk {
+
+        private final int tileRow;
+        private final int tileCol;
+        private final int firstIndex;
+        private final int numIndices;
+        private final float[] bounds;
+        private final ByteBuffer vertices;
+        private final ByteBuffer indices;
+        private final Geometry3D geometry;
+
+        /**
+         * Costruttore della classe (vedi StaticBatchBuilder).
+         *
+         * @param tileRow Riga del tile della mesh
+         * @param tileCol Colonna del tile della mesh
+         * @param firstIndex Primo indice del chunk nell'index buffer globale
+         * @param numIndices Numero di indici
+         * @param bounds Bounding box [ minX, minY, minZ, maxX, maxY, maxZ ]
+         * @param vertices Vertici (buffer diretto, formato di Geometry3D)
+         * @param indices Indici locali al chunk (buffer diretto)
+         * @param indexType GL_UNSIGNED_SHORT oppure GL_UNSIGNED_INT
+         */
+        Chunk(int tileRow, int tileCol, int firstIndex, int numIndices, float[] bounds,
+              ByteBuffer vertices, ByteBuffer indices, int indexType){
+
+            this.tileRow = tileRow;
+            this.tileCol = tileCol;
+            this.firstIndex = firstIndex;
+            this.numIndices = numIndices;
+            this.bounds = bounds;
+            this.vertices = vertices;
+            this.indices = indices;
+            geometry = new Geometry3D(vertices, indices, indexType, false);
+
+        }
+
+        /******* GETTER *******/
+
+        public int getTileRow() { return tileRow; }
+
+        public int getTileCol() { return tileCol; }
+
+        public int getFirstIndex() { return firstIndex; }
+
+        public int getNumIndices() { return numIndices; }
+
+        /** Bounding box [ minX, minY, minZ, maxX, maxY, maxZ ] in coordinate mondo. */
+        public float[] getBounds() { return bounds; }
+
+        public ByteBuffer getVertices() { return vertices; }
+
+        public ByteBuffer getIndices() { return indices; }
+
+        public Geometry3D getGeometry() { return geometry; }
+
+    }
+
+    private static final float[] IDENTITY = {1, 0, 0, 0,  0, 1, 0, 0,  0, 0, 1, 0,  0, 0, 0, 1};
+
+    private final int chunkSize;
+    private final int numIndices;
+    private final Chunk[] chunks;
+    private final int[] chunkFirst;      // primo indice globale di ogni chunk (crescente)
+    private int drawCalls;
+
+    /**
+     * Costruttore della classe (vedi StaticBatchBuilder).
+     *
+     * @param chunkSize Lato (in celle) dei chunk
+     * @param numIndices Numero di indici di tutta la mesh
+     * @param chunks Chunk ordinati per primo indice
+     */
+    StaticBatch(int chunkSize, int numIndices, Chunk[] chunks){
+
+        this.chunkSize = chunkSize;
+        this.numIndices = numIndices;
+        this.chunks = chunks;
+
+        chunkFirst = new int[chunks.length];
+        for (int i=0; i<chunks.length; i++){
+            chunkFirst[i] = chunks[i].firstIndex;
+        }
+        drawCalls = 0;
+
+    }
+
+    /**
+     * Disegna gli intervalli dell'index buffer globale.
+     *
+     * Il material (program, uniform e texture) deve essere già attivo; qui sono bindati il blocco
+     * Camera e caricata la model matrix identità (i vertici sono già in world space).
+     *
+     * @param camera Camera (matrici già aggiornate)
+     * @param material Materiale dei muri
+     * @param firstIndices Primo indice (globale) di ogni intervallo
+     * @param counts Numero di indici di ogni intervallo
+     * @param numRanges Numero di intervalli validi
+     */
+    public void draw(CameraBase camera, MaterialBasic material, int[] firstIndices, int[] counts,
+                     int numRanges){
+
+        drawCalls = 0;
+        if (numRanges == 0) return;
+
+        camera.bindUniforms();
+        material.updateModel(IDENTITY);
+
+        GLApi gl = GLBridge.get();
+        int bound = -1;
+
+        for (int i=0; i<numRanges; i++){
+
+            int first = firstIndices[i];
+            int end = first + counts[i];
+
+            while (first < end){
+
+                int c = chunkAt(first);
+                Chunk chunk = chunks[c];
+                int chunkEnd = chunk.firstIndex + chunk.numIndices;
+                int n = Math.min(end, chunkEnd) - first;
+
+                if (c != bound){
+                    gl.glBindVertexArray(chunk.geometry.getVao()[0]);
+                    bound = c;
+                }
+
+                Geometry3D g = chunk.geometry;
+                gl.glDrawElements(GL_TRIANGLES, n, g.getIndexType(),
+                                  (first - chunk.firstIndex) * g.getIndexSize());
+                drawCalls++;
+
+                first += n;
+
+            }
+
+        }
+
+        gl.glBindVertexArray(0);
+
+    }
+
+    /**
+     * Chunk che contiene l'indice globale 'index' (ricerca binaria sui primi indici).
+     */
+    private int chunkAt(int index){
+
+        int lo = 0;
+        int hi = chunks.length - 1;
+        while (lo < hi){
+            int mid = (lo + hi + 1) >>> 1;
+            if (chunkFirst[mid] <= index){
+                lo = mid;
+            }else{
+                hi = mid - 1;
+            }
+        }
+
+        return lo;
+
+    }
+
+    /**
+     * Geometrie dei chunk, da trasferire (upload()) e rilasciare (release()) nel GL thread
+     * (vedi Level.uploadToGpu()).
+     *
+     * @return Lista delle geometrie
+     */
+    public List<Geometry3D> getGeometries(){
+
+        List<Geometry3D> res = new ArrayList<>(chunks.length);
+        for (Chunk chunk : chunks){
+            res.add(chunk.geometry);
+        }
+
+        return res;
+
+    }
+
+    /******* GETTER *******/
+
+    public int getChunkSize() { return chunkSize; }
+
+    public int getNumChunks() { return chunks.length; }
+
+    public Chunk getChunk(int i) { return chunks[i]; }
+
+    public int getNumIndices() { return numIndices; }
+
+    /** Drawcall dell'ultimo draw(). */
+    public int getDrawCalls() { return drawCalls; }
+
+}
@@ -0,0 +1,139 @@
+package com.example.progetto.game.objects;
+
+import static android.opengl.GLES20.GL_UNSIGNED_INT;
+import static android.opengl.GLES20.GL_UNSIGNED_SHORT;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Batching statico dei muri: la mesh di WallMesher (già in coordinate mondo) è divisa in chunk
+ * di chunkSize x chunkSize celle, ognuno con i propri vertex/index buffer (vedi StaticBatch).
+ *
+ * I chunk coincidono con i tile della mesh: il chunk di un tile contiene esattamente l'intervallo
+ * dell'index buffer globale del tile (getTileFirstIndex(), getTileIndexCount()), quindi gli
+ * intervalli calcolati dai WallVisibility si ricavano sul chunk senza tabelle aggiuntive. Per
+ * chunk di 32x32 celle la mesh va generata con new WallMesher(grid, DEFAULT_CHUNK_SIZE).
+ *
+ * Ogni chunk ha i vertici copiati in un ByteBuffer diretto (ordine nativo, formato di
+ * Geometry3D) e gli indici locali al chunk: GL_UNSIGNED_SHORT se i vertici sono al massimo 65536
+ * (sempre vero per chunk fino a 32x32), altrimenti GL_UNSIGNED_INT.
+ *
+ * Nessuna chiamata GL: il builder va eseguito fuori dal GL thread (es. nel LevelPipeline), i
+ * buffer sono poi trasferiti con StaticBatch.upload() nel GL thread.
+ */
+public class StaticBatchBuilder {
+
+    public static final int DEFAULT_CHUNK_SIZE = 32;
+
+    private static final int VERTICES_PER_QUAD = 4;
+    private static final int INDICES_PER_QUAD = 6;
+    private static final int MAX_SHORT_VERTICES = 1 << 16;
+
+    private final WallMesher mesher;
+
+    /**
+     * Costruttore della classe.
+     *
+     * @param mesher Mesh dei muri (un chunk per ogni tile)
+     */
+    public StaticBatchBuilder(WallMesher mesher){
+
+        this.mesher = mesher;
+
+    }
+
+    /**
+     * Crea i chunk (solo quelli con almeno un quad).
+     *
+     * @return Batch con i buffer host-side pronti per glBufferData()
+     */
+    public StaticBatch build(){
+
+        int[] tileFirst = mesher.getTileFirstIndex();
+        int[] tileCount = mesher.getTileIndexCount();
+        int tilesX = mesher.getTilesX();
+
+        int numChunks = 0;
+        for (int t=0; t<tileCount.length; t++){
+            if (tileCount[t] > 0) numChunks++;
+        }
+
+        StaticBatch.Chunk[] chunks = new StaticBatch.Chunk[numChunks];
+        int n = 0;
+        for (int t=0; t<tileCount.length; t++){
+            if (tileCount[t] > 0){
+                chunks[n++] = buildChunk(t / tilesX, t % tilesX, tileFirst[t], tileCount[t]);
+            }
+        }
+
+        return new StaticBatch(mesher.getTileSize(), mesher.getNumQuads() * INDICES_PER_QUAD, chunks);
+
+    }
+
+    /**
+     * Copia i quad di un tile nei buffer del chunk e ne calcola il bounding box.
+     *
+     * @param tileRow Riga del tile
+     * @param tileCol Colonna del tile
+     * @param firstIndex Primo indice del tile nell'index buffer globale
+     * @param numIndices Numero di indici del tile
+     */
+    private StaticBatch.Chunk buildChunk(int tileRow, int tileCol, int firstIndex, int numIndices){
+
+        int stride = WallMesher.FLOATS_PER_VERTEX;
+        int firstQuad = firstIndex / INDICES_PER_QUAD;
+        int numQuads = numIndices / INDICES_PER_QUAD;
+        int numVertices = numQuads * VERTICES_PER_QUAD;
+
+        float[] src = mesher.getVertices();
+        int from = firstQuad * VERTICES_PER_QUAD * stride;
+        int length = numVertices * stride;
+
+        ByteBuffer vertices = ByteBuffer.allocateDirect(length * Float.BYTES)
+                                        .order(ByteOrder.nativeOrder());
+        FloatBuffer floats = vertices.asFloatBuffer();
+        floats.put(src, from, length);
+
+        float[] bounds = {Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+                          Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+        for (int v=from; v<from+length; v+=stride){
+            for (int a=0; a<3; a++){
+                bounds[a] = Math.min(bounds[a], src[v+a]);
+                bounds[a+3] = Math.max(bounds[a+3], src[v+a]);
+            }
+        }
+
+        // quad 'q' del chunk: vertici [4q, 4q+3], triangoli (0, 1, 2) e (0, 2, 3) come WallMesher
+        boolean shortIndices = numVertices <= MAX_SHORT_VERTICES;
+        int indexType = shortIndices ? GL_UNSIGNED_SHORT : GL_UNSIGNED_INT;
+        ByteBuffer indices = ByteBuffer.allocateDirect(numIndices * (shortIndices ? Short.BYTES : Integer.BYTES))
+                                       .order(ByteOrder.nativeOrder());
+        for (int q=0; q<numQuads; q++){
+            int base = q * VERTICES_PER_QUAD;
+            putIndex(indices, shortIndices, base);
+            putIndex(indices, shortIndices, base + 1);
+            putIndex(indices, shortIndices, base + 2);
+            putIndex(indices, shortIndices, base);
+            putIndex(indices, shortIndices, base + 2);
+            putIndex(indices, shortIndices, base + 3);
+        }
+        indices.position(0);
+
+        return new StaticBatch.Chunk(tileRow, tileCol, firstIndex, numIndices, bounds,
+                                     vertices, indices, indexType);
+
+    }
+
+    private static void putIndex(ByteBuffer indices, boolean shortIndices, int index){
+
+        if (shortIndices){
+            indices.putShort((short) index);   // unsigned: 65535 -> (short) -1
+        }else{
+            indices.putInt(index);
+        }
+
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.example.progetto.game.objects;
+
+import java.util.Arrays;
+
+/**
+ * Selezione dei muri da disegnare: intersezione tra il PVS della cella della camera
+ * (PotentiallyVisibleSet) e i tile nel frustum (GridFrustumCuller).
+ *
+ * Il risultato è una lista di intervalli dell'index buffer dei muri (quad consecutivi uniti), da
+ * disegnare con una glDrawElements() ciascuno. Come per il culler, gli intervalli sono
+ * ricalcolati solo quando la camera cambia cella o rotazione.
+ *
+ * Senza PVS (oppure con la camera fuori da una cella camminabile) sono usati direttamente gli
+ * intervalli del culler.
+ *
+ * Solo Java (nessuna chiamata GL): testabile sulla JVM.
+ */
+public class VisibleWalls implements WallVisibility {
+
+    private final GridFrustumCuller culler;
+    private final PotentiallyVisibleSet pvs;
+    private final int rows;
+    private final int cols;
+
+    private final int[] quadTile;        // tile di ogni quad
+    private final int tilesX;
+    private final long[] quads;          // quad da disegnare (bitset)
+    private final int[] decoded;
+
+    private final IndexRanges ranges;
+    private boolean usingPvs;
+
+    /**
+     * Costruttore della classe.
+     *
+     * @param mesher Mesh dei muri
+     * @param pvs PVS della stessa mesh, null per usare solo il frustum culling
+     */
+    public VisibleWalls(WallMesher mesher, PotentiallyVisibleSet pvs){
+
+        if ( (pvs != null) && (pvs.getNumQuads() != mesher.getNumQuads()) ){
+            throw new IllegalArgumentException("PVS di un'altra mesh");
+        }
+
+        this.culler = new GridFrustumCuller(mesher);
+        this.pvs = pvs;
+        rows = mesher.getRows();
+        cols = mesher.getCols();
+        tilesX = mesher.getTilesX();
+
+        int numQuads = mesher.getNumQuads();
+        quadTile = new int[numQuads];
+        int[] first = mesher.getTileFirstIndex();
+        int[] count = mesher.getTileIndexCount();
+        for (int t=0; t<first.length; t++){
+            Arrays.fill(quadTile, first[t] / 6, (first[t] + count[t]) / 6, t);
+        }
+
+        quads = new long[(numQuads + 63) >>> 6];
+        decoded = new int[numQuads];
+        ranges = new IndexRanges(16);
+        usingPvs = false;
+
+    }
+
+    /**
+     * Funzione chiamata ad ogni frame con la camera aggiornata.
+     *
+     * @param pvM Matrice projection * view della camera (column-major)
+     * @param camX Posizione 'x' della camera
+     * @param camZ Posizione 'z' della camera
+     * @param rotationY Rotazione della camera sull'asse 'y' (gradi)
+     * @return True se gli intervalli sono stati ricalcolati
+     */
+    @Override
+    public boolean update(float[] pvM, float camX, float camZ, float rotationY){
+
+        if (!culler.update(pvM, camX, camZ, rotationY)) return false;
+
+        int col = (int) Math.floor(camX + cols / 2f);
+        int row = (int) Math.floor(camZ + rows / 2f);
+
+        usingPvs = (pvs != null) && (row >= 0) && (row < rows) && (col >= 0) && (col < cols);
+        if (usingPvs){
+            collectRanges(row, col, PotentiallyVisibleSet.directionMask(rotationY));
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Forza il ricalcolo al prossimo update() (es. dopo il cambio della matrice di proiezione).
+     */
+    public void invalidate(){
+
+        culler.invalidate();
+
+    }
+
+    @Override
+    public void onProjectionChanged(float aspect){
+
+        invalidate();
+
+    }
+
+    /**
+     * Unione degli insiemi delle direzioni in 'dirMask', filtrata con i tile visibili, e
+     * conversione in intervalli di indici.
+     */
+    private void collectRanges(int row, int col, int dirMask){
+
+        for (int mask = dirMask; mask != 0; mask &= mask - 1){
+            int n = pvs.decode(row, col, Integer.numberOfTrailingZeros(mask), decoded);
+            for (int i=0; i<n; i++){
+                int q = decoded[i];
+                int t = quadTile[q];
+                if (culler.isTileVisible(t / tilesX, t % tilesX)){
+                    quads[q >>> 6] |= 1L << q;
+                }
+            }
+        }
+
+        ranges.clear();
+        ranges.addQuadsAndClear(quads);
+
+    }
+
+    /******* GETTER *******/
+
+    @Override
+    public int getNumRanges() { return usingPvs ? ranges.size() : culler.getNumRanges(); }
+
+    @Override
+    public int[] getRangeFirst() { return usingPvs ? ranges.getFirst() : culler.getRangeFirst(); }
+
+    @Override
+    public int[] getRangeCount() { return usingPvs ? ranges.getCount() : culler.getRangeCount(); }
+
+    @Override
+    public int getNumVisibleIndices() { return usingPvs ? ranges.numIndices() : culler.getNumVisibleIndices(); }
+
+    public boolean isUsingPvs() { return usingPvs; }
+
+    public GridFrustumCuller getCuller() { return culler; }
+
+    public PotentiallyVisibleSet getPvs() { return pvs; }
+
+}
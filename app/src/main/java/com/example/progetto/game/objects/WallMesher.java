@@ -0,0 +1,479 @@
+package com.example.progetto.game.objects;
+
+import com.example.progetto.game.maze.GridRaycaster;
+import com.example.progetto.game.maze.MazeGrid;
+
+import java.util.Arrays;
+
+/**
+ * Classe che trasforma la griglia del labirinto in un'unica mesh delle pareti.
+ *
+ * Invece di un cubo per ogni muro (12 triangoli, la maggior parte nascosti), sono generate solo
+ * le facce verticali visibili:
+ *      - una faccia esiste solo tra un muro e una cella camminabile, quindi spariscono le facce
+ *        tra muri adiacenti e quelle del bordo rivolte verso l'esterno;
+ *      - le facce superiori/inferiori non sono generate (coincidono con tetto e pavimento);
+ *      - facce complanari adiacenti sono unite (greedy) in un unico quad lungo quanto la serie.
+ *
+ * Per il frustum culling (vedi GridFrustumCuller) la griglia è divisa in tile di tileSize x tileSize
+ * celle: le serie sono spezzate sui bordi dei tile, ogni quad appartiene al tile del proprio muro
+ * e gli indici dei quad dello stesso tile sono contigui (getTileFirstIndex(), getTileIndexCount()),
+ * quindi un tile si disegna con una glDrawElements() su un intervallo dell'index buffer.
+ *
+ * Le uv dei quad sono [0, lunghezza] x [0, 1]: con GL_REPEAT la texture è ripetuta una volta per
+ * unità di muro, come sulle facce dei cubi (lo scaling (1, -1) del materiale resta valido).
+ *
+ * Coordinate: la cella (riga, colonna) occupa x in [col - cols/2, col+1 - cols/2] e
+ * z in [riga - rows/2, riga+1 - rows/2] (stesso centro di LabyrinthGenerator.fromIndicesToCoord),
+ * y in [-0.5, 0.5]. Triangoli in senso antiorario visti dalla cella camminabile.
+ *
+ * Vertici nel formato di Geometry3D: [ 'x', 'y', 'z', 'u', 'v', ... ].
+ */
+public class WallMesher {
+
+    public static final int FLOATS_PER_VERTEX = 5;
+    public static final int DEFAULT_TILE_SIZE = 16;
+    public static final int CUBE_TRIANGLES = 12;            // cubo con 6 facce da 2 triangoli
+
+    private final int rows;
+    private final int cols;
+    private final int tileSize;
+    private final int tilesX;
+    private final int tilesZ;
+    private final float offsetX;
+    private final float offsetZ;
+
+    private float[] vertices;
+    private int[] indices;
+    private int[] quadTiles;
+    private int numQuads;
+
+    private int[] tileFirstIndex;
+    private int[] tileIndexCount;
+
+    /**
+     * Costruttore della classe: genera la mesh delle pareti con tile di DEFAULT_TILE_SIZE celle.
+     *
+     * @param grid Griglia del labirinto
+     */
+    public WallMesher(MazeGrid grid){
+
+        this(grid, DEFAULT_TILE_SIZE);
+
+    }
+
+    /**
+     * Costruttore della classe: genera la mesh delle pareti.
+     *
+     * @param grid Griglia del labirinto
+     * @param tileSize Lato (in celle) dei tile in cui sono raggruppati i quad
+     */
+    public WallMesher(MazeGrid grid, int tileSize){
+
+        if (tileSize <= 0){
+            throw new IllegalArgumentException("Parametro non valido");
+        }
+
+        rows = grid.getRows();
+        cols = grid.getCols();
+        this.tileSize = tileSize;
+        tilesX = (cols + tileSize - 1) / tileSize;
+        tilesZ = (rows + tileSize - 1) / tileSize;
+        offsetX = -cols / 2f;
+        offsetZ = -rows / 2f;
+
+        vertices = new float[256 * 4 * FLOATS_PER_VERTEX];
+        quadTiles = new int[256];
+        numQuads = 0;
+
+        meshRowFaces(grid);
+        meshColumnFaces(grid);
+
+        sortQuadsByTile();
+
+    }
+
+    /**
+     * Facce rivolte verso +z / -z: per ogni riga, serie di colonne consecutive con muro nella
+     * riga e cella camminabile nella riga dopo (o prima).
+     */
+    private void meshRowFaces(MazeGrid grid){
+
+        int wordsPerRow = grid.getWordsPerRow();
+        long[] walls = new long[wordsPerRow];
+        long[] walkable = new long[wordsPerRow];
+        long[] faces = new long[wordsPerRow];
+
+        for (int r=0; r<rows; r++){
+
+            grid.getRowWallMask(r, walls);
+
+            // +z: cella camminabile nella riga r+1
+            if (r+1 < rows){
+                grid.getRowWalkableMask(r+1, walkable);
+                for (int w=0; w<wordsPerRow; w++){
+                    faces[w] = walls[w] & walkable[w];
+                }
+                float z = r + 1 + offsetZ;
+                for (int c0 = nextSetBit(faces, 0); c0 >= 0; ){
+                    int c1 = nextClearBit(faces, c0);
+                    for (int a = c0, b; a < c1; a = b){
+                        b = Math.min(c1, (a / tileSize + 1) * tileSize);   // spezzo sul bordo del tile
+                        emitQuad(a + offsetX, z, b + offsetX, z, b - a, tileOf(r, a));
+                    }
+                    c0 = nextSetBit(faces, c1);
+                }
+            }
+
+            // -z: cella camminabile nella riga r-1
+            if (r > 0){
+                grid.getRowWalkableMask(r-1, walkable);
+                for (int w=0; w<wordsPerRow; w++){
+                    faces[w] = walls[w] & walkable[w];
+                }
+                float z = r + offsetZ;
+                for (int c0 = nextSetBit(faces, 0); c0 >= 0; ){
+                    int c1 = nextClearBit(faces, c0);
+                    for (int a = c0, b; a < c1; a = b){
+                        b = Math.min(c1, (a / tileSize + 1) * tileSize);
+                        emitQuad(b + offsetX, z, a + offsetX, z, b - a, tileOf(r, a));
+                    }
+                    c0 = nextSetBit(faces, c1);
+                }
+            }
+
+        }
+
+    }
+
+    /**
+     * Facce rivolte verso +x / -x: per ogni colonna, serie di righe consecutive con muro nella
+     * colonna e cella camminabile nella colonna dopo (o prima).
+     *
+     * Le righe sono scorse una volta sola: per ogni colonna è salvata la riga in cui è iniziata
+     * la serie corrente, e la serie è chiusa quando il bit della colonna passa da 1 a 0 oppure
+     * sul bordo di un tile (e riaperta nella riga dopo il bordo se prosegue).
+     */
+    private void meshColumnFaces(MazeGrid grid){
+
+        int wordsPerRow = grid.getWordsPerRow();
+        long[] walls = new long[wordsPerRow];
+        long[] walkable = new long[wordsPerRow];
+
+        long[] currE = new long[wordsPerRow];   // muro con cella camminabile a destra (+x)
+        long[] currW = new long[wordsPerRow];   // muro con cella camminabile a sinistra (-x)
+        long[] prevE = new long[wordsPerRow];
+        long[] prevW = new long[wordsPerRow];
+        int[] startE = new int[cols];
+        int[] startW = new int[cols];
+
+        for (int r=0; r<=rows; r++){
+
+            if (r < rows){
+                grid.getRowWallMask(r, walls);
+                grid.getRowWalkableMask(r, walkable);
+                for (int w=0; w<wordsPerRow; w++){
+                    long next = (w+1 < wordsPerRow) ? walkable[w+1] << 63 : 0L;
+                    long prev = (w > 0) ? walkable[w-1] >>> 63 : 0L;
+                    currE[w] = walls[w] & ((walkable[w] >>> 1) | next);
+                    currW[w] = walls[w] & ((walkable[w] << 1) | prev);
+                }
+            }else{
+                Arrays.fill(currE, 0L);   // chiudo tutte le serie aperte
+                Arrays.fill(currW, 0L);
+            }
+
+            if ( (r > 0) && (r < rows) && (r % tileSize == 0) ){
+                closeRuns(prevE, startE, r, true);
+                closeRuns(prevW, startW, r, false);
+            }
+
+            for (int w=0; w<wordsPerRow; w++){
+
+                long changed = currE[w] ^ prevE[w];
+                while (changed != 0){
+                    int c = (w << 6) + Long.numberOfTrailingZeros(changed);
+                    if ( (currE[w] & Long.lowestOneBit(changed)) != 0 ){
+                        startE[c] = r;
+                    }else{
+                        emitColumnQuad(c, startE[c], r, true);
+                    }
+                    changed &= changed - 1;
+                }
+
+                changed = currW[w] ^ prevW[w];
+                while (changed != 0){
+                    int c = (w << 6) + Long.numberOfTrailingZeros(changed);
+                    if ( (currW[w] & Long.lowestOneBit(changed)) != 0 ){
+                        startW[c] = r;
+                    }else{
+                        emitColumnQuad(c, startW[c], r, false);
+                    }
+                    changed &= changed - 1;
+                }
+
+            }
+
+            long[] tmp = prevE; prevE = currE; currE = tmp;
+            tmp = prevW; prevW = currW; currW = tmp;
+
+        }
+
+    }
+
+    /**
+     * Chiude (emettendo i quad) tutte le serie aperte in 'prev' e le azzera.
+     *
+     * @param prev Maschera delle serie aperte
+     * @param start Riga di inizio della serie per ogni colonna
+     * @param r Riga (esclusa) in cui terminano le serie
+     * @param east True per le facce rivolte verso +x
+     */
+    private void closeRuns(long[] prev, int[] start, int r, boolean east){
+
+        for (int w=0; w<prev.length; w++){
+            long bits = prev[w];
+            while (bits != 0){
+                int c = (w << 6) + Long.numberOfTrailingZeros(bits);
+                emitColumnQuad(c, start[c], r, east);
+                bits &= bits - 1;
+            }
+            prev[w] = 0L;
+        }
+
+    }
+
+    /**
+     * Aggiunge il quad di una serie di facce verticali della colonna 'c' (righe [r0, r1) ).
+     *
+     * @param c Colonna del muro
+     * @param r0 Prima riga della serie
+     * @param r1 Riga dopo l'ultima della serie
+     * @param east True per la faccia rivolta verso +x, false per -x
+     */
+    private void emitColumnQuad(int c, int r0, int r1, boolean east){
+
+        if (east){
+            float x = c + 1 + offsetX;
+            emitQuad(x, r1 + offsetZ, x, r0 + offsetZ, r1 - r0, tileOf(r0, c));
+        }else{
+            float x = c + offsetX;
+            emitQuad(x, r0 + offsetZ, x, r1 + offsetZ, r1 - r0, tileOf(r0, c));
+        }
+
+    }
+
+    /**
+     * Indice del tile che contiene la cella (riga, colonna), tile ordinati per righe.
+     */
+    private int tileOf(int row, int col){
+
+        return (row / tileSize) * tilesX + (col / tileSize);
+
+    }
+
+    /**
+     * Aggiunge un quad verticale (y in [-0.5, 0.5]) dal punto 'a' al punto 'b' del piano xz.
+     * Visto dal lato della normale, 'a' è a sinistra e 'b' a destra (ordine antiorario).
+     *
+     * @param ax Coordinata 'x' del lato sinistro
+     * @param az Coordinata 'z' del lato sinistro
+     * @param bx Coordinata 'x' del lato destro
+     * @param bz Coordinata 'z' del lato destro
+     * @param length Lunghezza del quad (celle unite)
+     * @param tile Tile a cui appartiene il quad
+     */
+    private void emitQuad(float ax, float az, float bx, float bz, int length, int tile){
+
+        if (numQuads == quadTiles.length){
+            vertices = Arrays.copyOf(vertices, vertices.length * 2);
+            quadTiles = Arrays.copyOf(quadTiles, quadTiles.length * 2);
+        }
+
+        int v = numQuads * 4 * FLOATS_PER_VERTEX;
+        putVertex(v, ax, -0.5f, az, 0, 0);
+        putVertex(v + FLOATS_PER_VERTEX, bx, -0.5f, bz, length, 0);
+        putVertex(v + 2*FLOATS_PER_VERTEX, bx, 0.5f, bz, length, 1);
+        putVertex(v + 3*FLOATS_PER_VERTEX, ax, 0.5f, az, 0, 1);
+
+        quadTiles[numQuads] = tile;
+        numQuads++;
+
+    }
+
+    /**
+     * Riordina i quad per tile (counting sort, stabile) e genera gli indici: i quad di un tile
+     * occupano un intervallo contiguo dell'index buffer.
+     */
+    private void sortQuadsByTile(){
+
+        int numTiles = tilesX * tilesZ;
+        tileFirstIndex = new int[numTiles];
+        tileIndexCount = new int[numTiles];
+
+        int[] next = new int[numTiles + 1];   // primo quad di ogni tile
+        for (int q=0; q<numQuads; q++){
+            next[quadTiles[q] + 1]++;
+        }
+        for (int t=0; t<numTiles; t++){
+            tileFirstIndex[t] = next[t] * 6;
+            tileIndexCount[t] = next[t+1] * 6;
+            next[t+1] += next[t];
+        }
+
+        int quadFloats = 4 * FLOATS_PER_VERTEX;
+        float[] sorted = new float[numQuads * quadFloats];
+        for (int q=0; q<numQuads; q++){
+            int dst = next[quadTiles[q]]++;
+            System.arraycopy(vertices, q * quadFloats, sorted, dst * quadFloats, quadFloats);
+        }
+        vertices = sorted;
+        quadTiles = null;
+
+        indices = new int[numQuads * 6];
+        for (int q=0; q<numQuads; q++){
+            int base = q * 4;
+            int i = q * 6;
+            indices[i] = base;
+            indices[i+1] = base + 1;
+            indices[i+2] = base + 2;
+            indices[i+3] = base;
+            indices[i+4] = base + 2;
+            indices[i+5] = base + 3;
+        }
+
+    }
+
+    private void putVertex(int offset, float x, float y, float z, float u, float v){
+
+        vertices[offset] = x;
+        vertices[offset+1] = y;
+        vertices[offset+2] = z;
+        vertices[offset+3] = u;
+        vertices[offset+4] = v;
+
+    }
+
+    /**
+     * Indice del primo bit a 1 a partire da 'from', -1 se non ce ne sono.
+     */
+    private static int nextSetBit(long[] mask, int from){
+
+        int w = from >>> 6;
+        if (w >= mask.length) return -1;
+
+        long bits = mask[w] & (-1L << from);
+        while (bits == 0){
+            if (++w == mask.length) return -1;
+            bits = mask[w];
+        }
+
+        return (w << 6) + Long.numberOfTrailingZeros(bits);
+
+    }
+
+    /**
+     * Indice del primo bit a 0 a partire da 'from' (i bit di padding sono a 0).
+     */
+    private static int nextClearBit(long[] mask, int from){
+
+        int w = from >>> 6;
+        if (w >= mask.length) return from;
+
+        long bits = ~mask[w] & (-1L << from);
+        while (bits == 0){
+            if (++w == mask.length) return w << 6;
+            bits = ~mask[w];
+        }
+
+        return (w << 6) + Long.numberOfTrailingZeros(bits);
+
+    }
+
+    /**
+     * Tabella (cella muro, faccia) -> quad della mesh che la contiene (-1 se la faccia non è
+     * visibile), indicizzata con (riga * cols + colonna) * 4 + faccia (GridRaycaster.FACE_*).
+     * Ricostruita dai vertici della mesh: un quad da 'a' a 'b' copre le facce dei muri dietro di
+     * lui (lato opposto alla normale (-dz, 0, dx)).
+     *
+     * Usata per ricondurre i muri colpiti dai raggi ai quad da disegnare (PvsBuilder,
+     * RaycastVisibility).
+     *
+     * @return Nuova tabella (rows * cols * 4 elementi)
+     */
+    public int[] buildFaceToQuad(){
+
+        int[] res = new int[rows * cols * 4];
+        Arrays.fill(res, -1);
+
+        float[] v = vertices;
+        int stride = FLOATS_PER_VERTEX;
+        float offsetCol = cols / 2f;
+        float offsetRow = rows / 2f;
+
+        for (int q=0; q<numQuads; q++){
+
+            int a = q * 4 * stride;
+            int b = a + stride;
+            float ax = v[a] + offsetCol, az = v[a+2] + offsetRow;
+            float bx = v[b] + offsetCol, bz = v[b+2] + offsetRow;
+            int length = Math.round(v[b+3]);
+
+            float nx = -(bz - az) / length;
+            float nz = (bx - ax) / length;
+            int face = (nz > 0.5f) ? GridRaycaster.FACE_POS_Z : (nz < -0.5f) ? GridRaycaster.FACE_NEG_Z
+                     : (nx > 0.5f) ? GridRaycaster.FACE_POS_X : GridRaycaster.FACE_NEG_X;
+
+            for (int i=0; i<length; i++){
+                float t = (i + 0.5f) / length;
+                int col = (int) Math.floor(ax + (bx - ax) * t - nx * 0.5f);
+                int row = (int) Math.floor(az + (bz - az) * t - nz * 0.5f);
+                res[(row * cols + col) * 4 + face] = q;
+            }
+
+        }
+
+        return res;
+
+    }
+
+    /**
+     * Numero di triangoli del disegno con un cubo per ogni muro (CUBE_TRIANGLES per cubo, come
+     * cube.ply), per confronto con getNumTriangles().
+     *
+     * @param numWalls Numero di muri
+     * @return Triangoli totali
+     */
+    public static long perCubeTriangles(int numWalls){
+
+        return (long) numWalls * CUBE_TRIANGLES;
+
+    }
+
+    /******* GETTER *******/
+
+    public float[] getVertices() { return vertices; }
+
+    public int[] getIndices() { return indices; }
+
+    public int getNumQuads() { return numQuads; }
+
+    public int getNumTriangles() { return numQuads * 2; }
+
+    public int getRows() { return rows; }
+
+    public int getCols() { return cols; }
+
+    public int getTileSize() { return tileSize; }
+
+    public int getTilesX() { return tilesX; }
+
+    public int getTilesZ() { return tilesZ; }
+
+    /** Primo indice (nell'index buffer) dei quad di ogni tile. */
+    public int[] getTileFirstIndex() { return tileFirstIndex; }
+
+    /** Numero di indici dei quad di ogni tile. */
+    public int[] getTileIndexCount() { return tileIndexCount; }
+
+}
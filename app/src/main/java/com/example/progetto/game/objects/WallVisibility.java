@@ -0,0 +1,48 @@
+package com.example.progetto.game.objects;
+
+/**
+ * Selezione dei muri da disegnare a partire dalla camera.
+ *
+ * Il risultato è una lista di intervalli dell'index buffer della mesh dei muri (WallMesher), da
+ * disegnare con una glDrawElements() ciascuno (vedi Labyrinth3D.drawLabyrinthWalls()).
+ *
+ * Implementazioni:
+ *      - GridFrustumCuller: tile della griglia nel frustum;
+ *      - VisibleWalls: PVS precalcolato della cella della camera + frustum;
+ *      - RaycastVisibility: raggi lanciati a runtime nel FOV, nessun precalcolo.
+ *
+ * Le implementazioni sono solo Java (nessuna chiamata GL) e sono usate dal GL thread.
+ */
+public interface WallVisibility {
+
+    /**
+     * Aggiorna il set visibile (se necessario) con la camera del frame corrente.
+     *
+     * @param pvM Matrice projection * view della camera (column-major)
+     * @param camX Posizione 'x' della camera
+     * @param camZ Posizione 'z' della camera
+     * @param rotationY Rotazione della camera sull'asse 'y' (gradi)
+     * @return True se gli intervalli sono stati ricalcolati
+     */
+    boolean update(float[] pvM, float camX, float camZ, float rotationY);
+
+    /**
+     * Chiamata quando cambia la proiezione della camera: il set visibile va ricalcolato.
+     *
+     * @param aspect Nuovo aspect ratio
+     */
+    void onProjectionChanged(float aspect);
+
+    /** Numero di intervalli da disegnare. */
+    int getNumRanges();
+
+    /** Primo indice degli intervalli da disegnare (validi i primi getNumRanges()). */
+    int[] getRangeFirst();
+
+    /** Numero di indici degli intervalli da disegnare (validi i primi getNumRanges()). */
+    int[] getRangeCount();
+
+    /** Numero di indici da disegnare (somma degli intervalli). */
+    int getNumVisibleIndices();
+
+}
@@ -4,23 +4,22 @@ import static android.opengl.GLES20.GL_ARRAY_BUFFER;
 import static android.opengl.GLES20.GL_ELEMENT_ARRAY_BUFFER;
 import static android.opengl.GLES20.GL_FLOAT;
 import static android.opengl.GLES20.GL_STATIC_DRAW;
-import static android.opengl.GLES20.glBindBuffer;
-import static android.opengl.GLES20.glBufferData;
-import static android.opengl.GLES20.glEnableVertexAttribArray;
-import static android.opengl.GLES20.glGenBuffers;
-import static android.opengl.GLES20.glVertexAttribPointer;
+import static android.opengl.GLES20.GL_TRIANGLES;
+import static android.opengl.GLES20.GL_UNSIGNED_INT;
+import static android.opengl.GLES20.GL_UNSIGNED_SHORT;
 
 import android.content.Context;
-import android.opengl.GLES30;
 
+import com.example.progetto.ogles.gl.GLApi;
+import com.example.progetto.ogles.gl.GLBridge;
 import com.example.progetto.ogles.utils.PlyObject;
+import com.example.progetto.ogles.utils.Tracer;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
-import java.nio.IntBuffer;
 
 /**
  * Classe per la gestione di una generica geometria 3D con vertici, uv ed indici.
@@ -30,14 +29,35 @@ import java.nio.IntBuffer;
  * Dal momento che in questo progetto sono presenti 3 diverse geometrie (piano, cubo, triangolo)
  * e CIASCUNA di queste è USATA DA PIU' Object3D, allora la classe di seguito implementata torna utile
  * perchè mi permette di avere il riferimento diretto al VAO e al numero di indici di ogni geometria.
+ *
+ * Geometria ISTANZIATA: se costruita con un vettore di istanze [ 'x', 'y', 'z', 's', ... ], il VAO
+ * ha anche l'attributo per-istanza 'iPosScale' (location 3, divisor 1) e tutte le istanze sono
+ * disegnate con una sola glDrawElementsInstanced() (vedi drawInstanced() e
+ * MaterialBasic.VSHADER_INSTANCED). Ogni istanza è la geometria scalata di 's' e traslata in
+ * ('x', 'y', 'z'), senza matrici model calcolate lato CPU.
+ *
+ * Indici: GL_UNSIGNED_INT, oppure GL_UNSIGNED_SHORT se la geometria è costruita da buffer già
+ * pronti (vedi costruttore con ByteBuffer e StaticBatchBuilder).
+ *
+ * Tutte le chiamate GL passano da GLBridge.get().
  */
 public class Geometry3D {
 
+    public static final int LOC_POSITION = 1;
+    public static final int LOC_UV = 2;
+    public static final int LOC_INSTANCE = 3;
+    public static final int FLOATS_PER_INSTANCE = 4;
+
     private final int[] vao;
+    private final int[] vbo;
     private int numIndices;
+    private int indexType;
+    private int numInstances;
+    private volatile boolean uploaded;
 
     private FloatBuffer vertexBuffer;
-    private IntBuffer indexBuffer;
+    private ByteBuffer indexBuffer;
+    private FloatBuffer instanceBuffer;
 
     /**
      * Costruttore della classe.
@@ -50,11 +70,101 @@ public class Geometry3D {
      */
     public Geometry3D(float[] vertices, int[] indices){
 
+        this(vertices, indices, true);
+
+    }
+
+    /**
+     * Costruttore della classe con trasferimento sul device opzionale.
+     *
+     * Con 'upload' = false sono allocati solo i buffer host-side (nessuna chiamata GL), quindi la
+     * geometria può essere costruita anche fuori dal GL thread; il trasferimento avviene poi con
+     * upload() sul GL thread.
+     *
+     * @param vertices Vertex attributes con position e uv: [ 'x', 'y', 'z', 'u', 'v', ... ]
+     * @param indices Vettore di indici
+     * @param upload True per creare subito VAO/VBO (richiede il GL thread)
+     */
+    public Geometry3D(float[] vertices, int[] indices, boolean upload){
+
         vao = new int[1];
+        vbo = new int[2];
         numIndices = 0;
+        indexType = GL_UNSIGNED_INT;
+        numInstances = 0;
+        uploaded = false;
 
         allocateBuffers(vertices, indices);
-        glPrepare();
+        instanceBuffer = null;
+        if (upload) upload();
+
+    }
+
+    /**
+     * Costruttore da buffer già pronti per glBufferData() (es. preparati fuori dal GL thread da
+     * StaticBatchBuilder): i buffer non sono copiati.
+     *
+     * @param vertices Buffer diretto (ordine nativo) con [ 'x', 'y', 'z', 'u', 'v', ... ]
+     * @param indices Buffer diretto (ordine nativo) con gli indici
+     * @param indexType GL_UNSIGNED_SHORT oppure GL_UNSIGNED_INT
+     * @param upload True per creare subito VAO/VBO (richiede il GL thread)
+     */
+    public Geometry3D(ByteBuffer vertices, ByteBuffer indices, int indexType, boolean upload){
+
+        if ( !vertices.isDirect() || !indices.isDirect() ||
+             (vertices.order() != ByteOrder.nativeOrder()) || (indices.order() != ByteOrder.nativeOrder()) ||
+             ((indexType != GL_UNSIGNED_SHORT) && (indexType != GL_UNSIGNED_INT)) ){
+            throw new IllegalArgumentException("Parametro non valido");
+        }
+
+        vao = new int[1];
+        vbo = new int[2];
+        this.indexType = indexType;
+        numIndices = indices.capacity() / indexSize(indexType);
+        numInstances = 0;
+        uploaded = false;
+
+        vertexBuffer = vertices.asFloatBuffer();
+        indexBuffer = indices.duplicate().order(ByteOrder.nativeOrder());
+        indexBuffer.position(0);
+        instanceBuffer = null;
+        if (upload) upload();
+
+    }
+
+    /**
+     * Costruttore di una geometria istanziata: stessi vertici e indici di 'source' (i buffer
+     * host-side sono condivisi) più un buffer per-istanza.
+     *
+     * Il VAO è nuovo, quindi la geometria originale può continuare ad essere disegnata senza
+     * istanze.
+     *
+     * @param source Geometria da istanziare
+     * @param instances Dati per-istanza [ 'x', 'y', 'z', 's', ... ] (traslazione e scala uniforme)
+     * @param upload True per creare subito VAO/VBO (richiede il GL thread)
+     */
+    public Geometry3D(Geometry3D source, float[] instances, boolean upload){
+
+        if ( (instances == null) || (instances.length % FLOATS_PER_INSTANCE != 0) ){
+            throw new IllegalArgumentException("Parametro non valido");
+        }
+
+        vao = new int[1];
+        vbo = new int[3];
+        numIndices = source.numIndices;
+        indexType = source.indexType;
+        numInstances = instances.length / FLOATS_PER_INSTANCE;
+        uploaded = false;
+
+        vertexBuffer = source.vertexBuffer.duplicate();
+        indexBuffer = source.indexBuffer.duplicate().order(ByteOrder.nativeOrder());
+        instanceBuffer = ByteBuffer.allocateDirect(instances.length * Float.BYTES)
+                                   .order(ByteOrder.nativeOrder())
+                                   .asFloatBuffer();
+        instanceBuffer.put(instances);
+        instanceBuffer.position(0);
+
+        if (upload) upload();
 
     }
 
@@ -69,6 +179,7 @@ public class Geometry3D {
         InputStream is;
         PlyObject po = null;
 
+        Tracer.begin("Geometry3D.loadPlyObject");
         try {
             is = context.getAssets().open(fileName);
             po = new PlyObject(is);
@@ -77,6 +188,8 @@ public class Geometry3D {
         }catch(IOException | NumberFormatException e){
             e.printStackTrace();
             System.exit(-1);
+        }finally {
+            Tracer.end();
         }
 
         return po;
@@ -104,13 +217,53 @@ public class Geometry3D {
         numIndices = indices.length;
 
         indexBuffer = ByteBuffer.allocateDirect(indices.length * Integer.BYTES)
-                                .order(ByteOrder.nativeOrder())
-                                .asIntBuffer();
-        indexBuffer.put(indices);
+                                .order(ByteOrder.nativeOrder());
+        indexBuffer.asIntBuffer().put(indices);
         indexBuffer.position( 0);
 
     }
 
+    /**
+     * Funzione che crea VAO/VBO e trasferisce i buffer sul device. Da chiamare nel GL thread.
+     * Richiamata dopo la perdita del contesto EGL ricrea gli oggetti GL.
+     */
+    public void upload(){
+
+        glPrepare();
+        uploaded = true;
+
+    }
+
+    /**
+     * Funzione che elimina VAO/VBO dal device (i buffer host-side restano). Da chiamare nel
+     * GL thread quando la geometria non è più usata.
+     */
+    public void release(){
+
+        if (!uploaded) return;
+
+        GLApi gl = GLBridge.get();
+        gl.glDeleteBuffers(vbo.length, vbo, 0);
+        gl.glDeleteVertexArrays(1, vao, 0);
+        uploaded = false;
+
+    }
+
+    /**
+     * Drawcall di tutte le istanze della geometria (una sola chiamata). Il VAO della geometria
+     * deve essere bindato e il program in uso deve leggere 'iPosScale' (location 3).
+     */
+    public void drawInstanced(){
+
+        if (instanceBuffer == null){
+            throw new IllegalStateException("Geometria non istanziata");
+        }
+
+        GLBridge.get().glDrawElementsInstanced(GL_TRIANGLES, numIndices, indexType, 0,
+                                               numInstances);
+
+    }
+
     /**
      * Funzione che crea VAO/VBO, effettua trasferimento dei buffer (nel device) e crea puntatori
      * con gli attribute locations.
@@ -149,27 +302,39 @@ public class Geometry3D {
      */
     private void glPrepare(){
 
-        int locvPos = 1;
-        int locvUv = 2;
+        GLApi gl = GLBridge.get();
 
-        GLES30.glGenVertexArrays(1, vao, 0);
+        gl.glGenVertexArrays(1, vao, 0);
 
-        int [] VBO = new int[2];                   //0: vPos/vUv, 1: indices
-        glGenBuffers(2, VBO, 0);
+        gl.glGenBuffers(vbo.length, vbo, 0);       //0: vPos/vUv, 1: indices, 2: istanze
 
-        GLES30.glBindVertexArray(vao[0]);
+        gl.glBindVertexArray(vao[0]);
             // vPos, vUv
-            glBindBuffer(GL_ARRAY_BUFFER, VBO[0]);
-                glBufferData(GL_ARRAY_BUFFER, Float.BYTES * vertexBuffer.capacity(), vertexBuffer, GL_STATIC_DRAW);
-                glVertexAttribPointer(locvPos, 3, GL_FLOAT, false, 5 * Float.BYTES, 0); //vPos
-                glVertexAttribPointer(locvUv, 2, GL_FLOAT, false, 5 * Float.BYTES, 3 * Float.BYTES); //vUv
-                glEnableVertexAttribArray(locvPos);
-                glEnableVertexAttribArray(locvUv);
+            gl.glBindBuffer(GL_ARRAY_BUFFER, vbo[0]);
+                gl.glBufferData(GL_ARRAY_BUFFER, Float.BYTES * vertexBuffer.capacity(), vertexBuffer, GL_STATIC_DRAW);
+                gl.glVertexAttribPointer(LOC_POSITION, 3, GL_FLOAT, false, 5 * Float.BYTES, 0); //vPos
+                gl.glVertexAttribPointer(LOC_UV, 2, GL_FLOAT, false, 5 * Float.BYTES, 3 * Float.BYTES); //vUv
+                gl.glEnableVertexAttribArray(LOC_POSITION);
+                gl.glEnableVertexAttribArray(LOC_UV);
+            // iPosScale: avanza di 1 elemento per istanza (divisor 1) invece che per vertice
+            if (instanceBuffer != null){
+                gl.glBindBuffer(GL_ARRAY_BUFFER, vbo[2]);
+                    gl.glBufferData(GL_ARRAY_BUFFER, Float.BYTES * instanceBuffer.capacity(), instanceBuffer, GL_STATIC_DRAW);
+                    gl.glVertexAttribPointer(LOC_INSTANCE, FLOATS_PER_INSTANCE, GL_FLOAT, false, FLOATS_PER_INSTANCE * Float.BYTES, 0);
+                    gl.glEnableVertexAttribArray(LOC_INSTANCE);
+                    gl.glVertexAttribDivisor(LOC_INSTANCE, 1);
+            }
             // indices
-            glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, VBO[1]);
-                glBufferData(GL_ELEMENT_ARRAY_BUFFER, Integer.BYTES * indexBuffer.capacity(), indexBuffer, GL_STATIC_DRAW);
-            glBindBuffer(GL_ARRAY_BUFFER,0);
-        GLES30.glBindVertexArray(0);
+            gl.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, vbo[1]);
+                gl.glBufferData(GL_ELEMENT_ARRAY_BUFFER, indexBuffer.capacity(), indexBuffer, GL_STATIC_DRAW);
+            gl.glBindBuffer(GL_ARRAY_BUFFER,0);
+        gl.glBindVertexArray(0);
+
+    }
+
+    private static int indexSize(int indexType){
+
+        return (indexType == GL_UNSIGNED_SHORT) ? Short.BYTES : Integer.BYTES;
 
     }
 
@@ -181,4 +346,16 @@ public class Geometry3D {
         return numIndices;
     }
 
+    /** Tipo degli indici: GL_UNSIGNED_SHORT oppure GL_UNSIGNED_INT. */
+    public int getIndexType() { return indexType; }
+
+    /** Dimensione in byte di un indice (per gli offset di glDrawElements). */
+    public int getIndexSize() { return indexSize(indexType); }
+
+    public int getNumInstances() { return numInstances; }
+
+    public boolean isInstanced() { return instanceBuffer != null; }
+
+    public boolean isUploaded() { return uploaded; }
+
 }
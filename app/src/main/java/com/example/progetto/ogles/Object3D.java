@@ -1,13 +1,11 @@
 package com.example.progetto.ogles;
 
 import static android.opengl.GLES20.GL_TRIANGLES;
-import static android.opengl.GLES20.GL_UNSIGNED_INT;
-import static android.opengl.GLES20.glDrawElements;
-
-import android.opengl.Matrix;
 
 import com.example.progetto.ogles.camera.CameraBase;
+import com.example.progetto.ogles.gl.GLBridge;
 import com.example.progetto.ogles.shader.MaterialBasic;
+import com.example.progetto.ogles.utils.MatrixMath;
 
 /**
  * Classe per la gestione di posizione, rotazione e scala di un generico oggetto 3D.
@@ -32,8 +30,6 @@ public class Object3D {
     private final float[] scale;
     private final float[] modelM;
 
-    private final float[] mvp;
-
     private boolean matrixNeedsUpdate;
 
     /**
@@ -55,8 +51,6 @@ public class Object3D {
         scale = new float[] {1, 1, 1};
         modelM = new float[16];
 
-        mvp = new float[16];
-
         matrixNeedsUpdate = true;
 
     }
@@ -168,10 +162,10 @@ public class Object3D {
      */
     public void updateModelM(){
 
-        Matrix.setIdentityM(modelM, 0);
-        Matrix.translateM(modelM, 0, position[0], position[1], position[2]);
-        Matrix.rotateM(modelM, 0, rotation, axesRotation[0], axesRotation[1], axesRotation[2]);
-        Matrix.scaleM(modelM, 0, scale[0], scale[1], scale[2]);
+        MatrixMath.setIdentityM(modelM, 0);
+        MatrixMath.translateM(modelM, 0, position[0], position[1], position[2]);
+        MatrixMath.rotateM(modelM, 0, rotation, axesRotation[0], axesRotation[1], axesRotation[2]);
+        MatrixMath.scaleM(modelM, 0, scale[0], scale[1], scale[2]);
 
         matrixNeedsUpdate = false;
 
@@ -180,13 +174,16 @@ public class Object3D {
     /**
      * Funzione chiamata nel onDrawFrame() del renderer e disegna l' Object3D.
      *
+     * La matrice VP è nel blocco Camera (CameraBase.bindUniforms()): per oggetto è caricata solo
+     * la model matrix, senza il prodotto VP * M sulla CPU.
+     *
      * @param camera Camera utilizzata per disegnare l'oggetto a video
      */
     public void draw(CameraBase camera){
 
-        Matrix.multiplyMM(mvp, 0, camera.getPvM(), 0, modelM, 0);
-        material.updateMVP(mvp);
-        glDrawElements(GL_TRIANGLES, geometry.getNumIndices(), GL_UNSIGNED_INT,0);
+        camera.bindUniforms();
+        material.updateModel(modelM);
+        GLBridge.get().glDrawElements(GL_TRIANGLES, geometry.getNumIndices(), geometry.getIndexType(), 0);
 
     }
 
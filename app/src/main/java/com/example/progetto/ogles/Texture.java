@@ -10,21 +10,17 @@ import static android.opengl.GLES20.GL_TEXTURE_MAG_FILTER;
 import static android.opengl.GLES20.GL_TEXTURE_MIN_FILTER;
 import static android.opengl.GLES20.GL_TEXTURE_WRAP_S;
 import static android.opengl.GLES20.GL_TEXTURE_WRAP_T;
-import static android.opengl.GLES20.glBindTexture;
-import static android.opengl.GLES20.glGenTextures;
-import static android.opengl.GLES20.glGenerateMipmap;
-import static android.opengl.GLES20.glGetError;
-import static android.opengl.GLES20.glGetFloatv;
-import static android.opengl.GLES20.glTexParameterf;
-import static android.opengl.GLES20.glTexParameteri;
 
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.opengl.GLES11Ext;
-import android.opengl.GLUtils;
 import android.util.Log;
 
+import com.example.progetto.ogles.gl.GLApi;
+import com.example.progetto.ogles.gl.GLBridge;
+import com.example.progetto.ogles.utils.Tracer;
+
 /**
  * Classe per la gestione di una generica texture.
  *
@@ -39,6 +35,8 @@ public class Texture {
 
     private final int[] textureObjId;  // handle
     private final Bitmap bitmap;
+    private final boolean anisFilter;
+    private volatile boolean uploaded;
 
     /**
      * Costruttore della classe.
@@ -49,12 +47,41 @@ public class Texture {
      */
     public Texture(Bitmap bitmap, boolean anisFilter){
 
+        this(bitmap, anisFilter, true);
+
+    }
+
+    /**
+     * Costruttore della classe con trasferimento sul device opzionale.
+     *
+     * Con 'upload' = false non è fatta nessuna chiamata GL (utile per preparare la texture fuori
+     * dal GL thread); il texture object è creato in seguito con upload() sul GL thread.
+     *
+     * @param bitmap Btimap da usare come texture
+     * @param anisFilter True per attivare il filtro anisotropico
+     * @param upload True per creare subito il texture object (richiede il GL thread)
+     */
+    public Texture(Bitmap bitmap, boolean anisFilter, boolean upload){
+
         TAG = getClass().getSimpleName();
 
         textureObjId = new int[1];
         this.bitmap = bitmap;
+        this.anisFilter = anisFilter;
+        uploaded = false;
+
+        if (upload) upload();
+
+    }
+
+    /**
+     * Funzione che crea il texture object e trasferisce il bitmap sul device. Da chiamare nel
+     * GL thread.
+     */
+    public void upload(){
 
         glPrepare(anisFilter);
+        uploaded = true;
 
     }
 
@@ -67,15 +94,22 @@ public class Texture {
      */
     public static Bitmap loadBitmap(Context context, int idDrawable){
 
-        BitmapFactory.Options opts = new BitmapFactory.Options();
-        opts.inScaled=false;
-        Bitmap bitmap = BitmapFactory.decodeResource(context.getResources(), idDrawable, opts);
+        Tracer.begin("Texture.loadBitmap");
+        try {
+
+            BitmapFactory.Options opts = new BitmapFactory.Options();
+            opts.inScaled=false;
+            Bitmap bitmap = BitmapFactory.decodeResource(context.getResources(), idDrawable, opts);
+
+            if(bitmap!=null)
+                Log.d(TAG,"bitmap of size " + bitmap.getWidth()+"x"+bitmap.getHeight()+ " loaded " +
+                        "with format " + bitmap.getConfig().name());
 
-        if(bitmap!=null)
-            Log.d(TAG,"bitmap of size " + bitmap.getWidth()+"x"+bitmap.getHeight()+ " loaded " +
-                    "with format " + bitmap.getConfig().name());
+            return bitmap;
 
-        return bitmap;
+        } finally {
+            Tracer.end();
+        }
 
     }
 
@@ -84,40 +118,44 @@ public class Texture {
      */
     private void glPrepare(boolean anisFilter){
 
-        glGenTextures(1, textureObjId, 0);
+        GLApi gl = GLBridge.get();
 
-        glBindTexture(GL_TEXTURE_2D, textureObjId[0]);
+        gl.glGenTextures(1, textureObjId, 0);
+
+        gl.glBindTexture(GL_TEXTURE_2D, textureObjId[0]);
 
             // quando texture la vedo da lontano (piccola) --> GL_LINEAR_MIPMAP_NEAREST
-            glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR_MIPMAP_NEAREST);
+            gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR_MIPMAP_NEAREST);
             // quando texture la vedo da vicino (grande) --> GL_LINEAR
-            glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+            gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
 
-            glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_REPEAT);
-            glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_REPEAT);
+            gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_REPEAT);
+            gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_REPEAT);
 
             // trasferimento sul device
-            GLUtils.texImage2D(GL_TEXTURE_2D, 0, bitmap, 0);
+            gl.texImage2D(GL_TEXTURE_2D, 0, bitmap, 0);
 
-            glGenerateMipmap(GL_TEXTURE_2D);
+            gl.glGenerateMipmap(GL_TEXTURE_2D);
 
             if(anisFilter) {
                 // valore che rappresenta quanto è aggressivo il filtro. Più è alto
                 // più è costosa la renderizzazione
                 float[] maxAF = new float[1];
-                glGetFloatv(GLES11Ext.GL_MAX_TEXTURE_MAX_ANISOTROPY_EXT, maxAF, 0);
-                int error =glGetError();
+                gl.glGetFloatv(GLES11Ext.GL_MAX_TEXTURE_MAX_ANISOTROPY_EXT, maxAF, 0);
+                int error = gl.glGetError();
                 if(error != GL_NO_ERROR) Log.d(TAG,"Error " + error);
-                glTexParameterf(GL_TEXTURE_2D, GL_TEXTURE_MAX_ANISOTROPY_EXT, maxAF[0]);
+                gl.glTexParameterf(GL_TEXTURE_2D, GL_TEXTURE_MAX_ANISOTROPY_EXT, maxAF[0]);
                 if(error!= GL_NO_ERROR) Log.d(TAG,"Error " + error);
                 Log.d(TAG, "Setted Anisotropic filtering (" + maxAF[0] +")");  // 16
             }
 
-        glBindTexture(GL_TEXTURE_2D,0);
+        gl.glBindTexture(GL_TEXTURE_2D,0);
 
     }
 
     /****** GETTER *******/
 
     public int[] getTextureObjId() { return textureObjId; }  // handle
+
+    public boolean isUploaded() { return uploaded; }
 }
@@ -1,9 +1,17 @@
 package com.example.progetto.ogles.camera;
 
-import android.opengl.Matrix;
+import com.example.progetto.ogles.shader.UniformBlock;
+import com.example.progetto.ogles.utils.MatrixMath;
 
 /**
  * Classe base astratta per la rappresentazione di una camera nello spazio 3D.
+ *
+ * Ogni camera ha il proprio blocco UniformBlock.CAMERA (matrice VP e posizione) usato dagli
+ * shader di MaterialBasic: va bindato con bindUniforms() prima di disegnare con la camera.
+ *
+ * Versione: incrementata ad ogni updateViewAndPvM(). Chi deriva dati dalle matrici della camera
+ * può confrontare la versione invece dei valori (es. bindUniforms() copia VP e posizione nel
+ * blocco solo se la versione è cambiata: con la camera ferma nessuna copia).
  */
 public abstract class CameraBase {
 
@@ -15,7 +23,16 @@ public abstract class CameraBase {
 
     protected float[] position;
 
-    protected boolean matrixNeedsUpdate;
+    protected volatile boolean matrixNeedsUpdate;     // letto anche fuori dal GL thread
+
+    private final UniformBlock uniforms;
+    private int version;
+    private int uniformsVersion;        // versione copiata nel blocco Camera
+
+    private int uniformUpdates;
+    private int uniformUpdatesSkipped;
+    private int lastFrameUniformUpdates;
+    private int lastFrameUniformUpdatesSkipped;
 
     /**
      * Costruttore classe che prende in input la posizione.
@@ -32,13 +49,17 @@ public abstract class CameraBase {
         projM = new float[16];
         pvM = new float[16];
 
-        Matrix.setIdentityM(viewM, 0);
-        Matrix.setIdentityM(projM, 0);
-        Matrix.setIdentityM(pvM, 0);
+        MatrixMath.setIdentityM(viewM, 0);
+        MatrixMath.setIdentityM(projM, 0);
+        MatrixMath.setIdentityM(pvM, 0);
 
         this.position = new float[3];
         setPosition(posX, posY, posZ);
 
+        uniforms = UniformBlock.camera();
+        version = 0;
+        uniformsVersion = -1;
+
     }
 
     /**
@@ -71,6 +92,47 @@ public abstract class CameraBase {
      */
     public abstract void updateViewAndPvM();
 
+    /**
+     * Da chiamare al termine di updateViewAndPvM(): le matrici sono cambiate.
+     */
+    protected void matricesUpdated(){
+
+        version++;
+
+    }
+
+    /**
+     * Inizio di un nuovo frame: azzera i contatori di bindUniforms() (quelli del frame concluso
+     * restano leggibili).
+     */
+    public void beginFrame(){
+
+        lastFrameUniformUpdates = uniformUpdates;
+        lastFrameUniformUpdatesSkipped = uniformUpdatesSkipped;
+        uniformUpdates = 0;
+        uniformUpdatesSkipped = 0;
+
+    }
+
+    /**
+     * Copia matrice VP e posizione nel blocco Camera (solo se la versione è cambiata) e ne fa il
+     * bind (dati trasferiti solo se cambiati: al più una volta per frame). Da chiamare nel
+     * GL thread.
+     */
+    public void bindUniforms(){
+
+        if (uniformsVersion != version){
+            uniforms.putMat4(UniformBlock.CAMERA_VP, pvM);
+            uniforms.putVec4(UniformBlock.CAMERA_POSITION, position[0], position[1], position[2], 1f);
+            uniformsVersion = version;
+            uniformUpdates++;
+        }else{
+            uniformUpdatesSkipped++;
+        }
+
+        uniforms.bind();
+
+    }
 
     /******* GETTER *******/
 
@@ -80,4 +142,18 @@ public abstract class CameraBase {
 
     public boolean matrixNeedsUpdate()  { return matrixNeedsUpdate; }
 
+    public UniformBlock getUniforms() { return uniforms; }
+
+    public int getVersion() { return version; }
+
+    /** Copie di VP e posizione nel blocco Camera dall'ultimo beginFrame(). */
+    public int getUniformUpdates() { return uniformUpdates; }
+
+    /** bindUniforms() senza copia (camera invariata) dall'ultimo beginFrame(). */
+    public int getUniformUpdatesSkipped() { return uniformUpdatesSkipped; }
+
+    public int getLastFrameUniformUpdates() { return lastFrameUniformUpdates; }
+
+    public int getLastFrameUniformUpdatesSkipped() { return lastFrameUniformUpdatesSkipped; }
+
 }
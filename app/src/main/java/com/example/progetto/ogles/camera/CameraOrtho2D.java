@@ -1,6 +1,6 @@
 package com.example.progetto.ogles.camera;
 
-import android.opengl.Matrix;
+import com.example.progetto.ogles.utils.MatrixMath;
 
 /**
  * Camera ortogonale che estende la classe base astratta.
@@ -46,7 +46,7 @@ public class CameraOrtho2D extends CameraBase{
     @Override
     public void setupProjection(float aspect, float left, float right, float bottom, float top) {
 
-        Matrix.orthoM(projM,0,left, right, bottom, top,0.1f,100f);
+        MatrixMath.orthoM(projM,0,left, right, bottom, top,0.1f,100f);
 
         matrixNeedsUpdate = true;
 
@@ -66,12 +66,14 @@ public class CameraOrtho2D extends CameraBase{
     public void updateViewAndPvM() {
 
         // update viewM
-        Matrix.setLookAtM(viewM, 0, position[0], position[1], position[2],
+        MatrixMath.setLookAtM(viewM, 0, position[0], position[1], position[2],
                          0, 0, 0,
                          0, 0, -1);
 
         // update pvM
-        Matrix.multiplyMM(pvM, 0, projM, 0, viewM, 0);
+        MatrixMath.multiplyMM(pvM, 0, projM, 0, viewM, 0);
+
+        matricesUpdated();
 
     }
 
@@ -1,10 +1,17 @@
 package com.example.progetto.ogles.camera;
 
-import android.opengl.Matrix;
+import com.example.progetto.ogles.utils.MatrixMath;
 
 /**
  * Camera prospettica che estende la classe base astratta.
  *
+ * Thread: ogni istanza è modificata e letta da un solo thread, senza lock. La camera di gioco
+ * appartiene al thread della Simulation (comandi, animazioni, reset al cambio livello); quella di
+ * rendering al GL thread, che la porta allo stato interpolato dei RenderSnapshot e disegna. Ogni
+ * modifica di posizione o rotazione è pubblicata in un CameraState (seqlock) leggibile da
+ * getState(). Oggi lo legge solo il thread proprietario (la simulazione, per costruire i
+ * RenderSnapshot): il GL thread riceve la camera di gioco dagli snapshot, non da getState().
+ *
  * JAVA MEMORY MODEL: https://jenkov.com/tutorials/java-concurrency/java-memory-model.html
  */
 public class CameraPersp3D extends CameraBase{
@@ -12,6 +19,8 @@ public class CameraPersp3D extends CameraBase{
     private final float[] lookAtDirection;
     private float rotationY;
 
+    private final CameraState state;
+
     /**
      * Costruttore della classe prospettica.
      *
@@ -25,7 +34,8 @@ public class CameraPersp3D extends CameraBase{
         super(posX, posY, posZ);
 
         lookAtDirection = new float[3];
-        setRotationY(rotationY);
+        state = new CameraState();
+        setRotationY(rotationY);          // pubblica anche la posizione
 
     }
 
@@ -36,7 +46,7 @@ public class CameraPersp3D extends CameraBase{
      *
      * @param newPosition Vettore ['x', 'y', 'z'] che rappresenta la nuova posizione
      */
-    public synchronized float[] setPosition(float[] newPosition){
+    public float[] setPosition(float[] newPosition){
 
         if ( (newPosition==null) || (newPosition.length != 3) ){
             throw new IllegalArgumentException("Parametro non valido");
@@ -47,11 +57,41 @@ public class CameraPersp3D extends CameraBase{
         position[2] = newPosition[2];
 
         matrixNeedsUpdate = true;
+        publish();
 
         return position;
 
     }
 
+    /**
+     * Funzione che setta la nuova posizione.
+     *
+     * Chiamare updateViewAndPvM() per aggiornare le matrici.
+     *
+     * @param x Coordinata 'x' in world space
+     * @param y Coordinata 'y' in world space
+     * @param z Coordinata 'z' in world space
+     */
+    @Override
+    public void setPosition(float x, float y, float z){
+
+        super.setPosition(x, y, z);
+
+        // chiamata anche dal costruttore di CameraBase, prima che lo stato esista
+        if (state != null) publish();
+
+    }
+
+    /**
+     * Pubblica posizione, rotazione e lookat correnti nel CameraState.
+     */
+    private void publish(){
+
+        state.write(position[0], position[1], position[2], getRotationY(),
+                    lookAtDirection[0], lookAtDirection[2]);
+
+    }
+
     /**
      * Calcolo la posizione in world space del punto distante 'alpha' dalla camera
      * lungo la direzione di lookat.
@@ -60,7 +100,7 @@ public class CameraPersp3D extends CameraBase{
      * @return Posizione [x, y, z] in world space del punto distante 'alpha' dalla camera
      *         lungo la lookat
      */
-    public synchronized float[] getPosOnLookAtDirection(float alpha){
+    public float[] getPosOnLookAtDirection(float alpha){
 
         return new float[] { position[0]+lookAtDirection[0]*alpha,
                              position[1]+lookAtDirection[1]*alpha,
@@ -68,6 +108,20 @@ public class CameraPersp3D extends CameraBase{
 
     }
 
+    /**
+     * Come getPosOnLookAtDirection(float) ma senza allocare: il risultato è scritto in 'dst'.
+     *
+     * @param alpha Distanza dalla camera (>0 davanti la camera, <0 dietro la camera)
+     * @param dst Destinazione [x, y, z]
+     */
+    public void getPosOnLookAtDirection(float alpha, float[] dst){
+
+        dst[0] = position[0]+lookAtDirection[0]*alpha;
+        dst[1] = position[1]+lookAtDirection[1]*alpha;
+        dst[2] = position[2]+lookAtDirection[2]*alpha;
+
+    }
+
     /**
      * Funzione per la rotazione della camera.
      * I calcoli fatti sono per fare in modo che impostando 0° la camera guardi la z negativa e
@@ -85,7 +139,7 @@ public class CameraPersp3D extends CameraBase{
      * @param rotationY Valore di rotazione (se positivo ruoto in senso antiorario). 0° guarda verso
      *                  z negativa.
      */
-    public synchronized void setRotationY(float rotationY){
+    public void setRotationY(float rotationY){
 
         this.rotationY = -( (rotationY % 360) + 90 );
 
@@ -94,6 +148,7 @@ public class CameraPersp3D extends CameraBase{
         lookAtDirection[2] = (float) (Math.round( Math.sin( Math.toRadians(this.rotationY) ) * 1000.0 ) / 1000.0);
 
         matrixNeedsUpdate = true;
+        publish();
 
     }
 
@@ -128,7 +183,7 @@ public class CameraPersp3D extends CameraBase{
     @Override
     public void setupProjection(float aspect, float left, float right, float bottom, float top) {
 
-        Matrix.perspectiveM(projM, 0, 45f, aspect, 0.1f, 100f);
+        MatrixMath.perspectiveM(projM, 0, 45f, aspect, 0.1f, 100f);
 
         matrixNeedsUpdate = true;
 
@@ -142,31 +197,32 @@ public class CameraPersp3D extends CameraBase{
      *
      */
     @Override
-    public synchronized void updateViewAndPvM() {
+    public void updateViewAndPvM() {
 
         // update viewM
-        Matrix.setLookAtM(viewM, 0, position[0], position[1], position[2],
+        MatrixMath.setLookAtM(viewM, 0, position[0], position[1], position[2],
                 position[0]+lookAtDirection[0],
                 position[1]+lookAtDirection[1],
                 position[2]+lookAtDirection[2],
                 0, 1, 0);
 
         // update pvM
-        Matrix.multiplyMM(pvM, 0, projM, 0, viewM, 0);
+        MatrixMath.multiplyMM(pvM, 0, projM, 0, viewM, 0);
 
         matrixNeedsUpdate = false;
+        matricesUpdated();
 
     }
 
     /****** GETTER *******/
 
-    public synchronized float getRotationY() { return -(rotationY+90); }
+    public float getRotationY() { return -(rotationY+90); }
 
-    @Override
-    public synchronized float[] getPosition() { return super.getPosition(); }
-
-    public synchronized float getRotationWithOffset(float offset){ return (getRotationY()+offset) % 360; }
+    public float getRotationWithOffset(float offset){ return (getRotationY()+offset) % 360; }
 
     public float[] getLookAtDirection() { return lookAtDirection; }
 
+    /** Stato pubblicato, leggibile da qualsiasi thread. */
+    public CameraState getState() { return state; }
+
 }
@@ -0,0 +1,216 @@
+package com.example.progetto.ogles.gl;
+
+import android.graphics.Bitmap;
+import android.opengl.GLES30;
+import android.opengl.GLUtils;
+
+import java.nio.Buffer;
+
+/**
+ * Implementazione di GLApi che inoltra le chiamate ad android.opengl.GLES30.
+ */
+public class AndroidGLApi implements GLApi {
+
+    @Override
+    public void glUseProgram(int program) { GLES30.glUseProgram(program); }
+
+    @Override
+    public void glEnable(int cap) { GLES30.glEnable(cap); }
+
+    @Override
+    public void glDisable(int cap) { GLES30.glDisable(cap); }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height) { GLES30.glViewport(x, y, width, height); }
+
+    @Override
+    public void glScissor(int x, int y, int width, int height) { GLES30.glScissor(x, y, width, height); }
+
+    @Override
+    public void glClearColor(float red, float green, float blue, float alpha) {
+        GLES30.glClearColor(red, green, blue, alpha);
+    }
+
+    @Override
+    public void glClear(int mask) { GLES30.glClear(mask); }
+
+    @Override
+    public void glDepthFunc(int func) { GLES30.glDepthFunc(func); }
+
+    @Override
+    public void glCullFace(int mode) { GLES30.glCullFace(mode); }
+
+    @Override
+    public void glFrontFace(int mode) { GLES30.glFrontFace(mode); }
+
+    @Override
+    public void glBindVertexArray(int vao) { GLES30.glBindVertexArray(vao); }
+
+    @Override
+    public void glActiveTexture(int texture) { GLES30.glActiveTexture(texture); }
+
+    @Override
+    public void glBindTexture(int target, int texture) { GLES30.glBindTexture(target, texture); }
+
+    @Override
+    public void glPixelStorei(int pname, int param) { GLES30.glPixelStorei(pname, param); }
+
+    @Override
+    public void glGenTextures(int n, int[] textures, int offset) { GLES30.glGenTextures(n, textures, offset); }
+
+    @Override
+    public void glDeleteTextures(int n, int[] textures, int offset) { GLES30.glDeleteTextures(n, textures, offset); }
+
+    @Override
+    public void glTexParameteri(int target, int pname, int param) { GLES30.glTexParameteri(target, pname, param); }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                             int format, int type, Buffer pixels) {
+        GLES30.glTexImage2D(target, level, internalformat, width, height, border, format, type, pixels);
+    }
+
+    @Override
+    public void glTexParameterf(int target, int pname, float param) { GLES30.glTexParameterf(target, pname, param); }
+
+    @Override
+    public void glGenerateMipmap(int target) { GLES30.glGenerateMipmap(target); }
+
+    @Override
+    public void texImage2D(int target, int level, Bitmap bitmap, int border) {
+        GLUtils.texImage2D(target, level, bitmap, border);
+    }
+
+    @Override
+    public int glCreateShader(int type) { return GLES30.glCreateShader(type); }
+
+    @Override
+    public void glShaderSource(int shader, String string) { GLES30.glShaderSource(shader, string); }
+
+    @Override
+    public void glCompileShader(int shader) { GLES30.glCompileShader(shader); }
+
+    @Override
+    public void glGetShaderiv(int shader, int pname, int[] params, int offset) {
+        GLES30.glGetShaderiv(shader, pname, params, offset);
+    }
+
+    @Override
+    public String glGetShaderInfoLog(int shader) { return GLES30.glGetShaderInfoLog(shader); }
+
+    @Override
+    public void glDeleteShader(int shader) { GLES30.glDeleteShader(shader); }
+
+    @Override
+    public int glCreateProgram() { return GLES30.glCreateProgram(); }
+
+    @Override
+    public void glAttachShader(int program, int shader) { GLES30.glAttachShader(program, shader); }
+
+    @Override
+    public void glDetachShader(int program, int shader) { GLES30.glDetachShader(program, shader); }
+
+    @Override
+    public void glLinkProgram(int program) { GLES30.glLinkProgram(program); }
+
+    @Override
+    public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+        GLES30.glGetProgramiv(program, pname, params, offset);
+    }
+
+    @Override
+    public String glGetProgramInfoLog(int program) { return GLES30.glGetProgramInfoLog(program); }
+
+    @Override
+    public void glDeleteProgram(int program) { GLES30.glDeleteProgram(program); }
+
+    @Override
+    public int glGetUniformLocation(int program, String name) { return GLES30.glGetUniformLocation(program, name); }
+
+    @Override
+    public int glGetUniformBlockIndex(int program, String uniformBlockName) {
+        return GLES30.glGetUniformBlockIndex(program, uniformBlockName);
+    }
+
+    @Override
+    public void glUniformBlockBinding(int program, int uniformBlockIndex, int uniformBlockBinding) {
+        GLES30.glUniformBlockBinding(program, uniformBlockIndex, uniformBlockBinding);
+    }
+
+    @Override
+    public int glGetError() { return GLES30.glGetError(); }
+
+    @Override
+    public void glGetFloatv(int pname, float[] params, int offset) { GLES30.glGetFloatv(pname, params, offset); }
+
+    @Override
+    public void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset) {
+        GLES30.glUniformMatrix4fv(location, count, transpose, value, offset);
+    }
+
+    @Override
+    public void glUniform1i(int location, int x) { GLES30.glUniform1i(location, x); }
+
+    @Override
+    public void glUniform2f(int location, float x, float y) { GLES30.glUniform2f(location, x, y); }
+
+    @Override
+    public void glUniform3f(int location, float x, float y, float z) { GLES30.glUniform3f(location, x, y, z); }
+
+    @Override
+    public void glGenVertexArrays(int n, int[] arrays, int offset) { GLES30.glGenVertexArrays(n, arrays, offset); }
+
+    @Override
+    public void glDeleteVertexArrays(int n, int[] arrays, int offset) { GLES30.glDeleteVertexArrays(n, arrays, offset); }
+
+    @Override
+    public void glGenBuffers(int n, int[] buffers, int offset) { GLES30.glGenBuffers(n, buffers, offset); }
+
+    @Override
+    public void glDeleteBuffers(int n, int[] buffers, int offset) { GLES30.glDeleteBuffers(n, buffers, offset); }
+
+    @Override
+    public void glBindBuffer(int target, int buffer) { GLES30.glBindBuffer(target, buffer); }
+
+    @Override
+    public void glBufferData(int target, int size, Buffer data, int usage) {
+        GLES30.glBufferData(target, size, data, usage);
+    }
+
+    @Override
+    public void glBufferSubData(int target, int offset, int size, Buffer data) {
+        GLES30.glBufferSubData(target, offset, size, data);
+    }
+
+    @Override
+    public void glBindBufferBase(int target, int index, int buffer) {
+        GLES30.glBindBufferBase(target, index, buffer);
+    }
+
+    @Override
+    public void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, int offset) {
+        GLES30.glVertexAttribPointer(index, size, type, normalized, stride, offset);
+    }
+
+    @Override
+    public void glEnableVertexAttribArray(int index) { GLES30.glEnableVertexAttribArray(index); }
+
+    @Override
+    public void glVertexAttribDivisor(int index, int divisor) { GLES30.glVertexAttribDivisor(index, divisor); }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, int offset) {
+        GLES30.glDrawElements(mode, count, type, offset);
+    }
+
+    @Override
+    public void glDrawElementsInstanced(int mode, int count, int type, int offset, int instanceCount) {
+        GLES30.glDrawElementsInstanced(mode, count, type, offset, instanceCount);
+    }
+
+    @Override
+    public void glDrawArraysInstanced(int mode, int first, int count, int instanceCount) {
+        GLES30.glDrawArraysInstanced(mode, first, count, instanceCount);
+    }
+
+}
@@ -0,0 +1,149 @@
+package com.example.progetto.ogles.gl;
+
+import android.graphics.Bitmap;
+
+import java.nio.Buffer;
+
+/**
+ * Sottoinsieme delle chiamate OpenGL ES 3.0 usate per creare le geometrie e per disegnare.
+ *
+ * Le classi del package 'ogles' (e gli oggetti della scena) non chiamano direttamente GLES30 ma
+ * passano da GLBridge.get(): sul dispositivo l'implementazione è AndroidGLApi, nei test JVM
+ * può essere sostituita con un'implementazione che registra le chiamate (es. per contare le
+ * drawcall).
+ *
+ * Stessi parametri delle omonime funzioni di android.opengl.GLES30 (texImage2D() come
+ * android.opengl.GLUtils.texImage2D()).
+ */
+public interface GLApi {
+
+    /* Stato */
+
+    void glUseProgram(int program);
+
+    void glEnable(int cap);
+
+    void glDisable(int cap);
+
+    void glViewport(int x, int y, int width, int height);
+
+    void glScissor(int x, int y, int width, int height);
+
+    void glClearColor(float red, float green, float blue, float alpha);
+
+    void glClear(int mask);
+
+    void glDepthFunc(int func);
+
+    void glCullFace(int mode);
+
+    void glFrontFace(int mode);
+
+    void glBindVertexArray(int vao);
+
+    void glActiveTexture(int texture);
+
+    void glBindTexture(int target, int texture);
+
+    void glPixelStorei(int pname, int param);
+
+    /* Texture */
+
+    void glGenTextures(int n, int[] textures, int offset);
+
+    void glDeleteTextures(int n, int[] textures, int offset);
+
+    void glTexParameteri(int target, int pname, int param);
+
+    void glTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                      int format, int type, Buffer pixels);
+
+    void glTexParameterf(int target, int pname, float param);
+
+    void glGenerateMipmap(int target);
+
+    void texImage2D(int target, int level, Bitmap bitmap, int border);
+
+    /* Shader e program */
+
+    int glCreateShader(int type);
+
+    void glShaderSource(int shader, String string);
+
+    void glCompileShader(int shader);
+
+    void glGetShaderiv(int shader, int pname, int[] params, int offset);
+
+    String glGetShaderInfoLog(int shader);
+
+    void glDeleteShader(int shader);
+
+    int glCreateProgram();
+
+    void glAttachShader(int program, int shader);
+
+    void glDetachShader(int program, int shader);
+
+    void glLinkProgram(int program);
+
+    void glGetProgramiv(int program, int pname, int[] params, int offset);
+
+    String glGetProgramInfoLog(int program);
+
+    void glDeleteProgram(int program);
+
+    int glGetUniformLocation(int program, String name);
+
+    int glGetUniformBlockIndex(int program, String uniformBlockName);
+
+    void glUniformBlockBinding(int program, int uniformBlockIndex, int uniformBlockBinding);
+
+    /* Query */
+
+    int glGetError();
+
+    void glGetFloatv(int pname, float[] params, int offset);
+
+    /* Uniform */
+
+    void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset);
+
+    void glUniform1i(int location, int x);
+
+    void glUniform2f(int location, float x, float y);
+
+    void glUniform3f(int location, float x, float y, float z);
+
+    /* Buffer e VAO */
+
+    void glGenVertexArrays(int n, int[] arrays, int offset);
+
+    void glDeleteVertexArrays(int n, int[] arrays, int offset);
+
+    void glGenBuffers(int n, int[] buffers, int offset);
+
+    void glDeleteBuffers(int n, int[] buffers, int offset);
+
+    void glBindBuffer(int target, int buffer);
+
+    void glBufferData(int target, int size, Buffer data, int usage);
+
+    void glBufferSubData(int target, int offset, int size, Buffer data);
+
+    void glBindBufferBase(int target, int index, int buffer);
+
+    void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, int offset);
+
+    void glEnableVertexAttribArray(int index);
+
+    void glVertexAttribDivisor(int index, int divisor);
+
+    /* Drawcall */
+
+    void glDrawElements(int mode, int count, int type, int offset);
+
+    void glDrawElementsInstanced(int mode, int count, int type, int offset, int instanceCount);
+
+    void glDrawArraysInstanced(int mode, int first, int count, int instanceCount);
+
+}
@@ -0,0 +1,35 @@
+package com.example.progetto.ogles.gl;
+
+/**
+ * Punto di accesso all'implementazione di GLApi in uso.
+ *
+ * Di default è AndroidGLApi dietro un GLStateCache (le chiamate ridondanti sono scartate); i test
+ * JVM possono installare un'implementazione diversa con set().
+ */
+public final class GLBridge {
+
+    private static volatile GLApi api = new GLStateCache(new AndroidGLApi());
+
+    private GLBridge() { }
+
+    /**
+     * @return Implementazione di GLApi in uso
+     */
+    public static GLApi get() { return api; }
+
+    /**
+     * Sostituisce l'implementazione di GLApi (es. nei test).
+     *
+     * @param newApi Nuova implementazione
+     */
+    public static void set(GLApi newApi) { api = newApi; }
+
+    /**
+     * @return GLStateCache in uso, null se l'implementazione corrente non è un GLStateCache
+     */
+    public static GLStateCache getStateCache() {
+        GLApi current = api;
+        return (current instanceof GLStateCache) ? (GLStateCache) current : null;
+    }
+
+}
@@ -0,0 +1,771 @@
+package com.example.progetto.ogles.gl;
+
+import static android.opengl.GLES20.GL_TEXTURE0;
+import static android.opengl.GLES20.GL_TEXTURE_2D;
+import static android.opengl.GLES20.GL_TRIANGLES;
+import static android.opengl.GLES30.GL_UNIFORM_BUFFER;
+
+import android.graphics.Bitmap;
+
+import java.nio.Buffer;
+import java.util.Arrays;
+
+/**
+ * GLApi che tiene traccia dello stato GL e scarta le chiamate ridondanti prima di inoltrarle
+ * all'implementazione sottostante (AndroidGLApi sul dispositivo, un backend finto nei test).
+ *
+ * Stato tracciato:
+ *      - program in uso (glUseProgram);
+ *      - VAO bindato (glBindVertexArray);
+ *      - texture unit attiva e texture GL_TEXTURE_2D bindata su ogni unit;
+ *      - uniform buffer bindato su ogni binding point (glBindBufferBase);
+ *      - viewport, scissor e clear color;
+ *      - capability abilitate (glEnable/glDisable), depth func, cull face e front face.
+ *
+ * Tutte le altre chiamate sono inoltrate sempre. Le delete aggiornano lo stato (GL fa l'unbind
+ * degli oggetti eliminati; glDeleteProgram() del program in uso lo rende sconosciuto, così la
+ * prossima glUseProgram() è inoltrata anche se GL riusa lo stesso handle). Chi chiama GL senza
+ * passare da qui non deve modificare lo stato tracciato; dopo la perdita del contesto EGL va
+ * chiamato invalidate().
+ *
+ * Contatori: chiamate inoltrate e scartate dall'ultimo beginFrame(); i valori del frame
+ * precedente restano leggibili con getLastFrameIssued() e getLastFrameSkipped(). Con setStats()
+ * drawcall, triangoli, upload di uniform e bind effettivi (program, texture, VAO) sono contati
+ * anche nel RenderStats del frame.
+ *
+ * Da usare solo nel GL thread (come il contesto GL).
+ */
+public class GLStateCache implements GLApi {
+
+    private static final int UNKNOWN = -1;
+    private static final int MAX_TEXTURE_UNITS = 32;
+    private static final int MAX_CAPS = 16;
+    private static final int MAX_UNIFORM_BINDINGS = 24;    // GL_MAX_UNIFORM_BUFFER_BINDINGS minimo
+
+    private final GLApi gl;
+
+    private int program;
+    private int vao;
+    private int activeUnit;
+    private final int[] texture2D;
+    private final int[] uniformBuffers;
+    private final int[] viewport;
+    private final int[] scissor;
+    private final float[] clearColor;
+    private int depthFunc;
+    private int cullFace;
+    private int frontFace;
+
+    private final int[] caps;           // capability tracciate (primo uso: aggiunta)
+    private final int[] capState;       // UNKNOWN, 0 o 1
+    private int numCaps;
+
+    private int issued;
+    private int skipped;
+    private int lastFrameIssued;
+    private int lastFrameSkipped;
+
+    private RenderStats stats;          // null: nessuna statistica per frame
+
+    /**
+     * Costruttore della classe. Lo stato iniziale è sconosciuto: la prima chiamata di ogni tipo
+     * è sempre inoltrata.
+     *
+     * @param gl Implementazione a cui inoltrare le chiamate
+     */
+    public GLStateCache(GLApi gl){
+
+        this.gl = gl;
+
+        texture2D = new int[MAX_TEXTURE_UNITS];
+        uniformBuffers = new int[MAX_UNIFORM_BINDINGS];
+        viewport = new int[4];
+        scissor = new int[4];
+        clearColor = new float[4];
+        caps = new int[MAX_CAPS];
+        capState = new int[MAX_CAPS];
+        numCaps = 0;
+
+        invalidate();
+
+    }
+
+    /**
+     * Dimentica lo stato tracciato (es. nuovo contesto EGL in onSurfaceCreated()).
+     */
+    public void invalidate(){
+
+        program = UNKNOWN;
+        vao = UNKNOWN;
+        activeUnit = UNKNOWN;
+        Arrays.fill(texture2D, UNKNOWN);
+        Arrays.fill(uniformBuffers, UNKNOWN);
+        Arrays.fill(viewport, UNKNOWN);
+        Arrays.fill(scissor, UNKNOWN);
+        Arrays.fill(clearColor, Float.NaN);       // NaN != qualsiasi valore
+        depthFunc = UNKNOWN;
+        cullFace = UNKNOWN;
+        frontFace = UNKNOWN;
+        Arrays.fill(capState, UNKNOWN);
+
+    }
+
+    /**
+     * Inizio di un nuovo frame: azzera i contatori (quelli del frame concluso restano leggibili).
+     */
+    public void beginFrame(){
+
+        lastFrameIssued = issued;
+        lastFrameSkipped = skipped;
+        issued = 0;
+        skipped = 0;
+
+    }
+
+    /**
+     * Conta una chiamata: ritorna true (e la conta come inoltrata) se lo stato cambia.
+     */
+    private boolean changed(boolean changed){
+
+        if (changed){
+            issued++;
+        }else{
+            skipped++;
+        }
+
+        return changed;
+
+    }
+
+    private void pass(){
+
+        issued++;
+
+    }
+
+    private void count(int counter){
+
+        if (stats != null) stats.add(counter, 1);
+
+    }
+
+    private void countUniformUpload(int target){
+
+        if (target == GL_UNIFORM_BUFFER) count(RenderStats.COUNTER_UNIFORM_UPLOADS);
+
+    }
+
+    private void countDraw(int mode, int count, int instances){
+
+        if (stats == null) return;
+
+        // solo GL_TRIANGLES è usato dal progetto
+        stats.countDraw( (mode == GL_TRIANGLES) ? (count / 3) * instances : 0 );
+
+    }
+
+    /* Stato */
+
+    @Override
+    public void glUseProgram(int program){
+
+        if (changed(this.program != program)){
+            this.program = program;
+            count(RenderStats.COUNTER_PROGRAM_BINDS);
+            gl.glUseProgram(program);
+        }
+
+    }
+
+    @Override
+    public void glEnable(int cap){
+
+        setCap(cap, 1);
+
+    }
+
+    @Override
+    public void glDisable(int cap){
+
+        setCap(cap, 0);
+
+    }
+
+    private void setCap(int cap, int state){
+
+        int i = 0;
+        while ( (i < numCaps) && (caps[i] != cap) ) i++;
+        if ( (i == numCaps) && (numCaps < MAX_CAPS) ){
+            caps[numCaps] = cap;
+            capState[numCaps] = UNKNOWN;
+            numCaps++;
+        }
+
+        if (i < numCaps){
+            if (!changed(capState[i] != state)) return;
+            capState[i] = state;
+        }else{
+            pass();     // troppe capability diverse: nessuna traccia
+        }
+
+        if (state == 1){
+            gl.glEnable(cap);
+        }else{
+            gl.glDisable(cap);
+        }
+
+    }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height){
+
+        if (changed(!equals(viewport, x, y, width, height))){
+            set(viewport, x, y, width, height);
+            gl.glViewport(x, y, width, height);
+        }
+
+    }
+
+    @Override
+    public void glScissor(int x, int y, int width, int height){
+
+        if (changed(!equals(scissor, x, y, width, height))){
+            set(scissor, x, y, width, height);
+            gl.glScissor(x, y, width, height);
+        }
+
+    }
+
+    @Override
+    public void glClearColor(float red, float green, float blue, float alpha){
+
+        boolean same = (clearColor[0] == red) && (clearColor[1] == green) &&
+                       (clearColor[2] == blue) && (clearColor[3] == alpha);
+        if (changed(!same)){
+            clearColor[0] = red;
+            clearColor[1] = green;
+            clearColor[2] = blue;
+            clearColor[3] = alpha;
+            gl.glClearColor(red, green, blue, alpha);
+        }
+
+    }
+
+    @Override
+    public void glClear(int mask){
+
+        pass();
+        gl.glClear(mask);
+
+    }
+
+    @Override
+    public void glDepthFunc(int func){
+
+        if (changed(depthFunc != func)){
+            depthFunc = func;
+            gl.glDepthFunc(func);
+        }
+
+    }
+
+    @Override
+    public void glCullFace(int mode){
+
+        if (changed(cullFace != mode)){
+            cullFace = mode;
+            gl.glCullFace(mode);
+        }
+
+    }
+
+    @Override
+    public void glFrontFace(int mode){
+
+        if (changed(frontFace != mode)){
+            frontFace = mode;
+            gl.glFrontFace(mode);
+        }
+
+    }
+
+    @Override
+    public void glBindVertexArray(int vao){
+
+        if (changed(this.vao != vao)){
+            this.vao = vao;
+            count(RenderStats.COUNTER_VAO_BINDS);
+            gl.glBindVertexArray(vao);
+        }
+
+    }
+
+    @Override
+    public void glActiveTexture(int texture){
+
+        if (changed(activeUnit != texture)){
+            activeUnit = texture;
+            gl.glActiveTexture(texture);
+        }
+
+    }
+
+    @Override
+    public void glBindTexture(int target, int texture){
+
+        int unit = activeUnit - GL_TEXTURE0;
+        if ( (target != GL_TEXTURE_2D) || (unit < 0) || (unit >= MAX_TEXTURE_UNITS) ){
+            pass();     // unit sconosciuta o target non tracciato
+            count(RenderStats.COUNTER_TEXTURE_BINDS);
+            gl.glBindTexture(target, texture);
+            return;
+        }
+
+        if (changed(texture2D[unit] != texture)){
+            texture2D[unit] = texture;
+            count(RenderStats.COUNTER_TEXTURE_BINDS);
+            gl.glBindTexture(target, texture);
+        }
+
+    }
+
+    @Override
+    public void glPixelStorei(int pname, int param){
+
+        pass();
+        gl.glPixelStorei(pname, param);
+
+    }
+
+    /* Texture */
+
+    @Override
+    public void glGenTextures(int n, int[] textures, int offset){
+
+        pass();
+        gl.glGenTextures(n, textures, offset);
+
+    }
+
+    @Override
+    public void glDeleteTextures(int n, int[] textures, int offset){
+
+        pass();
+        gl.glDeleteTextures(n, textures, offset);
+
+        for (int i=0; i<n; i++){
+            for (int u=0; u<MAX_TEXTURE_UNITS; u++){
+                if (texture2D[u] == textures[offset + i]) texture2D[u] = 0;
+            }
+        }
+
+    }
+
+    @Override
+    public void glTexParameteri(int target, int pname, int param){
+
+        pass();
+        gl.glTexParameteri(target, pname, param);
+
+    }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                             int format, int type, Buffer pixels){
+
+        pass();
+        gl.glTexImage2D(target, level, internalformat, width, height, border, format, type, pixels);
+
+    }
+
+    @Override
+    public void glTexParameterf(int target, int pname, float param){
+
+        pass();
+        gl.glTexParameterf(target, pname, param);
+
+    }
+
+    @Override
+    public void glGenerateMipmap(int target){
+
+        pass();
+        gl.glGenerateMipmap(target);
+
+    }
+
+    @Override
+    public void texImage2D(int target, int level, Bitmap bitmap, int border){
+
+        pass();
+        gl.texImage2D(target, level, bitmap, border);
+
+    }
+
+    /* Shader e program (non tracciati, salvo il program in uso eliminato) */
+
+    @Override
+    public int glCreateShader(int type){
+
+        pass();
+        return gl.glCreateShader(type);
+
+    }
+
+    @Override
+    public void glShaderSource(int shader, String string){
+
+        pass();
+        gl.glShaderSource(shader, string);
+
+    }
+
+    @Override
+    public void glCompileShader(int shader){
+
+        pass();
+        gl.glCompileShader(shader);
+
+    }
+
+    @Override
+    public void glGetShaderiv(int shader, int pname, int[] params, int offset){
+
+        pass();
+        gl.glGetShaderiv(shader, pname, params, offset);
+
+    }
+
+    @Override
+    public String glGetShaderInfoLog(int shader){
+
+        pass();
+        return gl.glGetShaderInfoLog(shader);
+
+    }
+
+    @Override
+    public void glDeleteShader(int shader){
+
+        pass();
+        gl.glDeleteShader(shader);
+
+    }
+
+    @Override
+    public int glCreateProgram(){
+
+        pass();
+        return gl.glCreateProgram();
+
+    }
+
+    @Override
+    public void glAttachShader(int program, int shader){
+
+        pass();
+        gl.glAttachShader(program, shader);
+
+    }
+
+    @Override
+    public void glDetachShader(int program, int shader){
+
+        pass();
+        gl.glDetachShader(program, shader);
+
+    }
+
+    @Override
+    public void glLinkProgram(int program){
+
+        pass();
+        gl.glLinkProgram(program);
+
+    }
+
+    @Override
+    public void glGetProgramiv(int program, int pname, int[] params, int offset){
+
+        pass();
+        gl.glGetProgramiv(program, pname, params, offset);
+
+    }
+
+    @Override
+    public String glGetProgramInfoLog(int program){
+
+        pass();
+        return gl.glGetProgramInfoLog(program);
+
+    }
+
+    @Override
+    public void glDeleteProgram(int program){
+
+        pass();
+        gl.glDeleteProgram(program);
+
+        if (this.program == program) this.program = UNKNOWN;
+
+    }
+
+    @Override
+    public int glGetUniformLocation(int program, String name){
+
+        pass();
+        return gl.glGetUniformLocation(program, name);
+
+    }
+
+    @Override
+    public int glGetUniformBlockIndex(int program, String uniformBlockName){
+
+        pass();
+        return gl.glGetUniformBlockIndex(program, uniformBlockName);
+
+    }
+
+    @Override
+    public void glUniformBlockBinding(int program, int uniformBlockIndex, int uniformBlockBinding){
+
+        pass();
+        gl.glUniformBlockBinding(program, uniformBlockIndex, uniformBlockBinding);
+
+    }
+
+    /* Query */
+
+    @Override
+    public int glGetError(){
+
+        pass();
+        return gl.glGetError();
+
+    }
+
+    @Override
+    public void glGetFloatv(int pname, float[] params, int offset){
+
+        pass();
+        gl.glGetFloatv(pname, params, offset);
+
+    }
+
+    /* Uniform (valori propri del program: non tracciati) */
+
+    @Override
+    public void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset){
+
+        pass();
+        count(RenderStats.COUNTER_UNIFORM_UPLOADS);
+        gl.glUniformMatrix4fv(location, count, transpose, value, offset);
+
+    }
+
+    @Override
+    public void glUniform1i(int location, int x){
+
+        pass();
+        count(RenderStats.COUNTER_UNIFORM_UPLOADS);
+        gl.glUniform1i(location, x);
+
+    }
+
+    @Override
+    public void glUniform2f(int location, float x, float y){
+
+        pass();
+        count(RenderStats.COUNTER_UNIFORM_UPLOADS);
+        gl.glUniform2f(location, x, y);
+
+    }
+
+    @Override
+    public void glUniform3f(int location, float x, float y, float z){
+
+        pass();
+        count(RenderStats.COUNTER_UNIFORM_UPLOADS);
+        gl.glUniform3f(location, x, y, z);
+
+    }
+
+    /* Buffer e VAO */
+
+    @Override
+    public void glGenVertexArrays(int n, int[] arrays, int offset){
+
+        pass();
+        gl.glGenVertexArrays(n, arrays, offset);
+
+    }
+
+    @Override
+    public void glDeleteVertexArrays(int n, int[] arrays, int offset){
+
+        pass();
+        gl.glDeleteVertexArrays(n, arrays, offset);
+
+        for (int i=0; i<n; i++){
+            if (vao == arrays[offset + i]) vao = 0;
+        }
+
+    }
+
+    @Override
+    public void glGenBuffers(int n, int[] buffers, int offset){
+
+        pass();
+        gl.glGenBuffers(n, buffers, offset);
+
+    }
+
+    @Override
+    public void glDeleteBuffers(int n, int[] buffers, int offset){
+
+        pass();
+        gl.glDeleteBuffers(n, buffers, offset);
+
+        for (int i=0; i<n; i++){
+            for (int b=0; b<MAX_UNIFORM_BINDINGS; b++){
+                if (uniformBuffers[b] == buffers[offset + i]) uniformBuffers[b] = 0;
+            }
+        }
+
+    }
+
+    @Override
+    public void glBindBuffer(int target, int buffer){
+
+        // il binding di GL_ELEMENT_ARRAY_BUFFER fa parte dello stato del VAO: non tracciato
+        pass();
+        gl.glBindBuffer(target, buffer);
+
+    }
+
+    @Override
+    public void glBufferData(int target, int size, Buffer data, int usage){
+
+        pass();
+        countUniformUpload(target);
+        gl.glBufferData(target, size, data, usage);
+
+    }
+
+    @Override
+    public void glBufferSubData(int target, int offset, int size, Buffer data){
+
+        pass();
+        countUniformUpload(target);
+        gl.glBufferSubData(target, offset, size, data);
+
+    }
+
+    @Override
+    public void glBindBufferBase(int target, int index, int buffer){
+
+        if ( (target != GL_UNIFORM_BUFFER) || (index < 0) || (index >= MAX_UNIFORM_BINDINGS) ){
+            pass();
+            gl.glBindBufferBase(target, index, buffer);
+            return;
+        }
+
+        if (changed(uniformBuffers[index] != buffer)){
+            uniformBuffers[index] = buffer;
+            gl.glBindBufferBase(target, index, buffer);
+        }
+
+    }
+
+    @Override
+    public void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, int offset){
+
+        pass();
+        gl.glVertexAttribPointer(index, size, type, normalized, stride, offset);
+
+    }
+
+    @Override
+    public void glEnableVertexAttribArray(int index){
+
+        pass();
+        gl.glEnableVertexAttribArray(index);
+
+    }
+
+    @Override
+    public void glVertexAttribDivisor(int index, int divisor){
+
+        pass();
+        gl.glVertexAttribDivisor(index, divisor);
+
+    }
+
+    /* Drawcall */
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, int offset){
+
+        pass();
+        countDraw(mode, count, 1);
+        gl.glDrawElements(mode, count, type, offset);
+
+    }
+
+    @Override
+    public void glDrawElementsInstanced(int mode, int count, int type, int offset, int instanceCount){
+
+        pass();
+        countDraw(mode, count, instanceCount);
+        gl.glDrawElementsInstanced(mode, count, type, offset, instanceCount);
+
+    }
+
+    @Override
+    public void glDrawArraysInstanced(int mode, int first, int count, int instanceCount){
+
+        pass();
+        countDraw(mode, count, instanceCount);
+        gl.glDrawArraysInstanced(mode, first, count, instanceCount);
+
+    }
+
+    private static boolean equals(int[] v, int x, int y, int width, int height){
+
+        return (v[0] == x) && (v[1] == y) && (v[2] == width) && (v[3] == height);
+
+    }
+
+    private static void set(int[] v, int x, int y, int width, int height){
+
+        v[0] = x;
+        v[1] = y;
+        v[2] = width;
+        v[3] = height;
+
+    }
+
+    /******* GETTER *******/
+
+    /** Chiamate inoltrate dall'ultimo beginFrame(). */
+    public int getIssued() { return issued; }
+
+    /** Chiamate scartate (ridondanti) dall'ultimo beginFrame(). */
+    public int getSkipped() { return skipped; }
+
+    public int getLastFrameIssued() { return lastFrameIssued; }
+
+    public int getLastFrameSkipped() { return lastFrameSkipped; }
+
+    public GLApi getDelegate() { return gl; }
+
+    public RenderStats getStats() { return stats; }
+
+    /******* SETTER *******/
+
+    /**
+     * @param stats Statistiche del frame da alimentare, null per nessuna
+     */
+    public void setStats(RenderStats stats) { this.stats = stats; }
+
+}
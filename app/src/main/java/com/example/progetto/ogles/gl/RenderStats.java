@@ -0,0 +1,293 @@
+package com.example.progetto.ogles.gl;
+
+import com.example.progetto.ogles.utils.Tracer;
+
+import java.util.Arrays;
+
+/**
+ * Statistiche di rendering per frame.
+ *
+ * Per ogni frame sono registrati:
+ *      - tempo CPU del frame e di ogni fase (PHASE_*), misurato con beginPhase()/endPhase();
+ *      - contatori (COUNTER_*): drawcall, triangoli inviati, upload di uniform, bind di program,
+ *        texture e VAO (forniti dal GLStateCache), chiamate GL inoltrate e scartate.
+ *
+ * Gli ultimi HISTORY frame sono tenuti in un ring buffer preallocato. Il tempo dei frame finisce
+ * anche in un istogramma (bucket da BUCKET_NS) da cui sono calcolati i percentili, e i frame oltre
+ * FRAME_BUDGET_NS (uno o più vsync persi) sono contati come jank.
+ *
+ * Ogni fase è anche uno span del Tracer (se attivo), con il nome in PHASE_NAMES.
+ *
+ * La registrazione avviene solo nel GL thread e non alloca. Le letture (getter, summary()) sono
+ * sincronizzate con endFrame(), quindi possono avvenire da un altro thread (es. overlay nel UI
+ * thread) e vedono sempre frame completi.
+ */
+public class RenderStats {
+
+    // fasi del frame
+    public static final int PHASE_CAMERA = 0;           // stato della camera e matrici
+    public static final int PHASE_WALLS = 1;            // muri del labirinto 3D
+    public static final int PHASE_ROOF_FLOOR = 2;       // tetto e pavimento
+    public static final int PHASE_MAP2D = 3;            // mappa 2D e indicatori
+    public static final int PHASES = 4;
+    public static final String[] PHASE_NAMES = { "camera", "walls", "roofFloor", "map2D" };
+
+    // contatori per frame
+    public static final int COUNTER_DRAW_CALLS = 0;
+    public static final int COUNTER_TRIANGLES = 1;
+    public static final int COUNTER_UNIFORM_UPLOADS = 2;
+    public static final int COUNTER_PROGRAM_BINDS = 3;
+    public static final int COUNTER_TEXTURE_BINDS = 4;
+    public static final int COUNTER_VAO_BINDS = 5;
+    public static final int COUNTER_GL_CALLS = 6;
+    public static final int COUNTER_GL_SKIPPED = 7;
+    public static final int COUNTERS = 8;
+
+    public static final int HISTORY = 120;                          // frame nel ring buffer
+    public static final long FRAME_BUDGET_NS = 16666667L;           // 60 Hz
+    public static final long BUCKET_NS = 250000L;                   // 0.25 ms
+    public static final int BUCKETS = 200;                          // fino a 50 ms, poi overflow
+
+    // frame corrente (solo GL thread)
+    private long frameStartNs;
+    private final long[] phaseStartNs;
+    private final long[] phaseNs;
+    private final int[] counters;
+
+    // frame conclusi
+    private final long[] historyFrameNs;
+    private final long[] historyPhaseNs;                // HISTORY * PHASES
+    private final int[] historyCounters;                // HISTORY * COUNTERS
+    private long frames;
+    private final int[] histogram;                      // BUCKETS + overflow
+    private long jankFrames;                            // > FRAME_BUDGET_NS
+    private long severeJankFrames;                      // > 2 * FRAME_BUDGET_NS
+    private long maxFrameNs;
+
+    /**
+     * Costruttore della classe: tutte le strutture sono allocate qui.
+     */
+    public RenderStats(){
+
+        phaseStartNs = new long[PHASES];
+        phaseNs = new long[PHASES];
+        counters = new int[COUNTERS];
+
+        historyFrameNs = new long[HISTORY];
+        historyPhaseNs = new long[HISTORY * PHASES];
+        historyCounters = new int[HISTORY * COUNTERS];
+        histogram = new int[BUCKETS + 1];
+
+        reset();
+
+    }
+
+    /**
+     * Azzera storico, istogramma e contatori di jank.
+     */
+    public synchronized void reset(){
+
+        frames = 0;
+        jankFrames = 0;
+        severeJankFrames = 0;
+        maxFrameNs = 0;
+        Arrays.fill(histogram, 0);
+
+    }
+
+    /* Registrazione (GL thread) */
+
+    /**
+     * Inizio di un frame: azzera fasi e contatori del frame corrente.
+     *
+     * @param nowNs System.nanoTime()
+     */
+    public void beginFrame(long nowNs){
+
+        frameStartNs = nowNs;
+        Arrays.fill(phaseNs, 0);
+        Arrays.fill(counters, 0);
+
+    }
+
+    public void beginPhase(int phase){
+
+        Tracer.begin(PHASE_NAMES[phase]);
+        phaseStartNs[phase] = System.nanoTime();
+
+    }
+
+    /**
+     * Fine di una fase: il tempo si somma a quello della stessa fase nel frame.
+     */
+    public void endPhase(int phase){
+
+        phaseNs[phase] += System.nanoTime() - phaseStartNs[phase];
+        Tracer.end();
+
+    }
+
+    public void add(int counter, int n){
+
+        counters[counter] += n;
+
+    }
+
+    public void set(int counter, int value){
+
+        counters[counter] = value;
+
+    }
+
+    /**
+     * Conta una drawcall.
+     *
+     * @param triangles Triangoli inviati (tutte le istanze)
+     */
+    public void countDraw(int triangles){
+
+        counters[COUNTER_DRAW_CALLS]++;
+        counters[COUNTER_TRIANGLES] += triangles;
+
+    }
+
+    /**
+     * Fine del frame: il frame entra nel ring buffer e nell'istogramma.
+     *
+     * @param nowNs System.nanoTime()
+     */
+    public synchronized void endFrame(long nowNs){
+
+        long frameNs = nowNs - frameStartNs;
+        int slot = (int) (frames % HISTORY);
+
+        historyFrameNs[slot] = frameNs;
+        System.arraycopy(phaseNs, 0, historyPhaseNs, slot * PHASES, PHASES);
+        System.arraycopy(counters, 0, historyCounters, slot * COUNTERS, COUNTERS);
+        frames++;
+
+        histogram[(int) Math.min(frameNs / BUCKET_NS, BUCKETS)]++;
+        if (frameNs > FRAME_BUDGET_NS) jankFrames++;
+        if (frameNs > 2 * FRAME_BUDGET_NS) severeJankFrames++;
+        if (frameNs > maxFrameNs) maxFrameNs = frameNs;
+
+    }
+
+    /* Lettura (qualsiasi thread) */
+
+    /**
+     * Percentile del tempo di frame dall'istogramma (estremo superiore del bucket).
+     *
+     * @param p Percentile in (0, 100]
+     * @return Tempo in ns, 0 se non ci sono frame; per il bucket di overflow il massimo registrato
+     */
+    public synchronized long getPercentileNs(float p){
+
+        long total = Math.min(frames, Integer.MAX_VALUE);
+        if (total == 0) return 0;
+
+        long rank = (long) Math.ceil(total * p / 100.0);
+        long seen = 0;
+        for (int i=0; i<BUCKETS; i++){
+            seen += histogram[i];
+            if (seen >= rank) return (i + 1) * BUCKET_NS;
+        }
+
+        return maxFrameNs;
+
+    }
+
+    /**
+     * @param ago 0 per l'ultimo frame concluso, 1 per il precedente, ... (< getHistorySize())
+     * @return Tempo CPU del frame in ns
+     */
+    public synchronized long getFrameNs(int ago) { return historyFrameNs[slot(ago)]; }
+
+    public synchronized long getPhaseNs(int ago, int phase) { return historyPhaseNs[slot(ago) * PHASES + phase]; }
+
+    public synchronized int getCounter(int ago, int counter) { return historyCounters[slot(ago) * COUNTERS + counter]; }
+
+    /**
+     * @return Media del tempo della fase sui frame nel ring buffer, 0 se non ci sono frame
+     */
+    public synchronized long getAveragePhaseNs(int phase){
+
+        int n = getHistorySize();
+        if (n == 0) return 0;
+
+        long sum = 0;
+        for (int ago=0; ago<n; ago++){
+            sum += historyPhaseNs[slot(ago) * PHASES + phase];
+        }
+
+        return sum / n;
+
+    }
+
+    private int slot(int ago){
+
+        if ( (ago < 0) || (ago >= getHistorySize()) ){
+            throw new IndexOutOfBoundsException("Frame non disponibile: " + ago);
+        }
+
+        return (int) ((frames - 1 - ago) % HISTORY);
+
+    }
+
+    /**
+     * Riepilogo testuale (es. overlay): percentili, jank, fasi medie e contatori dell'ultimo frame.
+     *
+     * @param sb Destinazione (svuotata)
+     * @return 'sb'
+     */
+    public synchronized StringBuilder summary(StringBuilder sb){
+
+        sb.setLength(0);
+        if (frames == 0) return sb.append("nessun frame");
+
+        sb.append("frame p50 ").append(ms(getPercentileNs(50)))
+          .append(" p95 ").append(ms(getPercentileNs(95)))
+          .append(" p99 ").append(ms(getPercentileNs(99)))
+          .append(" ms  jank ").append(jankFrames).append('/').append(severeJankFrames)
+          .append(" su ").append(frames).append('\n');
+
+        sb.append("camera ").append(ms(getAveragePhaseNs(PHASE_CAMERA)))
+          .append(" muri ").append(ms(getAveragePhaseNs(PHASE_WALLS)))
+          .append(" tetto ").append(ms(getAveragePhaseNs(PHASE_ROOF_FLOOR)))
+          .append(" mappa ").append(ms(getAveragePhaseNs(PHASE_MAP2D))).append(" ms\n");
+
+        sb.append("draw ").append(getCounter(0, COUNTER_DRAW_CALLS))
+          .append(" tri ").append(getCounter(0, COUNTER_TRIANGLES))
+          .append(" uniform ").append(getCounter(0, COUNTER_UNIFORM_UPLOADS))
+          .append(" bind p/t/v ").append(getCounter(0, COUNTER_PROGRAM_BINDS))
+          .append('/').append(getCounter(0, COUNTER_TEXTURE_BINDS))
+          .append('/').append(getCounter(0, COUNTER_VAO_BINDS))
+          .append(" GL ").append(getCounter(0, COUNTER_GL_CALLS))
+          .append(" (-").append(getCounter(0, COUNTER_GL_SKIPPED)).append(')');
+
+        return sb;
+
+    }
+
+    /** ns in ms con 2 decimali, senza String.format(). */
+    private static float ms(long ns){
+
+        return Math.round(ns / 10000.0) / 100f;
+
+    }
+
+    /******* GETTER *******/
+
+    /** Frame conclusi dall'ultimo reset(). */
+    public synchronized long getFrames() { return frames; }
+
+    /** Frame disponibili nel ring buffer. */
+    public synchronized int getHistorySize() { return (int) Math.min(frames, HISTORY); }
+
+    public synchronized long getJankFrames() { return jankFrames; }
+
+    public synchronized long getSevereJankFrames() { return severeJankFrames; }
+
+    public synchronized long getMaxFrameNs() { return maxFrameNs; }
+
+}
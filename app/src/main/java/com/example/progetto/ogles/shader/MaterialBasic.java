@@ -2,17 +2,12 @@ package com.example.progetto.ogles.shader;
 
 import static android.opengl.GLES20.GL_TEXTURE0;
 import static android.opengl.GLES20.GL_TEXTURE_2D;
-import static android.opengl.GLES20.glActiveTexture;
-import static android.opengl.GLES20.glBindTexture;
-import static android.opengl.GLES20.glUniform1i;
-import static android.opengl.GLES20.glUniform2f;
-import static android.opengl.GLES20.glUniform3f;
-import static android.opengl.GLES20.glUniformMatrix4fv;
-import static android.opengl.GLES20.glUseProgram;
 
 import android.util.Log;
 
 import com.example.progetto.ogles.Texture;
+import com.example.progetto.ogles.gl.GLApi;
+import com.example.progetto.ogles.gl.GLBridge;
 
 /**
  * Classe che permette di assegnare un colore uniforme oppure una Texture (con relativo scaling
@@ -25,6 +20,22 @@ import com.example.progetto.ogles.Texture;
  * Se invece al costruttore viene passato un ShaderProgram esistente, allora il MaterialBasic
  * creato punterà al ShaderProgram specificato (necessario quando si usano tanti MaterialBasic in
  * quanto condividono gli stessi VSHADER e FSHADER quindi non serve usare un nuovo program).
+ *
+ * Uniform:
+ *      - la matrice VP (e la posizione) della camera sono nel blocco UniformBlock.CAMERA, della
+ *        camera (CameraBase.bindUniforms()): trasferite al più una volta per frame;
+ *      - color, texScaling e textured sono nel blocco UniformBlock.MATERIAL di ogni materiale:
+ *        trasferiti solo quando cambiano, per disegnare basta il bind (updateUniforms());
+ *      - per oggetto resta solo la model matrix 'M' (updateModel()).
+ * Le locazioni sono lette con gli handle di ShaderProgram risolti nel costruttore.
+ *
+ * Per le geometrie istanziate (vedi Geometry3D) va usato un program creato da VSHADER_INSTANCED
+ * e FSHADER (uniform UNIFORMS_INSTANCED): la posizione di ogni istanza è un attributo, non c'è
+ * nessuna matrice per oggetto.
+ *
+ * VSHADER_MAZE (uniform UNIFORMS_MAZE, stesso FSHADER) genera i muri del labirinto senza vertici:
+ * la griglia è letta dalla texture R8 'maze' (unità MAZE_TEXTURE_UNIT) e ogni istanza espande
+ * le 4 facce di una cella (vedi GpuMazeWalls, che ne contiene anche il riferimento Java).
  */
 public class MaterialBasic {
 
@@ -37,36 +48,96 @@ public class MaterialBasic {
     private float[] color;
     private int textured;
 
+    private final UniformBlock block;
+    private final int hModel;
+    private final int hTex;
+    private final int hMaze;
+
     public static final String VSHADER = "#version 300 es\n" +
             "\n" +
             "layout(location = 1) in vec3 vPos;\n" +
             "layout(location = 2) in vec2 vUV;\n" +
-            "uniform mat4 MVP;\n"+
-            "uniform vec2 texScaling;\n"+
+            UniformBlock.CAMERA_GLSL +
+            UniformBlock.MATERIAL_GLSL +
+            "uniform mat4 M;\n"+
             "out vec2 varyingvUV;\n"+
             "\n" +
             "void main(){\n" +
                 "varyingvUV = vUV * texScaling;\n"+
-                "gl_Position = MVP * vec4(vPos,1);\n" +
+                "gl_Position = VP * M * vec4(vPos,1);\n" +
             "}";
 
     public static final String FSHADER = "#version 300 es\n" +
             "\n"+
             "precision mediump float;\n" +       // +- 2^14  fract. accuracy = 2^-10
+            UniformBlock.MATERIAL_GLSL +
             "uniform sampler2D tex;\n"+
-            "uniform int textured;\n"+
-            "uniform vec3 color;\n"+
             "in vec2 varyingvUV;\n" +
             "out vec4 fragColor;\n" +
             "void main() {\n" +
                 "if (textured == 1){"+
                     "fragColor = texture(tex, varyingvUV);\n"+
                 "}else{"+
-                    "fragColor.rgb = color;\n"+
+                    "fragColor.rgb = color.rgb;\n"+
                 "}"+
             "}";
 
-    public static final String[] UNIFORMS = new String[]{"MVP", "texScaling", "tex", "color", "textured"};
+    public static final String[] UNIFORMS = new String[]{"M", "tex"};
+
+    public static final String VSHADER_INSTANCED = "#version 300 es\n" +
+            "\n" +
+            "layout(location = 1) in vec3 vPos;\n" +
+            "layout(location = 2) in vec2 vUV;\n" +
+            "layout(location = 3) in vec4 iPosScale;\n" +   // per istanza: traslazione + scala
+            UniformBlock.CAMERA_GLSL +
+            UniformBlock.MATERIAL_GLSL +
+            "out vec2 varyingvUV;\n"+
+            "\n" +
+            "void main(){\n" +
+                "varyingvUV = vUV * texScaling;\n"+
+                "gl_Position = VP * vec4(vPos * iPosScale.w + iPosScale.xyz, 1);\n" +
+            "}";
+
+    public static final String[] UNIFORMS_INSTANCED = new String[]{"tex"};
+
+    public static final int MAZE_TEXTURE_UNIT = 1;
+
+    // istanza = cella (gl_InstanceID = riga * colonne + colonna), 6 vertici per faccia:
+    // la faccia esiste solo se la cella è un muro e il vicino oltre la faccia è camminabile
+    public static final String VSHADER_MAZE = "#version 300 es\n" +
+            "\n" +
+            UniformBlock.CAMERA_GLSL +
+            UniformBlock.MATERIAL_GLSL +
+            "uniform sampler2D maze;\n"+              // R8: 1 = muro, 0 = camminabile
+            "out vec2 varyingvUV;\n"+
+            "\n" +
+            // per faccia (+z, -z, +x, -x): vicino (colonna, riga) e lato da 'a' a 'b' (a.xz, b.xz)
+            "const ivec2 NEIGHBOUR[4] = ivec2[4](ivec2(0, 1), ivec2(0, -1), ivec2(1, 0), ivec2(-1, 0));\n" +
+            "const vec4 SIDE[4] = vec4[4](vec4(0, 1, 1, 1), vec4(1, 0, 0, 0), vec4(1, 1, 1, 0), vec4(0, 0, 0, 1));\n" +
+            // (u, y) dei 6 vertici: triangoli (a0, b0, b1) e (a0, b1, a1)
+            "const vec2 CORNER[6] = vec2[6](vec2(0, 0), vec2(1, 0), vec2(1, 1), vec2(0, 0), vec2(1, 1), vec2(0, 1));\n" +
+            "\n" +
+            "bool isWall(ivec2 cell, ivec2 size){\n" +
+                "if (any(lessThan(cell, ivec2(0))) || any(greaterThanEqual(cell, size))) return true;\n" +
+                "return texelFetch(maze, cell, 0).r > 0.5;\n" +
+            "}\n" +
+            "\n" +
+            "void main(){\n" +
+                "ivec2 size = textureSize(maze, 0);\n" +
+                "ivec2 cell = ivec2(gl_InstanceID % size.x, gl_InstanceID / size.x);\n" +
+                "int face = gl_VertexID / 6;\n" +
+                "vec2 corner = CORNER[gl_VertexID % 6];\n" +
+                "if (!isWall(cell, size) || isWall(cell + NEIGHBOUR[face], size)){\n" +
+                    "varyingvUV = vec2(0);\n" +
+                    "gl_Position = vec4(0, 0, 2, 1);\n" +   // faccia degenere, fuori dal clip volume
+                    "return;\n" +
+                "}\n" +
+                "vec2 xz = vec2(cell) + mix(SIDE[face].xy, SIDE[face].zw, corner.x) - vec2(size) * 0.5;\n" +
+                "varyingvUV = corner * texScaling;\n"+
+                "gl_Position = VP * vec4(xz.x, corner.y - 0.5, xz.y, 1);\n" +
+            "}";
+
+    public static final String[] UNIFORMS_MAZE = new String[]{"tex", "maze"};
 
     /**
      * Costruttore della classe.
@@ -100,6 +171,7 @@ public class MaterialBasic {
 
         this.color = color;
         this.textured = 0;
+        writeBlock();
 
     }
 
@@ -139,10 +211,28 @@ public class MaterialBasic {
         this.color = new float[] {0, 0, 0};
         this.textured = 1;
 
+        block = UniformBlock.material();
+        hModel = program.handleOf("M");
+        hTex = program.handleOf("tex");
+        hMaze = program.handleOf("maze");
+        writeBlock();
+
+    }
+
+    /**
+     * Copio color, texScaling e textured nel blocco Material (trasferito alla prossima bind).
+     */
+    private void writeBlock(){
+
+        block.putVec4(UniformBlock.MATERIAL_COLOR, color[0], color[1], color[2], 1f);
+        block.putVec2(UniformBlock.MATERIAL_TEX_SCALING, textureScaling[0], textureScaling[1]);
+        block.putInt(UniformBlock.MATERIAL_TEXTURED, textured);
+
     }
 
     /**
-     * Il sampler "tex" si riferisce alla active texture GL_TEXTURE0.
+     * Il sampler "tex" si riferisce alla active texture GL_TEXTURE0, il sampler "maze" (solo
+     * program VSHADER_MAZE) a GL_TEXTURE0 + MAZE_TEXTURE_UNIT.
      *
      * LINK: https://learnopengl.com/Getting-started/Textures
      *       https://stackoverflow.com/questions/54931941/correspondance-between-texture-units-and-sampler-uniforms-in-opengl
@@ -151,31 +241,50 @@ public class MaterialBasic {
 
         Log.d(TAG, "setTextureSamplerUniform called");
 
-        glUseProgram(program.getProgramId());
-            glUniform1i(program.getUniformLoc("tex"), 0);
-        glUseProgram(0);
+        GLApi gl = GLBridge.get();
+        gl.glUseProgram(program.getProgramId());
+            gl.glUniform1i(program.getUniformLoc(hTex), 0);
+            gl.glUniform1i(program.getUniformLoc(hMaze), MAZE_TEXTURE_UNIT);
+        gl.glUseProgram(0);
 
     }
 
     /**
-     * Aggiorno la uniform MVP.
+     * Aggiorno la uniform M (model matrix dell'oggetto).
      *
-     * @param MVP Matrice MVP
+     * @param M Model matrix
      */
-    public void updateMVP(float[] MVP){
+    public void updateModel(float[] M){
 
-        glUniformMatrix4fv(program.getUniformLoc("MVP"), 1, false, MVP, 0);
+        GLBridge.get().glUniformMatrix4fv(program.getUniformLoc(hModel), 1, false, M, 0);
 
     }
 
     /**
-     * Aggiorno i valori delle uniform.
+     * Bind del blocco Material (i dati sono trasferiti solo se cambiati).
      */
     public void updateUniforms(){
 
-        glUniform2f(program.getUniformLoc("texScaling"), textureScaling[0], textureScaling[1]);
-        glUniform1i(program.getUniformLoc("textured"), textured);
-        glUniform3f(program.getUniformLoc("color"), color[0], color[1], color[2]);
+        block.bind();
+
+    }
+
+    /**
+     * Funzione che crea il buffer del blocco Material. Da chiamare nel GL thread (anche dopo la
+     * perdita del contesto EGL); altrimenti è creato alla prima updateUniforms().
+     */
+    public void upload(){
+
+        block.upload();
+
+    }
+
+    /**
+     * Funzione che elimina il buffer del blocco Material. Da chiamare nel GL thread.
+     */
+    public void release(){
+
+        block.release();
 
     }
 
@@ -186,8 +295,9 @@ public class MaterialBasic {
      */
     public void activateTexture(){
 
-        glActiveTexture(GL_TEXTURE0);
-        glBindTexture(GL_TEXTURE_2D, texture.getTextureObjId()[0]);
+        GLApi gl = GLBridge.get();
+        gl.glActiveTexture(GL_TEXTURE0);
+        gl.glBindTexture(GL_TEXTURE_2D, texture.getTextureObjId()[0]);
 
     }
 
@@ -195,6 +305,7 @@ public class MaterialBasic {
 
         textureScaling[0] = scaleX;
         textureScaling[1] = scaleY;
+        writeBlock();
 
     }
 
@@ -206,4 +317,10 @@ public class MaterialBasic {
 
     public int getTextureID() { return texture.getTextureObjId()[0]; }
 
+    public Texture getTexture() { return texture; }
+
+    public UniformBlock getUniformBlock() { return block; }
+
+    public boolean isUploaded() { return block.isUploaded(); }
+
 }
@@ -1,10 +1,13 @@
 package com.example.progetto.ogles.shader;
 
-import static android.opengl.GLES20.glGetUniformLocation;
+import static android.opengl.GLES30.GL_INVALID_INDEX;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
+import com.example.progetto.ogles.gl.GLApi;
+import com.example.progetto.ogles.gl.GLBridge;
 import com.example.progetto.ogles.utils.ShaderCompiler;
 
 /**
@@ -26,11 +29,24 @@ import com.example.progetto.ogles.utils.ShaderCompiler;
  * Utile perchè permette di avere tanti MaterialBasic (ognuno con i propri valori di uniform e texture
  * diverse) che puntano tutti allo stesso ShaderProgram ed inoltre mantiene le locazioni delle
  * uniform così le calcolo solo una volta.
+ *
+ * Handle delle uniform: handleOf() ritorna l'indice della uniform nella lista passata al
+ * costruttore (calcolabile senza GL, es. nel costruttore di MaterialBasic) e getUniformLoc(int)
+ * legge la locazione da un vettore: nel ciclo di disegno non ci sono lookup per nome.
+ *
+ * Uniform block: dopo il link i blocchi UniformBlock.CAMERA e UniformBlock.MATERIAL (se presenti
+ * nel program) sono associati ai rispettivi binding point.
  */
 public class ShaderProgram {
 
     private int programId;   // (handle)
     private final Map<String, Integer> uniformLocMap;
+    private final int[] uniformLocs;     // per handle (indice in 'uniforms')
+
+    private final String vs;
+    private final String fs;
+    private final String[] uniforms;
+    private volatile boolean uploaded;
 
     /**
      * Costruttore della classe.
@@ -44,11 +60,48 @@ public class ShaderProgram {
      */
     public ShaderProgram(String vs, String fs, String[] uniforms){
 
+        this(vs, fs, uniforms, true);
+
+    }
+
+    /**
+     * Costruttore della classe con compilazione opzionale.
+     *
+     * Con 'upload' = false sono solo salvati i sorgenti: il program è compilato in seguito con
+     * upload() sul GL thread.
+     *
+     * @param vs Vertex Shader
+     * @param fs Fragment Shader
+     * @param uniforms Lista di uniform di cui calcolare la locazione
+     * @param upload True per compilare subito il program (richiede il GL thread)
+     */
+    public ShaderProgram(String vs, String fs, String[] uniforms, boolean upload){
+
         programId = -1;
         uniformLocMap = new HashMap<>();
+        uniformLocs = new int[uniforms.length];
+        Arrays.fill(uniformLocs, -1);
+
+        this.vs = vs;
+        this.fs = fs;
+        this.uniforms = uniforms;
+        uploaded = false;
+
+        if (upload) upload();
+
+    }
+
+    /**
+     * Funzione che compila il program e calcola le locazioni delle uniform. Da chiamare nel
+     * GL thread.
+     */
+    public void upload(){
 
         glPrepare(vs, fs);
         findUniformLocations(uniforms);
+        bindUniformBlock(UniformBlock.CAMERA, UniformBlock.CAMERA_BINDING);
+        bindUniformBlock(UniformBlock.MATERIAL, UniformBlock.MATERIAL_BINDING);
+        uploaded = true;
 
     }
 
@@ -78,16 +131,76 @@ public class ShaderProgram {
      */
     private void findUniformLocations(String[] uniforms){
 
-        for (String uniform: uniforms){
-            uniformLocMap.put(uniform, glGetUniformLocation(programId, uniform));
+        GLApi gl = GLBridge.get();
+
+        for (int i=0; i<uniforms.length; i++){
+            uniformLocs[i] = gl.glGetUniformLocation(programId, uniforms[i]);
+            uniformLocMap.put(uniforms[i], uniformLocs[i]);
         }
 
     }
 
+    /**
+     * Funzione che associa un uniform block del program ad un binding point.
+     *
+     * @param blockName Nome del blocco (ignorato se non presente nel program)
+     * @param binding Binding point
+     */
+    private void bindUniformBlock(String blockName, int binding){
+
+        GLApi gl = GLBridge.get();
+
+        int index = gl.glGetUniformBlockIndex(programId, blockName);
+        if (index != GL_INVALID_INDEX){
+            gl.glUniformBlockBinding(programId, index, binding);
+        }
+
+    }
+
+    /**
+     * Handle di una uniform: da risolvere una volta (es. nel costruttore) e poi da passare a
+     * getUniformLoc(int). Non richiede il GL thread.
+     *
+     * @param uniformName Nome della uniform
+     * @return Handle della uniform, -1 se non è nella lista del program
+     */
+    public int handleOf(String uniformName){
+
+        for (int i=0; i<uniforms.length; i++){
+            if (uniforms[i].equals(uniformName)) return i;
+        }
+
+        return -1;
+
+    }
+
     /****** GETTER ******/
 
     public int getProgramId() { return programId; }
 
-    public int getUniformLoc( String uniformName ){ return uniformLocMap.get(uniformName); }
+    /**
+     * @param handle Handle della uniform (handleOf())
+     * @return Locazione della uniform, -1 se non presente nel program o handle non valido
+     */
+    public int getUniformLoc(int handle){
+
+        return (handle < 0) ? -1 : uniformLocs[handle];
+
+    }
+
+    /**
+     * Lookup per nome (HashMap): da evitare nel ciclo di disegno, vedi getUniformLoc(int).
+     *
+     * @param uniformName Nome della uniform
+     * @return Locazione della uniform, -1 se non presente nel program (le glUniform* la ignorano)
+     */
+    public int getUniformLoc( String uniformName ){
+
+        Integer loc = uniformLocMap.get(uniformName);
+        return (loc == null) ? -1 : loc;
+
+    }
+
+    public boolean isUploaded() { return uploaded; }
 
 }
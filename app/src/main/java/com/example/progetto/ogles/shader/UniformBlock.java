@@ -0,0 +1,226 @@
+package com.example.progetto.ogles.shader;
+
+import static android.opengl.GLES20.GL_DYNAMIC_DRAW;
+import static android.opengl.GLES30.GL_UNIFORM_BUFFER;
+
+import com.example.progetto.ogles.gl.GLApi;
+import com.example.progetto.ogles.gl.GLBridge;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Uniform buffer object con layout std140: copia lato CPU (ByteBuffer diretto) + buffer GL sul
+ * binding point del blocco.
+ *
+ * I put*() scrivono nella copia CPU e segnano il blocco come modificato solo se il valore cambia;
+ * bind() trasferisce i dati (una glBufferSubData) solo se modificati e poi fa il bind sul binding
+ * point. Così i dati che cambiano al più una volta per frame (camera) o quasi mai (materiale)
+ * non sono ricaricati ad ogni drawcall come con le glUniform*.
+ *
+ * Blocchi usati dagli shader di MaterialBasic:
+ *      - Camera (CAMERA_BINDING): mat4 VP (offset 0), vec4 cameraPos (offset 64);
+ *      - Material (MATERIAL_BINDING): vec4 color (offset 0), vec2 texScaling (offset 16),
+ *        int textured (offset 24).
+ *
+ * Il buffer GL è creato alla prima bind() (o con upload()); dopo la perdita del contesto EGL va
+ * chiamata discard(). Le chiamate GL vanno fatte nel GL thread.
+ *
+ * LINK: https://www.khronos.org/opengl/wiki/Interface_Block_(GLSL)#Memory_layout
+ */
+public class UniformBlock {
+
+    public static final String CAMERA = "Camera";
+    public static final int CAMERA_BINDING = 0;
+    public static final int CAMERA_SIZE = 80;
+    public static final int CAMERA_VP = 0;
+    public static final int CAMERA_POSITION = 64;
+
+    public static final String MATERIAL = "Material";
+    public static final int MATERIAL_BINDING = 1;
+    public static final int MATERIAL_SIZE = 32;
+    public static final int MATERIAL_COLOR = 0;
+    public static final int MATERIAL_TEX_SCALING = 16;
+    public static final int MATERIAL_TEXTURED = 24;
+
+    // precisione esplicita: i membri devono coincidere tra vertex e fragment shader
+    public static final String CAMERA_GLSL =
+            "layout(std140) uniform Camera {\n" +
+                "highp mat4 VP;\n" +
+                "highp vec4 cameraPos;\n" +
+            "};\n";
+
+    public static final String MATERIAL_GLSL =
+            "layout(std140) uniform Material {\n" +
+                "highp vec4 color;\n" +
+                "highp vec2 texScaling;\n" +
+                "highp int textured;\n" +
+            "};\n";
+
+    private final int binding;
+    private final int size;
+    private final ByteBuffer data;
+    private final int[] ubo;
+    private boolean dirty;
+    private volatile boolean uploaded;
+
+    /**
+     * Costruttore della classe (nessuna chiamata GL).
+     *
+     * @param binding Binding point del blocco (es. CAMERA_BINDING)
+     * @param size Dimensione in byte del blocco (layout std140)
+     */
+    public UniformBlock(int binding, int size){
+
+        this.binding = binding;
+        this.size = size;
+
+        data = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+        ubo = new int[1];
+        dirty = true;
+        uploaded = false;
+
+    }
+
+    /**
+     * @return Nuovo blocco Camera
+     */
+    public static UniformBlock camera(){
+
+        return new UniformBlock(CAMERA_BINDING, CAMERA_SIZE);
+
+    }
+
+    /**
+     * @return Nuovo blocco Material
+     */
+    public static UniformBlock material(){
+
+        return new UniformBlock(MATERIAL_BINDING, MATERIAL_SIZE);
+
+    }
+
+    /**
+     * Scrive un float (segna il blocco come modificato se il valore cambia).
+     */
+    private void put(int offset, float value){
+
+        if (Float.floatToRawIntBits(data.getFloat(offset)) != Float.floatToRawIntBits(value)){
+            data.putFloat(offset, value);
+            dirty = true;
+        }
+
+    }
+
+    /**
+     * @param offset Offset std140 in byte
+     * @param m Matrice 4x4 column-major
+     */
+    public void putMat4(int offset, float[] m){
+
+        for (int i=0; i<16; i++){
+            put(offset + i * 4, m[i]);
+        }
+
+    }
+
+    public void putVec4(int offset, float x, float y, float z, float w){
+
+        put(offset, x);
+        put(offset + 4, y);
+        put(offset + 8, z);
+        put(offset + 12, w);
+
+    }
+
+    public void putVec2(int offset, float x, float y){
+
+        put(offset, x);
+        put(offset + 4, y);
+
+    }
+
+    public void putInt(int offset, int value){
+
+        if (data.getInt(offset) != value){
+            data.putInt(offset, value);
+            dirty = true;
+        }
+
+    }
+
+    /**
+     * Funzione che crea il buffer GL e vi trasferisce i dati correnti. Da chiamare nel GL thread.
+     */
+    public void upload(){
+
+        GLApi gl = GLBridge.get();
+
+        gl.glGenBuffers(1, ubo, 0);
+        gl.glBindBuffer(GL_UNIFORM_BUFFER, ubo[0]);
+        gl.glBufferData(GL_UNIFORM_BUFFER, size, data, GL_DYNAMIC_DRAW);
+        gl.glBindBuffer(GL_UNIFORM_BUFFER, 0);
+
+        dirty = false;
+        uploaded = true;
+
+    }
+
+    /**
+     * Trasferisce i dati se modificati e fa il bind del buffer sul binding point del blocco.
+     * Da chiamare nel GL thread prima delle drawcall che usano il blocco.
+     */
+    public void bind(){
+
+        GLApi gl = GLBridge.get();
+
+        if (!uploaded){
+            upload();
+        }else if (dirty){
+            gl.glBindBuffer(GL_UNIFORM_BUFFER, ubo[0]);
+            gl.glBufferSubData(GL_UNIFORM_BUFFER, 0, size, data);
+            gl.glBindBuffer(GL_UNIFORM_BUFFER, 0);
+            dirty = false;
+        }
+
+        gl.glBindBufferBase(GL_UNIFORM_BUFFER, binding, ubo[0]);
+
+    }
+
+    /**
+     * Dimentica il buffer GL senza eliminarlo (contesto EGL perso: il buffer non esiste più).
+     * Sarà ricreato alla prossima bind().
+     */
+    public void discard(){
+
+        uploaded = false;
+
+    }
+
+    /**
+     * Funzione che elimina il buffer dal device. Da chiamare nel GL thread.
+     */
+    public void release(){
+
+        if (!uploaded) return;
+
+        GLBridge.get().glDeleteBuffers(1, ubo, 0);
+        uploaded = false;
+
+    }
+
+    /******* GETTER *******/
+
+    public int getBinding() { return binding; }
+
+    public int getSize() { return size; }
+
+    public ByteBuffer getData() { return data; }
+
+    public int getBufferId() { return ubo[0]; }
+
+    public boolean isDirty() { return dirty; }
+
+    public boolean isUploaded() { return uploaded; }
+
+}
@@ -0,0 +1,43 @@
+package com.example.progetto.ogles.utils;
+
+import android.os.Trace;
+import android.util.Log;
+
+/**
+ * Collegamento tra il modulo core (Java puro) e Android: Logger inoltra ad android.util.Log e il
+ * Tracer ad android.os.Trace.
+ *
+ * install() va chiamata all'avvio dell'app (MainActivity.onCreate()); prima, e nei test JVM,
+ * log e span del core non hanno destinazione.
+ */
+public final class AndroidPlatform {
+
+    public static final Logger.Sink LOG = new Logger.Sink() {
+        @Override
+        public void log(int level, String tag, String msg, Throwable tr) {
+            if (tr != null){
+                Log.println(level, tag, msg + '\n' + Log.getStackTraceString(tr));
+            }else{
+                Log.println(level, tag, msg);
+            }
+        }
+    };
+
+    public static final Tracer.Bridge TRACE = new Tracer.Bridge() {
+        @Override
+        public void beginSection(String name) { Trace.beginSection(name); }
+
+        @Override
+        public void endSection() { Trace.endSection(); }
+    };
+
+    private AndroidPlatform() { }
+
+    public static void install(){
+
+        Logger.setSink(LOG);
+        Tracer.setBridge(TRACE);
+
+    }
+
+}
@@ -3,6 +3,9 @@ package com.example.progetto.ogles.utils;
 import android.opengl.GLES31;
 import android.util.Log;
 
+import com.example.progetto.ogles.gl.GLApi;
+import com.example.progetto.ogles.gl.GLBridge;
+
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
@@ -13,19 +16,6 @@ import static android.opengl.GLES20.GL_COMPILE_STATUS;
 import static android.opengl.GLES20.GL_FRAGMENT_SHADER;
 import static android.opengl.GLES20.GL_LINK_STATUS;
 import static android.opengl.GLES20.GL_VERTEX_SHADER;
-import static android.opengl.GLES20.glAttachShader;
-import static android.opengl.GLES20.glCompileShader;
-import static android.opengl.GLES20.glCreateProgram;
-import static android.opengl.GLES20.glCreateShader;
-import static android.opengl.GLES20.glDeleteProgram;
-import static android.opengl.GLES20.glDeleteShader;
-import static android.opengl.GLES20.glDetachShader;
-import static android.opengl.GLES20.glGetProgramInfoLog;
-import static android.opengl.GLES20.glGetProgramiv;
-import static android.opengl.GLES20.glGetShaderInfoLog;
-import static android.opengl.GLES20.glGetShaderiv;
-import static android.opengl.GLES20.glLinkProgram;
-import static android.opengl.GLES20.glShaderSource;
 
 
 public abstract class ShaderCompiler {
@@ -33,6 +23,7 @@ public abstract class ShaderCompiler {
     private static final String TAG = "SHADER_COMPILER";
 
     public static int createComputeProgram(String src){
+        GLApi gl = GLBridge.get();
         int res = -1;
         final int[] compileStatus = new int[1];
 
@@ -41,25 +32,25 @@ public abstract class ShaderCompiler {
         if(handle<0)
             return res;
 
-        res = GLES31.glCreateProgram();
+        res = gl.glCreateProgram();
 
-        GLES31.glAttachShader(res, handle);
-        GLES31.glLinkProgram(res);
+        gl.glAttachShader(res, handle);
+        gl.glLinkProgram(res);
 
         int[] linkStatus = new int[1];
-        GLES31.glGetProgramiv(res, GL_LINK_STATUS, linkStatus, 0);
+        gl.glGetProgramiv(res, GL_LINK_STATUS, linkStatus, 0);
 
         if (linkStatus[0] == 0)
         {
-            Log.e(TAG, "Linking error: " + GLES31.glGetProgramInfoLog(res));
-            GLES31.glDeleteProgram(res);
+            Log.e(TAG, "Linking error: " + gl.glGetProgramInfoLog(res));
+            gl.glDeleteProgram(res);
             res = 0;
         }
 
         if(res!=0) {
             Log.v(TAG, "Program compiled and linked successfully in handle " + res);
-            GLES31.glDetachShader(res,handle);
-            GLES31.glDeleteShader(handle);
+            gl.glDetachShader(res,handle);
+            gl.glDeleteShader(handle);
         }
 
         return res;
@@ -93,60 +84,70 @@ public abstract class ShaderCompiler {
 
     public static int createProgram(String vertexShader, String fragmentShader){
 
-        int res = -1; //risultato della creazione del programma. E' un handle
-        int hVS; //handle del vertex shader
-        int hFS; //handle del fragment shader
+        Tracer.begin("ShaderCompiler.createProgram");
+        try {
 
-        final int[] compileStatus = new int[1];
+            GLApi gl = GLBridge.get();
+            int res = -1; //risultato della creazione del programma. E' un handle
+            int hVS; //handle del vertex shader
+            int hFS; //handle del fragment shader
 
-        hVS = compileShader(GL_VERTEX_SHADER, vertexShader, compileStatus);
-        if(hVS==-1)
-            return res;
-        hFS = compileShader(GL_FRAGMENT_SHADER,fragmentShader,compileStatus);
-        if(hFS==-1)
-            return res;
+            final int[] compileStatus = new int[1];
 
-        res = glCreateProgram();
+            hVS = compileShader(GL_VERTEX_SHADER, vertexShader, compileStatus);
+            if(hVS==-1)
+                return res;
+            hFS = compileShader(GL_FRAGMENT_SHADER,fragmentShader,compileStatus);
+            if(hFS==-1)
+                return res;
 
-        if(res!=0){
-            glAttachShader(res,hVS);
-            glAttachShader(res,hFS);
-            glLinkProgram(res);
+            res = gl.glCreateProgram();
 
-            int[] linkStatus = new int[1];
-            glGetProgramiv(res, GL_LINK_STATUS, linkStatus, 0);
+            if(res!=0){
+                gl.glAttachShader(res,hVS);
+                gl.glAttachShader(res,hFS);
+                gl.glLinkProgram(res);
 
-            if (linkStatus[0] == 0)
-            {
-                Log.e(TAG, "Errore nel linking: " + glGetProgramInfoLog(res));
-                glDeleteProgram(res);
-                res = 0;
+                int[] linkStatus = new int[1];
+                gl.glGetProgramiv(res, GL_LINK_STATUS, linkStatus, 0);
+
+                if (linkStatus[0] == 0)
+                {
+                    Log.e(TAG, "Errore nel linking: " + gl.glGetProgramInfoLog(res));
+                    gl.glDeleteProgram(res);
+                    res = 0;
+                }
             }
-        }
 
-        if(res!=0) {
-            Log.v(TAG, "Program compiled successfully in handle " + res);
-            glDetachShader(res,hVS);
-            glDetachShader(res,hFS);
-            glDeleteShader(hVS);
-            glDeleteShader(hFS);
+            if(res!=0) {
+                Log.v(TAG, "Program compiled successfully in handle " + res);
+                gl.glDetachShader(res,hVS);
+                gl.glDetachShader(res,hFS);
+                gl.glDeleteShader(hVS);
+                gl.glDeleteShader(hFS);
+            }
+
+            return res;
+
+        } finally {
+            Tracer.end();
         }
 
-        return res;
     }
 
     private static int compileComputeShader(int shaderStage, String src, int[] compileStatus){
+        GLApi gl = GLBridge.get();
         int handle;
 
-        handle = GLES31.glCreateShader(shaderStage);
+        handle = gl.glCreateShader(shaderStage);
 
         if (handle != 0)
         {
 
-            GLES31.glShaderSource(handle, src);
-            GLES31.glCompileShader(handle);
+            gl.glShaderSource(handle, src);
+            gl.glCompileShader(handle);
 
-            GLES31.glGetShaderiv(handle, GL_COMPILE_STATUS, compileStatus, 0);
+            gl.glGetShaderiv(handle, GL_COMPILE_STATUS, compileStatus, 0);
 
             String shaderType = "Vertex";
 
@@ -159,8 +160,8 @@ public abstract class ShaderCompiler {
             {
                 Log.e(TAG, "Error in " +
                         shaderType + " shader : "
-                        + GLES31.glGetShaderInfoLog(handle));
-                GLES31.glDeleteShader(handle);
+                        + gl.glGetShaderInfoLog(handle));
+                gl.glDeleteShader(handle);
                 return -1;
             }
         }
@@ -170,17 +171,18 @@ public abstract class ShaderCompiler {
     }
 
     private static int compileShader(int shaderStage, String src, int[] compileStatus) {
+        GLApi gl = GLBridge.get();
         int handle;
 
-        handle = glCreateShader(shaderStage);
+        handle = gl.glCreateShader(shaderStage);
 
         if (handle != 0)
         {
 
-            glShaderSource(handle, src);
-            glCompileShader(handle);
+            gl.glShaderSource(handle, src);
+            gl.glCompileShader(handle);
 
-            glGetShaderiv(handle, GL_COMPILE_STATUS, compileStatus, 0);
+            gl.glGetShaderiv(handle, GL_COMPILE_STATUS, compileStatus, 0);
 
             String shaderType = "Vertex";
 
@@ -193,8 +195,8 @@ public abstract class ShaderCompiler {
             {
                 Log.e(TAG, "Error in " +
                         shaderType + " shader : "
-                        + glGetShaderInfoLog(handle));
-                glDeleteShader(handle);
+                        + gl.glGetShaderInfoLog(handle));
+                gl.glDeleteShader(handle);
                 return -1;
             }
         }
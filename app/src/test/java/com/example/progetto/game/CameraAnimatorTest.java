@@ -0,0 +1,159 @@
+package com.example.progetto.game;
+
+import com.example.progetto.ogles.camera.CameraPersp3D;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test delle animazioni della camera (CameraAnimator) con tempi simulati.
+ */
+public class CameraAnimatorTest {
+
+    private static final long MS = 1000000L;
+
+    private CameraPersp3D camera;
+    private CameraAnimator animator;
+
+    @Before
+    public void setUp() {
+        camera = new CameraPersp3D(0.5f, 0f, 0.5f, 0);       // guarda verso z negativa
+        animator = new CameraAnimator(camera);
+    }
+
+    @Test
+    public void translate_followsEasingAndEndsExactlyOnTarget() {
+        assertTrue(animator.start(CameraAnimator.TRANSLATE_FW));
+        assertFalse(animator.start(CameraAnimator.ROTATE_SX));   // già in corso
+
+        long t0 = 1000 * MS;
+        assertTrue(animator.update(t0));                         // primo frame: partenza
+        assertEquals(0.5f, camera.getPosition()[2], 1e-6f);
+
+        long half = CameraAnimator.TRANSLATE_DURATION_NS / 2;
+        animator.update(t0 + half / 2);                          // t = 0.25: smoothstep 0.15625
+        assertEquals(0.5f - 0.15625f, camera.getPosition()[2], 1e-5f);
+        animator.update(t0 + half);
+        assertEquals(0f, camera.getPosition()[2], 1e-5f);
+
+        // frame in ritardo oltre la durata: arrivo esatto, nessun superamento
+        animator.update(t0 + 3 * CameraAnimator.TRANSLATE_DURATION_NS);
+        assertEquals(-0.5f, camera.getPosition()[2], 0f);
+        assertEquals(0.5f, camera.getPosition()[0], 0f);
+        assertFalse(animator.isAnimating());
+
+        assertFalse(animator.update(t0 + 4 * CameraAnimator.TRANSLATE_DURATION_NS));
+    }
+
+    @Test
+    public void speed_doesNotDependOnFrameRate() {
+        CameraPersp3D slowCamera = new CameraPersp3D(0.5f, 0f, 0.5f, 0);
+        CameraAnimator slow = new CameraAnimator(slowCamera);
+        animator.setEasing(CameraAnimator.LINEAR);
+        slow.setEasing(CameraAnimator.LINEAR);
+        animator.start(CameraAnimator.ROTATE_SX);
+        slow.start(CameraAnimator.ROTATE_SX);
+
+        // 60 fps con jitter contro 20 fps: stesso angolo allo stesso istante
+        long t = 0;
+        animator.update(0);
+        slow.update(0);
+        for (int frame = 1; frame <= 18; frame++) {
+            t += (frame % 2 == 0) ? 12 * MS : 21 * MS;
+            animator.update(t);
+            if (frame % 3 == 0) {
+                slow.update(t);
+                assertEquals(camera.getRotationY(), slowCamera.getRotationY(), 1e-3f);
+            }
+        }
+        float expected = 90f * t / CameraAnimator.ROTATE_DURATION_NS;
+        assertEquals(expected, camera.getRotationY(), 1e-3f);
+
+        animator.update(CameraAnimator.ROTATE_DURATION_NS);
+        assertEquals(90f, camera.getRotationY(), 0f);
+    }
+
+    @Test
+    public void chainedStart_hasNoGap() {
+        long t0 = 1000 * MS;
+        animator.start(CameraAnimator.ROTATE_SX, t0);
+        long end = t0 + CameraAnimator.ROTATE_DURATION_NS;
+        animator.update(end + 40 * MS);                          // fine tra due frame
+        assertFalse(animator.isAnimating());
+        assertEquals(end, animator.getLastEndNs());
+
+        // il comando accodato parte dalla fine esatta: 40 ms già percorsi
+        animator.setEasing(CameraAnimator.LINEAR);
+        animator.start(CameraAnimator.ROTATE_SX, animator.getLastEndNs());
+        animator.update(end + 40 * MS);
+        assertEquals(90f + 90f * 40 * MS / CameraAnimator.ROTATE_DURATION_NS,
+                camera.getRotationY(), 1e-3f);
+    }
+
+    @Test
+    public void extend_mergesTranslationsIntoOneMotion() {
+        long t0 = 0;
+        long half = CameraAnimator.TRANSLATE_DURATION_NS / 2;
+        animator.start(CameraAnimator.TRANSLATE_FW, t0);
+        animator.update(t0 + half / 2);
+        float z = camera.getPosition()[2];
+
+        assertFalse(animator.extend(CameraAnimator.TRANSLATE_BW, t0 + half / 2));
+        assertTrue(animator.extend(CameraAnimator.TRANSLATE_FW, t0 + half / 2));
+        assertEquals(-1.5f, animator.getTarget()[2], 0f);
+
+        // stesso moto fino a metà, poi velocità costante (mai ferma) fino alla seconda cella
+        float previous = z;
+        for (long t = t0 + half / 2 + 10 * MS; animator.isAnimating(); t += 10 * MS) {
+            animator.update(t);
+            float now = camera.getPosition()[2];
+            if (animator.isAnimating()) assertTrue(now < previous);
+            assertTrue(previous - now < 0.04f);                  // nessun salto
+            previous = now;
+        }
+        assertEquals(-1.5f, camera.getPosition()[2], 0f);
+        // cella in più alla velocità massima dello smoothstep (1.5 celle per durata)
+        assertEquals(CameraAnimator.TRANSLATE_DURATION_NS + CameraAnimator.TRANSLATE_DURATION_NS / 1.5,
+                animator.getLastEndNs(), 1e6);
+
+        // in decelerazione non si allunga più
+        animator.start(CameraAnimator.TRANSLATE_FW, 0);
+        animator.update(half + MS);
+        assertFalse(animator.extend(CameraAnimator.TRANSLATE_FW, half + MS));
+    }
+
+    @Test
+    public void update_doesNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        long id = Thread.currentThread().getId();
+
+        long t = 0;
+        for (int i = 0; i < 2000; i++) {                          // warm-up
+            t = animate(i % 4, t);
+        }
+
+        long before = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < 2000; i++) {
+            t = animate(i % 4, t);
+        }
+        long allocated = threads.getThreadAllocatedBytes(id) - before;
+
+        assertTrue("allocati " + allocated + " byte", allocated < 1024);
+    }
+
+    /**
+     * Un'animazione completa a 16 ms per frame, più un frame senza animazioni.
+     */
+    private long animate(int type, long t) {
+        animator.start(type);
+        while (animator.update(t)) t += 16 * MS;
+        return t;
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.example.progetto.game;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test della coda di comandi SPSC (InputQueue).
+ */
+public class InputQueueTest {
+
+    private static final int COMMANDS = 2000000;
+
+    @Test
+    public void queue_isFifoAndBounded() {
+        InputQueue queue = new InputQueue(4);
+        assertEquals(InputQueue.NONE, queue.poll());
+
+        for (int i = 0; i < 4; i++) assertTrue(queue.offer(i));
+        assertFalse(queue.offer(9));                            // piena: scartato
+        assertEquals(4, queue.size());
+
+        assertEquals(0, queue.peek());
+        assertEquals(0, queue.poll());
+        assertTrue(queue.offer(4));                             // giro del buffer circolare
+        for (int i = 1; i <= 4; i++) assertEquals(i, queue.poll());
+        assertEquals(InputQueue.NONE, queue.peek());
+
+        queue.offer(1);
+        queue.clear();
+        assertEquals(0, queue.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacity_mustBePowerOfTwo() {
+        new InputQueue(6);
+    }
+
+    @Test
+    public void stress_consumerSeesEveryCommandInOrder() throws InterruptedException {
+        final InputQueue queue = new InputQueue();
+        final AtomicLong errors = new AtomicLong();
+
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < COMMANDS; ) {
+                    if (queue.offer(i & 0xFFFF)) i++;
+                    else Thread.yield();
+                }
+            }
+        });
+
+        Thread consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < COMMANDS; ) {
+                    int command = queue.poll();
+                    if (command == InputQueue.NONE) {
+                        Thread.yield();
+                        continue;
+                    }
+                    if (command != (i & 0xFFFF)) errors.incrementAndGet();
+                    i++;
+                }
+            }
+        });
+
+        producer.start();
+        consumer.start();
+        producer.join();
+        consumer.join();
+
+        assertEquals(0, errors.get());
+        assertEquals(0, queue.size());
+    }
+
+}
@@ -0,0 +1,198 @@
+package com.example.progetto.game;
+
+import com.example.progetto.ogles.Geometry3D;
+import com.example.progetto.ogles.shader.MaterialBasic;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test della preparazione dei livelli in background (builder finto, senza asset né GL).
+ */
+public class LevelPipelineTest {
+
+    private LevelPipeline pipeline;
+
+    @After
+    public void tearDown() {
+        if (pipeline != null) pipeline.shutdown();
+    }
+
+    private static Level emptyLevel() {
+        return new Level(null, null, null,
+                Collections.<String, Geometry3D>emptyMap(),
+                Collections.<String, MaterialBasic>emptyMap());
+    }
+
+    private static Level awaitLevel(LevelPipeline pipeline, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        Level level;
+        while ((level = pipeline.pollNextLevel()) == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        return level;
+    }
+
+    private static boolean awaitFailure(LevelPipeline pipeline, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!pipeline.isNextLevelReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        try {
+            pipeline.pollNextLevel();
+            return false;
+        } catch (IllegalStateException e) {
+            return true;
+        }
+    }
+
+    @Test
+    public void preparedLevel_isPolledOnce() throws Exception {
+        final AtomicInteger builtOn = new AtomicInteger();
+        pipeline = new LevelPipeline(new LevelPipeline.LevelBuilder() {
+            @Override
+            public Level build(LabyrinthGenerator labGenerator, AtomicBoolean cancelled) {
+                builtOn.set(Thread.currentThread().getName().equals("LevelPipeline") ? 1 : -1);
+                return emptyLevel();
+            }
+        });
+
+        pipeline.prepare(null);
+        assertNotNull(awaitLevel(pipeline, 2000));
+        assertEquals(1, builtOn.get());
+        assertNull(pipeline.pollNextLevel());
+        assertFalse(pipeline.isNextLevelReady());
+    }
+
+    @Test
+    public void cancel_discardsInFlightLevel() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        pipeline = new LevelPipeline(new LevelPipeline.LevelBuilder() {
+            @Override
+            public Level build(LabyrinthGenerator labGenerator, AtomicBoolean cancelled) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                LevelPipeline.checkCancelled(cancelled);
+                return emptyLevel();
+            }
+        });
+
+        pipeline.prepare(null);
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+        assertTrue(pipeline.isPreparing());
+
+        pipeline.cancel();
+        release.countDown();
+
+        assertNull(awaitLevel(pipeline, 200));
+        assertFalse(pipeline.isPreparing());
+    }
+
+    @Test
+    public void newPrepare_replacesPreviousOne() throws Exception {
+        final CountDownLatch firstStarted = new CountDownLatch(1);
+        final Level second = emptyLevel();
+        pipeline = new LevelPipeline(new LevelPipeline.LevelBuilder() {
+            private int calls = 0;
+
+            @Override
+            public Level build(LabyrinthGenerator labGenerator, AtomicBoolean cancelled) {
+                if (calls++ == 0) {
+                    firstStarted.countDown();
+                    while (true) {
+                        LevelPipeline.checkCancelled(cancelled);   // generazione "lunga"
+                        Thread.yield();
+                    }
+                }
+                return second;
+            }
+        });
+
+        pipeline.prepare(null);
+        assertTrue(firstStarted.await(2, TimeUnit.SECONDS));
+        pipeline.prepare(null);
+
+        assertSame(second, awaitLevel(pipeline, 2000));
+        assertNull(pipeline.pollNextLevel());
+    }
+
+    @Test
+    public void builderException_isRethrownWhenPolled() throws Exception {
+        final CountDownLatch ready = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        final RuntimeException error = new IllegalArgumentException("asset mancante");
+        pipeline = new LevelPipeline(new LevelPipeline.LevelBuilder() {
+            @Override
+            public Level build(LabyrinthGenerator labGenerator, AtomicBoolean cancelled) {
+                if (calls.getAndIncrement() == 0) throw error;
+                return emptyLevel();
+            }
+        });
+        pipeline.setOnLevelReady(new Runnable() {
+            @Override
+            public void run() {
+                ready.countDown();
+            }
+        });
+
+        pipeline.prepare(null);
+        assertTrue(ready.await(2, TimeUnit.SECONDS));
+        assertTrue(pipeline.isNextLevelReady());
+        assertFalse(pipeline.isPreparing());
+        try {
+            pipeline.pollNextLevel();
+            fail("l'errore del builder va rilanciato");
+        } catch (IllegalStateException e) {
+            assertSame(error, e.getCause());
+        }
+        assertFalse(pipeline.isNextLevelReady());
+
+        pipeline.prepare(null);                                 // nuovo tentativo
+        assertNotNull(awaitLevel(pipeline, 2000));
+    }
+
+    @Test
+    public void failures_allowBoundedRetriesAndResetOnSuccess() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger failing = new AtomicInteger(Integer.MAX_VALUE);
+        pipeline = new LevelPipeline(new LevelPipeline.LevelBuilder() {
+            @Override
+            public Level build(LabyrinthGenerator labGenerator, AtomicBoolean cancelled) {
+                if (calls.getAndIncrement() < failing.get()) throw new IllegalStateException("OOM");
+                return emptyLevel();
+            }
+        });
+
+        // come LabyrinthGame.updateLevel(): dopo ogni errore si riprova finché canRetry()
+        int attempts = 0;
+        do {
+            pipeline.prepare(null);
+            attempts++;
+            assertTrue(awaitFailure(pipeline, 2000));
+        } while (pipeline.canRetry());
+
+        assertEquals(LevelPipeline.MAX_RETRIES + 1, attempts);
+        assertEquals(LevelPipeline.MAX_RETRIES + 1, pipeline.getFailures());
+
+        // un livello pubblicato azzera il contatore
+        failing.set(0);
+        pipeline.prepare(null);
+        assertNotNull(awaitLevel(pipeline, 2000));
+        assertEquals(0, pipeline.getFailures());
+        assertTrue(pipeline.canRetry());
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.example.progetto.game;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test del rendering su richiesta (RenderScheduler).
+ */
+public class RenderSchedulerTest {
+
+    private static final long MS = 1000000L;
+
+    private RenderScheduler scheduler;
+    private int renderRequests;
+
+    @Before
+    public void setUp() {
+        scheduler = new RenderScheduler();
+        renderRequests = 0;
+        scheduler.setRequester(new RenderScheduler.FrameRequester() {
+            @Override
+            public void requestRender() {
+                renderRequests++;
+            }
+        });
+    }
+
+    /** Un frame completo come in GameRenderer.onDrawFrame(). */
+    private void frame(boolean stillDirty, long nowNs) {
+        scheduler.onFrameStarted();
+        scheduler.onFrameRendered(stillDirty, nowNs);
+    }
+
+    @Test
+    public void requestDuringFrame_requestsAnotherFrame() {
+        scheduler.requestFrame(0);
+        assertEquals(1, renderRequests);
+
+        // snapshot pubblicato dalla simulazione mentre il frame è in disegno (stato già letto)
+        scheduler.onFrameStarted();
+        scheduler.requestFrame(5 * MS);
+        scheduler.onFrameRendered(false, 16 * MS);
+
+        assertEquals(2, renderRequests);
+        assertTrue(scheduler.isFramePending());
+
+        // il frame successivo lo disegna, poi la scena è ferma
+        frame(false, 32 * MS);
+        assertEquals(2, renderRequests);
+        assertFalse(scheduler.isFramePending());
+    }
+
+    @Test
+    public void requestsWhilePending_areCoalesced() {
+        scheduler.requestFrame(0);
+        scheduler.requestFrame(1 * MS);
+        scheduler.requestFrame(2 * MS);
+
+        assertEquals(1, renderRequests);
+        assertTrue(scheduler.isFramePending());
+        assertEquals(3, scheduler.getTotalRequested());
+
+        frame(false, 16 * MS);
+        assertFalse(scheduler.isFramePending());
+
+        scheduler.requestFrame(20 * MS);
+        assertEquals(2, renderRequests);
+    }
+
+    @Test
+    public void dirtyScene_keepsRenderingUntilStill() {
+        scheduler.requestFrame(0);
+
+        // transizione: 10 frame in movimento, poi la scena è ferma
+        long t = 0;
+        for (int i = 0; i < 10; i++) {
+            t += 16 * MS;
+            frame(true, t);
+        }
+        t += 16 * MS;
+        frame(false, t);
+
+        assertEquals(11, renderRequests);
+        assertEquals(11, scheduler.getTotalRendered());
+        assertFalse(scheduler.isFramePending());
+
+        // fermo: nessun frame finché qualcuno non lo richiede
+        assertEquals(11, renderRequests);
+    }
+
+    @Test
+    public void rates_coverLastFullSecond() {
+        long t = 0;
+        scheduler.requestFrame(t);
+        for (int i = 0; i < 30; i++) {               // 30 frame in movimento nel primo secondo
+            t += 16 * MS;
+            frame(i < 29, t);
+        }
+        scheduler.requestFrame(1000 * MS);          // chiude il primo secondo
+
+        assertEquals(30, scheduler.getRenderedPerSecond());
+        assertEquals(30, scheduler.getRequestedPerSecond());
+
+        // secondi senza eventi: i valori sono a zero
+        scheduler.requestFrame(4500 * MS);
+        assertEquals(0, scheduler.getRenderedPerSecond());
+        assertEquals(0, scheduler.getRequestedPerSecond());
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.example.progetto.game;
+
+import com.example.progetto.ogles.camera.CameraState;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test del loop a passo fisso (Simulation) e dell'interpolazione degli snapshot.
+ */
+public class SimulationTest {
+
+    private static final long MS = 1000000L;
+
+    @Test
+    public void advance_runsOneTickPerStepIndependentlyOfCallRate() {
+        final long[] times = new long[64];
+        final AtomicInteger count = new AtomicInteger();
+        Simulation simulation = new Simulation(new Simulation.Step() {
+            @Override
+            public boolean tick(long timeNs) {
+                times[count.getAndIncrement()] = timeNs;
+                return true;
+            }
+        });
+        simulation.setNextTickNs(0);
+
+        // chiamate irregolari (come un frame rate variabile): tick sempre a passo fisso
+        long[] calls = { 3 * MS, 20 * MS, 21 * MS, 50 * MS, 100 * MS };
+        for (long now : calls) simulation.advance(now);
+
+        int expected = (int) (100 * MS / Simulation.TICK_NS) + 1;
+        assertEquals(expected, count.get());
+        for (int i = 0; i < count.get(); i++) {
+            assertEquals(i * Simulation.TICK_NS, times[i]);
+        }
+        assertEquals(expected, simulation.getTicks());
+    }
+
+    @Test
+    public void advance_skipsAheadWhenTooFarBehind() {
+        final AtomicInteger count = new AtomicInteger();
+        Simulation simulation = new Simulation(new Simulation.Step() {
+            @Override
+            public boolean tick(long timeNs) {
+                count.incrementAndGet();
+                return false;
+            }
+        });
+        simulation.setNextTickNs(0);
+
+        assertFalse(simulation.advance(1000 * MS));             // 1 s di ritardo
+        assertEquals(Simulation.MAX_CATCH_UP + 1, count.get());
+        assertTrue(simulation.getSkippedTicks() > 0);
+    }
+
+    @Test
+    public void thread_parksWhenIdleAndWakesOnInput() throws InterruptedException {
+        final AtomicInteger pending = new AtomicInteger();
+        Simulation simulation = new Simulation(new Simulation.Step() {
+            @Override
+            public boolean tick(long timeNs) {
+                return pending.decrementAndGet() > 0;
+            }
+        });
+
+        simulation.start();
+        waitIdle(simulation);
+        long ticks = simulation.getTicks();
+        Thread.sleep(50);
+        assertEquals(ticks, simulation.getTicks());             // fermo: nessun tick a vuoto
+
+        pending.set(3);
+        simulation.wake();
+        waitIdle(simulation);
+        assertEquals(ticks + 3, simulation.getTicks());
+
+        simulation.stop();
+        assertFalse(simulation.isRunning());
+    }
+
+    @Test
+    public void snapshot_interpolatesOneTickBehindOnShortestArc() {
+        float[] previous = new float[CameraState.SIZE];
+        float[] current = new float[CameraState.SIZE];
+        previous[CameraState.X] = 1f;
+        current[CameraState.X] = 2f;
+        previous[CameraState.ROTATION_Y] = 350f;
+        current[CameraState.ROTATION_Y] = -20f;                 // = 340: arco di -10, non +350
+
+        RenderSnapshot snapshot = new RenderSnapshot();
+        snapshot.set(1, 100 * MS, 0, previous, current);
+
+        assertEquals(0f, snapshot.alpha(90 * MS), 0f);
+        float half = snapshot.alpha(100 * MS + Simulation.TICK_NS / 2);
+        assertEquals(0.5f, half, 1e-3f);
+        assertEquals(1.5f, snapshot.lerp(CameraState.X, half), 1e-3f);
+        assertEquals(350f - 10f * half, snapshot.lerp(CameraState.ROTATION_Y, half), 1e-3f);
+        assertEquals(1f, snapshot.alpha(200 * MS), 0f);
+        assertTrue(snapshot.isMoving());
+    }
+
+    private static void waitIdle(Simulation simulation) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        do {
+            Thread.sleep(10);
+        } while (!simulation.isIdle() && System.currentTimeMillis() < deadline);
+        assertTrue(simulation.isIdle());
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.example.progetto.game;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test del triple buffer lock-free (TripleBuffer).
+ */
+public class TripleBufferTest {
+
+    private static final long DURATION_MS = 300;
+
+    @Test
+    public void update_returnsOnlyNewPublications() {
+        long[] a = new long[1], b = new long[1], c = new long[1];
+        TripleBuffer<long[]> buffer = new TripleBuffer<>(a, b, c);
+        assertFalse(buffer.update());
+
+        buffer.getBack()[0] = 1;
+        buffer.publish();
+        buffer.getBack()[0] = 2;
+        buffer.publish();                                       // 1 saltato: vince l'ultimo
+
+        assertTrue(buffer.update());
+        assertEquals(2, buffer.getFront()[0]);
+        assertFalse(buffer.update());
+        assertEquals(2, buffer.getFront()[0]);
+
+        // lo scrittore non tocca mai l'oggetto del lettore
+        for (int i = 3; i < 10; i++) {
+            assertNotSame(buffer.getFront(), buffer.getBack());
+            buffer.getBack()[0] = i;
+            buffer.publish();
+        }
+        assertTrue(buffer.update());
+        assertEquals(9, buffer.getFront()[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_needsDistinctObjects() {
+        long[] a = new long[1];
+        new TripleBuffer<>(a, a, new long[1]);
+    }
+
+    @Test
+    public void stress_readerSeesCompleteIncreasingValues() throws InterruptedException {
+        final TripleBuffer<long[]> buffer =
+                new TripleBuffer<>(new long[4], new long[4], new long[4]);
+        final AtomicBoolean stop = new AtomicBoolean(false);
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong reads = new AtomicLong();
+
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                long i = 0;
+                while (!stop.get()) {
+                    i++;
+                    long[] back = buffer.getBack();
+                    for (int k = 0; k < back.length; k++) back[k] = i * (k + 1);
+                    buffer.publish();
+                }
+            }
+        });
+
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                long last = 0, n = 0;
+                while (!stop.get()) {
+                    if (!buffer.update()) continue;
+                    long[] front = buffer.getFront();
+                    long i = front[0];
+                    for (int k = 0; k < front.length; k++) {
+                        if (front[k] != i * (k + 1)) errors.incrementAndGet();
+                    }
+                    if (i <= last) errors.incrementAndGet();
+                    last = i;
+                    n++;
+                }
+                reads.set(n);
+            }
+        });
+
+        writer.start();
+        reader.start();
+        Thread.sleep(DURATION_MS);
+        stop.set(true);
+        writer.join();
+        reader.join();
+
+        assertEquals(0, errors.get());
+        assertTrue(reads.get() > 0);
+    }
+
+}
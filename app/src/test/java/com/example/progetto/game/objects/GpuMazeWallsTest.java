@@ -0,0 +1,130 @@
+package com.example.progetto.game.objects;
+
+import com.example.progetto.game.maze.Kruskal;
+import com.example.progetto.game.maze.MazeGrid;
+import com.example.progetto.ogles.Texture;
+import com.example.progetto.ogles.camera.CameraOrtho2D;
+import com.example.progetto.ogles.gl.GLApi;
+import com.example.progetto.ogles.gl.GLBridge;
+import com.example.progetto.ogles.gl.RecordingGLApi;
+import com.example.progetto.ogles.shader.MaterialBasic;
+import com.example.progetto.ogles.shader.ShaderProgram;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test dei muri generati nel vertex shader tramite il riferimento Java (GpuMazeWalls.expandVertex()).
+ */
+public class GpuMazeWallsTest {
+
+    private RecordingGLApi gl;
+    private GLApi previousApi;
+
+    @Before
+    public void setUp() {
+        gl = new RecordingGLApi();
+        previousApi = GLBridge.get();
+        GLBridge.set(gl);
+    }
+
+    @After
+    public void tearDown() {
+        GLBridge.set(previousApi);
+    }
+
+    private static MazeGrid maze(int dim, long seed) {
+        MazeGrid grid = new MazeGrid(dim, dim);
+        new Kruskal().carve(grid, dim - 2, 1, new SplittableRandom(seed));
+        grid.setWalkable(dim - 1, 1);       // start
+        grid.setWalkable(0, dim - 2);       // end
+        return grid;
+    }
+
+    @Test
+    public void expandedFaces_matchWallMesherFaces() {
+        MazeGrid grid = maze(41, 3);
+        int rows = grid.getRows(), cols = grid.getCols();
+        byte[] texels = GpuMazeWalls.buildTexels(grid);
+        int[] faceToQuad = new WallMesher(grid).buildFaceToQuad();
+        float[] v = new float[5];
+        float[][] face = new float[6][5];
+
+        for (int id = 0; id < rows * cols; id++) {
+            int r = id / cols, c = id % cols;
+            for (int f = 0; f < 4; f++) {
+                int emitted = 0;
+                for (int k = 0; k < 6; k++) {
+                    if (GpuMazeWalls.expandVertex(texels, rows, cols, id, f * 6 + k, v)) {
+                        System.arraycopy(v, 0, face[k], 0, 5);
+                        emitted++;
+                    }
+                }
+                // la faccia è generata intera oppure scartata, come nella mesh di WallMesher
+                boolean expected = faceToQuad[(r * cols + c) * 4 + f] >= 0;
+                assertEquals(expected ? 6 : 0, emitted);
+                if (!expected) continue;
+
+                // lato della cella (r, c) e normale verso la cella camminabile
+                float dx = face[1][0] - face[0][0], dz = face[1][2] - face[0][2];
+                float nx = -dz, nz = dx;
+                float midX = (face[0][0] + face[1][0]) / 2 + cols / 2f;
+                float midZ = (face[0][2] + face[1][2]) / 2 + rows / 2f;
+                assertEquals(c, (int) Math.floor(midX - nx * 0.5f));
+                assertEquals(r, (int) Math.floor(midZ - nz * 0.5f));
+                assertTrue(grid.isWalkable((int) Math.floor(midZ + nz * 0.5f),
+                                           (int) Math.floor(midX + nx * 0.5f)));
+
+                // triangoli (0, 1, 2) e (3, 4, 5) in senso antiorario visti dalla normale
+                for (int t = 0; t < 6; t += 3) {
+                    float[] a = face[t], b = face[t + 1], d = face[t + 2];
+                    float ux = b[0] - a[0], uy = b[1] - a[1], uz = b[2] - a[2];
+                    float wx = d[0] - a[0], wy = d[1] - a[1], wz = d[2] - a[2];
+                    float cx = uy * wz - uz * wy, cz = ux * wy - uy * wx;
+                    assertTrue(cx * nx + cz * nz > 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void draw_isOneCallWhateverTheMazeSize() {
+        MaterialBasic material = new MaterialBasic(new ShaderProgram(MaterialBasic.VSHADER_MAZE,
+                MaterialBasic.FSHADER, MaterialBasic.UNIFORMS_MAZE, false), new Texture(null, false, false));
+        CameraOrtho2D camera = new CameraOrtho2D();
+        material.upload();
+        camera.getUniforms().upload();
+
+        int[] callsPerSize = new int[2];
+        int[] sizes = {15, 501};
+        for (int i = 0; i < sizes.length; i++) {
+            GpuMazeWalls walls = new GpuMazeWalls(maze(sizes[i], 1));
+            walls.upload();
+            assertEquals(1, gl.count("glTexImage2D"));
+            gl.reset();
+
+            walls.draw(camera, material);
+
+            assertEquals(1, gl.getDraws().size());
+            assertEquals(GpuMazeWalls.VERTICES_PER_INSTANCE, gl.getDraws().get(0).count);
+            assertEquals(sizes[i] * sizes[i], gl.getDraws().get(0).instanceCount);
+            assertEquals(0, gl.count("glBufferData"));
+            callsPerSize[i] = gl.count("glDrawArraysInstanced") + gl.count("glUniformMatrix4fv") +
+                    gl.count("glBindTexture") + gl.count("glUniform2f") + gl.count("glUniform1i") +
+                    gl.count("glUniform3f") + gl.count("glActiveTexture") + gl.count("glBindVertexArray") + gl.count("glBindBufferBase");
+            gl.reset();
+        }
+        assertEquals(callsPerSize[0], callsPerSize[1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooLargeForTexture_isRejected() {
+        new GpuMazeWalls(new MazeGrid(GpuMazeWalls.MAX_SIZE + 1, 3));
+    }
+
+}
@@ -0,0 +1,182 @@
+package com.example.progetto.game.objects;
+
+import com.example.progetto.game.maze.Kruskal;
+import com.example.progetto.game.maze.MazeGrid;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test del frustum culling dei muri sulla griglia (GridFrustumCuller).
+ *
+ * Le matrici sono calcolate qui (stesse formule di android.opengl.Matrix.perspectiveM/setLookAtM
+ * usate da CameraPersp3D) perchè android.opengl.Matrix non è disponibile nei test JVM.
+ */
+public class GridFrustumCullerTest {
+
+    private static final int DIM = 129;
+
+    private static MazeGrid maze(int dim, long seed) {
+        MazeGrid grid = new MazeGrid(dim, dim);
+        new Kruskal().carve(grid, dim - 2, 1, new SplittableRandom(seed));
+        return grid;
+    }
+
+    /** PV di CameraPersp3D (fov 45, near 0.1, far 100) in (x, 0, z) con rotazione in gradi. */
+    private static float[] pvM(float x, float z, float rotationY, float aspect) {
+        double yaw = Math.toRadians(-((rotationY % 360) + 90));
+        float dx = (float) Math.cos(yaw), dz = (float) Math.sin(yaw);
+
+        // view: lookAt con up (0, 1, 0) -> s = f x up, u = s x f
+        float sx = -dz, sz = dx;
+        float[] view = {
+                sx, 0, -dx, 0,
+                0, 1, 0, 0,
+                sz, 0, -dz, 0,
+                -(sx * x + sz * z), 0, dx * x + dz * z, 1
+        };
+
+        float near = 0.1f, far = 100f;
+        float f = 1f / (float) Math.tan(Math.toRadians(45 / 2.0));
+        float[] proj = new float[16];
+        proj[0] = f / aspect;
+        proj[5] = f;
+        proj[10] = (far + near) / (near - far);
+        proj[11] = -1;
+        proj[14] = 2 * far * near / (near - far);
+
+        float[] res = new float[16];
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                float sum = 0;
+                for (int k = 0; k < 4; k++) sum += proj[k * 4 + i] * view[j * 4 + k];
+                res[j * 4 + i] = sum;
+            }
+        }
+        return res;
+    }
+
+    /** True se il punto è dentro il frustum (clip space). */
+    private static boolean inside(float[] m, float x, float y, float z) {
+        float cx = m[0] * x + m[4] * y + m[8] * z + m[12];
+        float cy = m[1] * x + m[5] * y + m[9] * z + m[13];
+        float cz = m[2] * x + m[6] * y + m[10] * z + m[14];
+        float cw = m[3] * x + m[7] * y + m[11] * z + m[15];
+        return Math.abs(cx) <= cw && Math.abs(cy) <= cw && Math.abs(cz) <= cw;
+    }
+
+    private static float centerOf(int cell, int dim) {
+        return cell - dim / 2f + 0.5f;
+    }
+
+    @Test
+    public void lookingForward_skipsTilesBehindAndBeside() {
+        WallMesher mesher = new WallMesher(maze(DIM, 1L));
+        GridFrustumCuller culler = new GridFrustumCuller(mesher);
+        float x = centerOf(DIM / 2, DIM), z = centerOf(DIM / 2, DIM);
+
+        assertTrue(culler.update(pvM(x, z, 0, 1.5f), x, z, 0));   // guarda verso -z
+
+        int camTile = (DIM / 2) / mesher.getTileSize();
+        assertTrue(culler.isTileVisible(camTile, camTile));
+        assertTrue(culler.isTileVisible(camTile - 2, camTile));
+        assertFalse(culler.isTileVisible(camTile + 2, camTile));    // dietro
+        assertFalse(culler.isTileVisible(camTile - 1, 0));          // fuori dal fov
+        assertTrue(culler.getNumVisibleTiles() < culler.getNumTiles() / 2);
+
+        int total = mesher.getIndices().length;
+        assertTrue(culler.getNumVisibleIndices() < total / 2);
+    }
+
+    @Test
+    public void recomputesOnlyOnCellOrRotationChange() {
+        GridFrustumCuller culler = new GridFrustumCuller(new WallMesher(maze(DIM, 2L)));
+        float x = centerOf(63, DIM), z = centerOf(63, DIM);
+
+        assertTrue(culler.update(pvM(x, z, 0, 1f), x, z, 0));
+        assertFalse(culler.update(pvM(x, z, 0, 1f), x, z, 0));
+        assertFalse(culler.update(pvM(x, z - 0.4f, 0, 1f), x, z - 0.4f, 0));  // stessa cella
+        assertTrue(culler.update(pvM(x, z - 0.6f, 0, 1f), x, z - 0.6f, 0));   // cella dopo
+        assertTrue(culler.update(pvM(x, z - 0.6f, 10, 1f), x, z - 0.6f, 10)); // rotazione
+        assertFalse(culler.update(pvM(x, z - 0.6f, 10, 1f), x, z - 0.6f, 10));
+
+        culler.invalidate();
+        assertTrue(culler.update(pvM(x, z - 0.6f, 10, 2f), x, z - 0.6f, 10));
+        assertEquals(4, culler.getNumRecomputes());
+    }
+
+    @Test
+    public void cachedSet_containsEveryWallVisibleFromTheSameCell() {
+        WallMesher mesher = new WallMesher(maze(DIM, 3L));
+        float[] v = mesher.getVertices();
+        int stride = WallMesher.FLOATS_PER_VERTEX;
+        int[] first = mesher.getTileFirstIndex();
+        SplittableRandom rnd = new SplittableRandom(4L);
+
+        for (int trial = 0; trial < 40; trial++) {
+            int cellRow = 1 + rnd.nextInt(DIM - 2), cellCol = 1 + rnd.nextInt(DIM - 2);
+            float rot = 90f * rnd.nextInt(4);
+            GridFrustumCuller culler = new GridFrustumCuller(mesher);
+
+            // set calcolato entrando nella cella da un angolo...
+            float x0 = cellCol - DIM / 2f + 0.01f, z0 = cellRow - DIM / 2f + 0.99f;
+            culler.update(pvM(x0, z0, rot, 1.7f), x0, z0, rot);
+
+            // ...deve contenere i muri visibili da qualsiasi punto della cella
+            for (int k = 0; k < 5; k++) {
+                float x = cellCol - DIM / 2f + (float) rnd.nextDouble();
+                float z = cellRow - DIM / 2f + (float) rnd.nextDouble();
+                assertFalse(culler.update(pvM(x, z, rot, 1.7f), x, z, rot));
+                float[] m = pvM(x, z, rot, 1.7f);
+
+                for (int q = 0; q < mesher.getNumQuads(); q++) {
+                    int o = q * 4 * stride;
+                    boolean seen = false;
+                    for (int i = 0; i < 4 && !seen; i++) {
+                        seen = inside(m, v[o + i * stride], v[o + i * stride + 1], v[o + i * stride + 2]);
+                    }
+                    if (!seen) continue;
+
+                    int tile = tileOfQuad(first, q * 6);
+                    assertTrue("quad " + q + " visibile ma tile scartato",
+                            culler.isTileVisible(tile / mesher.getTilesX(), tile % mesher.getTilesX()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void ranges_coverExactlyTheVisibleTiles() {
+        WallMesher mesher = new WallMesher(maze(DIM, 5L));
+        GridFrustumCuller culler = new GridFrustumCuller(mesher);
+        float x = centerOf(DIM - 2, DIM), z = centerOf(DIM - 2, DIM);
+        culler.update(pvM(x, z, 45, 1f), x, z, 45);
+
+        int expected = 0;
+        for (int t = 0; t < culler.getNumTiles(); t++) {
+            if (culler.isTileVisible(t / mesher.getTilesX(), t % mesher.getTilesX())) {
+                expected += mesher.getTileIndexCount()[t];
+            }
+        }
+        assertEquals(expected, culler.getNumVisibleIndices());
+
+        int[] f = culler.getRangeFirst(), c = culler.getRangeCount();
+        for (int i = 1; i < culler.getNumRanges(); i++) {
+            assertTrue(f[i] > f[i - 1] + c[i - 1]);   // intervalli ordinati e non adiacenti
+        }
+    }
+
+    /** Tile che contiene l'indice 'index' (intervalli ordinati per tile). */
+    private static int tileOfQuad(int[] first, int index) {
+        int lo = 0, hi = first.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (first[mid] <= index) lo = mid; else hi = mid - 1;
+        }
+        return lo;
+    }
+
+}
@@ -0,0 +1,199 @@
+package com.example.progetto.game.objects;
+
+import com.example.progetto.game.maze.GridRaycaster;
+import com.example.progetto.game.maze.Kruskal;
+import com.example.progetto.game.maze.MazeGrid;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test del calcolo, della compressione e del salvataggio del PVS dei muri.
+ */
+public class PvsBuilderTest {
+
+    private static final int DIM = 51;
+
+    private static MazeGrid maze(int dim, long seed) {
+        MazeGrid grid = new MazeGrid(dim, dim);
+        new Kruskal().carve(grid, dim - 2, 1, new SplittableRandom(seed));
+        return grid;
+    }
+
+    private static int[] entry(PotentiallyVisibleSet pvs, int row, int col, int dir) {
+        int[] dst = new int[pvs.getNumQuads()];
+        return Arrays.copyOf(dst, pvs.decode(row, col, dir, dst));
+    }
+
+    @Test
+    public void directionMask_singleWhenAlignedAndTwoWhileRotating() {
+        assertEquals(0b0001, PotentiallyVisibleSet.directionMask(0));
+        assertEquals(0b0010, PotentiallyVisibleSet.directionMask(90));
+        assertEquals(0b1000, PotentiallyVisibleSet.directionMask(-90));
+        assertEquals(0b0011, PotentiallyVisibleSet.directionMask(45));
+        assertEquals(0b1001, PotentiallyVisibleSet.directionMask(315));
+    }
+
+    @Test
+    public void pvs_containsWallsSeenFromAnyPointOfTheCell() {
+        checkConservative(7L, 200, 2000);
+    }
+
+    @Test
+    public void pvs_isConservativeAlsoForFarAndGrazingWalls() {
+        // labirinto su cui la versione campionata (3x3 punti, 1024 raggi) perdeva facce
+        checkConservative(2L, 400, 4000);
+    }
+
+    /**
+     * Lancia 'rays' raggi nel FOV da un punto casuale di 'trials' celle casuali e controlla che
+     * ogni faccia colpita (a qualsiasi distanza) sia nel PVS della cella e della direzione.
+     */
+    private static void checkConservative(long seed, int trials, int rays) {
+        MazeGrid grid = maze(DIM, seed);
+        WallMesher mesher = new WallMesher(grid);
+        PotentiallyVisibleSet pvs = new PvsBuilder(grid, mesher).build();
+
+        // faccia -> quad, ricostruita indipendentemente dal builder con la stessa regola dei test
+        // di WallMesher (il muro è dietro la normale)
+        int[] faceToQuad = new int[DIM * DIM * 4];
+        Arrays.fill(faceToQuad, -1);
+        float[] v = mesher.getVertices();
+        int stride = WallMesher.FLOATS_PER_VERTEX;
+        for (int q = 0; q < mesher.getNumQuads(); q++) {
+            int a = q * 4 * stride, b = a + stride;
+            float len = v[b + 3];
+            float nx = -(v[b + 2] - v[a + 2]) / len, nz = (v[b] - v[a]) / len;
+            int face = nz > 0.5f ? 0 : nz < -0.5f ? 1 : nx > 0.5f ? 2 : 3;
+            for (int i = 0; i < len; i++) {
+                float t = (i + 0.5f) / len;
+                int col = (int) Math.floor(v[a] + (v[b] - v[a]) * t - nx * 0.5f + DIM / 2f);
+                int row = (int) Math.floor(v[a + 2] + (v[b + 2] - v[a + 2]) * t - nz * 0.5f + DIM / 2f);
+                faceToQuad[(row * DIM + col) * 4 + face] = q;
+            }
+        }
+
+        GridRaycaster ray = new GridRaycaster(grid);
+        SplittableRandom rnd = new SplittableRandom(seed + 1);
+        float[][] forward = {{0, -1}, {-1, 0}, {0, 1}, {1, 0}};
+        int checked = 0;
+
+        for (int trial = 0; trial < trials; trial++) {
+            int row = 1 + rnd.nextInt(DIM - 2), col = 1 + rnd.nextInt(DIM - 2);
+            if (!grid.isWalkable(row, col)) continue;
+            int dir = rnd.nextInt(4);
+            Set<Integer> expected = new HashSet<>();
+            for (int q : entry(pvs, row, col, dir)) expected.add(q);
+
+            float ox = col + (float) rnd.nextDouble(), oz = row + (float) rnd.nextDouble();
+            // FOV orizzontale di +-60° (aspect ~2.1 con fov verticale di 45°)
+            for (int j = 0; j < rays; j++) {
+                double angle = Math.toRadians(-60 + 120.0 * j / (rays - 1));
+                float fc = forward[dir][0], fr = forward[dir][1];
+                float dc = (float) (fc * Math.cos(angle) - fr * Math.sin(angle));
+                float dr = (float) (fc * Math.sin(angle) + fr * Math.cos(angle));
+                if (!ray.cast(ox, oz, dc, dr, 100)) continue;
+                int q = faceToQuad[(ray.getHitRow() * DIM + ray.getHitCol()) * 4 + ray.getHitFace()];
+                assertTrue("quad " + q + " visto da (" + row + "," + col + ") dir " + dir,
+                        q >= 0 && expected.contains(q));
+                checked++;
+            }
+        }
+        assertTrue(checked > 0);
+    }
+
+    @Test
+    public void corridors_drawSmallFractionOfTheWalls() {
+        MazeGrid grid = maze(DIM, 9L);
+        WallMesher mesher = new WallMesher(grid);
+        PotentiallyVisibleSet pvs = new PvsBuilder(grid, mesher).build();
+
+        long sum = 0;
+        int entries = 0;
+        int max = 0;
+        for (int r = 0; r < DIM; r++) {
+            for (int c = 0; c < DIM; c++) {
+                if (!grid.isWalkable(r, c)) continue;
+                for (int d = 0; d < 4; d++) {
+                    int n = pvs.count(r, c, d);
+                    assertEquals(entry(pvs, r, c, d).length, n);
+                    sum += n;
+                    max = Math.max(max, n);
+                    entries++;
+                }
+            }
+        }
+        double mean = sum / (double) entries;
+
+        assertTrue(mean < mesher.getNumQuads() * 0.05);
+        assertTrue(max < mesher.getNumQuads() * 0.1);
+        assertTrue(pvs.getCompressedBytes() < sum * 2);
+    }
+
+    @Test
+    public void parallelBuild_matchesSingleThread_andSurvivesSerialization() throws Exception {
+        MazeGrid grid = maze(31, 10L);
+        WallMesher mesher = new WallMesher(grid);
+
+        PotentiallyVisibleSet parallel = new PvsBuilder(grid, mesher).build();
+        ForkJoinPool single = new ForkJoinPool(1);
+        PotentiallyVisibleSet sequential = new PvsBuilder(grid, mesher, PvsBuilder.DEFAULT_MAX_DISTANCE,
+                single).build();
+        single.shutdown();
+
+        File dir = Files.createTempDirectory("pvs").toFile();
+        File file = new File(dir, "maze.pvs");
+        parallel.writeTo(file);
+        PotentiallyVisibleSet read = PotentiallyVisibleSet.readFrom(file, 31, 31,
+                mesher.getNumQuads(), mesher.getTileSize());
+        assertNotNull(read);
+        assertNull(PotentiallyVisibleSet.readFrom(file, 31, 31, mesher.getNumQuads() + 1,
+                mesher.getTileSize()));
+        file.delete();
+        dir.delete();
+
+        for (int r = 0; r < 31; r++) {
+            for (int c = 0; c < 31; c++) {
+                for (int d = 0; d < 4; d++) {
+                    int[] expected = entry(parallel, r, c, d);
+                    assertArrayEquals(expected, entry(sequential, r, c, d));
+                    assertArrayEquals(expected, entry(read, r, c, d));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void visibleWalls_drawsPvsEntryIntersectedWithFrustum() {
+        MazeGrid grid = maze(DIM, 11L);
+        WallMesher mesher = new WallMesher(grid);
+        PotentiallyVisibleSet pvs = new PvsBuilder(grid, mesher).build();
+        VisibleWalls walls = new VisibleWalls(mesher, pvs);
+
+        // matrice con frustum che contiene tutto: resta solo il PVS
+        float[] everything = {0, 0, 0, 0,  0, 0, 0, 0,  0, 0, 0, 0,  0, 0, 0, 1};
+        int row = 1, col = 1;
+        float x = col - DIM / 2f + 0.5f, z = row - DIM / 2f + 0.5f;
+
+        assertTrue(walls.update(everything, x, z, 180));
+        assertTrue(walls.isUsingPvs());
+        assertEquals(pvs.count(row, col, 2) * 6, walls.getNumVisibleIndices());
+        assertFalse(walls.update(everything, x, z, 180));
+
+        assertTrue(walls.update(everything, x, z, 135));   // rotazione: unione di 2 direzioni
+        Set<Integer> union = new HashSet<>();
+        for (int q : entry(pvs, row, col, 1)) union.add(q);
+        for (int q : entry(pvs, row, col, 2)) union.add(q);
+        assertEquals(union.size() * 6, walls.getNumVisibleIndices());
+    }
+
+}
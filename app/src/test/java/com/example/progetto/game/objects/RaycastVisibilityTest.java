@@ -0,0 +1,108 @@
+package com.example.progetto.game.objects;
+
+import com.example.progetto.game.maze.GridRaycaster;
+import com.example.progetto.game.maze.Kruskal;
+import com.example.progetto.game.maze.MazeGrid;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test del raycasting dei muri a runtime (RaycastVisibility); raggi al ms: RaycastBenchmark nel
+ * modulo benchmarks.
+ */
+public class RaycastVisibilityTest {
+
+    private static MazeGrid maze(int dim, long seed) {
+        MazeGrid grid = new MazeGrid(dim, dim);
+        new Kruskal().carve(grid, dim - 2, 1, new SplittableRandom(seed));
+        return grid;
+    }
+
+    /** Quad presenti negli intervalli da disegnare. */
+    private static boolean[] drawnQuads(WallVisibility vis, int numQuads) {
+        boolean[] res = new boolean[numQuads];
+        for (int i = 0; i < vis.getNumRanges(); i++) {
+            for (int idx = vis.getRangeFirst()[i]; idx < vis.getRangeFirst()[i] + vis.getRangeCount()[i]; idx += 6) {
+                res[idx / 6] = true;
+            }
+        }
+        return res;
+    }
+
+    @Test
+    public void fan_coversWallsSeenByADenseFan() {
+        int dim = 101;
+        MazeGrid grid = maze(dim, 1L);
+        WallMesher mesher = new WallMesher(grid);
+        int[] faceToQuad = mesher.buildFaceToQuad();
+        RaycastVisibility vis = new RaycastVisibility(grid, mesher);
+        vis.onProjectionChanged(1.5f);
+        float halfFov = (float) Math.atan(Math.tan(Math.toRadians(22.5)) * 1.5);
+
+        GridRaycaster dense = new GridRaycaster(grid);
+        SplittableRandom rnd = new SplittableRandom(2L);
+        int checked = 0;
+
+        for (int trial = 0; trial < 100; trial++) {
+            int row = 1 + rnd.nextInt(dim - 2), col = 1 + rnd.nextInt(dim - 2);
+            if (!grid.isWalkable(row, col)) continue;
+            float x = col + (float) rnd.nextDouble() - dim / 2f;
+            float z = row + (float) rnd.nextDouble() - dim / 2f;
+            float rot = (float) (rnd.nextDouble() * 360);
+
+            assertTrue(vis.update(null, x, z, rot));
+            boolean[] drawn = drawnQuads(vis, mesher.getNumQuads());
+
+            double yaw = Math.toRadians(-(rot + 90));
+            for (int j = 0; j < 4000; j++) {
+                double angle = yaw - halfFov + 2 * halfFov * j / 3999;
+                if (!dense.cast(x + dim / 2f, z + dim / 2f, (float) Math.cos(angle), (float) Math.sin(angle), 100)) continue;
+                if (dense.getHitDistance() > 30) continue;
+                int q = faceToQuad[(dense.getHitRow() * dim + dense.getHitCol()) * 4 + dense.getHitFace()];
+                assertTrue(q >= 0);
+                assertTrue("quad " + q + " visibile ma non disegnato", drawn[q]);
+                checked++;
+            }
+        }
+        assertTrue(checked > 0);
+    }
+
+    @Test
+    public void update_onlyWhenCameraMoves() {
+        MazeGrid grid = maze(31, 3L);
+        RaycastVisibility vis = new RaycastVisibility(grid, new WallMesher(grid), 64, 100);
+
+        assertTrue(vis.update(null, -14f, 14f, 0));
+        assertFalse(vis.update(null, -14f, 14f, 0));
+        assertTrue(vis.update(null, -14f, 13.9f, 0));
+        assertTrue(vis.update(null, -14f, 13.9f, 5));
+        vis.onProjectionChanged(2f);
+        assertTrue(vis.update(null, -14f, 13.9f, 5));
+        assertEquals(4 * 64, vis.getRaysCast());
+    }
+
+    @Test
+    public void update_doesNotAllocate() {
+        MazeGrid grid = maze(201, 4L);
+        RaycastVisibility vis = new RaycastVisibility(grid, new WallMesher(grid));
+
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        long id = Thread.currentThread().getId();
+
+        for (int i = 0; i < 2000; i++) vis.update(null, -99.5f + i * 1e-3f, 99.5f, i);   // warm-up
+
+        long before = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < 2000; i++) vis.update(null, -99.5f + i * 1e-3f, 99.5f, i + 0.5f);
+        long allocated = threads.getThreadAllocatedBytes(id) - before;
+
+        assertTrue("allocati " + allocated + " byte", allocated < 1024);
+    }
+
+}
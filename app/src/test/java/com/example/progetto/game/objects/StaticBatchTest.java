@@ -0,0 +1,144 @@
+package com.example.progetto.game.objects;
+
+import static android.opengl.GLES20.GL_UNSIGNED_SHORT;
+
+import com.example.progetto.game.maze.Kruskal;
+import com.example.progetto.game.maze.MazeGrid;
+import com.example.progetto.ogles.Geometry3D;
+import com.example.progetto.ogles.camera.CameraOrtho2D;
+import com.example.progetto.ogles.gl.GLApi;
+import com.example.progetto.ogles.gl.GLBridge;
+import com.example.progetto.ogles.gl.RecordingGLApi;
+import com.example.progetto.ogles.shader.MaterialBasic;
+import com.example.progetto.ogles.shader.ShaderProgram;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test dei chunk statici dei muri (StaticBatchBuilder, StaticBatch).
+ */
+public class StaticBatchTest {
+
+    private static final int DIM = 101;
+    private static final int CHUNK = StaticBatchBuilder.DEFAULT_CHUNK_SIZE;
+
+    private RecordingGLApi gl;
+    private GLApi previousApi;
+    private WallMesher mesher;
+    private StaticBatch batch;
+
+    @Before
+    public void setUp() {
+        gl = new RecordingGLApi();
+        previousApi = GLBridge.get();
+        GLBridge.set(gl);
+
+        MazeGrid grid = new MazeGrid(DIM, DIM);
+        new Kruskal().carve(grid, DIM - 2, 1, new SplittableRandom(5));
+        mesher = new WallMesher(grid, CHUNK);
+        batch = new StaticBatchBuilder(mesher).build();
+    }
+
+    @After
+    public void tearDown() {
+        GLBridge.set(previousApi);
+    }
+
+    @Test
+    public void chunks_copyWorldSpaceVerticesWithLocalShortIndices() {
+        float[] src = mesher.getVertices();
+        int stride = WallMesher.FLOATS_PER_VERTEX;
+        int tiles = (DIM + CHUNK - 1) / CHUNK;
+        assertEquals(tiles * tiles, batch.getNumChunks());
+
+        int totalIndices = 0;
+        for (int i = 0; i < batch.getNumChunks(); i++) {
+            StaticBatch.Chunk chunk = batch.getChunk(i);
+            assertEquals(totalIndices, chunk.getFirstIndex());
+            totalIndices += chunk.getNumIndices();
+
+            Geometry3D g = chunk.getGeometry();
+            assertEquals(GL_UNSIGNED_SHORT, g.getIndexType());
+            assertEquals(chunk.getNumIndices(), g.getNumIndices());
+            assertFalse(g.isUploaded());
+
+            // vertici identici alla fetta della mesh globale
+            FloatBuffer v = chunk.getVertices().asFloatBuffer();
+            int from = chunk.getFirstIndex() / 6 * 4 * stride;
+            int numVertices = v.capacity() / stride;
+            for (int k = 0; k < v.capacity(); k++) {
+                assertEquals(src[from + k], v.get(k), 0f);
+            }
+
+            // bounding box dentro il chunk e che contiene tutti i vertici
+            float[] b = chunk.getBounds();
+            float x0 = chunk.getTileCol() * CHUNK - DIM / 2f;
+            float z0 = chunk.getTileRow() * CHUNK - DIM / 2f;
+            assertTrue(b[0] >= x0 - 1e-4f && b[3] <= x0 + CHUNK + 1e-4f);
+            assertTrue(b[2] >= z0 - 1e-4f && b[5] <= z0 + CHUNK + 1e-4f);
+            assertEquals(-0.5f, b[1], 0f);
+            assertEquals(0.5f, b[4], 0f);
+            for (int k = 0; k < numVertices; k++) {
+                for (int a = 0; a < 3; a++) {
+                    float c = v.get(k * stride + a);
+                    assertTrue(c >= b[a] && c <= b[a + 3]);
+                }
+            }
+
+            ByteBuffer idx = chunk.getIndices();
+            for (int k = 0; k < chunk.getNumIndices(); k++) {
+                int index = idx.getShort(k * 2) & 0xFFFF;
+                assertTrue(index < numVertices);
+            }
+        }
+        assertEquals(mesher.getIndices().length, totalIndices);
+        assertEquals(totalIndices, batch.getNumIndices());
+    }
+
+    @Test
+    public void draw_splitsGlobalRangesAtChunkBorders() {
+        for (Geometry3D g : batch.getGeometries()) g.upload();
+        MaterialBasic material = new MaterialBasic(new ShaderProgram(MaterialBasic.VSHADER,
+                MaterialBasic.FSHADER, MaterialBasic.UNIFORMS, false), new float[]{1, 1, 1});
+        gl.reset();
+
+        StaticBatch.Chunk c0 = batch.getChunk(0);
+        StaticBatch.Chunk c1 = batch.getChunk(1);
+        int end0 = c0.getFirstIndex() + c0.getNumIndices();
+
+        // un intervallo a cavallo tra chunk 0 e 1, uno dentro il chunk 1
+        int[] first = {end0 - 12, end0 + 24};
+        int[] count = {18, 6};
+        batch.draw(new CameraOrtho2D(), material, first, count, 2);
+
+        assertEquals(1, gl.count("glUniformMatrix4fv"));
+        assertEquals(3, gl.getDraws().size());
+        assertEquals(3, batch.getDrawCalls());
+
+        RecordingGLApi.DrawCall d0 = gl.getDraws().get(0);
+        assertEquals(12, d0.count);
+        assertEquals((c0.getNumIndices() - 12) * Short.BYTES, d0.offset);
+        assertEquals(c0.getGeometry().getVao()[0], d0.vao);
+
+        RecordingGLApi.DrawCall d1 = gl.getDraws().get(1);
+        assertEquals(6, d1.count);
+        assertEquals(0, d1.offset);
+        assertEquals(c1.getGeometry().getVao()[0], d1.vao);
+
+        RecordingGLApi.DrawCall d2 = gl.getDraws().get(2);
+        assertEquals(24 * Short.BYTES, d2.offset);
+        assertEquals(c1.getGeometry().getVao()[0], d2.vao);
+
+        // il VAO del chunk 1 è bindato una volta sola (+ unbind finale)
+        assertEquals(3, gl.count("glBindVertexArray"));
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.example.progetto.game.objects;
+
+import com.example.progetto.game.maze.Kruskal;
+import com.example.progetto.game.maze.MazeGrid;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test della mesh delle pareti generata da WallMesher.
+ */
+public class WallMesherTest {
+
+    private static MazeGrid maze(int dim, long seed) {
+        MazeGrid grid = new MazeGrid(dim, dim);
+        new Kruskal().carve(grid, dim - 2, 1, new SplittableRandom(seed));
+        grid.setWalkable(dim - 1, 1);       // start
+        grid.setWalkable(0, dim - 2);       // end
+        return grid;
+    }
+
+    /** Numero di facce unitarie tra un muro e una cella camminabile (dentro la griglia). */
+    private static int exposedFaces(MazeGrid grid) {
+        int n = 0;
+        for (int r = 0; r < grid.getRows(); r++) {
+            for (int c = 0; c < grid.getCols(); c++) {
+                if (grid.isWalkable(r, c)) continue;
+                if (r > 0 && grid.isWalkable(r - 1, c)) n++;
+                if (r < grid.getRows() - 1 && grid.isWalkable(r + 1, c)) n++;
+                if (c > 0 && grid.isWalkable(r, c - 1)) n++;
+                if (c < grid.getCols() - 1 && grid.isWalkable(r, c + 1)) n++;
+            }
+        }
+        return n;
+    }
+
+    @Test
+    public void corridor_mergesIntoFourQuads() {
+        MazeGrid grid = new MazeGrid(3, 5);
+        grid.setWalkable(1, 1);
+        grid.setWalkable(1, 2);
+        grid.setWalkable(1, 3);
+
+        WallMesher mesher = new WallMesher(grid);
+
+        assertEquals(4, mesher.getNumQuads());
+        assertEquals(8, mesher.getNumTriangles());
+        assertEquals(4 * 4 * WallMesher.FLOATS_PER_VERTEX, mesher.getVertices().length);
+        assertEquals(4 * 6, mesher.getIndices().length);
+        assertEquals(144, WallMesher.perCubeTriangles(12));
+    }
+
+    @Test
+    public void quads_coverExactlyTheExposedFaces_andFaceTheCorridor() {
+        MazeGrid grid = maze(131, 5L);   // > 64 colonne: serie a cavallo tra due word
+        WallMesher mesher = new WallMesher(grid, grid.getCols());   // un solo tile
+        float[] v = mesher.getVertices();
+        int stride = WallMesher.FLOATS_PER_VERTEX;
+
+        int totalLength = 0;
+        Set<String> starts = new HashSet<>();
+        Set<String> ends = new HashSet<>();
+
+        for (int q = 0; q < mesher.getNumQuads(); q++) {
+            int a = q * 4 * stride;
+            int b = a + stride;
+            float ax = v[a], az = v[a + 2], bx = v[b], bz = v[b + 2];
+            float length = v[b + 3];
+
+            assertEquals(Math.abs(bx - ax) + Math.abs(bz - az), length, 1e-4f);
+            assertEquals(1f, v[a + 2 * stride + 4], 0f);   // v in [0, 1]
+            totalLength += (int) length;
+
+            // normale = (b - a) x up = (-dz, 0, dx) normalizzata
+            float nx = -(bz - az) / length;
+            float nz = (bx - ax) / length;
+            float mx = (ax + bx) / 2f, mz = (az + bz) / 2f;
+            int frontCol = (int) Math.floor(mx + nx * 0.5f + grid.getCols() / 2f);
+            int frontRow = (int) Math.floor(mz + nz * 0.5f + grid.getRows() / 2f);
+            int backCol = (int) Math.floor(mx - nx * 0.5f + grid.getCols() / 2f);
+            int backRow = (int) Math.floor(mz - nz * 0.5f + grid.getRows() / 2f);
+            assertTrue(grid.isWalkable(frontRow, frontCol));
+            assertFalse(grid.isWalkable(backRow, backCol));
+
+            // greedy: nessun quad prosegue esattamente un altro quad con la stessa normale
+            String dir = nx + "," + nz + ":";
+            starts.add(dir + ax + "," + az);
+            ends.add(dir + bx + "," + bz);
+        }
+
+        assertEquals(exposedFaces(grid), totalLength);
+        starts.retainAll(ends);
+        assertTrue("quad non uniti: " + starts, starts.isEmpty());
+    }
+
+    @Test
+    public void tiles_groupQuadsInContiguousIndexRanges() {
+        MazeGrid grid = maze(131, 6L);
+        WallMesher mesher = new WallMesher(grid, 16);
+        float[] v = mesher.getVertices();
+        int stride = WallMesher.FLOATS_PER_VERTEX;
+        int[] first = mesher.getTileFirstIndex();
+        int[] count = mesher.getTileIndexCount();
+
+        assertEquals(9, mesher.getTilesX());
+        assertEquals(9 * 9, first.length);
+
+        int next = 0;
+        for (int t = 0; t < first.length; t++) {
+            assertEquals(next, first[t]);
+            next += count[t];
+
+            // ogni quad del tile è dentro i limiti (in celle) del tile
+            float minX = (t % 9) * 16 - 65.5f, minZ = (t / 9) * 16 - 65.5f;
+            for (int i = first[t]; i < first[t] + count[t]; i += 6) {
+                int a = (i / 6) * 4 * stride;
+                for (int k = 0; k < 4; k++) {
+                    float x = v[a + k * stride], z = v[a + k * stride + 2];
+                    assertTrue(x >= minX && x <= minX + 16);
+                    assertTrue(z >= minZ && z <= minZ + 16);
+                }
+            }
+        }
+        assertEquals(mesher.getIndices().length, next);
+
+        // con i tile cambia solo lo spezzamento delle serie, non la superficie coperta
+        WallMesher single = new WallMesher(grid, grid.getCols());
+        assertTrue(mesher.getNumQuads() >= single.getNumQuads());
+    }
+
+    @Test
+    public void triangleReduction_versusPerCube() {
+        for (int dim : new int[]{15, 501}) {
+            MazeGrid grid = maze(dim, 11L);
+            WallMesher mesher = new WallMesher(grid);
+            long perCube = WallMesher.perCubeTriangles(grid.countWalls());
+
+            assertTrue(mesher.getNumTriangles() * 4L < perCube);
+        }
+    }
+
+}
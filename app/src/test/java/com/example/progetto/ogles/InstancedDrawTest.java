@@ -0,0 +1,127 @@
+package com.example.progetto.ogles;
+
+import com.example.progetto.ogles.camera.CameraOrtho2D;
+import com.example.progetto.ogles.gl.GLApi;
+import com.example.progetto.ogles.gl.GLBridge;
+import com.example.progetto.ogles.gl.RecordingGLApi;
+import com.example.progetto.ogles.shader.MaterialBasic;
+import com.example.progetto.ogles.shader.ShaderProgram;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Confronto delle drawcall tra il disegno per oggetto e quello istanziato (GL registrato).
+ */
+public class InstancedDrawTest {
+
+    private static final int NUM_WALLS = 1000;
+
+    private RecordingGLApi gl;
+    private GLApi previousApi;
+    private Geometry3D plane;
+    private MaterialBasic material;
+    private CameraOrtho2D camera;
+
+    @Before
+    public void setUp() {
+        gl = new RecordingGLApi();
+        previousApi = GLBridge.get();
+        GLBridge.set(gl);
+
+        plane = new Geometry3D(new float[]{
+                -0.5f, 0.0f, 0.5f, 0.0f, 0.0f,
+                0.5f, 0.0f, 0.5f, 1.0f, 0.0f,
+                0.5f, 0.0f, -0.5f, 1.0f, 1.0f,
+                -0.5f, 0.0f, -0.5f, 0.0f, 1.0f,
+        }, new int[]{0, 1, 2, 0, 2, 3});
+        material = new MaterialBasic(new ShaderProgram(MaterialBasic.VSHADER_INSTANCED,
+                MaterialBasic.FSHADER, MaterialBasic.UNIFORMS_INSTANCED, false), new float[]{1, 1, 1});
+        camera = new CameraOrtho2D();
+        gl.reset();
+    }
+
+    @After
+    public void tearDown() {
+        GLBridge.set(previousApi);
+    }
+
+    private static float[] instances(int n) {
+        float[] res = new float[n * Geometry3D.FLOATS_PER_INSTANCE];
+        for (int i = 0; i < n; i++) {
+            res[i * 4] = i;
+            res[i * 4 + 1] = -0.5f;
+            res[i * 4 + 2] = -i;
+            res[i * 4 + 3] = 1f;
+        }
+        return res;
+    }
+
+    @Test
+    public void perObjectPath_oneDrawAndOneModelMatrixPerWall() {
+        Object3D[] walls = new Object3D[NUM_WALLS];
+        for (int i = 0; i < NUM_WALLS; i++) {
+            walls[i] = new Object3D(plane, material);
+            walls[i].setPosition(i, -0.5f, -i);
+            walls[i].updateModelM();
+        }
+
+        for (Object3D obj : walls) {
+            obj.draw(camera);
+        }
+
+        assertEquals(NUM_WALLS, gl.count("glDrawElements"));
+        assertEquals(NUM_WALLS, gl.count("glUniformMatrix4fv"));
+    }
+
+    @Test
+    public void instancedPath_oneDrawAndNoMatrixPerFrame() {
+        Geometry3D walls = new Geometry3D(plane, instances(NUM_WALLS), true);
+
+        // upload: attributo per-istanza con divisor 1
+        assertEquals(1, gl.getDivisors().size());
+        assertArrayEquals(new int[]{Geometry3D.LOC_INSTANCE, 1}, gl.getDivisors().get(0));
+        assertEquals(3, gl.count("glBufferData"));
+        gl.reset();
+
+        // un frame
+        gl.glBindVertexArray(walls.getVao()[0]);
+        camera.bindUniforms();
+        material.updateUniforms();
+        walls.drawInstanced();
+
+        assertEquals(0, gl.count("glDrawElements"));
+        assertEquals(1, gl.count("glDrawElementsInstanced"));
+        // VP nel blocco Camera, color/texScaling nel blocco Material: nessuna glUniform*
+        assertEquals(0, gl.count("glUniformMatrix4fv"));
+        assertEquals(2, gl.count("glBindBufferBase"));
+        assertEquals(NUM_WALLS, gl.getDraws().get(0).instanceCount);
+        assertEquals(plane.getNumIndices(), gl.getDraws().get(0).count);
+
+        // VAO proprio: la geometria originale resta non istanziata
+        assertTrue(plane.getVao()[0] != walls.getVao()[0]);
+        assertFalse(plane.isInstanced());
+    }
+
+    @Test
+    public void release_deletesInstanceBufferToo() {
+        Geometry3D walls = new Geometry3D(plane, instances(4), true);
+        gl.reset();
+
+        walls.release();
+        walls.release();   // già rilasciata: nessuna chiamata
+
+        assertEquals(1, gl.count("glDeleteBuffers"));
+        assertEquals(1, gl.count("glDeleteVertexArrays"));
+        assertFalse(walls.isUploaded());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void drawInstanced_onPlainGeometry_fails() {
+        plane.drawInstanced();
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.example.progetto.ogles.camera;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test del seqlock dello stato della camera (CameraState).
+ */
+public class CameraStateTest {
+
+    private static final int READERS = 3;
+    private static final int WRITES = 200000;
+
+    @Test
+    public void camera_publishesEveryChange() {
+        CameraPersp3D camera = new CameraPersp3D(1f, 0f, 2f, 0);
+        float[] s = new float[CameraState.SIZE];
+
+        camera.getState().read(s);
+        assertEquals(1f, s[CameraState.X], 0f);
+        assertEquals(2f, s[CameraState.Z], 0f);
+        assertEquals(-1f, s[CameraState.DIR_Z], 0f);     // 0° guarda verso z negativa
+
+        int writes = camera.getState().getWrites();
+        camera.setPosition(3f, 0f, 4f);
+        camera.setRotationY(90);
+        assertEquals(writes + 2, camera.getState().read(s));
+        assertEquals(3f, s[CameraState.X], 0f);
+        assertEquals(90f, s[CameraState.ROTATION_Y], 0f);
+        assertEquals(camera.getLookAtDirection()[0], s[CameraState.DIR_X], 0f);
+    }
+
+    @Test
+    public void stress_readersNeverSeeTornStates() throws InterruptedException {
+        final CameraState state = new CameraState();
+        final AtomicBoolean stop = new AtomicBoolean(false);
+        final AtomicLong torn = new AtomicLong();
+        final AtomicLong reads = new AtomicLong();
+        final CountDownLatch ready = new CountDownLatch(READERS + 1);
+
+        // scrittore: ogni tupla ha tutti i valori legati allo stesso 'i' (anche la prima, scritta
+        // prima di avviare i lettori)
+        state.write(0, 0, 0, 0, 1, 2);
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                ready.countDown();
+                try {
+                    ready.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 1; i <= WRITES; i++) {
+                    int v = i & 0xFFFFF;
+                    state.write(v, 2 * v, 3 * v, -v, v + 1, v + 2);
+                }
+                stop.set(true);
+            }
+        });
+
+        Thread[] readers = new Thread[READERS];
+        for (int r = 0; r < READERS; r++) {
+            readers[r] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    float[] s = new float[CameraState.SIZE];
+                    ready.countDown();
+                    long n = 0;
+                    int lastSeq = 0;
+                    do {
+                        int seq = state.read(s);
+                        float i = s[CameraState.X];
+                        if ( (s[CameraState.Y] != 2 * i) || (s[CameraState.Z] != 3 * i) ||
+                             (s[CameraState.ROTATION_Y] != -i) || (s[CameraState.DIR_X] != i + 1) ||
+                             (s[CameraState.DIR_Z] != i + 2) || (seq < lastSeq) ){
+                            torn.incrementAndGet();
+                        }
+                        lastSeq = seq;
+                        n++;
+                    } while (!stop.get());
+                    reads.addAndGet(n);
+                }
+            });
+        }
+
+        writer.start();
+        for (Thread t : readers) t.start();
+        writer.join();
+        for (Thread t : readers) t.join();
+
+        assertEquals(0, torn.get());
+        assertTrue(reads.get() >= READERS);
+        assertEquals(WRITES + 1, state.getWrites());
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.example.progetto.ogles.camera;
+
+import com.example.progetto.ogles.gl.GLApi;
+import com.example.progetto.ogles.gl.GLBridge;
+import com.example.progetto.ogles.gl.RecordingGLApi;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test della versione della camera e delle copie nel blocco Camera saltate a camera ferma.
+ */
+public class CameraVersionTest {
+
+    private RecordingGLApi gl;
+    private GLApi previousApi;
+
+    @Before
+    public void setUp() {
+        gl = new RecordingGLApi();
+        previousApi = GLBridge.get();
+        GLBridge.set(gl);
+    }
+
+    @After
+    public void tearDown() {
+        GLBridge.set(previousApi);
+    }
+
+    @Test
+    public void updateViewAndPvM_bumpsVersion() {
+        CameraPersp3D camera = new CameraPersp3D(0, 0, 0, 0);
+        int v0 = camera.getVersion();
+
+        camera.setPosition(1, 0, 2);       // solo la posizione: matrici non ancora ricalcolate
+        assertEquals(v0, camera.getVersion());
+
+        camera.updateViewAndPvM();
+        assertEquals(v0 + 1, camera.getVersion());
+    }
+
+    @Test
+    public void bindUniforms_copiesOncePerCameraChange() {
+        CameraPersp3D camera = new CameraPersp3D(0, 0, 0, 0);
+        camera.updateViewAndPvM();
+
+        // frame con camera ferma dopo il primo: nessuna copia e nessun trasferimento
+        for (int frame = 0; frame < 3; frame++) {
+            camera.beginFrame();
+            for (int draw = 0; draw < 5; draw++) camera.bindUniforms();
+        }
+        camera.beginFrame();
+        assertEquals(0, camera.getLastFrameUniformUpdates());
+        assertEquals(5, camera.getLastFrameUniformUpdatesSkipped());
+        assertEquals(1, gl.count("glBufferData"));
+        assertEquals(0, gl.count("glBufferSubData"));
+
+        // la camera si muove: una copia nel frame, le altre bind la riusano
+        camera.setPosition(3, 0, 3);
+        camera.updateViewAndPvM();
+        for (int draw = 0; draw < 5; draw++) camera.bindUniforms();
+        camera.beginFrame();
+        assertEquals(1, camera.getLastFrameUniformUpdates());
+        assertEquals(4, camera.getLastFrameUniformUpdatesSkipped());
+        assertEquals(1, gl.count("glBufferSubData"));
+        assertEquals(3f, camera.getUniforms().getData().getFloat(64), 0f);
+    }
+
+}
@@ -0,0 +1,149 @@
+package com.example.progetto.ogles.gl;
+
+import static android.opengl.GLES20.GL_CULL_FACE;
+import static android.opengl.GLES20.GL_DEPTH_TEST;
+import static android.opengl.GLES20.GL_TEXTURE0;
+import static android.opengl.GLES20.GL_TEXTURE_2D;
+import static android.opengl.GLES20.GL_TRIANGLES;
+import static android.opengl.GLES20.GL_UNSIGNED_INT;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test di GLStateCache su un backend finto (RecordingGLApi).
+ */
+public class GLStateCacheTest {
+
+    private RecordingGLApi backend;
+    private GLStateCache cache;
+
+    @Before
+    public void setUp() {
+        backend = new RecordingGLApi();
+        cache = new GLStateCache(backend);
+    }
+
+    @Test
+    public void redundantProgramAndVaoBinds_areSkipped() {
+        cache.glUseProgram(3);
+        cache.glUseProgram(3);
+        cache.glBindVertexArray(7);
+        cache.glBindVertexArray(7);
+        cache.glBindVertexArray(0);
+        cache.glUseProgram(4);
+
+        assertEquals(2, backend.count("glUseProgram"));
+        assertEquals(2, backend.count("glBindVertexArray"));
+        assertEquals(4, cache.getIssued());
+        assertEquals(2, cache.getSkipped());
+    }
+
+    @Test
+    public void textures_areTrackedPerUnit() {
+        cache.glActiveTexture(GL_TEXTURE0);
+        cache.glBindTexture(GL_TEXTURE_2D, 10);
+        cache.glActiveTexture(GL_TEXTURE0 + 1);
+        cache.glBindTexture(GL_TEXTURE_2D, 20);
+        cache.glActiveTexture(GL_TEXTURE0);
+        cache.glBindTexture(GL_TEXTURE_2D, 10);      // già bindata sulla unit 0
+        cache.glActiveTexture(GL_TEXTURE0);
+
+        assertEquals(3, backend.count("glActiveTexture"));
+        assertEquals(2, backend.count("glBindTexture"));
+
+        // la delete fa l'unbind: lo stesso handle (riusato) va bindato di nuovo
+        cache.glDeleteTextures(1, new int[]{10}, 0);
+        cache.glBindTexture(GL_TEXTURE_2D, 10);
+        assertEquals(3, backend.count("glBindTexture"));
+    }
+
+    @Test
+    public void viewportScissorAndCaps_skipSameValues() {
+        for (int frame = 0; frame < 3; frame++) {
+            cache.glScissor(0, 0, 800, 600);
+            cache.glViewport(0, 0, 800, 600);
+            cache.glClearColor(0, 0.45f, 0.9f, 1f);
+            cache.glClear(0);
+            cache.glScissor(600, 0, 200, 200);
+            cache.glViewport(600, 0, 200, 200);
+            cache.glClearColor(0, 0.45f, 0.9f, 1f);
+            cache.glEnable(GL_DEPTH_TEST);
+            cache.glEnable(GL_CULL_FACE);
+        }
+        cache.glDisable(GL_CULL_FACE);
+
+        assertEquals(6, backend.count("glScissor"));
+        assertEquals(6, backend.count("glViewport"));
+        assertEquals(1, backend.count("glClearColor"));
+        assertEquals(3, backend.count("glClear"));      // mai scartata
+        assertEquals(2, backend.count("glEnable"));
+        assertEquals(1, backend.count("glDisable"));
+    }
+
+    @Test
+    public void invalidate_forcesNextCalls() {
+        cache.glUseProgram(3);
+        cache.glBindVertexArray(7);
+        cache.glEnable(GL_DEPTH_TEST);
+
+        cache.invalidate();
+        cache.glUseProgram(3);
+        cache.glBindVertexArray(7);
+        cache.glEnable(GL_DEPTH_TEST);
+
+        assertEquals(2, backend.count("glUseProgram"));
+        assertEquals(2, backend.count("glBindVertexArray"));
+        assertEquals(2, backend.count("glEnable"));
+    }
+
+    @Test
+    public void deleteProgramInUse_forcesNextUseProgram() {
+        cache.glUseProgram(3);
+        cache.glDeleteProgram(5);                   // non in uso: lo stato resta valido
+        cache.glUseProgram(3);
+        cache.glDeleteProgram(3);
+        cache.glUseProgram(3);                      // handle riusato da GL
+
+        assertEquals(2, backend.count("glUseProgram"));
+        assertEquals(2, backend.count("glDeleteProgram"));
+    }
+
+    @Test
+    public void shaderAndTextureUploads_areForwarded() {
+        cache.glActiveTexture(GL_TEXTURE0);
+        cache.glBindTexture(GL_TEXTURE_2D, 10);
+        cache.texImage2D(GL_TEXTURE_2D, 0, null, 0);
+        cache.glBindTexture(GL_TEXTURE_2D, 10);
+
+        int program = cache.glCreateProgram();
+        int[] status = new int[1];
+        cache.glGetProgramiv(program, 0, status, 0);
+
+        assertEquals(1, backend.count("texImage2D"));
+        assertEquals(1, backend.count("glBindTexture"));
+        assertEquals(1, backend.count("glCreateProgram"));
+        assertEquals(1, status[0]);
+        assertEquals(1, cache.getSkipped());         // solo la seconda glBindTexture
+    }
+
+    @Test
+    public void beginFrame_keepsCountersOfPreviousFrame() {
+        cache.glUseProgram(1);
+        cache.glUseProgram(1);
+        cache.glDrawElements(GL_TRIANGLES, 6, GL_UNSIGNED_INT, 0);
+        cache.beginFrame();
+
+        assertEquals(2, cache.getLastFrameIssued());
+        assertEquals(1, cache.getLastFrameSkipped());
+        assertEquals(0, cache.getIssued());
+        assertEquals(0, cache.getSkipped());
+
+        cache.glUseProgram(1);
+        assertEquals(1, cache.getSkipped());
+        assertEquals(1, backend.getDraws().size());
+    }
+
+}
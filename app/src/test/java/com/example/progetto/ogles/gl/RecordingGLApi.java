@@ -0,0 +1,294 @@
+package com.example.progetto.ogles.gl;
+
+import android.graphics.Bitmap;
+
+import java.nio.Buffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GLApi per i test JVM: non chiama OpenGL, registra le chiamate e genera handle progressivi.
+ */
+public class RecordingGLApi implements GLApi {
+
+    /** Drawcall registrata. */
+    public static class DrawCall {
+        public final int count;
+        public final int instanceCount;   // 1 per glDrawElements
+        public final int type;
+        public final int offset;          // in byte
+        public final int vao;             // VAO bindato al momento della drawcall
+
+        DrawCall(int count, int instanceCount, int type, int offset, int vao) {
+            this.count = count;
+            this.instanceCount = instanceCount;
+            this.type = type;
+            this.offset = offset;
+            this.vao = vao;
+        }
+    }
+
+    private final Map<String, Integer> calls = new HashMap<>();
+    private final List<DrawCall> draws = new ArrayList<>();
+    private final List<int[]> divisors = new ArrayList<>();
+    private int nextHandle = 1;
+    private int boundVao = 0;
+
+    private void record(String name) {
+        Integer n = calls.get(name);
+        calls.put(name, n == null ? 1 : n + 1);
+    }
+
+    /** Numero di chiamate alla funzione 'name' (es. "glDrawElements"). */
+    public int count(String name) {
+        Integer n = calls.get(name);
+        return n == null ? 0 : n;
+    }
+
+    public List<DrawCall> getDraws() { return draws; }
+
+    public List<int[]> getDivisors() { return divisors; }
+
+    public void reset() {
+        calls.clear();
+        draws.clear();
+        divisors.clear();
+    }
+
+    @Override
+    public void glUseProgram(int program) { record("glUseProgram"); }
+
+    @Override
+    public void glEnable(int cap) { record("glEnable"); }
+
+    @Override
+    public void glDisable(int cap) { record("glDisable"); }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height) { record("glViewport"); }
+
+    @Override
+    public void glScissor(int x, int y, int width, int height) { record("glScissor"); }
+
+    @Override
+    public void glClearColor(float red, float green, float blue, float alpha) { record("glClearColor"); }
+
+    @Override
+    public void glClear(int mask) { record("glClear"); }
+
+    @Override
+    public void glDepthFunc(int func) { record("glDepthFunc"); }
+
+    @Override
+    public void glCullFace(int mode) { record("glCullFace"); }
+
+    @Override
+    public void glFrontFace(int mode) { record("glFrontFace"); }
+
+    @Override
+    public void glBindVertexArray(int vao) {
+        record("glBindVertexArray");
+        boundVao = vao;
+    }
+
+    @Override
+    public void glActiveTexture(int texture) { record("glActiveTexture"); }
+
+    @Override
+    public void glBindTexture(int target, int texture) { record("glBindTexture"); }
+
+    @Override
+    public void glPixelStorei(int pname, int param) { record("glPixelStorei"); }
+
+    @Override
+    public void glGenTextures(int n, int[] textures, int offset) {
+        record("glGenTextures");
+        for (int i = 0; i < n; i++) textures[offset + i] = nextHandle++;
+    }
+
+    @Override
+    public void glDeleteTextures(int n, int[] textures, int offset) { record("glDeleteTextures"); }
+
+    @Override
+    public void glTexParameteri(int target, int pname, int param) { record("glTexParameteri"); }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                             int format, int type, Buffer pixels) {
+        record("glTexImage2D");
+    }
+
+    @Override
+    public void glTexParameterf(int target, int pname, float param) { record("glTexParameterf"); }
+
+    @Override
+    public void glGenerateMipmap(int target) { record("glGenerateMipmap"); }
+
+    @Override
+    public void texImage2D(int target, int level, Bitmap bitmap, int border) { record("texImage2D"); }
+
+    @Override
+    public int glCreateShader(int type) {
+        record("glCreateShader");
+        return nextHandle++;
+    }
+
+    @Override
+    public void glShaderSource(int shader, String string) { record("glShaderSource"); }
+
+    @Override
+    public void glCompileShader(int shader) { record("glCompileShader"); }
+
+    /** Compilazione sempre riuscita (GL_COMPILE_STATUS = 1). */
+    @Override
+    public void glGetShaderiv(int shader, int pname, int[] params, int offset) {
+        record("glGetShaderiv");
+        params[offset] = 1;
+    }
+
+    @Override
+    public String glGetShaderInfoLog(int shader) {
+        record("glGetShaderInfoLog");
+        return "";
+    }
+
+    @Override
+    public void glDeleteShader(int shader) { record("glDeleteShader"); }
+
+    @Override
+    public int glCreateProgram() {
+        record("glCreateProgram");
+        return nextHandle++;
+    }
+
+    @Override
+    public void glAttachShader(int program, int shader) { record("glAttachShader"); }
+
+    @Override
+    public void glDetachShader(int program, int shader) { record("glDetachShader"); }
+
+    @Override
+    public void glLinkProgram(int program) { record("glLinkProgram"); }
+
+    /** Link sempre riuscito (GL_LINK_STATUS = 1). */
+    @Override
+    public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+        record("glGetProgramiv");
+        params[offset] = 1;
+    }
+
+    @Override
+    public String glGetProgramInfoLog(int program) {
+        record("glGetProgramInfoLog");
+        return "";
+    }
+
+    @Override
+    public void glDeleteProgram(int program) { record("glDeleteProgram"); }
+
+    @Override
+    public int glGetUniformLocation(int program, String name) {
+        record("glGetUniformLocation");
+        return nextHandle++;
+    }
+
+    /** Nessun uniform block (GL_INVALID_INDEX). */
+    @Override
+    public int glGetUniformBlockIndex(int program, String uniformBlockName) {
+        record("glGetUniformBlockIndex");
+        return -1;
+    }
+
+    @Override
+    public void glUniformBlockBinding(int program, int uniformBlockIndex, int uniformBlockBinding) {
+        record("glUniformBlockBinding");
+    }
+
+    @Override
+    public int glGetError() {
+        record("glGetError");
+        return 0;
+    }
+
+    @Override
+    public void glGetFloatv(int pname, float[] params, int offset) { record("glGetFloatv"); }
+
+    @Override
+    public void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset) {
+        record("glUniformMatrix4fv");
+    }
+
+    @Override
+    public void glUniform1i(int location, int x) { record("glUniform1i"); }
+
+    @Override
+    public void glUniform2f(int location, float x, float y) { record("glUniform2f"); }
+
+    @Override
+    public void glUniform3f(int location, float x, float y, float z) { record("glUniform3f"); }
+
+    @Override
+    public void glGenVertexArrays(int n, int[] arrays, int offset) {
+        record("glGenVertexArrays");
+        for (int i = 0; i < n; i++) arrays[offset + i] = nextHandle++;
+    }
+
+    @Override
+    public void glDeleteVertexArrays(int n, int[] arrays, int offset) { record("glDeleteVertexArrays"); }
+
+    @Override
+    public void glGenBuffers(int n, int[] buffers, int offset) {
+        record("glGenBuffers");
+        for (int i = 0; i < n; i++) buffers[offset + i] = nextHandle++;
+    }
+
+    @Override
+    public void glDeleteBuffers(int n, int[] buffers, int offset) { record("glDeleteBuffers"); }
+
+    @Override
+    public void glBindBuffer(int target, int buffer) { record("glBindBuffer"); }
+
+    @Override
+    public void glBufferData(int target, int size, Buffer data, int usage) { record("glBufferData"); }
+
+    @Override
+    public void glBufferSubData(int target, int offset, int size, Buffer data) { record("glBufferSubData"); }
+
+    @Override
+    public void glBindBufferBase(int target, int index, int buffer) { record("glBindBufferBase"); }
+
+    @Override
+    public void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, int offset) {
+        record("glVertexAttribPointer");
+    }
+
+    @Override
+    public void glEnableVertexAttribArray(int index) { record("glEnableVertexAttribArray"); }
+
+    @Override
+    public void glVertexAttribDivisor(int index, int divisor) {
+        record("glVertexAttribDivisor");
+        divisors.add(new int[]{index, divisor});
+    }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, int offset) {
+        record("glDrawElements");
+        draws.add(new DrawCall(count, 1, type, offset, boundVao));
+    }
+
+    @Override
+    public void glDrawElementsInstanced(int mode, int count, int type, int offset, int instanceCount) {
+        record("glDrawElementsInstanced");
+        draws.add(new DrawCall(count, instanceCount, type, offset, boundVao));
+    }
+
+    @Override
+    public void glDrawArraysInstanced(int mode, int first, int count, int instanceCount) {
+        record("glDrawArraysInstanced");
+        draws.add(new DrawCall(count, instanceCount, 0, first, boundVao));
+    }
+
+}
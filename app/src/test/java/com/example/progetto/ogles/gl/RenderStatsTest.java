@@ -0,0 +1,124 @@
+package com.example.progetto.ogles.gl;
+
+import static android.opengl.GLES20.GL_TEXTURE0;
+import static android.opengl.GLES20.GL_TEXTURE_2D;
+import static android.opengl.GLES20.GL_TRIANGLES;
+import static android.opengl.GLES20.GL_UNSIGNED_INT;
+import static android.opengl.GLES30.GL_UNIFORM_BUFFER;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test delle statistiche per frame (RenderStats) e del loro aggiornamento da GLStateCache.
+ */
+public class RenderStatsTest {
+
+    private static final long MS = 1000000L;
+
+    @Test
+    public void ringBuffer_keepsLastFramesAndPhases() {
+        RenderStats stats = new RenderStats();
+        long t = 0;
+        for (int i = 1; i <= RenderStats.HISTORY + 10; i++) {
+            stats.beginFrame(t);
+            stats.add(RenderStats.COUNTER_DRAW_CALLS, i);
+            stats.endFrame(t + i * 1000);
+            t += 20 * MS;
+        }
+
+        assertEquals(RenderStats.HISTORY + 10, stats.getFrames());
+        assertEquals(RenderStats.HISTORY, stats.getHistorySize());
+        assertEquals((RenderStats.HISTORY + 10) * 1000, stats.getFrameNs(0));
+        assertEquals(RenderStats.HISTORY + 9, stats.getCounter(1, RenderStats.COUNTER_DRAW_CALLS));
+        assertEquals(11 * 1000, stats.getFrameNs(RenderStats.HISTORY - 1));     // più vecchio
+        try {
+            stats.getFrameNs(RenderStats.HISTORY);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+            // sovrascritto
+        }
+    }
+
+    @Test
+    public void percentilesAndJank_fromHistogram() {
+        RenderStats stats = new RenderStats();
+        assertEquals(0, stats.getPercentileNs(50));
+
+        // 90 frame da 4 ms, 8 da 20 ms (jank), 2 da 100 ms (jank grave, overflow)
+        record(stats, 90, 4 * MS);
+        record(stats, 8, 20 * MS);
+        record(stats, 2, 100 * MS);
+
+        assertEquals(4 * MS + RenderStats.BUCKET_NS, stats.getPercentileNs(50));
+        assertEquals(20 * MS + RenderStats.BUCKET_NS, stats.getPercentileNs(95));
+        assertEquals(100 * MS, stats.getPercentileNs(99));
+        assertEquals(10, stats.getJankFrames());
+        assertEquals(2, stats.getSevereJankFrames());
+        assertTrue(stats.summary(new StringBuilder()).toString().contains("jank 10/2"));
+
+        stats.reset();
+        assertEquals(0, stats.getFrames());
+        assertEquals(0, stats.getJankFrames());
+    }
+
+    @Test
+    public void stateCache_countsDrawsTrianglesBindsAndUploads() {
+        RenderStats stats = new RenderStats();
+        GLStateCache cache = new GLStateCache(new RecordingGLApi());
+        cache.setStats(stats);
+
+        stats.beginFrame(0);
+        cache.glUseProgram(1);
+        cache.glUseProgram(1);                                  // scartata: non è un bind
+        cache.glBindVertexArray(2);
+        cache.glActiveTexture(GL_TEXTURE0);
+        cache.glBindTexture(GL_TEXTURE_2D, 5);
+        cache.glBindTexture(GL_TEXTURE_2D, 5);
+        cache.glUniformMatrix4fv(0, 1, false, new float[16], 0);
+        cache.glBufferSubData(GL_UNIFORM_BUFFER, 0, 64, null);
+        cache.glDrawElements(GL_TRIANGLES, 36, GL_UNSIGNED_INT, 0);
+        cache.glDrawArraysInstanced(GL_TRIANGLES, 0, 6, 100);
+        stats.endFrame(MS);
+
+        assertEquals(2, stats.getCounter(0, RenderStats.COUNTER_DRAW_CALLS));
+        assertEquals(12 + 200, stats.getCounter(0, RenderStats.COUNTER_TRIANGLES));
+        assertEquals(1, stats.getCounter(0, RenderStats.COUNTER_PROGRAM_BINDS));
+        assertEquals(1, stats.getCounter(0, RenderStats.COUNTER_VAO_BINDS));
+        assertEquals(1, stats.getCounter(0, RenderStats.COUNTER_TEXTURE_BINDS));
+        assertEquals(2, stats.getCounter(0, RenderStats.COUNTER_UNIFORM_UPLOADS));
+    }
+
+    @Test
+    public void recording_doesNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        long id = Thread.currentThread().getId();
+
+        RenderStats stats = new RenderStats();
+        record(stats, 5000, 3 * MS);                            // warm-up
+
+        long before = threads.getThreadAllocatedBytes(id);
+        record(stats, 5000, 3 * MS);
+        long allocated = threads.getThreadAllocatedBytes(id) - before;
+
+        assertTrue("allocati " + allocated + " byte", allocated < 1024);
+    }
+
+    private static void record(RenderStats stats, int frames, long frameNs) {
+        for (int i = 0; i < frames; i++) {
+            stats.beginFrame(0);
+            for (int p = 0; p < RenderStats.PHASES; p++) {
+                stats.beginPhase(p);
+                stats.endPhase(p);
+            }
+            stats.countDraw(12);
+            stats.endFrame(frameNs);
+        }
+    }
+
+}
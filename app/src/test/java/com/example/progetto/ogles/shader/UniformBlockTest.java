@@ -0,0 +1,159 @@
+package com.example.progetto.ogles.shader;
+
+import com.example.progetto.ogles.camera.CameraOrtho2D;
+import com.example.progetto.ogles.gl.GLApi;
+import com.example.progetto.ogles.gl.GLBridge;
+import com.example.progetto.ogles.gl.GLStateCache;
+import com.example.progetto.ogles.gl.RecordingGLApi;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test di UniformBlock, degli handle di ShaderProgram e confronto con il percorso precedente
+ * (lookup per nome + MVP calcolata sulla CPU per ogni drawcall).
+ */
+public class UniformBlockTest {
+
+    private static final int DRAWS = 126000;     // muri 501x501 disegnati uno per uno
+
+    private RecordingGLApi gl;
+    private GLApi previousApi;
+
+    @Before
+    public void setUp() {
+        gl = new RecordingGLApi();
+        previousApi = GLBridge.get();
+        GLBridge.set(gl);
+    }
+
+    @After
+    public void tearDown() {
+        GLBridge.set(previousApi);
+    }
+
+    @Test
+    public void bind_transfersOnlyChangedData() {
+        UniformBlock block = UniformBlock.material();
+        block.putVec4(UniformBlock.MATERIAL_COLOR, 1, 0.5f, 0, 1);
+        block.putInt(UniformBlock.MATERIAL_TEXTURED, 1);
+
+        block.bind();       // prima bind: creazione del buffer con i dati correnti
+        assertEquals(1, gl.count("glBufferData"));
+        assertEquals(1, gl.count("glBindBufferBase"));
+        assertFalse(block.isDirty());
+
+        // stessi valori: niente da trasferire
+        block.putVec4(UniformBlock.MATERIAL_COLOR, 1, 0.5f, 0, 1);
+        assertFalse(block.isDirty());
+        block.bind();
+        assertEquals(0, gl.count("glBufferSubData"));
+
+        block.putVec2(UniformBlock.MATERIAL_TEX_SCALING, 3, 4);
+        assertTrue(block.isDirty());
+        block.bind();
+        assertEquals(1, gl.count("glBufferSubData"));
+
+        // offset std140
+        assertEquals(0.5f, block.getData().getFloat(UniformBlock.MATERIAL_COLOR + 4), 0f);
+        assertEquals(4f, block.getData().getFloat(UniformBlock.MATERIAL_TEX_SCALING + 4), 0f);
+        assertEquals(1, block.getData().getInt(UniformBlock.MATERIAL_TEXTURED));
+
+        block.release();
+        block.release();
+        assertEquals(1, gl.count("glDeleteBuffers"));
+    }
+
+    @Test
+    public void handles_matchUniformListWithoutGl() {
+        ShaderProgram program = new ShaderProgram(MaterialBasic.VSHADER_MAZE, MaterialBasic.FSHADER,
+                MaterialBasic.UNIFORMS_MAZE, false);
+
+        assertEquals(0, program.handleOf("tex"));
+        assertEquals(1, program.handleOf("maze"));
+        assertEquals(-1, program.handleOf("MVP"));
+        assertEquals(-1, program.getUniformLoc(-1));
+
+        // ogni uniform della lista è dichiarata nello shader, i dati del materiale sono nel blocco
+        for (String u : MaterialBasic.UNIFORMS) {
+            assertTrue(MaterialBasic.VSHADER.contains(u) || MaterialBasic.FSHADER.contains(u));
+        }
+        assertTrue(MaterialBasic.FSHADER.contains("uniform " + UniformBlock.MATERIAL));
+        assertTrue(MaterialBasic.VSHADER_INSTANCED.contains("uniform " + UniformBlock.CAMERA));
+    }
+
+    @Test
+    public void perObjectDraws_handlesAndBlocksVsNameLookups() {
+        GLStateCache cache = new GLStateCache(gl);
+        GLBridge.set(cache);
+
+        String[] legacyUniforms = {"MVP", "texScaling", "tex", "color", "textured"};
+        ShaderProgram legacy = new ShaderProgram(MaterialBasic.VSHADER, MaterialBasic.FSHADER,
+                legacyUniforms, false);
+        ShaderProgram program = new ShaderProgram(MaterialBasic.VSHADER, MaterialBasic.FSHADER,
+                MaterialBasic.UNIFORMS, false);
+        MaterialBasic material = new MaterialBasic(program, new float[]{1, 0, 0});
+        CameraOrtho2D camera = new CameraOrtho2D();
+        float[] model = {1, 0, 0, 0,  0, 1, 0, 0,  0, 0, 1, 0,  2, 0, 3, 1};
+        float[] mvp = new float[16];
+
+        // un frame per percorso: conteggio delle chiamate GL
+        gl.reset();
+        legacyFrame(cache, legacy, camera.getPvM(), model, mvp);
+        int legacyUniformCalls = uniformCalls();
+
+        gl.reset();
+        frame(camera, material, model);
+        int uniformCalls = uniformCalls();
+
+        assertEquals(4 * DRAWS, legacyUniformCalls);
+        assertEquals(DRAWS, uniformCalls);       // solo la model matrix
+        assertEquals(2, gl.count("glBufferData"));  // blocchi Camera e Material, una volta
+        assertEquals(2, gl.count("glBindBufferBase"));
+    }
+
+    private int uniformCalls() {
+        return gl.count("glUniformMatrix4fv") + gl.count("glUniform1i") +
+                gl.count("glUniform2f") + gl.count("glUniform3f");
+    }
+
+    /**
+     * Percorso precedente: MVP = VP * M sulla CPU e 4 glUniform* con lookup per nome.
+     */
+    private static void legacyFrame(GLApi gl, ShaderProgram program, float[] vp, float[] model,
+                                    float[] mvp) {
+        for (int i = 0; i < DRAWS; i++) {
+            multiply(mvp, vp, model);
+            gl.glUniformMatrix4fv(program.getUniformLoc("MVP"), 1, false, mvp, 0);
+            gl.glUniform2f(program.getUniformLoc("texScaling"), 1, 1);
+            gl.glUniform1i(program.getUniformLoc("textured"), 0);
+            gl.glUniform3f(program.getUniformLoc("color"), 1, 0, 0);
+        }
+    }
+
+    /**
+     * Percorso attuale (come Object3D.draw()).
+     */
+    private static void frame(CameraOrtho2D camera, MaterialBasic material, float[] model) {
+        for (int i = 0; i < DRAWS; i++) {
+            material.updateUniforms();
+            camera.bindUniforms();
+            material.updateModel(model);
+        }
+    }
+
+    // android.opengl.Matrix non è disponibile nei test JVM
+    private static void multiply(float[] res, float[] a, float[] b) {
+        for (int c = 0; c < 4; c++) {
+            for (int r = 0; r < 4; r++) {
+                float sum = 0;
+                for (int k = 0; k < 4; k++) sum += a[k * 4 + r] * b[c * 4 + k];
+                res[c * 4 + r] = sum;
+            }
+        }
+    }
+
+}
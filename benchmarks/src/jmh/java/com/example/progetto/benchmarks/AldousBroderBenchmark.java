@@ -0,0 +1,103 @@
+package com.example.progetto.benchmarks;
+
+import com.example.progetto.game.maze.AldousBroder;
+import com.example.progetto.game.maze.MazeGrid;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Random walk di Aldous-Broder: versione senza allocazioni (AldousBroder) contro quella
+ * precedente (ArrayList di vicini + Collections.shuffle + Random), riportata qui sotto.
+ *
+ * Stesso seed ad ogni invocazione; il risultato è il numero di step, da cui si ricavano gli step
+ * al secondo.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AldousBroderBenchmark {
+
+    private static final long SEED = 7L;
+
+    @Param({ "101", "301" })
+    public int size;
+
+    @Benchmark
+    public long allocationFree(){
+
+        return new AldousBroder().carve(new MazeGrid(size, size), size - 2, 1,
+                                        new SplittableRandom(SEED));
+
+    }
+
+    @Benchmark
+    public long legacy(){
+
+        return carveLegacy(new MazeGrid(size, size), size - 2, 1, new Random(SEED));
+
+    }
+
+    /**
+     * Versione precedente del ciclo di generazione (un ArrayList e un oggetto per vicino ad ogni
+     * step, shuffle della lista).
+     */
+    static long carveLegacy(MazeGrid grid, int startRow, int startCol, Random random){
+
+        int[] curr = { startRow, startCol };
+        grid.setWalkable(curr[0], curr[1]);
+        int total = ((grid.getRows() - 1) / 2) * ((grid.getCols() - 1) / 2);
+        int visited = 1;
+        long steps = 0;
+
+        while (visited < total){
+
+            steps++;
+            ArrayList<int[]> neigh = legacyNeighbours(grid, curr, false);
+            if (neigh.size() == 0){
+                ArrayList<int[]> neighVisited = legacyNeighbours(grid, curr, true);
+                curr = neighVisited.get(random.nextInt(neighVisited.size()));
+                continue;
+            }
+
+            for (int[] p : neigh){
+                if (!grid.isWalkable(p[0], p[1])){
+                    grid.setWalkable((p[0] + curr[0]) / 2, (p[1] + curr[1]) / 2);
+                    grid.setWalkable(p[0], p[1]);
+                    visited++;
+                    curr = p;
+                    break;
+                }
+            }
+
+        }
+
+        return steps;
+
+    }
+
+    private static ArrayList<int[]> legacyNeighbours(MazeGrid grid, int[] p, boolean val){
+
+        ArrayList<int[]> neigh = new ArrayList<>();
+        if (p[0] > 1 && grid.isWalkable(p[0] - 2, p[1]) == val) neigh.add(new int[]{ p[0] - 2, p[1] });
+        if (p[0] < grid.getRows() - 2 && grid.isWalkable(p[0] + 2, p[1]) == val) neigh.add(new int[]{ p[0] + 2, p[1] });
+        if (p[1] > 1 && grid.isWalkable(p[0], p[1] - 2) == val) neigh.add(new int[]{ p[0], p[1] - 2 });
+        if (p[1] < grid.getCols() - 2 && grid.isWalkable(p[0], p[1] + 2) == val) neigh.add(new int[]{ p[0], p[1] + 2 });
+        Collections.shuffle(neigh);
+
+        return neigh;
+
+    }
+
+}
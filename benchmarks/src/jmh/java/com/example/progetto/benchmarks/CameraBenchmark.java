@@ -0,0 +1,101 @@
+package com.example.progetto.benchmarks;
+
+import com.example.progetto.ogles.camera.CameraState;
+import com.example.progetto.ogles.utils.MatrixMath;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggiornamenti della camera e delle matrici per frame, in Java puro:
+ *      - viewAndPvM: direzione di lookat dalla rotazione, view con setLookAtM() e PV con
+ *        multiplyMM() (stessi passi di CameraPersp3D.setRotationY() e updateViewAndPvM(), che
+ *        restano nell'app perchè la camera possiede il suo UniformBlock);
+ *      - modelMatrix: identità, traslazione, rotazione e scala (Object3D.updateModelMatrix());
+ *      - stateWriteRead: pubblicazione e lettura dello stato nel seqlock CameraState.
+ *
+ * Ad ogni invocazione la camera avanza e ruota, così i valori non sono costanti.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CameraBenchmark {
+
+    private final float[] viewM = new float[16];
+    private final float[] projM = new float[16];
+    private final float[] pvM = new float[16];
+    private final float[] modelM = new float[16];
+    private final float[] position = new float[3];
+    private final float[] lookAt = new float[3];
+    private final float[] snapshot = new float[CameraState.SIZE];
+    private final CameraState state = new CameraState();
+    private float rotationY;
+
+    @Setup
+    public void setup(){
+
+        MatrixMath.perspectiveM(projM, 0, 45f, 16f / 9f, 0.1f, 100f);
+        position[1] = 0.5f;
+
+    }
+
+    @Benchmark
+    public float[] viewAndPvM(){
+
+        step();
+
+        double rad = Math.toRadians(-((rotationY % 360) + 90));
+        lookAt[0] = (float) (Math.round(Math.cos(rad) * 1000.0) / 1000.0);
+        lookAt[2] = (float) (Math.round(Math.sin(rad) * 1000.0) / 1000.0);
+
+        MatrixMath.setLookAtM(viewM, 0, position[0], position[1], position[2],
+                              position[0] + lookAt[0], position[1], position[2] + lookAt[2],
+                              0, 1, 0);
+        MatrixMath.multiplyMM(pvM, 0, projM, 0, viewM, 0);
+
+        return pvM;
+
+    }
+
+    @Benchmark
+    public float[] modelMatrix(){
+
+        step();
+
+        MatrixMath.setIdentityM(modelM, 0);
+        MatrixMath.translateM(modelM, 0, position[0], position[1], position[2]);
+        MatrixMath.rotateM(modelM, 0, rotationY, 0, 1, 0);
+        MatrixMath.scaleM(modelM, 0, 1f, 2f, 1f);
+
+        return modelM;
+
+    }
+
+    @Benchmark
+    public float[] stateWriteRead(){
+
+        step();
+
+        state.write(position[0], position[1], position[2], rotationY, lookAt[0], lookAt[2]);
+        state.read(snapshot);
+
+        return snapshot;
+
+    }
+
+    private void step(){
+
+        position[0] = (position[0] + 0.01f) % 50f;
+        position[2] = (position[2] - 0.01f) % 50f;
+        rotationY = (rotationY + 1.5f) % 360f;
+
+    }
+
+}
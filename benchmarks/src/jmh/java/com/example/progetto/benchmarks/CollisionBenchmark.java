@@ -0,0 +1,107 @@
+package com.example.progetto.benchmarks;
+
+import com.example.progetto.game.LabyrinthGenerator;
+import com.example.progetto.game.maze.MazeGrid;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput dei controlli di collisione: LabyrinthGenerator.isWalkable() su coordinate 3D
+ * (conversione coordinate --> indici e lettura del bit) e, per confronto, MazeGrid.isWalkable()
+ * sugli indici.
+ *
+ * Le QUERIES posizioni sono estratte una volta (seed fisso) su tutta l'estensione del labirinto
+ * più un margine, quindi anche fuori dai bordi; il risultato di ogni invocazione è il numero di
+ * posizioni camminabili.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CollisionBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param({ "15", "501", "2001" })
+    public int size;
+
+    private LabyrinthGenerator generator;
+    private MazeGrid grid;
+    private float[] x;
+    private float[] z;
+    private int[] rows;
+    private int[] cols;
+
+    @Setup
+    public void setup(){
+
+        generator = GeneratorBenchmark.generated(size);
+        grid = generator.getGrid();
+
+        x = new float[QUERIES];
+        z = new float[QUERIES];
+        rows = new int[QUERIES];
+        cols = new int[QUERIES];
+
+        SplittableRandom random = new SplittableRandom(7);
+        float extent = size / 2f + 1f;
+        for (int i=0; i<QUERIES; i++){
+            x[i] = (float) (random.nextDouble() * 2 - 1) * extent;
+            z[i] = (float) (random.nextDouble() * 2 - 1) * extent;
+            rows[i] = random.nextInt(grid.getRows());
+            cols[i] = random.nextInt(grid.getCols());
+        }
+
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int isWalkable(){
+
+        int walkable = 0;
+        for (int i=0; i<QUERIES; i++){
+            if (generator.isWalkable(x[i], z[i])) walkable++;
+        }
+
+        return walkable;
+
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int gridIsWalkable(){
+
+        int walkable = 0;
+        for (int i=0; i<QUERIES; i++){
+            if (grid.isWalkable(rows[i], cols[i])) walkable++;
+        }
+
+        return walkable;
+
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int coordToIndices(){
+
+        int sum = 0;
+        for (int i=0; i<QUERIES; i++){
+            int[] indices = generator.fromCoordToIndices(x[i], z[i]);
+            sum += indices[0] + indices[1];
+        }
+
+        return sum;
+
+    }
+
+}
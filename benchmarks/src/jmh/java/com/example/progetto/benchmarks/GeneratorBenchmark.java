@@ -0,0 +1,116 @@
+package com.example.progetto.benchmarks;
+
+import com.example.progetto.game.EllerLabyrinthGenerator;
+import com.example.progetto.game.LabyrinthGenerator;
+import com.example.progetto.game.maze.AldousBroder;
+import com.example.progetto.game.maze.GridPoint;
+import com.example.progetto.game.maze.Kruskal;
+import com.example.progetto.game.maze.MazeAlgorithm;
+import com.example.progetto.game.maze.ParallelTiledAlgorithm;
+import com.example.progetto.game.maze.RecursiveBacktracker;
+import com.example.progetto.game.maze.Wilson;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generazione completa del labirinto (LabyrinthGenerator.generate(), senza cache) per algoritmo e
+ * dimensione. Seed fisso: ogni invocazione genera lo stesso labirinto, quindi le misure di
+ * esecuzioni diverse sono confrontabili.
+ *
+ * "eller" è l'EllerLabyrinthGenerator (riga per riga, senza griglia in memoria): le righe sono
+ * solo attraversate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GeneratorBenchmark {
+
+    private static final long SEED = 42L;
+
+    @Param({ "aldous-broder", "wilson", "kruskal", "recursive-backtracker", "tiled-wilson", "eller" })
+    public String algorithm;
+
+    @Param({ "15", "101", "501", "2001" })
+    public int size;
+
+    private MazeAlgorithm mazeAlgorithm;
+
+    @Setup
+    public void setup(){
+
+        mazeAlgorithm = algorithm(algorithm);
+
+    }
+
+    @Benchmark
+    public Object generate(){
+
+        if (mazeAlgorithm == null){
+            return eller();
+        }
+
+        LabyrinthGenerator generator = new LabyrinthGenerator(new GridPoint(size, size),
+                                                              mazeAlgorithm, SEED);
+        generator.generate();
+
+        return generator.getGrid();
+
+    }
+
+    private long[] eller(){
+
+        final long[] walkable = new long[1];
+
+        new EllerLabyrinthGenerator(size, size, SEED).generate(new EllerLabyrinthGenerator.RowSink() {
+            @Override
+            public void onRow(int row, long[] walkableMask) {
+                for (long word : walkableMask){
+                    walkable[0] += Long.bitCount(word);
+                }
+            }
+        });
+
+        return walkable;
+
+    }
+
+    /**
+     * Algoritmo dal nome del parametro, null per Eller (generatore a parte).
+     */
+    static MazeAlgorithm algorithm(String name){
+
+        switch (name){
+            case "aldous-broder": return new AldousBroder();
+            case "wilson": return new Wilson();
+            case "kruskal": return new Kruskal();
+            case "recursive-backtracker": return new RecursiveBacktracker();
+            case "tiled-wilson": return new ParallelTiledAlgorithm(new Wilson());
+            case "eller": return null;
+            default: throw new IllegalArgumentException("Algoritmo sconosciuto: " + name);
+        }
+
+    }
+
+    /**
+     * Labirinto di riferimento per gli altri benchmark (stesso seed).
+     */
+    static LabyrinthGenerator generated(int size){
+
+        LabyrinthGenerator generator = new LabyrinthGenerator(new GridPoint(size, size),
+                                                              new Kruskal(), SEED);
+        generator.generate();
+
+        return generator;
+
+    }
+
+}
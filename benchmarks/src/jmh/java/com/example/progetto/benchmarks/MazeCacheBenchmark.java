@@ -0,0 +1,86 @@
+package com.example.progetto.benchmarks;
+
+import com.example.progetto.game.maze.AldousBroder;
+import com.example.progetto.game.maze.MazeAlgorithm;
+import com.example.progetto.game.maze.MazeCache;
+import com.example.progetto.game.maze.MazeGrid;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache hit della MazeCache (lettura del file in memory mapping) contro la generazione dello
+ * stesso labirinto con Aldous-Broder, l'algoritmo più lento: la cache conviene finchè load() resta
+ * molto sotto generate().
+ *
+ * Il file è scritto una volta in una directory temporanea, eliminata alla fine.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MazeCacheBenchmark {
+
+    private static final long SEED = 1L;
+
+    @Param({ "501", "2001" })
+    public int size;
+
+    private final MazeAlgorithm algorithm = new AldousBroder();
+    private File directory;
+    private MazeCache cache;
+
+    @Setup
+    public void setup() throws IOException {
+
+        directory = Files.createTempDirectory("mazecache-jmh").toFile();
+        cache = new MazeCache(directory);
+        cache.store(algorithm.getName(), SEED, generate());
+
+    }
+
+    @TearDown
+    public void tearDown(){
+
+        File[] files = directory.listFiles();
+        if (files != null){
+            for (File f : files){
+                f.delete();
+            }
+        }
+        directory.delete();
+
+    }
+
+    @Benchmark
+    public MazeCache.Entry load() throws IOException {
+
+        return cache.load(algorithm.getName(), size, size, SEED);
+
+    }
+
+    @Benchmark
+    public MazeCache.Entry generate(){
+
+        MazeGrid grid = new MazeGrid(size, size);
+        algorithm.carve(grid, size - 2, 1, new SplittableRandom(SEED));
+        grid.setWalkable(size - 1, 1);
+        grid.setWalkable(0, size - 2);
+
+        return new MazeCache.Entry(grid, size - 1, 1, 0, size - 2);
+
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.example.progetto.benchmarks;
+
+import com.example.progetto.game.maze.MazeGrid;
+import com.example.progetto.game.maze.ParallelTiledAlgorithm;
+import com.example.progetto.game.maze.Wilson;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scalabilità della generazione a tile (ParallelTiledAlgorithm con Wilson, tile da 128 celle) da
+ * 1 a N thread su un labirinto 2001 x 2001. Thread oltre i core disponibili misurano solo il
+ * costo della contesa.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelTiledBenchmark {
+
+    private static final int SIZE = 2001;
+    private static final int TILE_CELLS = 128;
+
+    @Param({ "1", "2", "4", "8" })
+    public int threads;
+
+    private ForkJoinPool pool;
+    private ParallelTiledAlgorithm algorithm;
+
+    @Setup
+    public void setup(){
+
+        pool = new ForkJoinPool(threads);
+        algorithm = new ParallelTiledAlgorithm(new Wilson(), TILE_CELLS, pool);
+
+    }
+
+    @TearDown
+    public void tearDown(){
+
+        pool.shutdown();
+
+    }
+
+    @Benchmark
+    public MazeGrid carve(){
+
+        MazeGrid grid = new MazeGrid(SIZE, SIZE);
+        algorithm.carve(grid, SIZE - 2, 1, new SplittableRandom(2));
+
+        return grid;
+
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.example.progetto.benchmarks;
+
+import com.example.progetto.ogles.utils.PlyObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing PLY (PlyObject.parse()) dalla memoria, senza I/O su disco:
+ *      - "cube": l'asset cube.ply dell'app (modello piccolo, 12 triangoli);
+ *      - "grid-N": griglia sintetica di N x N vertici (x y z s t) e 2 (N-1)^2 triangoli, nello
+ *        stesso formato ASCII esportato da Blender, per vedere come scala il parser.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PlyBenchmark {
+
+    @Param({ "cube", "grid-32", "grid-256" })
+    public String model;
+
+    private byte[] data;
+
+    @Setup
+    public void setup() throws IOException {
+
+        if (model.equals("cube")){
+            data = readResource("/cube.ply");
+        }else if (model.startsWith("grid-")){
+            data = grid(Integer.parseInt(model.substring(5)));
+        }else{
+            throw new IllegalArgumentException("Modello sconosciuto: " + model);
+        }
+
+    }
+
+    @Benchmark
+    public float[] parse() throws IOException {
+
+        PlyObject ply = new PlyObject(new ByteArrayInputStream(data));
+        ply.parse();
+
+        return ply.getVertices();
+
+    }
+
+    private static byte[] readResource(String name) throws IOException {
+
+        try (InputStream in = PlyBenchmark.class.getResourceAsStream(name)){
+
+            if (in == null) throw new IOException("Risorsa non trovata: " + name);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ( (n = in.read(buffer)) > 0 ){
+                out.write(buffer, 0, n);
+            }
+
+            return out.toByteArray();
+
+        }
+
+    }
+
+    /**
+     * PLY ASCII di una griglia n x n nel piano y = 0.
+     */
+    static byte[] grid(int n){
+
+        int faces = 2 * (n - 1) * (n - 1);
+        StringBuilder sb = new StringBuilder(n * n * 48 + faces * 16);
+
+        sb.append("ply\nformat ascii 1.0\ncomment griglia sintetica\n")
+          .append("element vertex ").append(n * n).append('\n')
+          .append("property float x\nproperty float y\nproperty float z\n")
+          .append("property float s\nproperty float t\n")
+          .append("element face ").append(faces).append('\n')
+          .append("property list uchar uint vertex_indices\nend_header\n");
+
+        for (int r=0; r<n; r++){
+            for (int c=0; c<n; c++){
+                float s = c / (float) (n - 1);
+                float t = r / (float) (n - 1);
+                sb.append(s * 2 - 1).append(" 0.000000 ").append(t * 2 - 1).append(' ')
+                  .append(s).append(' ').append(t).append('\n');
+            }
+        }
+
+        for (int r=0; r<n-1; r++){
+            for (int c=0; c<n-1; c++){
+                int i = r * n + c;
+                sb.append("3 ").append(i).append(' ').append(i + n).append(' ').append(i + 1).append('\n');
+                sb.append("3 ").append(i + 1).append(' ').append(i + n).append(' ').append(i + n + 1).append('\n');
+            }
+        }
+
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+
+    }
+
+}
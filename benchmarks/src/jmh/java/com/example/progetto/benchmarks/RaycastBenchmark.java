@@ -0,0 +1,83 @@
+package com.example.progetto.benchmarks;
+
+import com.example.progetto.game.maze.GridRaycaster;
+import com.example.progetto.game.maze.MazeGrid;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput del raycasting DDA sulla griglia (GridRaycaster.cast()), il ciclo interno della
+ * visibilità a runtime (RaycastVisibility) e dei controlli sul PVS.
+ *
+ * I RAYS raggi partono dal centro di celle camminabili estratte una volta (seed fisso) con
+ * direzioni uniformi su 360° e distanza massima pari al far plane; il risultato di ogni
+ * invocazione è il numero di celle attraversate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RaycastBenchmark {
+
+    private static final int RAYS = 1024;
+    private static final float MAX_DISTANCE = 100f;
+
+    @Param({ "501", "2001" })
+    public int size;
+
+    private GridRaycaster raycaster;
+    private final float[] originCol = new float[RAYS];
+    private final float[] originRow = new float[RAYS];
+    private final float[] dirCol = new float[RAYS];
+    private final float[] dirRow = new float[RAYS];
+
+    @Setup
+    public void setup(){
+
+        MazeGrid grid = GeneratorBenchmark.generated(size).getGrid();
+        raycaster = new GridRaycaster(grid);
+
+        SplittableRandom random = new SplittableRandom(6);
+        for (int i=0; i<RAYS; i++){
+
+            int row, col;
+            do {
+                row = 1 + random.nextInt(grid.getRows() - 2);
+                col = 1 + random.nextInt(grid.getCols() - 2);
+            } while (!grid.isWalkable(row, col));
+
+            double angle = 2 * Math.PI * random.nextDouble();
+            originCol[i] = col + 0.5f;
+            originRow[i] = row + 0.5f;
+            dirCol[i] = (float) Math.cos(angle);
+            dirRow[i] = (float) Math.sin(angle);
+
+        }
+
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public long cast(){
+
+        long steps = 0;
+        for (int i=0; i<RAYS; i++){
+            raycaster.cast(originCol[i], originRow[i], dirCol[i], dirRow[i], MAX_DISTANCE);
+            steps += raycaster.getSteps();
+        }
+
+        return steps;
+
+    }
+
+}
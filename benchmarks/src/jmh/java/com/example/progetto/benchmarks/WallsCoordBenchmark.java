@@ -0,0 +1,51 @@
+package com.example.progetto.benchmarks;
+
+import com.example.progetto.game.LabyrinthGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estrazione delle coordinate dei muri (LabyrinthGenerator.getWallsCoord(), usata dalla mappa 2D)
+ * e conteggio dei muri con popcount (getNumWall()), per dimensione del labirinto.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WallsCoordBenchmark {
+
+    @Param({ "15", "101", "501" })
+    public int size;
+
+    private LabyrinthGenerator generator;
+
+    @Setup
+    public void setup(){
+
+        generator = GeneratorBenchmark.generated(size);
+
+    }
+
+    @Benchmark
+    public float[][] wallsCoord(){
+
+        return generator.getWallsCoord();
+
+    }
+
+    @Benchmark
+    public int numWall(){
+
+        return generator.getNumWall();
+
+    }
+
+}
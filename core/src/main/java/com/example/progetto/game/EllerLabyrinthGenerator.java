@@ -0,0 +1,347 @@
+package com.example.progetto.game;
+
+import com.example.progetto.game.maze.MazeGrid;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+/**
+ * Generazione del labirinto riga per riga con l'algoritmo di Eller.
+ *
+ * A differenza di LabyrinthGenerator non è mai salvato l'intero labirinto: in memoria c'è solo lo
+ * stato della riga corrente (O(larghezza)), quindi l'altezza può essere arbitrariamente grande
+ * (es. 2001 colonne x milioni di righe).
+ *
+ * Convenzioni identiche a LabyrinthGenerator.generate():
+ *      - dimensioni dispari (almeno 5x5), bordo esterno di muri;
+ *      - celle (nodi '1') in coordinate dispari, muri abbattuti tra celle adiacenti;
+ *      - END sulla prima riga (riga 0) in una colonna dispari a caso, angolo 180;
+ *      - START sull'ultima riga in una colonna dispari a caso, angolo 0;
+ *      - stessa conversione indici --> coordinate (fromIndicesToCoord).
+ *
+ * Ogni riga è emessa come maschera di bit con lo stesso layout di una riga di MazeGrid
+ * (bit 'c' della word 'c / 64' a 1 se la colonna 'c' è camminabile). Il vettore emesso è riusato
+ * per la riga successiva: se serve conservarlo va copiato.
+ *
+ * Algoritmo (per ogni riga di celle):
+ *      1) le celle senza insieme ricevono un insieme nuovo;
+ *      2) celle adiacenti di insiemi diversi sono unite a caso (muro orizzontale abbattuto);
+ *         nell'ultima riga sono unite sempre, così il labirinto risulta connesso;
+ *      3) ogni insieme scende verso la riga successiva in almeno un punto (muro verticale
+ *         abbattuto); le celle sotto un passaggio ereditano l'insieme.
+ *
+ * LINK: http://weblog.jamisbuck.org/2010/12/29/maze-generation-eller-s-algorithm
+ */
+public class EllerLabyrinthGenerator implements Iterable<long[]> {
+
+    /**
+     * Destinazione delle righe generate.
+     */
+    public interface RowSink {
+
+        /**
+         * Chiamata per ogni riga della griglia, in ordine da 0 a rows-1.
+         *
+         * @param row Indice di riga
+         * @param walkableMask Maschera della riga (1 = camminabile). Riusata tra le chiamate.
+         */
+        void onRow(int row, long[] walkableMask);
+
+    }
+
+    private final int rows;
+    private final int cols;
+    private final int cellRows;
+    private final int cellCols;
+    private final long seed;
+
+    private final int startCol;
+    private final int endCol;
+
+    /**
+     * Costruttore della classe con seed casuale.
+     *
+     * @param cols Numero di colonne (se pari incrementato di 1, almeno 5)
+     * @param rows Numero di righe (se pari incrementato di 1, almeno 5)
+     */
+    public EllerLabyrinthGenerator(int cols, int rows){
+
+        this(cols, rows, new SplittableRandom().nextLong());
+
+    }
+
+    /**
+     * Costruttore della classe.
+     *
+     * A parità di seed e dimensioni le righe generate sono sempre le stesse, quindi il labirinto
+     * può essere riprodotto (anche più volte, es. iterandolo più volte) senza salvarlo.
+     *
+     * @param cols Numero di colonne (se pari incrementato di 1, almeno 5)
+     * @param rows Numero di righe (se pari incrementato di 1, almeno 5)
+     * @param seed Seed del generatore casuale
+     */
+    public EllerLabyrinthGenerator(int cols, int rows, long seed){
+
+        this.cols = normalize(cols);
+        this.rows = normalize(rows);
+        this.cellCols = (this.cols - 1) / 2;
+        this.cellRows = (this.rows - 1) / 2;
+        this.seed = seed;
+
+        // start/end scelti subito: la riga 0 (con l'uscita) è la prima ad essere emessa
+        SplittableRandom random = new SplittableRandom(seed);
+        startCol = 2 * random.nextInt(cellCols) + 1;
+        endCol = 2 * random.nextInt(cellCols) + 1;
+
+    }
+
+    /**
+     * Stessa normalizzazione delle dimensioni di LabyrinthGenerator: almeno 5 e dispari.
+     */
+    private static int normalize(int dim){
+
+        if (dim < 5) dim = 5;
+        if (dim % 2 == 0) dim += 1;
+
+        return dim;
+
+    }
+
+    /**
+     * Genera tutte le righe e le passa in ordine al sink.
+     *
+     * @param sink Destinazione delle righe
+     */
+    public void generate(RowSink sink){
+
+        RowStream stream = new RowStream();
+        long[] mask = new long[MazeGrid.wordsPerRow(cols)];
+
+        int row;
+        while ( (row = stream.next(mask)) >= 0 ){
+            sink.onRow(row, mask);
+        }
+
+    }
+
+    /**
+     * Iteratore sulle righe (vedi RowSink per il formato). Ogni iteratore rigenera il labirinto
+     * dall'inizio con lo stesso seed.
+     *
+     * @return Iteratore delle righe, il vettore ritornato è riusato ad ogni next()
+     */
+    @Override
+    public Iterator<long[]> iterator(){
+
+        return new Iterator<long[]>() {
+
+            private final RowStream stream = new RowStream();
+            private final long[] mask = new long[MazeGrid.wordsPerRow(cols)];
+
+            @Override
+            public boolean hasNext() { return stream.hasNext(); }
+
+            @Override
+            public long[] next() {
+                if (stream.next(mask) < 0){
+                    throw new NoSuchElementException();
+                }
+                return mask;
+            }
+
+        };
+
+    }
+
+    /**
+     * Stato dell'algoritmo di Eller durante la generazione: solo vettori di dimensione cellCols.
+     */
+    private class RowStream {
+
+        private final SplittableRandom random;
+
+        private final int[] set;        // insieme di ogni cella della riga (rappresentato da una colonna)
+        private final int[] parent;     // union-find sugli insiemi della riga corrente
+        private final int[] remaining;  // celle dell'insieme non ancora considerate nel passo verticale
+        private final boolean[] hasDown;
+        private final boolean[] down;   // passaggio verso la riga sotto
+        private final boolean[] right;  // passaggio verso la cella a destra
+
+        private int nextRow;
+
+        RowStream(){
+
+            random = new SplittableRandom(seed);
+            random.nextInt(cellCols);   // stessi due estratti usati per start/end nel costruttore
+            random.nextInt(cellCols);
+
+            set = new int[cellCols];
+            parent = new int[cellCols];
+            remaining = new int[cellCols];
+            hasDown = new boolean[cellCols];
+            down = new boolean[cellCols];
+            right = new boolean[cellCols];
+
+            for (int j=0; j<cellCols; j++){
+                set[j] = j;
+            }
+
+            nextRow = 0;
+
+        }
+
+        boolean hasNext(){ return nextRow < rows; }
+
+        /**
+         * Scrive in 'mask' la riga successiva.
+         *
+         * @return Indice della riga scritta, -1 se le righe sono finite
+         */
+        int next(long[] mask){
+
+            if (nextRow >= rows) return -1;
+
+            int row = nextRow++;
+            Arrays.fill(mask, 0L);
+
+            if (row == 0){
+                setBit(mask, endCol);                   // END
+            }else if (row == rows-1){
+                setBit(mask, startCol);                 // START
+            }else if (row % 2 == 1){
+                carveCellRow((row - 1) / 2 == cellRows - 1);
+                for (int j=0; j<cellCols; j++){
+                    setBit(mask, 2*j + 1);
+                    if (right[j]) setBit(mask, 2*j + 2);
+                }
+            }else{
+                for (int j=0; j<cellCols; j++){
+                    if (down[j]) setBit(mask, 2*j + 1);
+                }
+            }
+
+            return row;
+
+        }
+
+        /**
+         * Passi dell'algoritmo di Eller per una riga di celle: unione orizzontale, scelta dei
+         * passaggi verticali e preparazione degli insiemi della riga successiva.
+         *
+         * @param lastRow True se è l'ultima riga di celle
+         */
+        private void carveCellRow(boolean lastRow){
+
+            for (int j=0; j<cellCols; j++){
+                parent[j] = j;
+            }
+
+            // 2) unione orizzontale
+            for (int j=0; j<cellCols-1; j++){
+
+                int a = find(set[j]);
+                int b = find(set[j+1]);
+                right[j] = (a != b) && (lastRow || random.nextBoolean());
+                if (right[j]){
+                    parent[b] = a;
+                }
+
+            }
+            right[cellCols-1] = false;
+
+            for (int j=0; j<cellCols; j++){
+                set[j] = find(set[j]);
+                remaining[j] = 0;
+                hasDown[j] = false;
+            }
+
+            if (lastRow){
+                Arrays.fill(down, false);
+                return;
+            }
+
+            // 3) almeno un passaggio verso il basso per ogni insieme
+            for (int j=0; j<cellCols; j++){
+                remaining[set[j]]++;
+            }
+            for (int j=0; j<cellCols; j++){
+
+                int s = set[j];
+                remaining[s]--;
+                down[j] = random.nextBoolean() || (!hasDown[s] && (remaining[s] == 0));
+                if (down[j]) hasDown[s] = true;
+
+            }
+
+            // 1) insiemi della riga successiva: rappresentante = prima colonna in cui compare,
+            //    le celle senza passaggio dall'alto formano un insieme nuovo (la propria colonna)
+            Arrays.fill(parent, -1);          // riuso come mappa vecchio --> nuovo
+            for (int j=0; j<cellCols; j++){
+
+                if (down[j]){
+                    if (parent[set[j]] < 0) parent[set[j]] = j;
+                    set[j] = parent[set[j]];
+                }else{
+                    set[j] = j;
+                }
+
+            }
+
+        }
+
+        /**
+         * Radice dell'insieme di 'x' con path halving.
+         */
+        private int find(int x){
+
+            while (parent[x] != x){
+                parent[x] = parent[parent[x]];
+                x = parent[x];
+            }
+
+            return x;
+
+        }
+
+    }
+
+    private static void setBit(long[] mask, int col){ mask[col >>> 6] |= 1L << col; }
+
+    /**
+     * Funzione che converte gli indici della griglia in coordinate nello spazio 3D ('x', 'z').
+     * Stesso calcolo di LabyrinthGenerator.fromIndicesToCoord().
+     *
+     * @param row Indice di riga
+     * @param col Indice di colonna
+     * @return Coordinata ('x', 'z') nello spazio 3D
+     */
+    public float[] fromIndicesToCoord(int row, int col){
+
+        float[] res = new float[2];
+
+        res[0] = (float) col - (cols / 2f) + 0.5f;
+        res[1] = (float) row - (rows / 2f) + 0.5f;
+
+        return res;
+
+    }
+
+    /********** GETTERS ***********/
+
+    public float[] getStartPoint(){ return fromIndicesToCoord(rows-1, startCol); }
+
+    public float[] getEndPoint(){ return fromIndicesToCoord(0, endCol); }
+
+    public float getStartAngle(){ return 0; }
+
+    public float getEndAngle(){ return 180; }
+
+    public int getRows() { return rows; }
+
+    public int getCols() { return cols; }
+
+    public long getSeed() { return seed; }
+
+}
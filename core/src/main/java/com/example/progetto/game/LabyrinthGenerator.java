@@ -0,0 +1,394 @@
+package com.example.progetto.game;
+
+import com.example.progetto.game.maze.AldousBroder;
+import com.example.progetto.game.maze.GridPoint;
+import com.example.progetto.game.maze.MazeAlgorithm;
+import com.example.progetto.game.maze.MazeCache;
+import com.example.progetto.game.maze.MazeGrid;
+import com.example.progetto.ogles.utils.Logger;
+import com.example.progetto.ogles.utils.Tracer;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+/**
+ * Classe per la generazione del labirinto.
+ *
+ * Il labirinto è salvato in una MazeGrid (1 bit per cella) così da poter generare anche
+ * labirinti di milioni di celle senza occupare decine di MB di heap.
+ *
+ * La generazione è deterministica a parità di (algoritmo, dimensione, seed): se è impostata una
+ * MazeCache il labirinto è cercato in cache prima di essere generato.
+ */
+public class LabyrinthGenerator {
+
+    private static String TAG;
+
+    private static final int DEBUG_PRINT_MAX_DIM = 51;   // oltre questa dimensione non stampo
+
+    private final GridPoint dimension;
+    private MazeGrid labyrinth;
+    private MazeAlgorithm algorithm;
+    private long seed;
+    private MazeCache cache;
+
+    private GridPoint startP;
+    private float startAngle;
+    private GridPoint endP;
+    private float endAngle;
+
+    /**
+     * Costruttore della classe per la generazione del labirinto.
+     * L'algoritmo di generazione di default è Aldous-Broder.
+     *
+     * @param dimension Dimensioni del labirinto:
+     *                      - se pari, verranno incrementate di 1 unità per renderle dispari;
+     *                      - dimensione almeno 5x5: imposto 5x5 se è fornita una dimensione minore;
+     */
+    public LabyrinthGenerator(GridPoint dimension){
+
+        this(dimension, new AldousBroder());
+
+    }
+
+    /**
+     * Costruttore della classe per la generazione del labirinto con un certo algoritmo.
+     *
+     * @param dimension Dimensioni del labirinto (vedi costruttore precedente)
+     * @param algorithm Algoritmo usato da generate() per costruire lo spanning tree
+     */
+    public LabyrinthGenerator(GridPoint dimension, MazeAlgorithm algorithm){
+
+        this(dimension, algorithm, new SplittableRandom().nextLong());
+
+    }
+
+    /**
+     * Costruttore della classe per la generazione di un labirinto riproducibile.
+     *
+     * @param dimension Dimensioni del labirinto (vedi primo costruttore)
+     * @param algorithm Algoritmo usato da generate() per costruire lo spanning tree
+     * @param seed Seed del generatore casuale: a parità di seed, algoritmo e dimensione
+     *             generate() produce sempre lo stesso labirinto
+     */
+    public LabyrinthGenerator(GridPoint dimension, MazeAlgorithm algorithm, long seed){
+
+        TAG = getClass().getSimpleName();
+
+        this.algorithm = algorithm;
+        this.seed = seed;
+        this.cache = null;
+
+        this.dimension = new GridPoint(dimension.x, dimension.y);
+
+        // se troppo piccolo, imposto 5x5
+        if (this.dimension.x < 5) this.dimension.x = 5;
+        if (this.dimension.y < 5) this.dimension.y = 5;
+
+        // se sono pari incremento di 1 unità
+        if (this.dimension.x % 2 == 0) this.dimension.x += 1;
+        if (this.dimension.y % 2 == 0) this.dimension.y += 1;
+
+        labyrinth = null;
+
+        startP = new GridPoint(0, 0);
+        startAngle = 0f;
+        endP = new GridPoint(0, 0);
+        endAngle = 0f;
+
+    }
+
+    /**
+     * Funzione per la generazione di un labirinto (con bordo esterno). Lo spanning tree è
+     * costruito dal MazeAlgorithm impostato (di default AldousBroder, vedi package 'maze' per gli
+     * altri algoritmi disponibili).
+     * Le dimensioni in input devono essere dispari.
+     *
+     * (Vedi figura sotto)
+     * Considero come punto iniziale 'S' un punto random tra gli 1 della penultima riga.
+     * (es. nella figura in basso 'S' = (7,3)).
+     *
+     * Una volta creato il labirinto, considero come punto finale di arrivo un punto
+     * a caso tra gli '1' della riga 1.
+     *
+     * Ho garanzia che esista un path percorribile tra il punto iniziale e quello finale perchè
+     * fanno entrambi parte dello stesso Spanning Tree.
+     *
+     * LINK: - https://github.com/john-science/mazelib/blob/main/mazelib/generate/AldousBroder.py
+     *       - https://github.com/john-science/mazelib/blob/main/docs/MAZE_GEN_ALGOS.md
+     *
+     * Esempio labirinto 9x9:
+     *      Dato 'S' come punto di partenza, viene generato un labirinto che connette S con tutti i
+     *      punti '1' andando ad abbattere i muri '0' necessari :
+     *
+     *      0 0 0 0 0 0 0 0 0             GRAFO 'G'          UNIFORM SPANNING TREE  (esempio)
+     *      0 1 0 1 0 1 0 1 0            1 - 1 - 1 - 1           1 - 1 - 1 - 1
+     *      0 0 0 0 0 0 0 0 0            |   |   |   |                       |
+     *      0 1 0 1 0 1 0 1 0            1 - 1 - 1 - 1           1 - 1 - 1 - 1
+     *      0 0 0 0 0 0 0 0 0    --->    |   |   |   |   --->        |
+     *      0 1 0 1 0 1 0 1 0            1 - 1 - 1 - 1           1 - 1 - 1 - 1
+     *      0 0 0 0 0 0 0 0 0            |   |   |   |           |       |
+     *      0 1 0 S 0 1 0 1 0            1 - S - 1 - 1           1 - S   1 - 1
+     *      0 0 0 0 0 0 0 0 0
+     *
+     * Come funziona:
+     *      - suppongo che la connessione tra gli '1' formi il grafo 'G';
+     *      - trovo uno Uniform Spanning Tree di G e definisco il labirinto andando ad
+     *        abbattere i muri '0' in corrispondenza degli archi dello Spanning Tree.
+     *      - 'uniform' perchè il processo di generazione è casuale con prob. uniforme.
+     *
+     * Ad esempio se 'S' = (7,3) e decido di mettere nello Spanning Tree l'arco che connette 'S'
+     * ed il nodo '1' = (7, 1) alla sua sinistra, allora questo significa abbattere il
+     * muro '0' = (7, 2).
+     *
+     * IMPORTANTE: il punto iniziale 'S' deve essere in coordinate dispari.
+     *
+     * Tutte le scelte casuali dipendono solo dal seed. Se è impostata una cache, il labirinto è
+     * prima cercato in cache e, se assente, generato e salvato.
+     *
+     */
+    public void generate(){
+
+        Tracer.begin("LabyrinthGenerator.generate");
+        try {
+
+            if (loadFromCache()) return;
+
+            int row = dimension.y;
+            int col = dimension.x;
+
+            labyrinth = new MazeGrid(row, col);     // tutti muri
+
+            SplittableRandom random = new SplittableRandom(seed);
+
+            // trovo punto iniziale
+            int randomCol = random.nextInt(col-1 );  // col-2 compreso è dispari
+            if (randomCol % 2 == 0) randomCol += 1;
+            startP = new GridPoint(row-2, randomCol);
+
+            // spanning tree a partire da 'S'
+            algorithm.carve(labyrinth, startP.x, startP.y, random);
+
+            // Printo labirinto per debug (solo se piccolo)
+            if ( (row <= DEBUG_PRINT_MAX_DIM) && (col <= DEBUG_PRINT_MAX_DIM) ){
+                Logger.d(TAG, "Labirinto: \n" + labyrinth);
+            }
+
+            // START : ultima riga
+            startP = new GridPoint(startP.x+1, startP.y);
+            startAngle = 0;
+            labyrinth.setWalkable(startP.x, startP.y);
+
+            // END : prima riga con colonna a caso (dispari)
+            randomCol = random.nextInt(col-1 );
+            if (randomCol % 2 == 0) randomCol += 1;
+            endP = new GridPoint(0, randomCol);
+            endAngle = 180;
+            labyrinth.setWalkable(endP.x, endP.y);
+
+            storeToCache();
+
+        } finally {
+            Tracer.end();
+        }
+
+    }
+
+    /**
+     * Funzione che cerca il labirinto corrente (algoritmo, dimensione, seed) nella cache.
+     *
+     * @return True se il labirinto è stato caricato dalla cache, False altrimenti
+     */
+    private boolean loadFromCache(){
+
+        if (cache == null) return false;
+
+        MazeCache.Entry entry;
+        try {
+            entry = cache.load(algorithm.getName(), dimension.y, dimension.x, seed);
+        } catch (IOException e) {
+            Logger.e(TAG, "Lettura della cache fallita", e);
+            return false;
+        }
+
+        if (entry == null) return false;
+
+        labyrinth = entry.grid;
+        startP = new GridPoint(entry.startRow, entry.startCol);
+        startAngle = 0;
+        endP = new GridPoint(entry.endRow, entry.endCol);
+        endAngle = 180;
+
+        return true;
+
+    }
+
+    /**
+     * Funzione che salva il labirinto appena generato nella cache (se impostata).
+     */
+    private void storeToCache(){
+
+        if (cache == null) return;
+
+        try {
+            cache.store(algorithm.getName(), seed,
+                        new MazeCache.Entry(labyrinth, startP.x, startP.y, endP.x, endP.y));
+        } catch (IOException e) {
+            Logger.e(TAG, "Scrittura della cache fallita", e);
+        }
+
+    }
+
+    /**
+     * Funzione che converte le coordinate nello spazio 3D (considero solo 'x' e 'z') con gli indici
+     * relativi alla matrice del labirinto.
+     *
+     * @param x Coordinata 'x' nello spazio 3D
+     * @param z Coordinata 'y' nello spazio 3D
+     * @return Indici (indice_riga, indice_colonna) della matrice del labirinto
+     */
+    public int[] fromCoordToIndices(float x, float z){
+
+        float dimX = (float) dimension.x;
+        float dimY = (float) dimension.y;
+
+        int[] res = new int[2];
+
+        res[0] = (int) (z + (dimY / 2) - 0.5f);    // indice della riga
+        res[1] = (int) (x + (dimX / 2) - 0.5f);    // indice della colonna
+
+        return res;
+
+    }
+
+    /**
+     * Funzione che controlla se una certa coordianta nello spazio 3D (considero solo 'x' e 'z') è
+     * camminabile.
+     *
+     * @param x Coordinata 'x' nello spazio 3D
+     * @param z Coordinata 'z' nello spazio 3D
+     * @return True se la coordianta è camminabile, False altrimenti.
+     */
+    public boolean isWalkable(float x, float z){
+
+        int[] indices = fromCoordToIndices(x, z);
+
+        if ( (indices[0] < 0) || (indices[1] < 0) ||
+             (indices[0] >= dimension.y) || (indices [1] >= dimension.x) ){
+
+            return false;
+        }
+
+        return labyrinth.isWalkable(indices[0], indices[1]);
+
+    }
+
+    /**
+     * Funzione che converte gli indici della matrice del labirinto in coordinate nello spazio 3D
+     * (considero solo 'x' e 'z').
+     *
+     * @param row Indice di riga della matrice del labirinto
+     * @param col Indice di colonna della matrice del labirinto
+     * @return Coordinata ('x', 'z') nello spazio 3D
+     */
+    public float[] fromIndicesToCoord(int row, int col){
+
+        float[] res = new float[2];
+
+        float dimX = (float) dimension.x;
+        float dimY = (float) dimension.y;
+
+        float x = (float) col;
+        float y = (float) row;
+
+        res[0] = x - (dimX / 2) + 0.5f;
+        res[1] = y - (dimY / 2) + 0.5f;
+
+        return res;
+
+    }
+
+    /**
+     * Funzione che ritorna le coordinate 3D ('x', 'z') di ogni parete del labirinto.
+     *
+     * Scorro le word di ogni riga: i muri sono i bit a 0 (escluso il padding), quindi nego la word
+     * e salto direttamente da un muro al successivo con numberOfTrailingZeros.
+     *
+     * @return Lista [ ['x', 'z'], ['x', 'z'], ... ] con le coordinate 3D delle pareti del labirinto
+     */
+    public float[][] getWallsCoord(){
+
+        int row = dimension.y;
+        int wordsPerRow = labyrinth.getWordsPerRow();
+
+        float[][] res = new float [getNumWall()][2];  // [ [x,z], [x,z], ... ]
+
+        float offsetX = 0.5f - (dimension.x / 2f);
+        float offsetZ = 0.5f - (dimension.y / 2f);
+
+        int count = 0;
+
+        for (int i=0; i<row; i++){
+            for (int w=0; w<wordsPerRow; w++){
+
+                long walls = ~labyrinth.getRowWord(i, w) & labyrinth.validMask(w);
+
+                while (walls != 0){
+
+                    int z = (w << 6) + Long.numberOfTrailingZeros(walls);
+                    res[count][0] = z + offsetX;   // stesso calcolo di fromIndicesToCoord
+                    res[count][1] = i + offsetZ;
+                    count++;
+
+                    walls &= walls - 1;   // tolgo il bit meno significativo
+
+                }
+            }
+        }
+
+        return res;
+
+    }
+
+    /**
+     * Funzione che ritorna il numero di pareti totali nel labirinto.
+     *
+     * Il conteggio è fatto con popcount sulle word della griglia.
+     *
+     * @return Numero di pareti totali nel labirinto
+     */
+    public int getNumWall(){
+
+        return labyrinth.countWalls();
+
+    }
+
+    /********** GETTERS ***********/
+
+    public float[] getStartPoint(){ return fromIndicesToCoord(startP.x, startP.y); }
+
+    public float[] getEndPoint(){ return fromIndicesToCoord(endP.x, endP.y); }
+
+    public float getStartAngle(){ return startAngle; }
+
+    public float getEndAngle(){ return endAngle; }
+
+    public GridPoint getDimension() { return dimension; }
+
+    public MazeGrid getGrid() { return labyrinth; }
+
+    public MazeAlgorithm getAlgorithm() { return algorithm; }
+
+    public long getSeed() { return seed; }
+
+    public MazeCache getCache() { return cache; }
+
+    /******* SETTER *******/
+
+    public void setAlgorithm(MazeAlgorithm algorithm) { this.algorithm = algorithm; }
+
+    public void setSeed(long seed) { this.seed = seed; }
+
+    public void setCache(MazeCache cache) { this.cache = cache; }
+
+}
@@ -0,0 +1,114 @@
+package com.example.progetto.game.maze;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random walk di Aldous-Broder sulla MazeGrid senza allocazioni nel ciclo interno.
+ *
+ * Il tempo di copertura del random walk fa sì che su labirinti grandi gli step siano centinaia di
+ * milioni, quindi nel ciclo interno:
+ *      - la cella corrente è rappresentata da 2 int (riga, colonna), nessun Point;
+ *      - i vicini candidati sono salvati come direzioni in un vettore di 4 slot riusato;
+ *      - la scelta del vicino è un singolo nextInt(n) invece di uno shuffle della lista;
+ *      - il generatore è uno SplittableRandom (non sincronizzato, a differenza di Random).
+ *
+ * La distribuzione dei labirinti è la stessa della versione con ArrayList + shuffle: prendere il
+ * primo elemento di una lista mescolata equivale a sceglierne uno a caso in modo uniforme.
+ */
+public class AldousBroder implements MazeAlgorithm {
+
+    // spostamenti (riga, colonna) verso il vicino: nord, sud, est, ovest
+    private static final int[] DIR_ROW = { -2, 2, 0, 0 };
+    private static final int[] DIR_COL = { 0, 0, -2, 2 };
+
+    @Override
+    public String getName() { return "aldous-broder"; }
+
+    /**
+     * Genera il labirinto abbattendo i muri della griglia.
+     *
+     * La griglia deve avere dimensioni dispari ed essere inizialmente tutta a muro; le celle
+     * (nodi '1') sono quelle con entrambe le coordinate dispari.
+     *
+     * @param grid Griglia da scolpire
+     * @param startRow Riga della cella iniziale (dispari)
+     * @param startCol Colonna della cella iniziale (dispari)
+     * @param random Generatore di numeri casuali
+     * @return Numero di step eseguiti dal random walk
+     */
+    @Override
+    public long carve(MazeGrid grid, int startRow, int startCol, SplittableRandom random){
+
+        int row = grid.getRows();
+        int col = grid.getCols();
+
+        int[] candidates = new int[4];   // direzioni candidate, riusato ad ogni step
+
+        int currRow = startRow;
+        int currCol = startCol;
+        grid.setWalkable(currRow, currCol);
+
+        long totalToVisit = ((long) (row-1) / 2) * ((col-1) / 2);
+        long numVisited = 1;
+        long steps = 0;
+
+        while (numVisited < totalToVisit){
+
+            steps++;
+
+            // vicini non ancora visitati (ancora a muro)
+            int n = collectNeighbours(grid, currRow, currCol, false, candidates);
+
+            if (n == 0){
+
+                // tutti visitati: mi sposto su un vicino (già visitato) a caso
+                n = collectNeighbours(grid, currRow, currCol, true, candidates);
+                int dir = candidates[random.nextInt(n)];
+                currRow += DIR_ROW[dir];
+                currCol += DIR_COL[dir];
+                continue;
+
+            }
+
+            int dir = candidates[random.nextInt(n)];
+            int nextRow = currRow + DIR_ROW[dir];
+            int nextCol = currCol + DIR_COL[dir];
+
+            // abbatto il muro tra corrente e vicino e visito il vicino
+            grid.setWalkable((currRow + nextRow) >> 1, (currCol + nextCol) >> 1);
+            grid.setWalkable(nextRow, nextCol);
+            numVisited++;
+
+            currRow = nextRow;
+            currCol = nextCol;
+
+        }
+
+        return steps;
+
+    }
+
+    /**
+     * Salva in 'out' le direzioni dei vicini (a distanza 2) che sono camminabili o meno.
+     *
+     * @param grid Griglia
+     * @param r Riga della cella
+     * @param c Colonna della cella
+     * @param walkable Valore che devono avere i vicini
+     * @param out Vettore di almeno 4 elementi dove salvare le direzioni
+     * @return Numero di direzioni salvate
+     */
+    private static int collectNeighbours(MazeGrid grid, int r, int c, boolean walkable, int[] out){
+
+        int n = 0;
+
+        if ( (r > 1) && (grid.isWalkable(r-2, c) == walkable) ) out[n++] = 0;                 // nord
+        if ( (r < grid.getRows()-2) && (grid.isWalkable(r+2, c) == walkable) ) out[n++] = 1;  // sud
+        if ( (c > 1) && (grid.isWalkable(r, c-2) == walkable) ) out[n++] = 2;                 // est
+        if ( (c < grid.getCols()-2) && (grid.isWalkable(r, c+2) == walkable) ) out[n++] = 3;  // ovest
+
+        return n;
+
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.example.progetto.game.maze;
+
+/**
+ * Coppia di interi (x, y) con campi pubblici, come android.graphics.Point ma senza dipendenze
+ * Android: usata per le dimensioni del labirinto (x colonne, y righe) e per le celle.
+ */
+public class GridPoint {
+
+    public int x;
+    public int y;
+
+    public GridPoint() { }
+
+    public GridPoint(int x, int y){
+
+        this.x = x;
+        this.y = y;
+
+    }
+
+    public void set(int x, int y){
+
+        this.x = x;
+        this.y = y;
+
+    }
+
+    @Override
+    public boolean equals(Object o){
+
+        if (this == o) return true;
+        if (!(o instanceof GridPoint)) return false;
+
+        GridPoint p = (GridPoint) o;
+        return (x == p.x) && (y == p.y);
+
+    }
+
+    @Override
+    public int hashCode() { return 31 * x + y; }
+
+    @Override
+    public String toString() { return "GridPoint(" + x + ", " + y + ")"; }
+
+}
@@ -0,0 +1,129 @@
+package com.example.progetto.game.maze;
+
+/**
+ * Raycasting 2D sulla MazeGrid (algoritmo DDA di Amanatides-Woo).
+ *
+ * Coordinate in unità di griglia: la cella (riga, colonna) occupa colonna in [col, col+1] e
+ * riga in [row, row+1] (per passare alle coordinate mondo basta sottrarre cols/2 e rows/2).
+ * Il raggio attraversa le celle una alla volta finchè entra in un muro, esce dalla griglia oppure
+ * supera la distanza massima.
+ *
+ * Per ogni muro colpito è restituita anche la faccia attraversata (identificata dalla direzione
+ * della sua normale, vedi costanti FACE_*).
+ *
+ * Un'istanza conserva il risultato dell'ultimo raggio: non è thread-safe, ogni thread usa la
+ * propria.
+ */
+public class GridRaycaster {
+
+    public static final int FACE_POS_Z = 0;   // normale verso le righe crescenti
+    public static final int FACE_NEG_Z = 1;
+    public static final int FACE_POS_X = 2;   // normale verso le colonne crescenti
+    public static final int FACE_NEG_X = 3;
+
+    private final MazeGrid grid;
+    private final int rows;
+    private final int cols;
+
+    private int hitRow;
+    private int hitCol;
+    private int hitFace;
+    private float hitDistance;
+    private int steps;
+
+    /**
+     * Costruttore della classe.
+     *
+     * @param grid Griglia del labirinto
+     */
+    public GridRaycaster(MazeGrid grid){
+
+        this.grid = grid;
+        rows = grid.getRows();
+        cols = grid.getCols();
+
+    }
+
+    /**
+     * Lancia un raggio dall'origine nella direzione data.
+     *
+     * L'origine deve essere in una cella camminabile (il muro che la contiene non è considerato).
+     *
+     * @param originCol Colonna dell'origine (coordinata continua)
+     * @param originRow Riga dell'origine (coordinata continua)
+     * @param dirCol Componente della direzione lungo le colonne
+     * @param dirRow Componente della direzione lungo le righe
+     * @param maxDistance Distanza massima (in unità della direzione)
+     * @return True se è stato colpito un muro (vedi getHitRow(), getHitCol(), getHitFace())
+     */
+    public boolean cast(float originCol, float originRow, float dirCol, float dirRow,
+                        float maxDistance){
+
+        int col = (int) Math.floor(originCol);
+        int row = (int) Math.floor(originRow);
+
+        int stepCol = (dirCol > 0) ? 1 : -1;
+        int stepRow = (dirRow > 0) ? 1 : -1;
+
+        // distanza per attraversare una cella intera su ciascun asse
+        float deltaCol = (dirCol != 0) ? Math.abs(1f / dirCol) : Float.POSITIVE_INFINITY;
+        float deltaRow = (dirRow != 0) ? Math.abs(1f / dirRow) : Float.POSITIVE_INFINITY;
+
+        // distanza al primo bordo di cella su ciascun asse
+        float nextCol = (dirCol > 0) ? (col + 1 - originCol) * deltaCol : (originCol - col) * deltaCol;
+        float nextRow = (dirRow > 0) ? (row + 1 - originRow) * deltaRow : (originRow - row) * deltaRow;
+        if (dirCol == 0) nextCol = Float.POSITIVE_INFINITY;
+        if (dirRow == 0) nextRow = Float.POSITIVE_INFINITY;
+
+        steps = 0;
+
+        while (true){
+
+            float distance;
+            int face;
+
+            if (nextCol < nextRow){
+                col += stepCol;
+                distance = nextCol;
+                nextCol += deltaCol;
+                face = (stepCol > 0) ? FACE_NEG_X : FACE_POS_X;
+            }else{
+                row += stepRow;
+                distance = nextRow;
+                nextRow += deltaRow;
+                face = (stepRow > 0) ? FACE_NEG_Z : FACE_POS_Z;
+            }
+            steps++;
+
+            if ( (distance > maxDistance) || (row < 0) || (row >= rows) || (col < 0) || (col >= cols) ){
+                return false;
+            }
+
+            if (!grid.isWalkable(row, col)){
+                hitRow = row;
+                hitCol = col;
+                hitFace = face;
+                hitDistance = distance;
+                return true;
+            }
+
+        }
+
+    }
+
+    /******* GETTER *******/
+
+    public int getHitRow() { return hitRow; }
+
+    public int getHitCol() { return hitCol; }
+
+    public int getHitFace() { return hitFace; }
+
+    public float getHitDistance() { return hitDistance; }
+
+    /** Celle attraversate dall'ultimo raggio. */
+    public int getSteps() { return steps; }
+
+    public MazeGrid getGrid() { return grid; }
+
+}
@@ -0,0 +1,115 @@
+package com.example.progetto.game.maze;
+
+import java.util.SplittableRandom;
+
+/**
+ * Algoritmo di Kruskal randomizzato.
+ *
+ * Gli archi tra celle adiacenti sono mescolati (Fisher-Yates) e poi scorsi in ordine: un arco è
+ * aggiunto al labirinto (muro abbattuto) se collega due celle che appartengono ad insiemi diversi.
+ * Gli insiemi sono gestiti con una union-find su vettori di primitivi con path compression
+ * (path halving) e unione per rango.
+ *
+ * Codifica degli archi (indici di cella = riga_cella * cellCols + colonna_cella):
+ *      - arco 'e' < numH  --> arco orizzontale tra la cella 'a' e quella alla sua destra;
+ *      - arco 'e' >= numH --> arco verticale tra la cella 'a' e quella sotto.
+ *
+ * La cella iniziale non influisce sul risultato (Kruskal non parte da una cella).
+ */
+public class Kruskal implements MazeAlgorithm {
+
+    @Override
+    public String getName() { return "kruskal"; }
+
+    @Override
+    public long carve(MazeGrid grid, int startRow, int startCol, SplittableRandom random){
+
+        int cellRows = (grid.getRows()-1) / 2;
+        int cellCols = (grid.getCols()-1) / 2;
+        int numCells = cellRows * cellCols;
+
+        int numH = cellRows * (cellCols-1);          // archi orizzontali
+        int numEdges = numH + (cellRows-1) * cellCols;
+
+        int[] edges = new int[numEdges];
+        for (int i=0; i<numEdges; i++){
+            edges[i] = i;
+        }
+        for (int i=numEdges-1; i>0; i--){            // Fisher-Yates
+            int j = random.nextInt(i+1);
+            int tmp = edges[i];
+            edges[i] = edges[j];
+            edges[j] = tmp;
+        }
+
+        int[] parent = new int[numCells];
+        byte[] rank = new byte[numCells];
+        for (int i=0; i<numCells; i++){
+            parent[i] = i;
+        }
+
+        grid.setWalkable(startRow, startCol);        // caso con una sola cella (nessun arco)
+
+        int joined = 0;
+        long steps = 0;
+
+        for (int k=0; (k<numEdges) && (joined < numCells-1); k++){
+
+            steps++;
+
+            int e = edges[k];
+            int a, b;
+            if (e < numH){
+                int r = e / (cellCols-1);
+                a = r * cellCols + (e % (cellCols-1));
+                b = a + 1;
+            }else{
+                a = e - numH;
+                b = a + cellCols;
+            }
+
+            int rootA = find(parent, a);
+            int rootB = find(parent, b);
+            if (rootA == rootB) continue;
+
+            // unione per rango
+            if (rank[rootA] < rank[rootB]){
+                parent[rootA] = rootB;
+            }else if (rank[rootA] > rank[rootB]){
+                parent[rootB] = rootA;
+            }else{
+                parent[rootB] = rootA;
+                rank[rootA]++;
+            }
+            joined++;
+
+            // abbatto il muro tra le due celle
+            int rowA = 2 * (a / cellCols) + 1;
+            int colA = 2 * (a % cellCols) + 1;
+            int rowB = 2 * (b / cellCols) + 1;
+            int colB = 2 * (b % cellCols) + 1;
+            grid.setWalkable(rowA, colA);
+            grid.setWalkable(rowB, colB);
+            grid.setWalkable((rowA + rowB) >> 1, (colA + colB) >> 1);
+
+        }
+
+        return steps;
+
+    }
+
+    /**
+     * Radice dell'insieme di 'x' con path halving (ogni nodo attraversato punta al nonno).
+     */
+    private static int find(int[] parent, int x){
+
+        while (parent[x] != x){
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+
+        return x;
+
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.example.progetto.game.maze;
+
+import java.util.SplittableRandom;
+
+/**
+ * Interfaccia (strategy) per gli algoritmi di generazione del labirinto usati da
+ * LabyrinthGenerator.
+ *
+ * Convenzione della griglia (vedi LabyrinthGenerator.generate()):
+ *      - dimensioni dispari e griglia inizialmente tutta a muro;
+ *      - le celle (nodi '1') sono quelle con riga e colonna dispari;
+ *      - un arco dello spanning tree tra due celle abbatte il muro che le separa.
+ *
+ * Ogni implementazione deve produrre un labirinto perfetto (spanning tree di tutte le celle), così
+ * la scelta del punto di start e di end in LabyrinthGenerator resta valida per ogni algoritmo.
+ *
+ * Le implementazioni non devono avere stato tra una chiamata e l'altra di carve(): la stessa
+ * istanza può essere usata da più thread (vedi ParallelTiledAlgorithm).
+ */
+public interface MazeAlgorithm {
+
+    /**
+     * Nome dell'algoritmo (usato anche come chiave, ad es. per la cache dei labirinti).
+     *
+     * @return Nome dell'algoritmo
+     */
+    String getName();
+
+    /**
+     * Genera il labirinto abbattendo i muri della griglia.
+     *
+     * @param grid Griglia tutta a muro con dimensioni dispari
+     * @param startRow Riga della cella iniziale (dispari)
+     * @param startCol Colonna della cella iniziale (dispari)
+     * @param random Generatore di numeri casuali
+     * @return Numero di step eseguiti (dipende dall'algoritmo, utile per i benchmark)
+     */
+    long carve(MazeGrid grid, int startRow, int startCol, SplittableRandom random);
+
+}
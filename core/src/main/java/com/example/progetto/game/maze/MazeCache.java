@@ -0,0 +1,369 @@
+package com.example.progetto.game.maze;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache su disco dei labirinti generati, con chiave (algoritmo, dimensione, seed).
+ *
+ * Dato che la generazione è deterministica a parità di chiave, un labirinto già generato può
+ * essere riletto da file invece di essere rigenerato.
+ *
+ * Formato binario (little endian), un file per labirinto:
+ *
+ *      offset  tipo     campo
+ *      0       int      MAGIC ('MAZE')
+ *      4       int      VERSION
+ *      8       int      righe
+ *      12      int      colonne
+ *      16      long     seed
+ *      24      int x4   start (riga, colonna), end (riga, colonna)
+ *      40      int      lunghezza nome algoritmo (byte UTF-8)
+ *      44      byte[]   nome algoritmo, con padding a multipli di 8 byte
+ *      ...     long[]   word della MazeGrid (righe * wordsPerRow)
+ *
+ * La lettura avviene tramite FileChannel mappato in memoria: le word sono copiate con una sola
+ * get() bulk dalla vista LongBuffer, quindi anche labirinti grandi si caricano in pochi ms.
+ *
+ * Dimensione limitata (LRU): dopo ogni store() i file della cartella sono raggruppati per chiave
+ * (il labirinto e i dati derivati salvati accanto, es. ".pvs") e i gruppi usati meno di recente
+ * sono cancellati finché il totale non rientra in maxBytes. Un load() riuscito aggiorna la data di
+ * modifica del file, che fa da data di ultimo uso.
+ */
+public class MazeCache {
+
+    private static final int MAGIC = 0x4D415A45;     // 'MAZE'
+    private static final int VERSION = 1;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int FIXED_HEADER_SIZE = 44;        // campi prima del nome
+    private static final int MAX_NAME_LENGTH = 256;
+
+    public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+
+    private final File directory;
+    private final long maxBytes;
+
+    /**
+     * Labirinto letto dalla cache (o da salvare in cache).
+     */
+    public static class Entry {
+
+        public final MazeGrid grid;
+        public final int startRow;
+        public final int startCol;
+        public final int endRow;
+        public final int endCol;
+
+        public Entry(MazeGrid grid, int startRow, int startCol, int endRow, int endCol){
+
+            this.grid = grid;
+            this.startRow = startRow;
+            this.startCol = startCol;
+            this.endRow = endRow;
+            this.endCol = endCol;
+
+        }
+
+    }
+
+    /**
+     * Costruttore della classe con dimensione massima DEFAULT_MAX_BYTES.
+     *
+     * @param directory Cartella della cache (creata se non esiste)
+     */
+    public MazeCache(File directory){
+
+        this(directory, DEFAULT_MAX_BYTES);
+
+    }
+
+    /**
+     * Costruttore della classe.
+     *
+     * @param directory Cartella della cache (creata se non esiste)
+     * @param maxBytes Dimensione massima della cartella, oltre sono cancellate le chiavi usate
+     *                 meno di recente
+     */
+    public MazeCache(File directory, long maxBytes){
+
+        if (maxBytes <= 0) throw new IllegalArgumentException("Dimensione massima non valida");
+
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+
+    }
+
+    /**
+     * File associato ad una certa chiave.
+     *
+     * @param algorithm Nome dell'algoritmo
+     * @param rows Numero di righe
+     * @param cols Numero di colonne
+     * @param seed Seed della generazione
+     * @return File della cache (può non esistere)
+     */
+    public File fileFor(String algorithm, int rows, int cols, long seed){
+
+        return fileFor(algorithm, rows, cols, seed, ".maze");
+
+    }
+
+    /**
+     * File associato ad una certa chiave con un'estensione a scelta: usato per salvare accanto al
+     * labirinto dati derivati (es. il PVS dei muri, estensione ".pvs").
+     *
+     * @param algorithm Nome dell'algoritmo
+     * @param rows Numero di righe
+     * @param cols Numero di colonne
+     * @param seed Seed della generazione
+     * @param extension Estensione del file (con il punto)
+     * @return File della cache (può non esistere)
+     */
+    public File fileFor(String algorithm, int rows, int cols, long seed, String extension){
+
+        String safeName = algorithm.replaceAll("[^A-Za-z0-9_-]", "_");
+        return new File(directory, safeName + "_" + rows + "x" + cols + "_" + Long.toHexString(seed) + extension);
+
+    }
+
+    /**
+     * Cerca un labirinto in cache.
+     *
+     * Un file non valido (magic o versione diversi, lunghezze fuori dal file, troncato) è
+     * cancellato e segnalato con una IOException: chi chiama rigenera il labirinto.
+     *
+     * @param algorithm Nome dell'algoritmo
+     * @param rows Numero di righe
+     * @param cols Numero di colonne
+     * @param seed Seed della generazione
+     * @return Labirinto letto, null se non presente in cache
+     * @throws IOException In caso di errore di lettura o file non valido
+     */
+    public Entry load(String algorithm, int rows, int cols, long seed) throws IOException {
+
+        File file = fileFor(algorithm, rows, cols, seed);
+        if (!file.isFile()) return null;
+
+        Entry entry;
+        try {
+            entry = read(file, algorithm, rows, cols, seed);
+        } catch (IOException | RuntimeException e) {
+            // es. BufferUnderflowException: qualsiasi errore di parsing è un file corrotto
+            file.delete();
+            if (e instanceof IOException) throw (IOException) e;
+            throw new IOException("File della cache non valido: " + file, e);
+        }
+
+        if (entry != null){
+            file.setLastModified(System.currentTimeMillis());     // ultimo uso (LRU)
+        }
+
+        return entry;
+
+    }
+
+    private Entry read(File file, String algorithm, int rows, int cols, long seed) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+
+            long size = channel.size();
+            if (size < FIXED_HEADER_SIZE){
+                throw new IOException("File della cache troncato: " + file);
+            }
+
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+            if ( (mapped.getInt() != MAGIC) || (mapped.getInt() != VERSION) ){
+                throw new IOException("File della cache non valido: " + file);
+            }
+
+            int fileRows = mapped.getInt();
+            int fileCols = mapped.getInt();
+            long fileSeed = mapped.getLong();
+            int startRow = mapped.getInt();
+            int startCol = mapped.getInt();
+            int endRow = mapped.getInt();
+            int endCol = mapped.getInt();
+
+            int nameLength = mapped.getInt();
+            if ( (nameLength < 0) || (nameLength > MAX_NAME_LENGTH) || (nameLength > mapped.remaining()) ){
+                throw new IOException("Lunghezza del nome non valida (" + nameLength + "): " + file);
+            }
+            byte[] name = new byte[nameLength];
+            mapped.get(name);
+
+            if ( (fileRows != rows) || (fileCols != cols) || (fileSeed != seed) ||
+                 !algorithm.equals(new String(name, UTF8)) ){
+                return null;   // collisione sul nome del file: trattato come miss
+            }
+
+            if (!inside(startRow, startCol, rows, cols) || !inside(endRow, endCol, rows, cols)){
+                throw new IOException("Start o end fuori dal labirinto: " + file);
+            }
+
+            long wordCount = (long) rows * MazeGrid.wordsPerRow(cols);
+            if (size - headerSize(nameLength) < wordCount * 8L){
+                throw new IOException("File della cache troncato: " + file);
+            }
+
+            mapped.position(headerSize(nameLength));
+            long[] words = new long[(int) wordCount];
+            mapped.asLongBuffer().get(words);
+
+            return new Entry(new MazeGrid(rows, cols, words), startRow, startCol, endRow, endCol);
+
+        }
+
+    }
+
+    private static boolean inside(int row, int col, int rows, int cols){
+
+        return (row >= 0) && (row < rows) && (col >= 0) && (col < cols);
+
+    }
+
+    /**
+     * Salva un labirinto in cache.
+     * Il file è scritto in un file temporaneo e poi rinominato, così un file parziale non è mai
+     * visibile con il nome definitivo.
+     *
+     * @param algorithm Nome dell'algoritmo
+     * @param seed Seed della generazione
+     * @param entry Labirinto da salvare
+     * @throws IOException In caso di errore di scrittura
+     */
+    public void store(String algorithm, long seed, Entry entry) throws IOException {
+
+        if (!directory.isDirectory() && !directory.mkdirs()){
+            throw new IOException("Impossibile creare la cartella " + directory);
+        }
+
+        MazeGrid grid = entry.grid;
+        byte[] name = algorithm.getBytes(UTF8);
+        long[] words = grid.getWords();
+        int headerSize = headerSize(name.length);
+
+        ByteBuffer buffer = ByteBuffer.allocate(headerSize + words.length * 8)
+                                      .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION)
+              .putInt(grid.getRows()).putInt(grid.getCols())
+              .putLong(seed)
+              .putInt(entry.startRow).putInt(entry.startCol)
+              .putInt(entry.endRow).putInt(entry.endCol)
+              .putInt(name.length).put(name);
+        buffer.position(headerSize);
+        buffer.asLongBuffer().put(words);
+        buffer.position(0);
+
+        File file = fileFor(algorithm, grid.getRows(), grid.getCols(), seed);
+        File tmp = new File(directory, file.getName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()){
+                channel.write(buffer);
+            }
+        }
+
+        if (!tmp.renameTo(file)){
+            tmp.delete();
+            throw new IOException("Impossibile salvare " + file);
+        }
+
+        trim(file);
+
+    }
+
+    /**
+     * Cancella le chiavi usate meno di recente finché la cartella non rientra in maxBytes.
+     *
+     * I file con la stessa chiave (stesso nome senza estensione) sono cancellati insieme; la data
+     * di ultimo uso di una chiave è la più recente tra quelle dei suoi file.
+     *
+     * @param keep File da non cancellare (es. appena salvato), può essere null
+     * @return Byte liberati
+     */
+    public long trim(File keep){
+
+        File[] files = directory.listFiles();
+        if (files == null) return 0;
+
+        String keepKey = (keep == null) ? null : keyOf(keep);
+
+        Map<String, long[]> groups = new HashMap<>();        // chiave -> [byte, ultimo uso]
+        long total = 0;
+        for (File f : files){
+            if (!f.isFile()) continue;
+            long[] g = groups.get(keyOf(f));
+            if (g == null){
+                g = new long[2];
+                groups.put(keyOf(f), g);
+            }
+            g[0] += f.length();
+            g[1] = Math.max(g[1], f.lastModified());
+            total += f.length();
+        }
+
+        if (total <= maxBytes) return 0;
+
+        List<Map.Entry<String, long[]>> byAge = new ArrayList<>(groups.entrySet());
+        Collections.sort(byAge, new Comparator<Map.Entry<String, long[]>>() {
+            @Override
+            public int compare(Map.Entry<String, long[]> a, Map.Entry<String, long[]> b) {
+                return Long.compare(a.getValue()[1], b.getValue()[1]);
+            }
+        });
+
+        long freed = 0;
+        for (Map.Entry<String, long[]> group : byAge){
+
+            if (total - freed <= maxBytes) break;
+            if (group.getKey().equals(keepKey)) continue;
+
+            for (File f : files){
+                if (f.isFile() && keyOf(f).equals(group.getKey())) f.delete();
+            }
+            freed += group.getValue()[0];
+
+        }
+
+        return freed;
+
+    }
+
+    /** Chiave di un file della cache: il nome senza estensione (anche ".maze.tmp"). */
+    private static String keyOf(File file){
+
+        String name = file.getName();
+        int dot = name.indexOf('.');
+
+        return (dot < 0) ? name : name.substring(0, dot);
+
+    }
+
+    /**
+     * Dimensione dell'header: campi fissi + nome, arrotondata a multipli di 8 byte così le word
+     * sono allineate.
+     */
+    private static int headerSize(int nameLength){ return (FIXED_HEADER_SIZE + nameLength + 7) & ~7; }
+
+    /******* GETTER *******/
+
+    public File getDirectory() { return directory; }
+
+    public long getMaxBytes() { return maxBytes; }
+
+}
@@ -0,0 +1,268 @@
+package com.example.progetto.game.maze;
+
+import java.util.Arrays;
+
+/**
+ * Griglia compatta del labirinto: 1 bit per cella.
+ *
+ * Bit a 1 = cella camminabile, bit a 0 = muro (stessa convenzione della vecchia matrice
+ * int[][] dove 1 era camminabile e 0 muro).
+ *
+ * Le celle sono salvate in un vettore di long "row-major". Ogni riga parte sempre da una nuova
+ * word (la riga è paddata a multipli di 64 colonne) in questo modo:
+ *      - le query su una riga (maschere, conteggi) lavorano direttamente sulle word;
+ *      - i bit di padding restano sempre a 0 e quindi non vanno mai mascherati quando conto le
+ *        celle camminabili con Long.bitCount().
+ *
+ * Esempio occupazione: 10001x10001 celle --> 157 word per riga --> ~12.5 MB
+ *                      (con int[][] sarebbero ~400 MB).
+ */
+public class MazeGrid {
+
+    private final int rows;
+    private final int cols;
+    private final int wordsPerRow;
+    private final long[] words;
+
+    /**
+     * Costruttore della classe. Tutte le celle sono inizialmente muri.
+     *
+     * @param rows Numero di righe
+     * @param cols Numero di colonne
+     */
+    public MazeGrid(int rows, int cols){
+
+        this(rows, cols, null);
+
+    }
+
+    /**
+     * Costruttore della classe a partire da word già esistenti (es. lette da file).
+     *
+     * @param rows Numero di righe
+     * @param cols Numero di colonne
+     * @param words Word della griglia (lunghezza rows * wordsPerRow(cols)). Se null sono allocate
+     *              nuove word con tutte le celle a muro.
+     */
+    public MazeGrid(int rows, int cols, long[] words){
+
+        if ( (rows <= 0) || (cols <= 0) ){
+            throw new IllegalArgumentException("Parametro non valido");
+        }
+
+        this.rows = rows;
+        this.cols = cols;
+        this.wordsPerRow = wordsPerRow(cols);
+
+        long size = (long) rows * wordsPerRow;
+        if (size > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("Griglia troppo grande");
+        }
+
+        if (words == null){
+            this.words = new long[(int) size];
+        }else{
+            if (words.length != size){
+                throw new IllegalArgumentException("Parametro non valido");
+            }
+            this.words = words;
+        }
+
+    }
+
+    /**
+     * Numero di word necessarie per memorizzare una riga di 'cols' colonne.
+     *
+     * @param cols Numero di colonne
+     * @return Numero di word per riga
+     */
+    public static int wordsPerRow(int cols){ return (cols + 63) >>> 6; }
+
+    /**
+     * Controlla se la cella (row, col) è camminabile.
+     *
+     * @param row Indice di riga
+     * @param col Indice di colonna
+     * @return True se la cella è camminabile, False se è un muro
+     */
+    public boolean isWalkable(int row, int col){
+
+        return (words[row * wordsPerRow + (col >>> 6)] & (1L << col)) != 0;
+
+    }
+
+    /**
+     * Imposta la cella (row, col) come camminabile.
+     *
+     * @param row Indice di riga
+     * @param col Indice di colonna
+     */
+    public void setWalkable(int row, int col){
+
+        words[row * wordsPerRow + (col >>> 6)] |= (1L << col);
+
+    }
+
+    /**
+     * Imposta la cella (row, col) come muro.
+     *
+     * @param row Indice di riga
+     * @param col Indice di colonna
+     */
+    public void setWall(int row, int col){
+
+        words[row * wordsPerRow + (col >>> 6)] &= ~(1L << col);
+
+    }
+
+    /**
+     * Riporta tutte le celle a muro.
+     */
+    public void clear(){
+
+        Arrays.fill(words, 0L);
+
+    }
+
+    /**
+     * Conta le celle camminabili (popcount word per word).
+     *
+     * @return Numero di celle camminabili
+     */
+    public int countWalkable(){
+
+        int sum = 0;
+        for (long w : words){
+            sum += Long.bitCount(w);
+        }
+
+        return sum;
+
+    }
+
+    /**
+     * Conta i muri della griglia.
+     * Dato che i bit di padding sono sempre a 0, basta sottrarre le celle camminabili al totale.
+     *
+     * @return Numero di muri
+     */
+    public int countWalls(){
+
+        return rows * cols - countWalkable();
+
+    }
+
+    /**
+     * Conta i muri di una singola riga.
+     *
+     * @param row Indice di riga
+     * @return Numero di muri nella riga
+     */
+    public int countWallsInRow(int row){
+
+        int walkable = 0;
+        int base = row * wordsPerRow;
+        for (int i=0; i<wordsPerRow; i++){
+            walkable += Long.bitCount(words[base + i]);
+        }
+
+        return cols - walkable;
+
+    }
+
+    /**
+     * Ritorna la word 'wordIndex' della riga 'row' come maschera delle celle camminabili.
+     * Il bit 'b' della word corrisponde alla colonna (wordIndex * 64 + b).
+     *
+     * @param row Indice di riga
+     * @param wordIndex Indice della word nella riga (0 .. wordsPerRow-1)
+     * @return Maschera di 64 colonne (1 = camminabile)
+     */
+    public long getRowWord(int row, int wordIndex){
+
+        return words[row * wordsPerRow + wordIndex];
+
+    }
+
+    /**
+     * Copia in 'dst' la maschera delle celle camminabili della riga 'row'.
+     *
+     * @param row Indice di riga
+     * @param dst Vettore di destinazione di lunghezza almeno getWordsPerRow()
+     */
+    public void getRowWalkableMask(int row, long[] dst){
+
+        System.arraycopy(words, row * wordsPerRow, dst, 0, wordsPerRow);
+
+    }
+
+    /**
+     * Copia in 'dst' la maschera dei muri della riga 'row' (i bit di padding restano a 0).
+     *
+     * @param row Indice di riga
+     * @param dst Vettore di destinazione di lunghezza almeno getWordsPerRow()
+     */
+    public void getRowWallMask(int row, long[] dst){
+
+        int base = row * wordsPerRow;
+        for (int i=0; i<wordsPerRow; i++){
+            dst[i] = ~words[base + i] & validMask(i);
+        }
+
+    }
+
+    /**
+     * Sovrascrive una riga a partire da una maschera di celle camminabili.
+     *
+     * @param row Indice di riga
+     * @param src Maschera della riga (1 = camminabile) di lunghezza almeno getWordsPerRow()
+     */
+    public void setRowWalkableMask(int row, long[] src){
+
+        int base = row * wordsPerRow;
+        for (int i=0; i<wordsPerRow; i++){
+            words[base + i] = src[i] & validMask(i);
+        }
+
+    }
+
+    /**
+     * Maschera dei bit validi (non di padding) della word 'wordIndex' di una riga.
+     *
+     * @param wordIndex Indice della word nella riga
+     * @return Maschera dei bit validi
+     */
+    public long validMask(int wordIndex){
+
+        int remaining = cols - (wordIndex << 6);
+        return (remaining >= 64) ? -1L : ((1L << remaining) - 1);
+
+    }
+
+    @Override
+    public String toString(){
+
+        StringBuilder res = new StringBuilder();
+        for (int i=0; i<rows; i++){
+            res.append("[");
+            for (int z=0; z<cols; z++){
+                res.append(" ").append(isWalkable(i, z) ? 1 : 0);
+            }
+            res.append(" ]\n");
+        }
+
+        return res.toString();
+
+    }
+
+    /******* GETTER *******/
+
+    public int getRows() { return rows; }
+
+    public int getCols() { return cols; }
+
+    public int getWordsPerRow() { return wordsPerRow; }
+
+    public long[] getWords() { return words; }  // riferimento diretto (no copia)
+
+}
@@ -0,0 +1,264 @@
+package com.example.progetto.game.maze;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generazione parallela del labirinto a tile su un ForkJoinPool.
+ *
+ * Le celle del labirinto sono divise in tile quadrate di 'tileCells' x 'tileCells' celle:
+ *      1) ogni tile è generata in parallelo, in una griglia locale, dall'algoritmo scelto e con
+ *         un proprio SplittableRandom (ottenuto con split() prima di partire, così il risultato
+ *         dipende solo dal seed e non dal numero di thread);
+ *      2) le griglie locali sono copiate nella griglia finale, in parallelo per fasce di tile:
+ *         ogni riga della MazeGrid inizia su una word nuova, quindi fasce diverse non scrivono
+ *         mai sulla stessa word;
+ *      3) le tile sono collegate con uno spanning tree casuale del grafo delle tile: per ogni
+ *         arco è aperto esattamente un passaggio nel muro in comune.
+ *
+ * Ogni tile è uno spanning tree delle proprie celle e le tile sono collegate da uno spanning tree,
+ * quindi il risultato è ancora un labirinto perfetto e lo start è collegato all'end.
+ *
+ * NB: il labirinto non è più uniforme (ogni coppia di tile adiacenti ha un solo passaggio).
+ */
+public class ParallelTiledAlgorithm implements MazeAlgorithm {
+
+    public static final int DEFAULT_TILE_CELLS = 128;
+
+    private final MazeAlgorithm tileAlgorithm;
+    private final int tileCells;
+    private final ForkJoinPool pool;
+
+    /**
+     * Costruttore della classe con tile di default e pool comune.
+     *
+     * @param tileAlgorithm Algoritmo usato per generare ogni tile
+     */
+    public ParallelTiledAlgorithm(MazeAlgorithm tileAlgorithm){
+
+        this(tileAlgorithm, DEFAULT_TILE_CELLS, ForkJoinPool.commonPool());
+
+    }
+
+    /**
+     * Costruttore della classe.
+     *
+     * @param tileAlgorithm Algoritmo usato per generare ogni tile
+     * @param tileCells Lato della tile in celle (nodi '1')
+     * @param pool Pool su cui eseguire la generazione
+     */
+    public ParallelTiledAlgorithm(MazeAlgorithm tileAlgorithm, int tileCells, ForkJoinPool pool){
+
+        if (tileCells < 1){
+            throw new IllegalArgumentException("Parametro non valido");
+        }
+
+        this.tileAlgorithm = tileAlgorithm;
+        this.tileCells = tileCells;
+        this.pool = pool;
+
+    }
+
+    @Override
+    public String getName() { return "tiled-" + tileAlgorithm.getName() + "-" + tileCells; }
+
+    @Override
+    public long carve(final MazeGrid grid, int startRow, int startCol, SplittableRandom random){
+
+        final int cellRows = (grid.getRows()-1) / 2;
+        final int cellCols = (grid.getCols()-1) / 2;
+        final int tilesR = (cellRows + tileCells - 1) / tileCells;
+        final int tilesC = (cellCols + tileCells - 1) / tileCells;
+        final int numTiles = tilesR * tilesC;
+
+        // un generatore per tile, estratti in ordine prima della parte parallela
+        final SplittableRandom[] tileRandom = new SplittableRandom[numTiles];
+        for (int t=0; t<numTiles; t++){
+            tileRandom[t] = random.split();
+        }
+
+        // 1) generazione delle tile
+        final MazeGrid[] tiles = new MazeGrid[numTiles];
+        final long[] tileSteps = new long[numTiles];
+        pool.invoke(new RangeAction(0, numTiles) {
+            @Override
+            void compute(int t) {
+                int h = Math.min(tileCells, cellRows - (t / tilesC) * tileCells);
+                int w = Math.min(tileCells, cellCols - (t % tilesC) * tileCells);
+                MazeGrid local = new MazeGrid(2*h + 1, 2*w + 1);
+                tileSteps[t] = tileAlgorithm.carve(local, 2*h - 1, 1, tileRandom[t]);
+                tiles[t] = local;
+            }
+        });
+
+        // 2) copia nella griglia finale, una fascia di tile per task
+        pool.invoke(new RangeAction(0, tilesR) {
+            @Override
+            void compute(int tr) {
+                for (int tc=0; tc<tilesC; tc++){
+                    blit(tiles[tr * tilesC + tc], grid, 2 * tr * tileCells, 2 * tc * tileCells);
+                    tiles[tr * tilesC + tc] = null;
+                }
+            }
+        });
+
+        // 3) spanning tree sulle tile (Kruskal sugli archi tra tile) e un passaggio per arco
+        stitch(grid, cellRows, cellCols, tilesR, tilesC, random);
+
+        long steps = 0;
+        for (long s : tileSteps){
+            steps += s;
+        }
+
+        return steps;
+
+    }
+
+    /**
+     * Copia le celle camminabili interne di una tile nella griglia finale.
+     */
+    private static void blit(MazeGrid local, MazeGrid grid, int rowOffset, int colOffset){
+
+        int wordsPerRow = local.getWordsPerRow();
+
+        for (int r=1; r<local.getRows()-1; r++){
+            for (int w=0; w<wordsPerRow; w++){
+
+                long bits = local.getRowWord(r, w);
+                while (bits != 0){
+                    int c = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    grid.setWalkable(rowOffset + r, colOffset + c);
+                    bits &= bits - 1;
+                }
+
+            }
+        }
+
+    }
+
+    /**
+     * Collega le tile: Kruskal randomizzato sul grafo delle tile e, per ogni arco scelto, apertura
+     * di un passaggio in una posizione a caso lungo il bordo comune.
+     */
+    private void stitch(MazeGrid grid, int cellRows, int cellCols, int tilesR, int tilesC,
+                        SplittableRandom random){
+
+        int numH = tilesR * (tilesC-1);
+        int numEdges = numH + (tilesR-1) * tilesC;
+
+        int[] edges = new int[numEdges];
+        for (int i=0; i<numEdges; i++){
+            edges[i] = i;
+        }
+        for (int i=numEdges-1; i>0; i--){
+            int j = random.nextInt(i+1);
+            int tmp = edges[i];
+            edges[i] = edges[j];
+            edges[j] = tmp;
+        }
+
+        int[] parent = new int[tilesR * tilesC];
+        for (int i=0; i<parent.length; i++){
+            parent[i] = i;
+        }
+
+        for (int e : edges){
+
+            int a, b;
+            if (e < numH){
+                a = (e / (tilesC-1)) * tilesC + (e % (tilesC-1));
+                b = a + 1;
+            }else{
+                a = e - numH;
+                b = a + tilesC;
+            }
+
+            int rootA = find(parent, a);
+            int rootB = find(parent, b);
+            if (rootA == rootB) continue;
+            parent[rootB] = rootA;
+
+            int tr = a / tilesC;
+            int tc = a % tilesC;
+
+            // orientamento dall'indice dell'arco: con una sola colonna di tile anche l'arco
+            // verticale ha b == a + 1
+            if (e < numH){
+                // muro verticale tra la tile 'a' e quella a destra
+                int rows = Math.min(tileCells, cellRows - tr * tileCells);
+                int cellRow = tr * tileCells + random.nextInt(rows);
+                int wallCol = 2 * (tc + 1) * tileCells;
+                grid.setWalkable(2 * cellRow + 1, wallCol);
+            }else{
+                // muro orizzontale tra la tile 'a' e quella sotto
+                int cols = Math.min(tileCells, cellCols - tc * tileCells);
+                int cellCol = tc * tileCells + random.nextInt(cols);
+                int wallRow = 2 * (tr + 1) * tileCells;
+                grid.setWalkable(wallRow, 2 * cellCol + 1);
+            }
+
+        }
+
+    }
+
+    private static int find(int[] parent, int x){
+
+        while (parent[x] != x){
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+
+        return x;
+
+    }
+
+    /**
+     * Task fork/join su un intervallo di indici [from, to): divide a metà finché resta un solo
+     * indice e poi chiama compute(i).
+     */
+    private abstract static class RangeAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        RangeAction(int from, int to){
+
+            this.from = from;
+            this.to = to;
+
+        }
+
+        abstract void compute(int i);
+
+        @Override
+        protected void compute(){
+
+            if (to - from <= 1){
+                if (to > from) compute(from);
+                return;
+            }
+
+            final int mid = (from + to) >>> 1;
+            final RangeAction outer = this;
+            invokeAll(new RangeAction(from, mid) {
+                @Override
+                void compute(int i) { outer.compute(i); }
+            }, new RangeAction(mid, to) {
+                @Override
+                void compute(int i) { outer.compute(i); }
+            });
+
+        }
+
+    }
+
+    /******* GETTER *******/
+
+    public MazeAlgorithm getTileAlgorithm() { return tileAlgorithm; }
+
+    public int getTileCells() { return tileCells; }
+
+}
@@ -0,0 +1,101 @@
+package com.example.progetto.game.maze;
+
+import java.util.SplittableRandom;
+
+/**
+ * Algoritmo di Wilson: genera uno Uniform Spanning Tree (come Aldous-Broder) tramite random walk
+ * con cancellazione dei cicli (loop-erased random walk).
+ *
+ * Funzionamento:
+ *      - la cella iniziale fa parte dell'albero;
+ *      - per ogni cella non ancora nell'albero parte un random walk che si ferma appena tocca
+ *        l'albero; per ogni cella attraversata è salvata solo l'ultima direzione presa, in questo
+ *        modo i cicli sono cancellati automaticamente;
+ *      - il percorso (ormai senza cicli) viene ripercorso seguendo le direzioni salvate e
+ *        aggiunto all'albero abbattendo i muri.
+ *
+ * Rispetto ad Aldous-Broder non si perde tempo a camminare su celle già visitate: il random walk
+ * si ferma appena incontra l'albero.
+ *
+ * Memoria: 1 byte per cella (direzione di uscita), la griglia stessa fa da insieme "nell'albero".
+ */
+public class Wilson implements MazeAlgorithm {
+
+    // spostamenti (riga, colonna) verso il vicino: nord, sud, est, ovest
+    private static final int[] DIR_ROW = { -2, 2, 0, 0 };
+    private static final int[] DIR_COL = { 0, 0, -2, 2 };
+
+    @Override
+    public String getName() { return "wilson"; }
+
+    @Override
+    public long carve(MazeGrid grid, int startRow, int startCol, SplittableRandom random){
+
+        int row = grid.getRows();
+        int col = grid.getCols();
+        int cellCols = (col-1) / 2;
+
+        byte[] exitDir = new byte[((row-1) / 2) * cellCols];   // direzione di uscita per cella
+        int[] candidates = new int[4];
+
+        grid.setWalkable(startRow, startCol);
+        long steps = 0;
+
+        for (int r=1; r<row; r+=2){
+            for (int c=1; c<col; c+=2){
+
+                if (grid.isWalkable(r, c)) continue;   // già nell'albero
+
+                // random walk fino all'albero, salvando l'ultima direzione presa
+                int currRow = r;
+                int currCol = c;
+                while (!grid.isWalkable(currRow, currCol)){
+
+                    int n = collectNeighbours(row, col, currRow, currCol, candidates);
+                    int dir = candidates[random.nextInt(n)];
+                    exitDir[(currRow >> 1) * cellCols + (currCol >> 1)] = (byte) dir;
+                    currRow += DIR_ROW[dir];
+                    currCol += DIR_COL[dir];
+                    steps++;
+
+                }
+
+                // ripercorro il cammino senza cicli e lo aggiungo all'albero
+                currRow = r;
+                currCol = c;
+                while (!grid.isWalkable(currRow, currCol)){
+
+                    int dir = exitDir[(currRow >> 1) * cellCols + (currCol >> 1)];
+                    grid.setWalkable(currRow, currCol);
+                    grid.setWalkable(currRow + (DIR_ROW[dir] >> 1), currCol + (DIR_COL[dir] >> 1));
+                    currRow += DIR_ROW[dir];
+                    currCol += DIR_COL[dir];
+
+                }
+
+            }
+        }
+
+        return steps;
+
+    }
+
+    /**
+     * Salva in 'out' le direzioni dei vicini (a distanza 2) che sono dentro la griglia.
+     *
+     * @return Numero di direzioni salvate
+     */
+    private static int collectNeighbours(int row, int col, int r, int c, int[] out){
+
+        int n = 0;
+
+        if (r > 1) out[n++] = 0;
+        if (r < row-2) out[n++] = 1;
+        if (c > 1) out[n++] = 2;
+        if (c < col-2) out[n++] = 3;
+
+        return n;
+
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.example.progetto.ogles.camera;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Stato della camera (posizione, rotazione e direzione di lookat) condiviso tra thread con un
+ * seqlock: un solo scrittore (il thread proprietario della camera, per la camera di gioco il
+ * thread della Simulation) e più lettori che non bloccano mai lo scrittore né si bloccano tra loro.
+ *
+ * Al momento l'unico lettore è lo scrittore stesso (LabyrinthGame.simulationTick() copia lo stato
+ * nel RenderSnapshot, che è ciò che il GL thread legge): nessun thread legge il seqlock mentre un
+ * altro scrive, ma la lettura resta sicura se in futuro servisse.
+ *
+ * Scrittura: il contatore di sequenza diventa dispari, sono scritti i valori e il contatore torna
+ * pari. Lettura: se il contatore è dispari o cambia durante la copia, la copia è ripetuta; così
+ * un lettore vede sempre una tupla scritta da una stessa write() (mai mezza vecchia e mezza
+ * nuova).
+ *
+ * I float sono salvati come bit in un AtomicIntegerArray: ogni accesso è volatile, quindi l'ordine
+ * tra contatore e valori è garantito dal Java Memory Model senza lock.
+ *
+ * LINK: https://en.wikipedia.org/wiki/Seqlock
+ */
+public class CameraState {
+
+    public static final int X = 0;
+    public static final int Y = 1;
+    public static final int Z = 2;
+    public static final int ROTATION_Y = 3;     // come CameraPersp3D.getRotationY()
+    public static final int DIR_X = 4;          // direzione di lookat (y sempre 0)
+    public static final int DIR_Z = 5;
+    public static final int SIZE = 6;
+
+    private final AtomicInteger sequence;       // pari: stato stabile
+    private final AtomicIntegerArray values;
+
+    /**
+     * Costruttore della classe: stato iniziale tutto a zero.
+     */
+    public CameraState(){
+
+        sequence = new AtomicInteger(0);
+        values = new AtomicIntegerArray(SIZE);
+
+    }
+
+    /**
+     * Pubblica un nuovo stato. Da chiamare da un solo thread (lo scrittore).
+     */
+    public void write(float x, float y, float z, float rotationY, float dirX, float dirZ){
+
+        int s = sequence.get();
+        sequence.set(s + 1);            // dispari: scrittura in corso
+
+            values.set(X, Float.floatToRawIntBits(x));
+            values.set(Y, Float.floatToRawIntBits(y));
+            values.set(Z, Float.floatToRawIntBits(z));
+            values.set(ROTATION_Y, Float.floatToRawIntBits(rotationY));
+            values.set(DIR_X, Float.floatToRawIntBits(dirX));
+            values.set(DIR_Z, Float.floatToRawIntBits(dirZ));
+
+        sequence.set(s + 2);
+
+    }
+
+    /**
+     * Copia uno stato consistente senza bloccare (riprova se intanto è avvenuta una scrittura).
+     * Thread-safe, non alloca.
+     *
+     * @param dst Destinazione (almeno SIZE elementi, indici X, Y, Z, ROTATION_Y, DIR_X, DIR_Z)
+     * @return Numero di scritture pubblicate fino allo stato letto
+     */
+    public int read(float[] dst){
+
+        while (true){
+
+            int s1 = sequence.get();
+            if ((s1 & 1) != 0){
+                Thread.yield();         // scrittura in corso (pochi nanosecondi)
+                continue;
+            }
+
+            for (int i=0; i<SIZE; i++){
+                dst[i] = Float.intBitsToFloat(values.get(i));
+            }
+
+            if (sequence.get() == s1) return s1 >>> 1;
+
+        }
+
+    }
+
+    /**
+     * @return Numero di scritture pubblicate (anche se non ancora concluse)
+     */
+    public int getWrites() { return (sequence.get() + 1) >>> 1; }
+
+}
@@ -0,0 +1,66 @@
+package com.example.progetto.ogles.utils;
+
+/**
+ * Log del modulo core (senza dipendenze da android.util.Log).
+ *
+ * I messaggi sono inoltrati ad un Sink: di default NONE (nessun output, es. test JVM e
+ * benchmark), l'app imposta il sink verso android.util.Log all'avvio (vedi AndroidPlatform).
+ *
+ * I livelli sono gli stessi di android.util.Log: chi chiama concatena le stringhe solo se serve
+ * (es. stampe di debug già limitate da una condizione).
+ */
+public final class Logger {
+
+    public static final int VERBOSE = 2;
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+
+    /**
+     * Destinazione dei messaggi.
+     */
+    public interface Sink {
+
+        void log(int level, String tag, String msg, Throwable tr);
+
+    }
+
+    public static final Sink NONE = new Sink() {
+        @Override
+        public void log(int level, String tag, String msg, Throwable tr) { }
+    };
+
+    // su System.err (es. debug da riga di comando)
+    public static final Sink STDERR = new Sink() {
+        @Override
+        public void log(int level, String tag, String msg, Throwable tr) {
+            System.err.println(tag + ": " + msg);
+            if (tr != null) tr.printStackTrace();
+        }
+    };
+
+    private static volatile Sink sink = NONE;
+
+    private Logger() { }
+
+    public static void v(String tag, String msg) { sink.log(VERBOSE, tag, msg, null); }
+
+    public static void d(String tag, String msg) { sink.log(DEBUG, tag, msg, null); }
+
+    public static void i(String tag, String msg) { sink.log(INFO, tag, msg, null); }
+
+    public static void w(String tag, String msg) { sink.log(WARN, tag, msg, null); }
+
+    public static void e(String tag, String msg) { sink.log(ERROR, tag, msg, null); }
+
+    public static void e(String tag, String msg, Throwable tr) { sink.log(ERROR, tag, msg, tr); }
+
+    /******* SETTER *******/
+
+    /**
+     * @param newSink Destinazione dei messaggi (NONE di default)
+     */
+    public static void setSink(Sink newSink) { sink = (newSink == null) ? NONE : newSink; }
+
+}
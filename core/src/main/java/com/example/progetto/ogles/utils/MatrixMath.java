@@ -0,0 +1,251 @@
+package com.example.progetto.ogles.utils;
+
+/**
+ * Operazioni su matrici 4x4 in column-major (convenzione OpenGL), con la stessa firma dei metodi
+ * corrispondenti di android.opengl.Matrix ma in Java puro: usate dalle camere e dagli oggetti
+ * dell'app e, senza Android, dai test JVM e dai benchmark.
+ *
+ * Le formule sono quelle di android.opengl.Matrix. Nessun metodo alloca: rotateM() lavora
+ * in-place senza la matrice temporanea dell'originale.
+ *
+ * LINK: https://developer.android.com/reference/android/opengl/Matrix
+ */
+public final class MatrixMath {
+
+    private MatrixMath() { }
+
+    /**
+     * Imposta 'sm' alla matrice identità.
+     */
+    public static void setIdentityM(float[] sm, int smOffset){
+
+        for (int i=0; i<16; i++){
+            sm[smOffset + i] = 0;
+        }
+        for (int i=0; i<16; i+=5){
+            sm[smOffset + i] = 1f;
+        }
+
+    }
+
+    /**
+     * Prodotto result = lhs * rhs.
+     *
+     * 'result' può coincidere con 'rhs' (ogni colonna di rhs è letta prima di scrivere la stessa
+     * colonna del risultato) ma non con 'lhs'.
+     */
+    public static void multiplyMM(float[] result, int resultOffset,
+                                  float[] lhs, int lhsOffset, float[] rhs, int rhsOffset){
+
+        for (int j=0; j<4; j++){
+
+            int c = rhsOffset + 4 * j;
+            float r0 = rhs[c];
+            float r1 = rhs[c + 1];
+            float r2 = rhs[c + 2];
+            float r3 = rhs[c + 3];
+
+            for (int i=0; i<4; i++){
+                int l = lhsOffset + i;
+                result[resultOffset + 4 * j + i] = lhs[l] * r0 + lhs[l + 4] * r1 +
+                                                   lhs[l + 8] * r2 + lhs[l + 12] * r3;
+            }
+
+        }
+
+    }
+
+    /**
+     * Matrice di proiezione prospettica.
+     *
+     * @param fovy Campo visivo verticale in gradi
+     * @param aspect Aspect ratio (larghezza / altezza)
+     */
+    public static void perspectiveM(float[] m, int offset,
+                                    float fovy, float aspect, float zNear, float zFar){
+
+        float f = 1.0f / (float) Math.tan(fovy * (Math.PI / 360.0));
+        float rangeReciprocal = 1.0f / (zNear - zFar);
+
+        setZero(m, offset);
+        m[offset] = f / aspect;
+        m[offset + 5] = f;
+        m[offset + 10] = (zFar + zNear) * rangeReciprocal;
+        m[offset + 11] = -1.0f;
+        m[offset + 14] = 2.0f * zFar * zNear * rangeReciprocal;
+
+    }
+
+    /**
+     * Matrice di proiezione ortografica.
+     *
+     * @throws IllegalArgumentException Se un intervallo è vuoto (es. left == right)
+     */
+    public static void orthoM(float[] m, int mOffset, float left, float right,
+                              float bottom, float top, float near, float far){
+
+        if ( (left == right) || (bottom == top) || (near == far) ){
+            throw new IllegalArgumentException("Volume di vista vuoto");
+        }
+
+        float rWidth = 1.0f / (right - left);
+        float rHeight = 1.0f / (top - bottom);
+        float rDepth = 1.0f / (far - near);
+
+        setZero(m, mOffset);
+        m[mOffset] = 2.0f * rWidth;
+        m[mOffset + 5] = 2.0f * rHeight;
+        m[mOffset + 10] = -2.0f * rDepth;
+        m[mOffset + 12] = -(right + left) * rWidth;
+        m[mOffset + 13] = -(top + bottom) * rHeight;
+        m[mOffset + 14] = -(far + near) * rDepth;
+        m[mOffset + 15] = 1.0f;
+
+    }
+
+    /**
+     * Matrice di vista da posizione (eye), punto osservato (center) e vettore up.
+     */
+    public static void setLookAtM(float[] rm, int rmOffset,
+                                  float eyeX, float eyeY, float eyeZ,
+                                  float centerX, float centerY, float centerZ,
+                                  float upX, float upY, float upZ){
+
+        // f: direzione di vista normalizzata
+        float fx = centerX - eyeX;
+        float fy = centerY - eyeY;
+        float fz = centerZ - eyeZ;
+        float rlf = 1.0f / length(fx, fy, fz);
+        fx *= rlf;
+        fy *= rlf;
+        fz *= rlf;
+
+        // s = f x up, normalizzato
+        float sx = fy * upZ - fz * upY;
+        float sy = fz * upX - fx * upZ;
+        float sz = fx * upY - fy * upX;
+        float rls = 1.0f / length(sx, sy, sz);
+        sx *= rls;
+        sy *= rls;
+        sz *= rls;
+
+        // u = s x f
+        float ux = sy * fz - sz * fy;
+        float uy = sz * fx - sx * fz;
+        float uz = sx * fy - sy * fx;
+
+        rm[rmOffset] = sx;
+        rm[rmOffset + 1] = ux;
+        rm[rmOffset + 2] = -fx;
+        rm[rmOffset + 3] = 0.0f;
+
+        rm[rmOffset + 4] = sy;
+        rm[rmOffset + 5] = uy;
+        rm[rmOffset + 6] = -fy;
+        rm[rmOffset + 7] = 0.0f;
+
+        rm[rmOffset + 8] = sz;
+        rm[rmOffset + 9] = uz;
+        rm[rmOffset + 10] = -fz;
+        rm[rmOffset + 11] = 0.0f;
+
+        rm[rmOffset + 12] = 0.0f;
+        rm[rmOffset + 13] = 0.0f;
+        rm[rmOffset + 14] = 0.0f;
+        rm[rmOffset + 15] = 1.0f;
+
+        translateM(rm, rmOffset, -eyeX, -eyeY, -eyeZ);
+
+    }
+
+    /**
+     * m = m * T(x, y, z), in-place.
+     */
+    public static void translateM(float[] m, int mOffset, float x, float y, float z){
+
+        for (int i=0; i<4; i++){
+            int mi = mOffset + i;
+            m[12 + mi] += m[mi] * x + m[4 + mi] * y + m[8 + mi] * z;
+        }
+
+    }
+
+    /**
+     * m = m * R(a, x, y, z), in-place.
+     *
+     * @param a Angolo in gradi (antiorario attorno all'asse)
+     */
+    public static void rotateM(float[] m, int mOffset, float a, float x, float y, float z){
+
+        float len = length(x, y, z);
+        if (len != 1.0f){
+            float recipLen = 1.0f / len;
+            x *= recipLen;
+            y *= recipLen;
+            z *= recipLen;
+        }
+
+        double rad = Math.toRadians(a);
+        float s = (float) Math.sin(rad);
+        float c = (float) Math.cos(rad);
+        float nc = 1.0f - c;
+        float xy = x * y;
+        float yz = y * z;
+        float zx = z * x;
+        float xs = x * s;
+        float ys = y * s;
+        float zs = z * s;
+
+        // colonne della rotazione 3x3
+        float r00 = x * x * nc + c, r10 = xy * nc + zs, r20 = zx * nc - ys;
+        float r01 = xy * nc - zs, r11 = y * y * nc + c, r21 = yz * nc + xs;
+        float r02 = zx * nc + ys, r12 = yz * nc - xs, r22 = z * z * nc + c;
+
+        // ogni riga di m dipende solo dalla stessa riga: nessuna matrice temporanea
+        for (int i=0; i<4; i++){
+
+            int mi = mOffset + i;
+            float m0 = m[mi];
+            float m1 = m[mi + 4];
+            float m2 = m[mi + 8];
+
+            m[mi] = m0 * r00 + m1 * r10 + m2 * r20;
+            m[mi + 4] = m0 * r01 + m1 * r11 + m2 * r21;
+            m[mi + 8] = m0 * r02 + m1 * r12 + m2 * r22;
+
+        }
+
+    }
+
+    /**
+     * m = m * S(x, y, z), in-place.
+     */
+    public static void scaleM(float[] m, int mOffset, float x, float y, float z){
+
+        for (int i=0; i<4; i++){
+            int mi = mOffset + i;
+            m[mi] *= x;
+            m[4 + mi] *= y;
+            m[8 + mi] *= z;
+        }
+
+    }
+
+    /**
+     * Lunghezza del vettore (x, y, z).
+     */
+    public static float length(float x, float y, float z){
+
+        return (float) Math.sqrt(x * x + y * y + z * z);
+
+    }
+
+    private static void setZero(float[] m, int offset){
+
+        for (int i=0; i<16; i++){
+            m[offset + i] = 0;
+        }
+
+    }
+
+}
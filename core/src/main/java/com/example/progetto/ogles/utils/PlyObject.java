@@ -1,7 +1,5 @@
 package com.example.progetto.ogles.utils;
 
-import android.util.Log;
-
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
@@ -52,7 +50,7 @@ public class PlyObject {
                     continue;
                 index1+=("element vertex ").length();
                 countVertices = Integer.parseInt(s.substring(index1).trim());
-                Log.v("PLY_PARSER", "Found " + countVertices + " vertices");
+                Logger.v("PLY_PARSER", "Found " + countVertices + " vertices");
             }
             else if(s.startsWith("property") && countFaces==0){
                 propLines = s.split(" ");
@@ -67,7 +65,7 @@ public class PlyObject {
 
                 if(mapProperties.size()>0){
                     for(int k : mapProperties.keySet())
-                        Log.d("PLY_PARSER",
+                        Logger.d("PLY_PARSER",
                                 "Prop num " + k + " name " + mapProperties.get(k));
                 }
 
@@ -76,7 +74,7 @@ public class PlyObject {
                     continue;
                 index1+=("element face ").length();;
                 countFaces = Integer.parseInt(s.substring(index1).trim());
-                Log.v("PLY_PARSER","Found " + countFaces + " faces/triangles");
+                Logger.v("PLY_PARSER","Found " + countFaces + " faces/triangles");
                 faces = new int[countFaces*3]; //we assume triangles
             }
             else if(s.startsWith("end_header")){
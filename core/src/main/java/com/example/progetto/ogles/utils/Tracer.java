@@ -0,0 +1,374 @@
+package com.example.progetto.ogles.utils;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Tracing di span (inizio/fine di una fase) con esportazione in JSON "Trace Event Format",
+ * leggibile da Perfetto (ui.perfetto.dev) e da chrome://tracing.
+ *
+ * Uso:
+ *      Tracer.begin("nome");
+ *      try { ... } finally { Tracer.end(); }
+ *
+ * Disabilitato (default) begin() ed end() leggono solo un flag e un contatore volatili. Con
+ * start() gli span completati sono registrati in un buffer preallocato (CAPACITY eventi, oltre
+ * sono contati come persi) e inoltrati anche al Bridge. Gli span sono annidabili, per thread.
+ *
+ * start() e stop() possono arrivare mentre altri thread hanno span aperti: ogni span ricorda se è
+ * stato aperto a tracing acceso e la sua end() lo chiude sempre anche sul Bridge, così le sezioni
+ * di android.os.Trace restano bilanciate. Gli span aperti a tracing spento dentro uno span
+ * tracciato occupano solo un posto nella pila (per accoppiare le end()); uno span aperto in una
+ * sessione precedente è chiuso sul Bridge ma non registrato. Oltre MAX_DEPTH gli span sono
+ * ignorati.
+ *
+ * Il Bridge si imposta con setBridge(): di default NONE, sul dispositivo l'app inoltra ad
+ * android.os.Trace (vedi AndroidPlatform), così gli span sono visibili anche in una cattura di
+ * sistema; nei test JVM uno che registra le chiamate.
+ *
+ * LINK: https://perfetto.dev/docs/getting-started/other-formats
+ */
+public final class Tracer {
+
+    public static final int CAPACITY = 1 << 16;     // eventi per sessione
+    public static final int MAX_DEPTH = 32;         // span annidati per thread
+
+    /**
+     * Destinazione degli span oltre al buffer interno.
+     */
+    public interface Bridge {
+
+        void beginSection(String name);
+
+        void endSection();
+
+    }
+
+    public static final Bridge NONE = new Bridge() {
+        @Override
+        public void beginSection(String name) { }
+
+        @Override
+        public void endSection() { }
+    };
+
+    /**
+     * Eventi di una sessione (da start() a quella successiva).
+     */
+    private static final class Session {
+
+        final long originNs;
+        final int id;
+        final AtomicReferenceArray<String> names;   // scritto per ultimo: evento completo
+        final long[] startNs;
+        final long[] durationNs;
+        final long[] threadIds;
+        final AtomicInteger next;
+        final AtomicLong dropped;
+        final Map<Long, String> threadNames;        // protetta dal lock della mappa
+
+        Session(int id){
+
+            this.id = id;
+            originNs = System.nanoTime();
+            names = new AtomicReferenceArray<>(CAPACITY);
+            startNs = new long[CAPACITY];
+            durationNs = new long[CAPACITY];
+            threadIds = new long[CAPACITY];
+            next = new AtomicInteger(0);
+            dropped = new AtomicLong(0);
+            threadNames = new HashMap<>();
+
+        }
+
+    }
+
+    /**
+     * Span aperti di un thread.
+     */
+    private static final class Stack {
+
+        final long threadId;
+        final String[] names = new String[MAX_DEPTH];
+        final long[] startNs = new long[MAX_DEPTH];
+        final Session[] sessions = new Session[MAX_DEPTH];     // null: aperto a tracing spento
+        int depth;
+        int sessionId;
+
+        Stack(long threadId){
+
+            this.threadId = threadId;
+            sessionId = -1;
+
+        }
+
+    }
+
+    private static final ThreadLocal<Stack> STACKS = new ThreadLocal<Stack>() {
+        @Override
+        protected Stack initialValue() {
+            return new Stack(Thread.currentThread().getId());
+        }
+    };
+
+    private static volatile boolean enabled = false;
+    private static volatile Session session = null;
+    private static volatile Bridge bridge = NONE;
+    private static final AtomicInteger openSpans = new AtomicInteger(0);   // tracciati, tutti i thread
+    private static int sessions = 0;
+
+    private Tracer() { }
+
+    /**
+     * Avvia una nuova sessione di tracing (gli eventi precedenti sono scartati).
+     */
+    public static synchronized void start(){
+
+        session = new Session(++sessions);
+        enabled = true;
+
+    }
+
+    /**
+     * Ferma la registrazione; gli eventi restano esportabili con writeJson().
+     */
+    public static synchronized void stop(){
+
+        enabled = false;
+
+    }
+
+    /**
+     * Apre uno span nel thread corrente.
+     *
+     * @param name Nome dello span (costante: non sono create stringhe quando il tracing è spento)
+     */
+    public static void begin(String name){
+
+        boolean on = enabled;
+        if ( !on && (openSpans.get() == 0) ) return;
+
+        Stack stack = STACKS.get();
+        if ( !on && (stack.depth == 0) ) return;   // nessuno span tracciato da accoppiare
+
+        int d = stack.depth++;
+        if (d >= MAX_DEPTH) return;
+
+        Session s = on ? session : null;
+        stack.sessions[d] = s;
+        if (s == null) return;
+
+        if (stack.sessionId != s.id){
+            stack.sessionId = s.id;
+            registerThread(s, stack.threadId);
+        }
+
+        stack.names[d] = name;
+        stack.startNs[d] = System.nanoTime();
+        openSpans.incrementAndGet();
+
+        bridge.beginSection(name);
+
+    }
+
+    /**
+     * Chiude l'ultimo span aperto nel thread corrente (anche se nel frattempo il tracing è stato
+     * fermato).
+     */
+    public static void end(){
+
+        if ( !enabled && (openSpans.get() == 0) ) return;
+
+        Stack stack = STACKS.get();
+        if (stack.depth == 0) return;
+
+        int d = --stack.depth;
+        if (d >= MAX_DEPTH) return;
+
+        Session s = stack.sessions[d];
+        if (s == null) return;
+
+        if (s == session){
+            record(s, stack.names[d], stack.startNs[d], System.nanoTime(), stack.threadId);
+        }
+        stack.sessions[d] = null;
+        stack.names[d] = null;
+        openSpans.decrementAndGet();
+
+        bridge.endSection();
+
+    }
+
+    private static void record(Session s, String name, long startNs, long endNs, long threadId){
+
+        int i = s.next.getAndIncrement();
+        if (i >= CAPACITY){
+            s.dropped.incrementAndGet();
+            return;
+        }
+
+        s.startNs[i] = startNs;
+        s.durationNs[i] = endNs - startNs;
+        s.threadIds[i] = threadId;
+        s.names.lazySet(i, name);       // pubblica l'evento
+
+    }
+
+    private static void registerThread(Session s, long threadId){
+
+        synchronized (s.threadNames){
+            s.threadNames.put(threadId, Thread.currentThread().getName());
+        }
+
+    }
+
+    /**
+     * Scrive gli eventi dell'ultima sessione in JSON (Trace Event Format): uno span completo
+     * ("ph":"X") per evento, con tempi in microsecondi dall'avvio della sessione, più i nomi dei
+     * thread come metadati.
+     *
+     * @param out Destinazione (non chiusa)
+     * @return Numero di eventi scritti
+     * @throws IOException Errore di scrittura
+     */
+    public static int writeJson(Writer out) throws IOException {
+
+        Session s = session;
+        StringBuilder sb = new StringBuilder(128);
+        int written = 0;
+
+        out.write("{\"traceEvents\":[");
+
+        if (s != null){
+
+            boolean first = true;
+
+            synchronized (s.threadNames){
+                for (Map.Entry<Long, String> e : s.threadNames.entrySet()){
+                    sb.setLength(0);
+                    if (!first) sb.append(",\n");
+                    sb.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":")
+                      .append(e.getKey()).append(",\"args\":{\"name\":");
+                    appendString(sb, e.getValue());
+                    sb.append("}}");
+                    out.write(sb.toString());
+                    first = false;
+                }
+            }
+
+            int n = Math.min(s.next.get(), CAPACITY);
+            for (int i=0; i<n; i++){
+
+                String name = s.names.get(i);
+                if (name == null) continue;     // evento in scrittura
+
+                sb.setLength(0);
+                if (!first) sb.append(",\n");
+                sb.append("{\"name\":");
+                appendString(sb, name);
+                sb.append(",\"cat\":\"app\",\"ph\":\"X\",\"ts\":");
+                appendMicros(sb, s.startNs[i] - s.originNs);
+                sb.append(",\"dur\":");
+                appendMicros(sb, s.durationNs[i]);
+                sb.append(",\"pid\":1,\"tid\":").append(s.threadIds[i]).append('}');
+                out.write(sb.toString());
+
+                first = false;
+                written++;
+
+            }
+
+        }
+
+        out.write("],\"displayTimeUnit\":\"ms\",\"otherData\":{\"dropped\":");
+        out.write(Long.toString( (s == null) ? 0 : s.dropped.get() ));
+        out.write("}}\n");
+        out.flush();
+
+        return written;
+
+    }
+
+    /**
+     * Come writeJson(Writer) su file (UTF-8).
+     *
+     * @param file File di destinazione (sovrascritto)
+     * @return Numero di eventi scritti
+     * @throws IOException Errore di scrittura
+     */
+    public static int writeJson(File file) throws IOException {
+
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),
+                                                                    StandardCharsets.UTF_8))){
+            return writeJson(out);
+        }
+
+    }
+
+    /** ns in microsecondi con 3 decimali (formato indipendente dal Locale). */
+    private static void appendMicros(StringBuilder sb, long ns){
+
+        if (ns < 0){
+            sb.append('-');
+            ns = -ns;
+        }
+
+        long frac = ns % 1000;
+        sb.append(ns / 1000).append('.');
+        if (frac < 100) sb.append('0');
+        if (frac < 10) sb.append('0');
+        sb.append(frac);
+
+    }
+
+    private static void appendString(StringBuilder sb, String value){
+
+        sb.append('"');
+        for (int i=0; i<value.length(); i++){
+            char c = value.charAt(i);
+            if ( (c == '"') || (c == '\\') ){
+                sb.append('\\').append(c);
+            }else if (c < 0x20){
+                sb.append(String.format("\\u%04x", (int) c));
+            }else{
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+
+    }
+
+    /******* GETTER *******/
+
+    public static boolean isEnabled() { return enabled; }
+
+    /** Eventi registrati nella sessione corrente (esclusi quelli persi). */
+    public static int getEventCount() {
+        Session s = session;
+        return (s == null) ? 0 : Math.min(s.next.get(), CAPACITY);
+    }
+
+    /** Eventi persi perchè il buffer era pieno. */
+    public static long getDropped() {
+        Session s = session;
+        return (s == null) ? 0 : s.dropped.get();
+    }
+
+    /******* SETTER *******/
+
+    /**
+     * @param newBridge Destinazione aggiuntiva degli span (NONE di default)
+     */
+    public static void setBridge(Bridge newBridge) { bridge = (newBridge == null) ? NONE : newBridge; }
+
+}
@@ -0,0 +1,92 @@
+package com.example.progetto.game;
+
+import com.example.progetto.game.maze.MazeAssert;
+import com.example.progetto.game.maze.MazeGrid;
+
+import org.junit.Test;
+
+import java.util.Iterator;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test della generazione riga per riga con l'algoritmo di Eller.
+ */
+public class EllerLabyrinthGeneratorTest {
+
+    @Test
+    public void rows_formPerfectMazeWithStartAndEnd() {
+        EllerLabyrinthGenerator eller = new EllerLabyrinthGenerator(61, 41, 3);
+        final MazeGrid grid = new MazeGrid(eller.getRows(), eller.getCols());
+
+        eller.generate(new EllerLabyrinthGenerator.RowSink() {
+            int expected = 0;
+
+            @Override
+            public void onRow(int row, long[] walkableMask) {
+                assertEquals(expected++, row);
+                grid.setRowWalkableMask(row, walkableMask);
+            }
+        });
+
+        // start e end sono aperti sul bordo, come in LabyrinthGenerator
+        float[] start = eller.getStartPoint();
+        float[] end = eller.getEndPoint();
+        int startCol = (int) (start[0] + eller.getCols() / 2f - 0.5f);
+        int endCol = (int) (end[0] + eller.getCols() / 2f - 0.5f);
+        assertTrue(grid.isWalkable(eller.getRows() - 1, startCol));
+        assertTrue(grid.isWalkable(0, endCol));
+        assertEquals(1, startCol % 2);
+        assertEquals(1, endCol % 2);
+
+        grid.setWall(eller.getRows() - 1, startCol);
+        grid.setWall(0, endCol);
+        MazeAssert.assertPerfectMaze(grid);
+    }
+
+    @Test
+    public void iterator_matchesSinkAndIsReproducible() {
+        EllerLabyrinthGenerator eller = new EllerLabyrinthGenerator(21, 15, 8);
+        final MazeGrid fromSink = new MazeGrid(eller.getRows(), eller.getCols());
+        eller.generate(new EllerLabyrinthGenerator.RowSink() {
+            @Override
+            public void onRow(int row, long[] walkableMask) {
+                fromSink.setRowWalkableMask(row, walkableMask);
+            }
+        });
+
+        MazeGrid fromIterator = new MazeGrid(eller.getRows(), eller.getCols());
+        Iterator<long[]> it = eller.iterator();
+        int row = 0;
+        while (it.hasNext()) {
+            fromIterator.setRowWalkableMask(row++, it.next());
+        }
+
+        assertEquals(eller.getRows(), row);
+        assertArrayEquals(fromSink.getWords(), fromIterator.getWords());
+    }
+
+    @Test
+    public void dimensions_followLabyrinthGeneratorConvention() {
+        EllerLabyrinthGenerator eller = new EllerLabyrinthGenerator(4, 10, 1);
+        assertEquals(5, eller.getCols());
+        assertEquals(11, eller.getRows());
+        assertArrayEquals(new float[]{ -2f, -5f }, eller.fromIndicesToCoord(0, 0), 0f);
+    }
+
+    @Test
+    public void tallMaze_streamsInWidthMemory() {
+        EllerLabyrinthGenerator eller = new EllerLabyrinthGenerator(2001, 200001, 4);
+        final long[] walkable = new long[1];
+        eller.generate(new EllerLabyrinthGenerator.RowSink() {
+            @Override
+            public void onRow(int row, long[] walkableMask) {
+                for (long w : walkableMask) walkable[0] += Long.bitCount(w);
+            }
+        });
+
+        long nodes = 1000L * 100000L;
+        assertEquals(2 * nodes - 1 + 2, walkable[0]);   // spanning tree + start + end
+    }
+
+}
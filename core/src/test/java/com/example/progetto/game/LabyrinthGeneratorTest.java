@@ -0,0 +1,104 @@
+package com.example.progetto.game;
+
+import com.example.progetto.game.maze.GridPoint;
+import com.example.progetto.game.maze.MazeGrid;
+import com.example.progetto.game.maze.ParallelTiledAlgorithm;
+import com.example.progetto.game.maze.Wilson;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test delle API di LabyrinthGenerator sulla griglia a bit: getWallsCoord(), getNumWall() e
+ * isWalkable(float, float) confrontate con una scansione cella per cella di getGrid().
+ *
+ * Larghezze a cavallo della word da 64 bit (63, 65, 129): l'ultima word di ogni riga ha bit di
+ * padding che non devono mai diventare muri o celle camminabili. Il bordo deve restare chiuso
+ * tranne start ed end.
+ */
+public class LabyrinthGeneratorTest {
+
+    private static final int[][] DIMENSIONS = { {63, 31}, {65, 33}, {129, 7}, {7, 129} };   // {x, y}
+
+    @Test
+    public void wallsAndWalkable_matchNaiveScan() {
+        for (int[] dim : DIMENSIONS) {
+            LabyrinthGenerator lab = new LabyrinthGenerator(new GridPoint(dim[0], dim[1]), new Wilson(), 5);
+            lab.generate();
+            assertMatchesGrid(lab);
+        }
+    }
+
+    @Test
+    public void wallsAndWalkable_matchNaiveScan_singleTileColumn() {
+        // 65 colonne con le tile di default: una sola colonna di tile (vedi ParallelTiledAlgorithm)
+        ForkJoinPool pool = new ForkJoinPool(2);
+        LabyrinthGenerator lab = new LabyrinthGenerator(new GridPoint(65, 301),
+                new ParallelTiledAlgorithm(new Wilson(), ParallelTiledAlgorithm.DEFAULT_TILE_CELLS, pool), 1);
+        lab.generate();
+        pool.shutdown();
+
+        assertMatchesGrid(lab);
+    }
+
+    private static void assertMatchesGrid(LabyrinthGenerator lab) {
+        MazeGrid grid = lab.getGrid();
+        int rows = lab.getDimension().y;
+        int cols = lab.getDimension().x;
+        assertEquals(rows, grid.getRows());
+        assertEquals(cols, grid.getCols());
+
+        // bordo chiuso tranne start (ultima riga) ed end (prima riga)
+        int open = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                boolean border = r == 0 || c == 0 || r == rows - 1 || c == cols - 1;
+                if (border && grid.isWalkable(r, c)) {
+                    assertTrue("bordo aperto " + r + "," + c, r == 0 || r == rows - 1);
+                    open++;
+                }
+            }
+        }
+        assertEquals(2, open);
+
+        // muri nell'ordine della vecchia matrice int[][]: per riga, poi per colonna
+        List<float[]> expected = new ArrayList<>();
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (!grid.isWalkable(r, c)) expected.add(lab.fromIndicesToCoord(r, c));
+            }
+        }
+
+        float[][] walls = lab.getWallsCoord();
+        assertEquals(expected.size(), lab.getNumWall());
+        assertEquals(expected.size(), walls.length);
+        for (int i = 0; i < walls.length; i++) {
+            assertEquals("x del muro " + i, expected.get(i)[0], walls[i][0], 1e-6f);
+            assertEquals("z del muro " + i, expected.get(i)[1], walls[i][1], 1e-6f);
+        }
+
+        // la cella (r, c) copre [p, p + 1) a partire da fromIndicesToCoord(r, c) (vedi
+        // fromCoordToIndices()): controllo l'inizio e un punto vicino alla fine
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                float[] p = lab.fromIndicesToCoord(r, c);
+                boolean walkable = grid.isWalkable(r, c);
+                assertEquals(r + "," + c, walkable, lab.isWalkable(p[0], p[1]));
+                assertEquals(r + "," + c, walkable, lab.isWalkable(p[0] + 0.9f, p[1] + 0.9f));
+            }
+        }
+
+        // fuori dal labirinto (anche oltre l'ultima colonna, dove ci sono i bit di padding)
+        float[] last = lab.fromIndicesToCoord(rows - 1, cols - 1);
+        assertFalse(lab.isWalkable(last[0] + 1, last[1]));
+        assertFalse(lab.isWalkable(last[0], last[1] + 1));
+        assertFalse(lab.isWalkable(-cols, 0));
+        assertFalse(lab.isWalkable(0, -rows));
+    }
+
+}
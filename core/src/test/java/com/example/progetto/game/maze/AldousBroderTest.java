@@ -0,0 +1,34 @@
+package com.example.progetto.game.maze;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test del random walk di Aldous-Broder (confronto con la versione precedente:
+ * AldousBroderBenchmark nel modulo benchmarks).
+ */
+public class AldousBroderTest {
+
+    @Test
+    public void carve_producesPerfectMaze() {
+        MazeGrid grid = new MazeGrid(41, 61);
+        long steps = new AldousBroder().carve(grid, 39, 7, new SplittableRandom(1));
+
+        assertTrue(steps >= 20 * 30 - 1);
+        MazeAssert.assertPerfectMaze(grid);
+    }
+
+    @Test
+    public void carve_isReproducibleWithSameSeed() {
+        MazeGrid a = new MazeGrid(31, 31);
+        MazeGrid b = new MazeGrid(31, 31);
+        new AldousBroder().carve(a, 29, 1, new SplittableRandom(42));
+        new AldousBroder().carve(b, 29, 1, new SplittableRandom(42));
+
+        assertArrayEquals(a.getWords(), b.getWords());
+    }
+
+}
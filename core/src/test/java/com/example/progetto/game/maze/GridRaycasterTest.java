@@ -0,0 +1,60 @@
+package com.example.progetto.game.maze;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test del raycasting DDA sulla griglia.
+ */
+public class GridRaycasterTest {
+
+    /** Corridoio orizzontale nella riga 1, colonne [1, 7], chiuso ai lati. */
+    private static MazeGrid corridor() {
+        MazeGrid grid = new MazeGrid(3, 9);
+        for (int c = 1; c <= 7; c++) grid.setWalkable(1, c);
+        return grid;
+    }
+
+    @Test
+    public void axisRays_hitTheExpectedFace() {
+        GridRaycaster ray = new GridRaycaster(corridor());
+
+        assertTrue(ray.cast(1.5f, 1.5f, 1, 0, 100));
+        assertEquals(1, ray.getHitRow());
+        assertEquals(8, ray.getHitCol());
+        assertEquals(GridRaycaster.FACE_NEG_X, ray.getHitFace());
+        assertEquals(6.5f, ray.getHitDistance(), 1e-5f);
+
+        assertTrue(ray.cast(4.5f, 1.5f, 0, -1, 100));
+        assertEquals(0, ray.getHitRow());
+        assertEquals(4, ray.getHitCol());
+        assertEquals(GridRaycaster.FACE_POS_Z, ray.getHitFace());
+
+        assertTrue(ray.cast(4.5f, 1.5f, -1, 0, 100));
+        assertEquals(0, ray.getHitCol());
+        assertEquals(GridRaycaster.FACE_POS_X, ray.getHitFace());
+    }
+
+    @Test
+    public void diagonalRay_stopsAtFirstWall() {
+        GridRaycaster ray = new GridRaycaster(corridor());
+        float d = (float) Math.sqrt(0.5);
+
+        assertTrue(ray.cast(2.25f, 1.25f, d, d, 100));
+        assertEquals(2, ray.getHitRow());
+        assertEquals(GridRaycaster.FACE_NEG_Z, ray.getHitFace());
+        assertEquals(2, ray.getHitCol());
+    }
+
+    @Test
+    public void maxDistanceAndOpenBorder_returnNoHit() {
+        MazeGrid grid = corridor();
+        GridRaycaster ray = new GridRaycaster(grid);
+        assertFalse(ray.cast(1.5f, 1.5f, 1, 0, 3));
+
+        grid.setWalkable(1, 8);   // uscita sul bordo
+        assertFalse(ray.cast(1.5f, 1.5f, 1, 0, 100));
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.example.progetto.game.maze;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test comuni a tutti gli algoritmi di generazione (tempi di generazione: GeneratorBenchmark nel
+ * modulo benchmarks).
+ */
+public class MazeAlgorithmTest {
+
+    private static final MazeAlgorithm[] ALGORITHMS = {
+            new AldousBroder(), new Wilson(), new Kruskal(), new RecursiveBacktracker()
+    };
+
+    @Test
+    public void everyAlgorithm_producesPerfectMaze() {
+        for (MazeAlgorithm algorithm : ALGORITHMS) {
+            for (int[] dim : new int[][]{ {5, 5}, {41, 61}, {77, 9} }) {
+                MazeGrid grid = new MazeGrid(dim[0], dim[1]);
+                algorithm.carve(grid, dim[0] - 2, 1, new SplittableRandom(5));
+                MazeAssert.assertPerfectMaze(grid);
+            }
+        }
+    }
+
+    @Test
+    public void everyAlgorithm_isReproducibleWithSameSeed() {
+        for (MazeAlgorithm algorithm : ALGORITHMS) {
+            MazeGrid a = new MazeGrid(51, 51);
+            MazeGrid b = new MazeGrid(51, 51);
+            algorithm.carve(a, 49, 3, new SplittableRandom(9));
+            algorithm.carve(b, 49, 3, new SplittableRandom(9));
+            assertArrayEquals(algorithm.getName(), a.getWords(), b.getWords());
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.example.progetto.game.maze;
+
+import static org.junit.Assert.*;
+
+/**
+ * Controlli comuni ai test dei generatori di labirinti.
+ */
+public final class MazeAssert {
+
+    private MazeAssert(){}
+
+    /**
+     * Controlla che la griglia sia un labirinto perfetto: tutte le celle dispari sono visitate,
+     * le celle camminabili sono (nodi + archi) di uno spanning tree e sono tutte connesse.
+     *
+     * @param grid Griglia generata (senza start/end aperti sul bordo)
+     */
+    public static void assertPerfectMaze(MazeGrid grid) {
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        int nodes = ((rows - 1) / 2) * ((cols - 1) / 2);
+
+        for (int r = 1; r < rows; r += 2) {
+            for (int c = 1; c < cols; c += 2) {
+                assertTrue("cella non visitata " + r + "," + c, grid.isWalkable(r, c));
+            }
+        }
+
+        // spanning tree: nodi + (nodi - 1) muri abbattuti
+        assertEquals("celle camminabili", 2 * nodes - 1, grid.countWalkable());
+
+        // connessione: visita in ampiezza dalla prima cella
+        boolean[] seen = new boolean[rows * cols];
+        int[] queue = new int[rows * cols];
+        int head = 0, tail = 0;
+        queue[tail++] = cols + 1;
+        seen[cols + 1] = true;
+        while (head < tail) {
+            int cur = queue[head++];
+            int r = cur / cols, c = cur % cols;
+            int[] next = { cur - cols, cur + cols, cur - 1, cur + 1 };
+            int[] nr = { r - 1, r + 1, r, r };
+            int[] nc = { c, c, c - 1, c + 1 };
+            for (int k = 0; k < 4; k++) {
+                if (nr[k] <= 0 || nc[k] <= 0 || nr[k] >= rows - 1 || nc[k] >= cols - 1) continue;
+                if (!seen[next[k]] && grid.isWalkable(nr[k], nc[k])) {
+                    seen[next[k]] = true;
+                    queue[tail++] = next[k];
+                }
+            }
+        }
+        assertEquals("celle raggiungibili", 2 * nodes - 1, tail);
+    }
+
+}
@@ -0,0 +1,141 @@
+package com.example.progetto.game.maze;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test della cache binaria dei labirinti.
+ */
+public class MazeCacheTest {
+
+    private File dir;
+    private MazeCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("mazecache").toFile();
+        cache = new MazeCache(dir);
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) f.delete();
+        }
+        dir.delete();
+    }
+
+    private static MazeCache.Entry generate(MazeAlgorithm algorithm, int dim, long seed) {
+        MazeGrid grid = new MazeGrid(dim, dim);
+        SplittableRandom random = new SplittableRandom(seed);
+        algorithm.carve(grid, dim - 2, 1, random);
+        grid.setWalkable(dim - 1, 1);
+        grid.setWalkable(0, dim - 2);
+        return new MazeCache.Entry(grid, dim - 1, 1, 0, dim - 2);
+    }
+
+    @Test
+    public void missWhenAbsent() throws Exception {
+        assertNull(cache.load("kruskal", 21, 21, 42L));
+    }
+
+    @Test
+    public void roundTrip_sameGridAndPoints() throws Exception {
+        MazeAlgorithm algorithm = new Kruskal();
+        MazeCache.Entry stored = generate(algorithm, 131, 7L);
+        cache.store(algorithm.getName(), 7L, stored);
+
+        MazeCache.Entry loaded = cache.load(algorithm.getName(), 131, 131, 7L);
+        assertNotNull(loaded);
+        assertArrayEquals(stored.grid.getWords(), loaded.grid.getWords());
+        assertEquals(stored.startRow, loaded.startRow);
+        assertEquals(stored.startCol, loaded.startCol);
+        assertEquals(stored.endRow, loaded.endRow);
+        assertEquals(stored.endCol, loaded.endCol);
+
+        // chiave diversa: miss
+        assertNull(cache.load(algorithm.getName(), 131, 131, 8L));
+        assertNull(cache.load("wilson", 131, 131, 7L));
+    }
+
+    @Test
+    public void trim_removesLeastRecentlyUsedKeysWithDerivedFiles() throws Exception {
+        cache = new MazeCache(dir, 700);                 // 3 labirinti 21x21 (224 byte l'uno)
+        MazeAlgorithm algorithm = new Kruskal();
+        for (long seed = 1; seed <= 3; seed++) {
+            cache.store(algorithm.getName(), seed, generate(algorithm, 21, seed));
+            cache.fileFor(algorithm.getName(), 21, 21, seed).setLastModified(seed * 1000000L);
+        }
+        File pvs2 = cache.fileFor(algorithm.getName(), 21, 21, 2L, ".pvs");
+        Files.write(pvs2.toPath(), new byte[100]);
+        pvs2.setLastModified(2000000L);
+
+        assertNotNull(cache.load(algorithm.getName(), 21, 21, 1L));     // 1 diventa il più recente
+        cache.store(algorithm.getName(), 4L, generate(algorithm, 21, 4L));
+
+        // rimossa solo la chiave 2 (la meno recente), insieme al suo PVS
+        assertFalse(cache.fileFor(algorithm.getName(), 21, 21, 2L).exists());
+        assertFalse(pvs2.exists());
+        assertNotNull(cache.load(algorithm.getName(), 21, 21, 1L));
+        assertNotNull(cache.load(algorithm.getName(), 21, 21, 3L));
+        assertNotNull(cache.load(algorithm.getName(), 21, 21, 4L));
+    }
+
+    @Test
+    public void corruptFiles_throwIOExceptionAndAreDeleted() throws Exception {
+        MazeAlgorithm algorithm = new Kruskal();
+        cache.store(algorithm.getName(), 5L, generate(algorithm, 21, 5L));
+        File file = cache.fileFor(algorithm.getName(), 21, 21, 5L);
+        byte[] valid = Files.readAllBytes(file.toPath());
+
+        byte[][] corrupt = new byte[4][];
+        corrupt[0] = Arrays.copyOf(valid, 30);                 // header troncato
+        corrupt[1] = Arrays.copyOf(valid, valid.length - 8);   // word troncate
+        corrupt[2] = valid.clone();
+        ByteBuffer.wrap(corrupt[2]).order(ByteOrder.LITTLE_ENDIAN).putInt(40, -5);
+        corrupt[3] = valid.clone();
+        ByteBuffer.wrap(corrupt[3]).order(ByteOrder.LITTLE_ENDIAN).putInt(40, 1 << 30);
+
+        for (byte[] data : corrupt) {
+            Files.write(file.toPath(), data);
+            try {
+                cache.load(algorithm.getName(), 21, 21, 5L);
+                fail();
+            } catch (IOException expected) {
+                assertFalse(file.exists());
+            }
+        }
+    }
+
+    @Test
+    public void sameSeed_sameMaze() {
+        MazeCache.Entry a = generate(new Wilson(), 101, 123L);
+        MazeCache.Entry b = generate(new Wilson(), 101, 123L);
+        assertArrayEquals(a.grid.getWords(), b.grid.getWords());
+    }
+
+    @Test
+    public void cacheHit_2001x2001_returnsStoredMaze() throws Exception {
+        MazeAlgorithm algorithm = new AldousBroder();
+        MazeCache.Entry stored = generate(algorithm, 2001, 1L);
+        cache.store(algorithm.getName(), 1L, stored);
+
+        MazeCache.Entry loaded = cache.load(algorithm.getName(), 2001, 2001, 1L);
+
+        assertNotNull(loaded);
+        assertArrayEquals(stored.grid.getWords(), loaded.grid.getWords());
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.example.progetto.game.maze;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test della griglia bit-packed del labirinto.
+ */
+public class MazeGridTest {
+
+    @Test
+    public void setAndGet_acrossWordBoundary() {
+        MazeGrid grid = new MazeGrid(3, 130);
+
+        grid.setWalkable(1, 63);
+        grid.setWalkable(1, 64);
+        grid.setWalkable(2, 129);
+
+        assertTrue(grid.isWalkable(1, 63));
+        assertTrue(grid.isWalkable(1, 64));
+        assertTrue(grid.isWalkable(2, 129));
+        assertFalse(grid.isWalkable(0, 63));
+        assertFalse(grid.isWalkable(1, 65));
+
+        grid.setWall(1, 64);
+        assertFalse(grid.isWalkable(1, 64));
+    }
+
+    @Test
+    public void countWalls_ignoresPadding() {
+        MazeGrid grid = new MazeGrid(5, 70);
+        assertEquals(5 * 70, grid.countWalls());
+
+        grid.setWalkable(0, 0);
+        grid.setWalkable(4, 69);
+        assertEquals(5 * 70 - 2, grid.countWalls());
+        assertEquals(69, grid.countWallsInRow(4));
+        assertEquals(70, grid.countWallsInRow(2));
+    }
+
+    @Test
+    public void rowMasks_matchCells() {
+        MazeGrid grid = new MazeGrid(2, 100);
+        grid.setWalkable(1, 3);
+        grid.setWalkable(1, 99);
+
+        long[] walkable = new long[grid.getWordsPerRow()];
+        grid.getRowWalkableMask(1, walkable);
+        assertEquals(1L << 3, walkable[0]);
+        assertEquals(1L << (99 - 64), walkable[1]);
+
+        long[] walls = new long[grid.getWordsPerRow()];
+        grid.getRowWallMask(1, walls);
+        assertEquals(98, Long.bitCount(walls[0]) + Long.bitCount(walls[1]));
+
+        MazeGrid copy = new MazeGrid(2, 100);
+        copy.setRowWalkableMask(1, walkable);
+        assertArrayEquals(grid.getWords(), copy.getWords());
+    }
+
+    @Test
+    public void largeGrid_fitsInFewMegabytes() {
+        MazeGrid grid = new MazeGrid(10001, 10001);
+        assertEquals(10001L * 157, grid.getWords().length);
+        assertEquals(10001 * 10001, grid.countWalls());
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.example.progetto.game.maze;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test della generazione parallela a tile (scaling con 1..N thread: ParallelTiledBenchmark nel
+ * modulo benchmarks).
+ */
+public class ParallelTiledAlgorithmTest {
+
+    @Test
+    public void tiledMaze_isPerfect() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        // dimensioni non multiple della tile: l'ultima riga/colonna di tile è più piccola
+        for (int[] dim : new int[][]{ {41, 61}, {83, 29}, {5, 5} }) {
+            MazeGrid grid = new MazeGrid(dim[0], dim[1]);
+            new ParallelTiledAlgorithm(new Wilson(), 6, pool)
+                    .carve(grid, dim[0] - 2, 1, new SplittableRandom(13));
+            MazeAssert.assertPerfectMaze(grid);
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void singleTileColumnOrRow_isPerfect() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        // una sola colonna di tile: l'arco verticale ha b == a + 1 come quello orizzontale
+        for (int[] dim : new int[][]{ {65, 7}, {7, 65}, {65, 11} }) {
+            MazeGrid grid = new MazeGrid(dim[0], dim[1]);
+            new ParallelTiledAlgorithm(new Wilson(), 5, pool)
+                    .carve(grid, dim[0] - 2, 1, new SplittableRandom(1));
+            MazeAssert.assertPerfectMaze(grid);
+        }
+
+        // tile di default, fino a 257 colonne è una sola colonna di tile
+        MazeGrid grid = new MazeGrid(601, 101);
+        new ParallelTiledAlgorithm(new Wilson(), ParallelTiledAlgorithm.DEFAULT_TILE_CELLS, pool)
+                .carve(grid, 599, 1, new SplittableRandom(1));
+        MazeAssert.assertPerfectMaze(grid);
+        pool.shutdown();
+    }
+
+    @Test
+    public void result_doesNotDependOnThreadCount() {
+        MazeGrid one = new MazeGrid(201, 201);
+        MazeGrid many = new MazeGrid(201, 201);
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool multi = new ForkJoinPool(8);
+
+        new ParallelTiledAlgorithm(new RecursiveBacktracker(), 16, single)
+                .carve(one, 199, 1, new SplittableRandom(21));
+        new ParallelTiledAlgorithm(new RecursiveBacktracker(), 16, multi)
+                .carve(many, 199, 1, new SplittableRandom(21));
+
+        assertArrayEquals(one.getWords(), many.getWords());
+        single.shutdown();
+        multi.shutdown();
+    }
+
+}
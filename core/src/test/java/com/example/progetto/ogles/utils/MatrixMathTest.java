@@ -0,0 +1,82 @@
+package com.example.progetto.ogles.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test di MatrixMath: stessi risultati di android.opengl.Matrix sui casi usati da camere e oggetti.
+ */
+public class MatrixMathTest {
+
+    private static final float EPS = 1e-5f;
+
+    @Test
+    public void lookAt_fromOriginTowardsNegativeZ_isIdentity() {
+        float[] m = new float[16];
+        float[] identity = new float[16];
+        MatrixMath.setIdentityM(identity, 0);
+
+        MatrixMath.setLookAtM(m, 0, 0, 0, 0, 0, 0, -1, 0, 1, 0);
+        assertArrayEquals(identity, m, EPS);
+
+        // con l'occhio spostato la view trasla il mondo all'opposto
+        MatrixMath.setLookAtM(m, 0, 1, 2, 3, 1, 2, 2, 0, 1, 0);
+        float[] p = transform(m, 1, 2, 3);
+        assertArrayEquals(new float[]{ 0, 0, 0, 1 }, p, EPS);
+    }
+
+    @Test
+    public void perspectiveAndOrtho_matchAndroidFormulas() {
+        float[] m = new float[16];
+        MatrixMath.perspectiveM(m, 0, 90f, 2f, 1f, 3f);
+        assertEquals(0.5f, m[0], EPS);           // f / aspect con f = 1 (fovy 90°)
+        assertEquals(1f, m[5], EPS);
+        assertEquals(-2f, m[10], EPS);           // (far + near) / (near - far)
+        assertEquals(-1f, m[11], EPS);
+        assertEquals(-3f, m[14], EPS);           // 2 * far * near / (near - far)
+        assertEquals(0f, m[15], EPS);
+
+        MatrixMath.orthoM(m, 0, -2, 2, -1, 1, 0.1f, 100f);
+        float[] p = transform(m, 2, 1, -100f);
+        assertArrayEquals(new float[]{ 1, 1, 1, 1 }, p, EPS);
+
+        try {
+            MatrixMath.orthoM(m, 0, 1, 1, -1, 1, 0.1f, 100f);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+    }
+
+    @Test
+    public void modelTransforms_composeLikeObject3D() {
+        float[] m = new float[16];
+        MatrixMath.setIdentityM(m, 0);
+        MatrixMath.translateM(m, 0, 10, 0, 0);
+        MatrixMath.rotateM(m, 0, 90, 0, 2, 0);     // asse non normalizzato
+        MatrixMath.scaleM(m, 0, 2, 2, 2);
+
+        // x locale: scalata, ruotata di 90° attorno a y (verso -z) e traslata
+        assertArrayEquals(new float[]{ 10, 0, -2, 1 }, transform(m, 1, 0, 0), EPS);
+
+        // multiplyMM con risultato sovrapposto al secondo operando
+        float[] t = new float[16];
+        MatrixMath.setIdentityM(t, 0);
+        MatrixMath.translateM(t, 0, 0, 5, 0);
+        float[] r = new float[16];
+        MatrixMath.setIdentityM(r, 0);
+        MatrixMath.scaleM(r, 0, 3, 3, 3);
+        MatrixMath.multiplyMM(r, 0, t, 0, r, 0);
+        assertArrayEquals(new float[]{ 3, 8, 0, 1 }, transform(r, 1, 1, 0), EPS);
+    }
+
+    private static float[] transform(float[] m, float x, float y, float z) {
+        float[] res = new float[4];
+        for (int i = 0; i < 4; i++) {
+            res[i] = m[i] * x + m[4 + i] * y + m[8 + i] * z + m[12 + i];
+        }
+        return res;
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.example.progetto.ogles.utils;
+
+import com.example.progetto.game.LabyrinthGenerator;
+import com.example.progetto.game.maze.GridPoint;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test del Tracer nella JVM, con un bridge che registra le chiamate.
+ */
+public class TracerTest {
+
+    private List<String> bridgeCalls;
+
+    @Before
+    public void setUp() {
+        bridgeCalls = Collections.synchronizedList(new ArrayList<String>());
+        Tracer.setBridge(new Tracer.Bridge() {
+            @Override
+            public void beginSection(String name) { bridgeCalls.add("begin " + name); }
+
+            @Override
+            public void endSection() { bridgeCalls.add("end"); }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        Tracer.stop();
+        Tracer.setBridge(Tracer.NONE);
+    }
+
+    @Test
+    public void disabled_recordsNothingAndDoesNotAllocate() {
+        Tracer.stop();
+        Tracer.begin("x");
+        Tracer.end();
+        assertTrue(bridgeCalls.isEmpty());
+
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        long id = Thread.currentThread().getId();
+
+        long before = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < 100000; i++) {
+            Tracer.begin("span");
+            Tracer.end();
+        }
+        long allocated = threads.getThreadAllocatedBytes(id) - before;
+        assertTrue("allocati " + allocated + " byte", allocated < 1024);
+    }
+
+    @Test
+    public void nestedSpans_exportAsCompleteEvents() throws Exception {
+        Tracer.start();
+        Tracer.begin("outer");
+        Tracer.begin("in\"ner");
+        Thread.sleep(2);
+        Tracer.end();
+        Tracer.end();
+        Tracer.end();                                           // senza span aperti: ignorata
+
+        assertEquals(2, Tracer.getEventCount());
+        assertEquals("[begin outer, begin in\"ner, end, end]", bridgeCalls.toString());
+
+        StringWriter out = new StringWriter();
+        assertEquals(2, Tracer.writeJson(out));
+        String json = out.toString();
+
+        assertTrue(json.startsWith("{\"traceEvents\":["));
+        assertTrue(json.contains("\"name\":\"in\\\"ner\",\"cat\":\"app\",\"ph\":\"X\""));
+        assertTrue(json.contains("\"name\":\"thread_name\",\"ph\":\"M\""));
+        assertTrue(json.trim().endsWith("\"otherData\":{\"dropped\":0}}"));
+        assertEquals(count(json, "{"), count(json, "}"));
+        assertEquals(count(json, "["), count(json, "]"));
+    }
+
+    @Test
+    public void instrumentedStartupPhase_isTraced() throws Exception {
+        Tracer.start();
+        new LabyrinthGenerator(new GridPoint(15, 15)).generate();
+        Tracer.stop();
+
+        StringWriter out = new StringWriter();
+        Tracer.writeJson(out);
+        assertTrue(out.toString().contains("\"name\":\"LabyrinthGenerator.generate\""));
+    }
+
+    @Test
+    public void stopWhileAnotherThreadHasOpenSpan_stillEndsTheSection() throws Exception {
+        final CountDownLatch opened = new CountDownLatch(1);
+        final CountDownLatch stopped = new CountDownLatch(1);
+        Thread worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Tracer.begin("worker");
+                opened.countDown();
+                try {
+                    stopped.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                Tracer.begin("dopo lo stop");                   // spento: solo per accoppiare
+                Tracer.end();
+                Tracer.end();
+            }
+        });
+
+        Tracer.start();
+        worker.start();
+        opened.await();
+        Tracer.stop();
+        stopped.countDown();
+        worker.join();
+
+        assertEquals("[begin worker, end]", bridgeCalls.toString());
+        assertEquals(1, Tracer.getEventCount());
+
+        bridgeCalls.clear();
+        Tracer.begin("x");
+        Tracer.end();
+        assertTrue(bridgeCalls.isEmpty());
+    }
+
+    @Test
+    public void spanFromPreviousSession_isEndedButNotRecorded() {
+        Tracer.start();
+        Tracer.begin("vecchio");
+        Tracer.start();
+        Tracer.begin("nuovo");
+        Tracer.end();
+        Tracer.end();
+
+        assertEquals("[begin vecchio, begin nuovo, end, end]", bridgeCalls.toString());
+        assertEquals(1, Tracer.getEventCount());
+    }
+
+    private static int count(String s, String c) {
+        int n = 0;
+        for (int i = s.indexOf(c); i >= 0; i = s.indexOf(c, i + 1)) n++;
+        return n;
+    }
+
+}